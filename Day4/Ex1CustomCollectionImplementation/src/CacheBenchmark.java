@@ -0,0 +1,126 @@
+import collections.ConcurrentCache;
+import collections.LRUCache;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+// ConcurrentCache (W-TinyLFU) vs LRUCache on Zipfian key traces.
+//   hit rate   - single-threaded replay of each trace at a few cache sizes; the "zipf+scan" trace
+//                interleaves one-off sequential scans with the skewed traffic
+//   throughput - get-or-put over the same trace from 1..16 threads; LRUCache is not thread-safe,
+//                so it runs behind one lock, which is what sharing it would take
+// Plain main-method harness (the module has no build file to pull in JMH); each cell runs a
+// warmup window, then reports ops/s over a timed window.
+// Run: java CacheBenchmark [keys] [millis]
+public class CacheBenchmark {
+    private static final int TRACE = 2_000_000;
+    private static final double SKEW = 0.99;
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    public static void main(String[] args) throws InterruptedException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        int[] zipf = zipf(keys, TRACE, new Random(42));
+        int[] scan = withScans(zipf, keys);
+        System.out.printf("keys=%,d trace=%,d skew=%.2f cores=%d%n", keys, TRACE, SKEW, Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%-10s %-9s %10s %10s%n", "trace", "capacity", "LRU", "W-TinyLFU");
+        for (int[] trace : List.of(zipf, scan)) {
+            for (int percent : new int[] {1, 5, 10}) {
+                int capacity = keys * percent / 100;
+                System.out.printf("%-10s %-9s %9.1f%% %9.1f%%%n", trace == zipf ? "zipf" : "zipf+scan", percent + "%",
+                        100 * lruHitRate(trace, capacity), 100 * cacheHitRate(trace, capacity));
+            }
+        }
+
+        int capacity = keys / 10;
+        System.out.printf("%-8s %14s %14s%n", "threads", "LRU (locked)", "W-TinyLFU");
+        for (int threads : THREADS) {
+            LRUCache<Integer, Integer> lru = new LRUCache<>(capacity);
+            Object lock = new Object();
+            double locked = throughput(zipf, threads, millis, k -> {
+                synchronized (lock) {
+                    Integer v = lru.get(k);
+                    if (v == null) lru.put(k, k);
+                }
+            });
+            ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(capacity);
+            double concurrent = throughput(zipf, threads, millis, k -> {
+                if (cache.get(k) == null) cache.put(k, k);
+            });
+            System.out.printf("%-8d %13.2fM %13.2fM%n", threads, locked / 1e6, concurrent / 1e6);
+        }
+    }
+
+    // n draws over keys 0..keys-1 with P(rank r) ~ 1/r^SKEW, by inverting the CDF; keys are shuffled
+    // so popularity does not follow key order.
+    static int[] zipf(int keys, int n, Random rnd) {
+        double[] cdf = new double[keys];
+        double sum = 0;
+        for (int r = 0; r < keys; r++) cdf[r] = sum += 1 / Math.pow(r + 1, SKEW);
+        int[] label = new int[keys];
+        for (int i = 0; i < keys; i++) label[i] = i;
+        for (int i = keys - 1; i > 0; i--) { int j = rnd.nextInt(i + 1), t = label[i]; label[i] = label[j]; label[j] = t; }
+        int[] trace = new int[n];
+        for (int i = 0; i < n; i++) {
+            int r = Arrays.binarySearch(cdf, rnd.nextDouble() * sum);
+            trace[i] = label[r < 0 ? -r - 1 : r];
+        }
+        return trace;
+    }
+
+    // Every 100k requests, a scan over 20k keys that are never asked for again.
+    static int[] withScans(int[] zipf, int keys) {
+        int[] out = new int[zipf.length];
+        int next = keys;
+        for (int i = 0; i < out.length; i++) out[i] = i % 100_000 < 20_000 ? next++ : zipf[i];
+        return out;
+    }
+
+    static double lruHitRate(int[] trace, int capacity) {
+        LRUCache<Integer, Integer> c = new LRUCache<>(capacity);
+        long hits = 0;
+        for (int k : trace) {
+            if (c.get(k) != null) hits++;
+            else c.put(k, k);
+        }
+        return (double) hits / trace.length;
+    }
+
+    static double cacheHitRate(int[] trace, int capacity) {
+        ConcurrentCache<Integer, Integer> c = new ConcurrentCache<>(capacity);
+        for (int k : trace) {
+            if (c.get(k) == null) c.put(k, k);
+        }
+        return c.stats().hitRate();
+    }
+
+    static double throughput(int[] trace, int threads, long millis, java.util.function.IntConsumer op) throws InterruptedException {
+        run(trace, threads, millis / 2, op); // warmup
+        return run(trace, threads, millis, op) * 1000.0 / millis;
+    }
+
+    static long run(int[] trace, int threads, long millis, java.util.function.IntConsumer op) throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        long deadline = System.nanoTime() + millis * 1_000_000;
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int offset = t * (trace.length / threads);
+            workers[t] = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                long n = 0;
+                for (int i = offset; (n & 1023) != 0 || System.nanoTime() < deadline; i = i + 1 == trace.length ? 0 : i + 1) {
+                    op.accept(trace[i]);
+                    n++;
+                }
+                ops.add(n);
+            });
+            workers[t].start();
+        }
+        start.countDown();
+        for (Thread w : workers) w.join();
+        return ops.sum();
+    }
+}
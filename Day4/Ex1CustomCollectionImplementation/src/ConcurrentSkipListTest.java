@@ -0,0 +1,121 @@
+import collections.ConcurrentSkipList;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * ConcurrentSkipList behaves like a TreeMap from one thread, range views agree with TreeMap's, and
+ * concurrent writers neither lose nor duplicate keys while iterators stay ordered.
+ * Run with assertions enabled: java -ea ConcurrentSkipListTest
+ */
+public class ConcurrentSkipListTest {
+
+    public void testMatchesTreeMap() {
+        ConcurrentSkipList<Integer, Integer> map = new ConcurrentSkipList<>();
+        TreeMap<Integer, Integer> reference = new TreeMap<>();
+        Random rnd = new Random(11);
+        for (int i = 0; i < 50_000; i++) {
+            int k = rnd.nextInt(2000), v = rnd.nextInt();
+            switch (rnd.nextInt(6)) {
+                case 0, 1 -> { assert Objects.equals(map.put(k, v), reference.put(k, v)) : "put " + k; }
+                case 2 -> { assert Objects.equals(map.putIfAbsent(k, v), reference.putIfAbsent(k, v)) : "putIfAbsent " + k; }
+                case 3 -> { assert Objects.equals(map.remove(k), reference.remove(k)) : "remove " + k; }
+                case 4 -> { assert Objects.equals(map.replace(k, v), reference.replace(k, v)) : "replace " + k; }
+                default -> { assert Objects.equals(map.get(k), reference.get(k)) : "get " + k; }
+            }
+        }
+        assert map.size() == reference.size() : "size " + map.size() + ", expected " + reference.size();
+        assert new ArrayList<>(map.entrySet()).equals(new ArrayList<>(reference.entrySet())) : "entries differ";
+        System.out.println("✓ testMatchesTreeMap passed");
+    }
+
+    public void testRangeViews() {
+        ConcurrentSkipList<Integer, String> map = new ConcurrentSkipList<>();
+        TreeMap<Integer, String> reference = new TreeMap<>();
+        for (int k = 0; k < 300; k += 3) { map.put(k, "v" + k); reference.put(k, "v" + k); }
+        assert new ArrayList<>(map.subMap(10, 100).keySet()).equals(new ArrayList<>(reference.subMap(10, 100).keySet())) : "subMap";
+        assert new ArrayList<>(map.subMap(9, false, 99, true).keySet())
+                .equals(new ArrayList<>(reference.subMap(9, false, 99, true).keySet())) : "subMap with bounds";
+        assert new ArrayList<>(map.headMap(30).keySet()).equals(new ArrayList<>(reference.headMap(30).keySet())) : "headMap";
+        assert new ArrayList<>(map.tailMap(280).keySet()).equals(new ArrayList<>(reference.tailMap(280).keySet())) : "tailMap";
+        assert map.subMap(10, 100).size() == reference.subMap(10, 100).size() : "range size";
+        Map<Integer, String> view = map.subMap(10, 20);
+        view.remove(12);
+        assert !map.containsKey(12) : "remove through a view";
+        assert view.get(30) == null && map.get(30) != null : "view sees a key outside its range";
+        boolean rejected = false;
+        try {
+            view.put(50, "x");
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+        assert rejected && !map.containsKey(50) : "put outside the view's range";
+        System.out.println("✓ testRangeViews passed");
+    }
+
+    // Each thread owns a residue class of keys and inserts and removes its own, while all of them race
+    // on a shared counter key with putIfAbsent/replace.
+    public void testConcurrentWriters() throws Exception {
+        ConcurrentSkipList<Integer, Integer> map = new ConcurrentSkipList<>();
+        int threads = 4, perThread = 20_000, counter = -1;
+        map.put(counter, 0);
+        ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+        AtomicBoolean done = new AtomicBoolean();
+        AtomicInteger unordered = new AtomicInteger();
+        Future<?> reader = pool.submit(() -> {
+            while (!done.get()) {
+                Integer last = null;
+                for (Integer k : map.keySet()) {
+                    if (last != null && k <= last) unordered.incrementAndGet();
+                    last = k;
+                }
+            }
+            return null;
+        });
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int id = t;
+            writers.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    int k = i * threads + id;
+                    assert map.putIfAbsent(k, k) == null : "key " + k + " already present";
+                    if (i % 2 == 1) assert map.remove(k) == k : "key " + k + " lost";
+                    for (;;) {
+                        Integer c = map.get(counter);
+                        if (map.replace(counter, c, c + 1)) break;
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : writers) f.get();
+        done.set(true);
+        reader.get();
+        pool.shutdown();
+        assert unordered.get() == 0 : unordered.get() + " out-of-order keys seen while iterating";
+        assert map.get(counter) == threads * perThread : "counter " + map.get(counter);
+        int expected = threads * perThread / 2 + 1;
+        assert map.size() == expected : "size " + map.size() + ", expected " + expected;
+        int count = 0;
+        for (Map.Entry<Integer, Integer> e : map.entrySet()) {
+            if (e.getKey() >= 0) assert (e.getKey() / threads) % 2 == 0 && e.getValue().equals(e.getKey()) : "entry " + e;
+            count++;
+        }
+        assert count == expected : "iterated " + count + " entries, expected " + expected;
+        System.out.println("✓ testConcurrentWriters passed");
+    }
+
+    public static void main(String[] args) {
+        ConcurrentSkipListTest test = new ConcurrentSkipListTest();
+        try {
+            test.testMatchesTreeMap();
+            test.testRangeViews();
+            test.testConcurrentWriters();
+            System.out.println("\n✓ All ConcurrentSkipListTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
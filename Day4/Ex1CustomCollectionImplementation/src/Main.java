@@ -47,6 +47,14 @@ public class Main {
         System.out.println("Get(2): " + cache.get(2));
         System.out.println("Cache size: " + cache.size());
 
+        // ==== Test ConcurrentCache ====
+        System.out.println("\n=== ConcurrentCache Test ===");
+        ConcurrentCache<Integer, String> shared = new ConcurrentCache<>(100, java.time.Duration.ofMinutes(5), null);
+        for (int i = 0; i < 1000; i++) shared.get(i % 10, k -> "value" + k); // 10 loads, then hits
+        for (int i = 1000; i < 1200; i++) shared.put(i, "scan" + i);         // one-off keys
+        System.out.println("Get(3) after a scan: " + shared.get(3));
+        System.out.println("Cache size: " + shared.size() + ", " + shared.stats());
+
         // ==== Test MultiMap ====
         System.out.println("\n=== MultiMap Test ===");
         MultiMap<String, String> multiMap = new MultiMap<>();
@@ -67,6 +75,26 @@ public class Main {
         System.out.println("Get(3): " + skipList.get(3));
         System.out.println("Get(4): " + skipList.get(4));
 
+        // ==== Test ConcurrentSkipList ====
+        System.out.println("\n=== ConcurrentSkipList Test ===");
+        ConcurrentSkipList<Integer, String> concurrent = new ConcurrentSkipList<>();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            int offset = t;
+            writers[t] = new Thread(() -> {
+                for (int i = offset; i < 100; i += writers.length) concurrent.put(i, "v" + i);
+            });
+            writers[t].start();
+        }
+        for (Thread w : writers) {
+            try { w.join(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        }
+        concurrent.remove(50);
+        System.out.println("Size after 4 writers and one remove: " + concurrent.size());
+        System.out.println("SubMap [48, 53): " + concurrent.subMap(48, 53));
+        System.out.println("HeadMap(3): " + concurrent.headMap(3).keySet());
+        System.out.println("TailMap(97): " + concurrent.tailMap(97).keySet());
+
         // ==== Test Trie ====
         System.out.println("\n=== Trie Test ===");
         Trie trie = new Trie();
@@ -75,5 +103,16 @@ public class Main {
         System.out.println("Search 'hello': " + trie.search("hello"));
         System.out.println("Search 'hell': " + trie.search("hell"));
         System.out.println("StartsWith 'hel': " + trie.startsWith("hel"));
+
+        // ==== Test RadixTrie ====
+        System.out.println("\n=== RadixTrie Test ===");
+        RadixTrie radix = new RadixTrie();
+        radix.insert("help", 5);
+        radix.insert("hello", 3);
+        radix.insert("helium");
+        radix.insert("hero", 4);
+        System.out.println("Search 'hell': " + radix.search("hell"));
+        System.out.println("Suggest('he', 3): " + radix.suggest("he", 3));
+        System.out.println("Suggest('hel', 5): " + radix.suggest("hel", 5));
     }
 }
@@ -0,0 +1,69 @@
+import collections.ConcurrentSkipList;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// ConcurrentSkipList vs java.util.concurrent.ConcurrentSkipListMap: throughput across thread counts
+// and read/write mixes over a prefilled key range (writes are half put, half remove, so the size
+// stays steady). Plain main-method harness (the module has no build file to pull in JMH); each cell
+// runs a warmup window, then reports ops/s over a timed window.
+// Run: java SkipListBenchmark [keys] [millis]
+public class SkipListBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16, 32};
+    private static final int[] READ_PERCENT = {90, 50, 10};
+
+    public static void main(String[] args) throws InterruptedException {
+        int keys = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        long millis = args.length > 1 ? Long.parseLong(args[1]) : 1000;
+        System.out.printf("keys=%,d window=%d ms, cores=%d%n", keys, millis, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-7s %-7s %18s %18s%n", "reads", "threads", "ConcurrentSkipList", "CSLMap");
+        for (int reads : READ_PERCENT) {
+            for (int threads : THREADS) {
+                double ours = run(new ConcurrentSkipList<>(), keys, threads, reads, millis);
+                double jdk = run(new ConcurrentSkipListMap<>(), keys, threads, reads, millis);
+                System.out.printf("%-7s %-7d %17.2fM %17.2fM%n", reads + "%", threads, ours / 1e6, jdk / 1e6);
+            }
+        }
+    }
+
+    static double run(ConcurrentMap<Integer, Integer> map, int keys, int threads, int reads, long millis)
+            throws InterruptedException {
+        for (int k = 0; k < keys; k += 2) map.put(k, k); // half full
+        measure(map, keys, threads, reads, millis / 2); // warmup
+        return measure(map, keys, threads, reads, millis) * 1000.0 / millis;
+    }
+
+    static long measure(ConcurrentMap<Integer, Integer> map, int keys, int threads, int reads, long millis)
+            throws InterruptedException {
+        LongAdder ops = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] workers = new Thread[threads];
+        long[] deadline = new long[1];
+        for (int t = 0; t < threads; t++) {
+            workers[t] = new Thread(() -> {
+                try { start.await(); } catch (InterruptedException e) { return; }
+                ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                long n = 0, sink = 0;
+                while ((n & 1023) != 0 || System.nanoTime() < deadline[0]) {
+                    Integer k = rnd.nextInt(keys);
+                    int op = rnd.nextInt(200);
+                    if (op < reads * 2) {
+                        Integer v = map.get(k);
+                        if (v != null) sink += v;
+                    } else if ((op & 1) == 0) {
+                        map.put(k, k);
+                    } else {
+                        map.remove(k);
+                    }
+                    n++;
+                }
+                ops.add(n + (sink == 42 ? 1 : 0));
+            });
+            workers[t].start();
+        }
+        deadline[0] = System.nanoTime() + millis * 1_000_000;
+        start.countDown();
+        for (Thread w : workers) w.join();
+        return ops.sum();
+    }
+}
@@ -0,0 +1,83 @@
+import collections.RadixTrie;
+import collections.Trie;
+
+import java.util.*;
+
+// Heap footprint of Trie vs RadixTrie over synthetic product names, plus RadixTrie's suggest latency.
+// Heap is measured as the used-heap delta across a load, after GC, so run with a heap large enough
+// for the HashMap trie: java -Xmx4g TrieMemoryReport [names]
+public class TrieMemoryReport {
+    private static final String[] BRANDS = {"acme", "apex", "aurora", "bolt", "cobalt", "crest", "delta", "echo",
+            "ember", "flux", "fusion", "glide", "halo", "helix", "ion", "jade", "kinetic", "lumen", "matrix",
+            "nimbus", "nova", "onyx", "orbit", "pixel", "prism", "pulse", "quantum", "radiant", "sierra", "sonic",
+            "summit", "terra", "titan", "ultra", "vertex", "vista", "volt", "wave", "zen", "zephyr"};
+    private static final String[] ADJECTIVES = {"classic", "compact", "deluxe", "eco", "essential", "smart",
+            "portable", "premium", "pro", "rugged", "slim", "wireless", "digital", "heavy duty", "mini", "max"};
+    private static final String[] PRODUCTS = {"blender", "headphones", "keyboard", "lamp", "laptop stand",
+            "microwave", "monitor", "mouse", "phone case", "power bank", "router", "speaker", "tablet", "toaster",
+            "vacuum", "watch", "webcam", "backpack", "charger", "coffee maker", "drill", "fan", "heater", "kettle"};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 500_000;
+        List<String> names = names(n, new Random(42));
+        long chars = 0;
+        for (String s : names) chars += s.length();
+        System.out.printf("names=%,d chars=%,d (avg %.1f)%n", n, chars, chars / (double) n);
+
+        long before = usedHeap();
+        Trie trie = new Trie();
+        for (String s : names) trie.insert(s);
+        long trieBytes = usedHeap() - before;
+        java.lang.ref.Reference.reachabilityFence(trie);
+        trie = null;
+
+        before = usedHeap();
+        RadixTrie radix = new RadixTrie();
+        long start = System.nanoTime();
+        for (String s : names) radix.insert(s);
+        long loadNanos = System.nanoTime() - start;
+        long radixBytes = usedHeap() - before;
+
+        System.out.printf("%-10s %12s %10s %10s%n", "", "heap", "bytes/name", "bytes/char");
+        System.out.printf("%-10s %10.1fMB %10.1f %10.1f%n", "Trie", trieBytes / 1e6, trieBytes / (double) n, trieBytes / (double) chars);
+        System.out.printf("%-10s %10.1fMB %10.1f %10.1f%n", "RadixTrie", radixBytes / 1e6, radixBytes / (double) n, radixBytes / (double) chars);
+        System.out.printf("RadixTrie: %,d words, %,d nodes, loaded in %d ms%n", radix.size(), radix.nodeCount(), loadNanos / 1_000_000);
+
+        String[] prefixes = {"a", "nova", "nova pro", "zen eco k", "titan smart m"};
+        for (String p : prefixes) System.out.println("suggest(\"" + p + "\", 5) = " + radix.suggest(p, 5));
+        // 10 is served from the per-node caches; 50 is past them and walks the prefix's subtree
+        for (int k : new int[] {10, 50}) {
+            int reps = k <= 10 ? 100_000 : 500;
+            Random rnd = new Random(7);
+            start = System.nanoTime();
+            long sink = 0;
+            for (int i = 0; i < reps; i++) {
+                String name = names.get(rnd.nextInt(n));
+                sink += radix.suggest(name.substring(0, 1 + rnd.nextInt(Math.min(8, name.length()))), k).size();
+            }
+            System.out.printf("suggest(prefix, %d): %.2f us/call (%d results)%n", k, (System.nanoTime() - start) / 1e3 / reps, sink);
+        }
+    }
+
+    // Brand, adjective, product and model number; popular brands and products repeat more often, so
+    // some names are inserted many times (their frequency).
+    static List<String> names(int n, Random rnd) {
+        List<String> names = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            names.add(BRANDS[skewed(rnd, BRANDS.length)] + " " + ADJECTIVES[rnd.nextInt(ADJECTIVES.length)] + " "
+                    + PRODUCTS[skewed(rnd, PRODUCTS.length)] + " " + (char) ('a' + rnd.nextInt(26)) + skewed(rnd, 5000));
+        }
+        return names;
+    }
+
+    private static int skewed(Random rnd, int bound) {
+        double u = rnd.nextDouble();
+        return (int) (bound * u * u * u);
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) System.gc();
+        return rt.totalMemory() - rt.freeMemory();
+    }
+}
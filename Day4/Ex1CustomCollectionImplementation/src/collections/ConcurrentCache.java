@@ -0,0 +1,429 @@
+package collections;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+// Thread-safe bounded cache with W-TinyLFU eviction; the concurrent replacement for LRUCache.
+//
+// Entries live in one ConcurrentHashMap, so a hit is a lock-free lookup. The eviction policy is
+// striped: keys hash to segments, each with its own lock, share of the capacity, and queues:
+//   window    - small LRU (1% of the segment) that every new entry enters
+//   probation - main-space entries seen once since admission
+//   protected - main-space entries hit again while on probation (80% of the main space)
+// An entry leaving the window only stays if a frequency sketch says it is used more often than the
+// probation victim it would displace, so one-off scans cannot flush the hot set.
+//
+// Hits do not touch the queues: they go into a small lossy per-segment buffer that is replayed
+// under the segment lock when it fills (or by the next write), so readers never wait on a lock.
+// Expired entries read as absent; they are removed on access and by the segment's maintenance.
+public class ConcurrentCache<K, V> {
+    private static final int READ_BUFFER = 16; // per segment, power of two
+    private static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2, DEAD = 3;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map = new ConcurrentHashMap<>();
+    private final Segment<K, V>[] segments;
+    private final long expireAfterWriteNanos, expireAfterAccessNanos; // 0 = never
+    private final ConcurrentHashMap<K, CompletableFuture<V>> loading = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder(), misses = new LongAdder(), evictions = new LongAdder(), loads = new LongAdder();
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;
+        volatile long writeTime, accessTime;
+        byte queue;          // guarded by the segment lock, as are the links
+        Node<K, V> prev, next;
+
+        Node(K key) { this.key = key; }
+    }
+
+    public ConcurrentCache(int capacity) { this(capacity, null, null); }
+
+    // A null duration never expires.
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ConcurrentCache(int capacity, Duration expireAfterWrite, Duration expireAfterAccess) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.expireAfterWriteNanos = nanos(expireAfterWrite);
+        this.expireAfterAccessNanos = nanos(expireAfterAccess);
+        // enough segments to spread the lock, few enough that each keeps a meaningful LRU order
+        int stripes = Math.min(4 * Runtime.getRuntime().availableProcessors(), Math.max(1, capacity / 64));
+        stripes = Integer.highestOneBit(stripes);
+        segments = new Segment[stripes];
+        for (int i = 0; i < stripes; i++) segments[i] = new Segment<>(this, capacity / stripes + (i < capacity % stripes ? 1 : 0));
+    }
+
+    private static long nanos(Duration d) {
+        if (d == null) return 0;
+        if (d.isNegative() || d.isZero()) throw new IllegalArgumentException("expiry must be positive: " + d);
+        return d.toNanos();
+    }
+
+    private Segment<K, V> segmentFor(Object key) {
+        int h = key.hashCode() * 0x9E3779B9; // independent of the bits ConcurrentHashMap bins on
+        return segments[(h >>> 16) & (segments.length - 1)];
+    }
+
+    private boolean expires() { return expireAfterWriteNanos != 0 || expireAfterAccessNanos != 0; }
+
+    private boolean expired(Node<K, V> n, long now) {
+        return (expireAfterWriteNanos != 0 && now - n.writeTime >= expireAfterWriteNanos)
+                || (expireAfterAccessNanos != 0 && now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    // Returns the cached value, or null if absent or expired.
+    public V get(K key) {
+        Node<K, V> n = map.get(Objects.requireNonNull(key, "key"));
+        if (n == null) { misses.increment(); return null; }
+        V v = n.value;
+        if (expires()) {
+            long now = System.nanoTime();
+            if (expired(n, now)) {
+                misses.increment();
+                segmentFor(key).expire(n, now);
+                return null;
+            }
+            if (expireAfterAccessNanos != 0) n.accessTime = now;
+        }
+        hits.increment();
+        segmentFor(key).recordRead(n);
+        return v;
+    }
+
+    // Returns the cached value, computing it with loader on a miss. Concurrent misses on one key run
+    // the loader once and share its result; a null result is returned but not cached, and a loader
+    // exception propagates to every waiting caller.
+    public V get(K key, Function<? super K, ? extends V> loader) {
+        V v = get(key);
+        if (v != null) return v;
+        CompletableFuture<V> mine = new CompletableFuture<>();
+        CompletableFuture<V> running = loading.putIfAbsent(key, mine);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                // rethrow what the loader threw, as the caller that ran it sees it
+                if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+                if (e.getCause() instanceof Error) throw (Error) e.getCause();
+                throw e;
+            }
+        }
+        try {
+            Node<K, V> n = map.get(key); // another loader may have finished just before ours started
+            v = n != null && !expired(n, System.nanoTime()) ? n.value : null;
+            if (v == null) {
+                loads.increment();
+                v = loader.apply(key);
+                if (v != null) put(key, v);
+            }
+            mine.complete(v);
+            return v;
+        } catch (RuntimeException | Error e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            loading.remove(key, mine);
+        }
+    }
+
+    public void put(K key, V value) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        segmentFor(key).put(key, value);
+    }
+
+    public V remove(K key) {
+        return segmentFor(Objects.requireNonNull(key, "key")).remove(key);
+    }
+
+    public void clear() {
+        for (Segment<K, V> s : segments) s.clear();
+    }
+
+    // Removes every expired entry now rather than when it is next touched.
+    public void cleanUp() {
+        for (Segment<K, V> s : segments) s.sweep();
+    }
+
+    // Entries held, including expired ones not yet removed.
+    public int size() { return map.size(); }
+
+    public Stats stats() { return new Stats(hits.sum(), misses.sum(), evictions.sum(), loads.sum()); }
+
+    public static final class Stats {
+        public final long hits, misses, evictions, loads;
+
+        Stats(long hits, long misses, long evictions, long loads) {
+            this.hits = hits; this.misses = misses; this.evictions = evictions; this.loads = loads;
+        }
+
+        public double hitRate() {
+            long total = hits + misses;
+            return total == 0 ? 1.0 : (double) hits / total;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("hits=%d misses=%d hitRate=%.3f evictions=%d loads=%d", hits, misses, hitRate(), evictions, loads);
+        }
+    }
+
+    private static final class Segment<K, V> {
+        private final ConcurrentCache<K, V> cache;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final int windowMax, mainMax, protectedMax;
+        private final Queue<K, V> window = new Queue<>(), probation = new Queue<>(), protect = new Queue<>();
+        private final FrequencySketch sketch;
+        private final AtomicReferenceArray<Node<K, V>> reads = new AtomicReferenceArray<>(READ_BUFFER);
+        private final AtomicLong readCount = new AtomicLong();
+        private long drained; // readCount at the last drain
+
+        Segment(ConcurrentCache<K, V> cache, int capacity) {
+            this.cache = cache;
+            this.windowMax = Math.max(1, capacity / 100);
+            this.mainMax = capacity - windowMax;
+            this.protectedMax = mainMax * 4 / 5;
+            this.sketch = new FrequencySketch(capacity);
+        }
+
+        // Lossy: a slot overwritten before the drain just loses that hit's reordering.
+        void recordRead(Node<K, V> n) {
+            long i = readCount.getAndIncrement();
+            reads.lazySet((int) i & (READ_BUFFER - 1), n);
+            if ((i & (READ_BUFFER - 1)) == READ_BUFFER - 1 && lock.tryLock()) {
+                try { maintain(); } finally { lock.unlock(); }
+            }
+        }
+
+        void put(K key, V value) {
+            long now = cache.expires() ? System.nanoTime() : 0;
+            lock.lock();
+            try {
+                maintain();
+                Node<K, V> n = cache.map.get(key);
+                if (n != null) {
+                    n.value = value;
+                    n.writeTime = now;
+                    n.accessTime = now;
+                    onAccess(n);
+                    return;
+                }
+                n = new Node<>(key);
+                n.value = value;
+                n.writeTime = now;
+                n.accessTime = now;
+                n.queue = WINDOW;
+                window.addFirst(n);
+                cache.map.put(key, n);
+                sketch.increment(key.hashCode());
+                evict();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        V remove(K key) {
+            lock.lock();
+            try {
+                Node<K, V> n = cache.map.remove(key);
+                if (n == null) return null;
+                unlink(n);
+                return n.value;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void expire(Node<K, V> n, long now) {
+            lock.lock();
+            try {
+                if (n.queue != DEAD && cache.expired(n, now)) evict(n);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void clear() {
+            lock.lock();
+            try {
+                for (Queue<K, V> q : List.of(window, probation, protect)) {
+                    for (Node<K, V> n = q.last(); n != null; n = q.last()) { cache.map.remove(n.key, n); unlink(n); }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void sweep() {
+            if (!cache.expires()) return;
+            long now = System.nanoTime();
+            lock.lock();
+            try {
+                for (Queue<K, V> q : List.of(window, probation, protect)) {
+                    for (Node<K, V> n = q.sentinel.next, next; n != q.sentinel; n = next) {
+                        next = n.next;
+                        if (cache.expired(n, now)) evict(n);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Replays buffered hits, then drops expired entries from the cold ends of the queues.
+        private void maintain() {
+            long recorded = readCount.get();
+            if (recorded != drained) {
+                drained = recorded;
+                for (int i = 0; i < READ_BUFFER; i++) {
+                    Node<K, V> n = reads.get(i);
+                    if (n == null) continue;
+                    reads.lazySet(i, null); // a hit recorded in between may be lost; the buffer is lossy anyway
+                    if (n.queue != DEAD) {
+                        sketch.increment(n.key.hashCode());
+                        onAccess(n);
+                    }
+                }
+            }
+            if (!cache.expires()) return;
+            long now = System.nanoTime();
+            for (Queue<K, V> q : List.of(window, probation, protect)) {
+                for (Node<K, V> n = q.last(); n != null && cache.expired(n, now); n = q.last()) evict(n);
+            }
+        }
+
+        private void onAccess(Node<K, V> n) {
+            switch (n.queue) {
+                case WINDOW: window.moveToFirst(n); break;
+                case PROTECTED: protect.moveToFirst(n); break;
+                case PROBATION:
+                    probation.remove(n);
+                    n.queue = PROTECTED;
+                    protect.addFirst(n);
+                    if (protect.size > protectedMax) { // demote the coldest protected entry
+                        Node<K, V> demoted = protect.last();
+                        protect.remove(demoted);
+                        demoted.queue = PROBATION;
+                        probation.addFirst(demoted);
+                    }
+                    break;
+                default: break;
+            }
+        }
+
+        // Moves window overflow into the main space if the sketch prefers it to the probation victim.
+        private void evict() {
+            while (window.size > windowMax) {
+                Node<K, V> candidate = window.last();
+                window.remove(candidate);
+                candidate.queue = PROBATION;
+                probation.addFirst(candidate);
+                if (probation.size + protect.size <= mainMax) continue;
+                Node<K, V> victim = probation.last() != candidate ? probation.last() : protect.last();
+                if (victim == null) victim = candidate;
+                boolean admit = victim != candidate
+                        && sketch.frequency(candidate.key.hashCode()) > sketch.frequency(victim.key.hashCode());
+                evict(admit ? victim : candidate);
+            }
+        }
+
+        private void evict(Node<K, V> n) {
+            cache.map.remove(n.key, n);
+            unlink(n);
+            cache.evictions.increment();
+        }
+
+        private void unlink(Node<K, V> n) {
+            switch (n.queue) {
+                case WINDOW: window.remove(n); break;
+                case PROBATION: probation.remove(n); break;
+                case PROTECTED: protect.remove(n); break;
+                default: return;
+            }
+            n.queue = DEAD;
+        }
+    }
+
+    // Intrusive doubly linked list around a sentinel; first = most recently used.
+    private static final class Queue<K, V> {
+        final Node<K, V> sentinel = new Node<>(null);
+        int size;
+
+        Queue() { sentinel.prev = sentinel; sentinel.next = sentinel; }
+
+        Node<K, V> last() { return sentinel.prev == sentinel ? null : sentinel.prev; }
+
+        void addFirst(Node<K, V> n) {
+            n.prev = sentinel;
+            n.next = sentinel.next;
+            sentinel.next.prev = n;
+            sentinel.next = n;
+            size++;
+        }
+
+        void remove(Node<K, V> n) {
+            n.prev.next = n.next;
+            n.next.prev = n.prev;
+            n.prev = n.next = null;
+            size--;
+        }
+
+        void moveToFirst(Node<K, V> n) {
+            if (sentinel.next == n) return;
+            remove(n);
+            addFirst(n);
+        }
+    }
+
+    // Count-min sketch of 4-bit counters, 16 per long, 4 rows. Once the sample size worth of
+    // increments is reached every counter is halved, so old popularity fades.
+    private static final class FrequencySketch {
+        private static final long[] SEEDS = {0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+        private final long[] table;
+        private final int mask, sampleSize;
+        private int additions;
+
+        FrequencySketch(int capacity) {
+            int size = Integer.highestOneBit(Math.max(16, capacity) - 1) << 1; // next power of two
+            table = new long[size / 4];  // 4 rows x size counters
+            mask = table.length - 1;
+            sampleSize = 10 * Math.max(16, capacity);
+        }
+
+        int frequency(int hash) {
+            int min = 15;
+            for (int row = 0; row < 4; row++) min = Math.min(min, (int) ((table[index(hash, row)] >>> offset(hash, row)) & 0xF));
+            return min;
+        }
+
+        void increment(int hash) {
+            boolean added = false;
+            for (int row = 0; row < 4; row++) {
+                int i = index(hash, row), shift = offset(hash, row);
+                if (((table[i] >>> shift) & 0xF) != 0xF) { table[i] += 1L << shift; added = true; }
+            }
+            if (added && ++additions == sampleSize) reset();
+        }
+
+        private void reset() {
+            for (int i = 0; i < table.length; i++) table[i] = (table[i] >>> 1) & 0x7777777777777777L;
+            additions /= 2;
+        }
+
+        private int index(int hash, int row) {
+            long h = (hash + SEEDS[row]) * SEEDS[row];
+            return (int) (h >>> 32) & mask;
+        }
+
+        private int offset(int hash, int row) {
+            long h = (hash ^ SEEDS[row]) * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 60) << 2;
+        }
+    }
+}
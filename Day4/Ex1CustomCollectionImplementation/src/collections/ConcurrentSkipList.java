@@ -0,0 +1,371 @@
+package collections;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.*;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Lock-free sorted map (a Harris/Herlihy-Shavit skip list). Every update is a CAS on one pointer or
+// one value; no thread ever waits for another.
+//
+// Removal is two-phase. remove() first CASes the node's value to null (the moment the key is gone),
+// then marks the node's next pointer at every level, top down, by swapping in a Marked wrapper so no
+// insert can link behind it; any traversal that meets a marked node unlinks it. Inserts link level 0
+// first (the moment the key appears), then the upper levels. Readers never write.
+//
+// Iterators and the subMap/headMap/tailMap views walk level 0 and are weakly consistent: they never
+// throw ConcurrentModificationException, return keys in order, and see every entry that was present
+// for the whole iteration. Null keys and values are not allowed.
+public class ConcurrentSkipList<K extends Comparable<K>, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+    // Levels grow with probability 1/4, so 16 levels cover 4^16 keys.
+    private static final int MAX_LEVEL = 16;
+    private static final VarHandle NEXT = MethodHandles.arrayElementVarHandle(Object[].class);
+    private static final VarHandle VALUE;
+    private static final Node<?, ?>[] NONE = new Node<?, ?>[0];
+
+    static {
+        try {
+            VALUE = MethodHandles.lookup().findVarHandle(Node.class, "value", Object.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final class Node<K, V> {
+        final K key;
+        volatile V value;    // null once removed
+        final Object[] next; // per level: successor Node, Marked once deleted, null at the end
+
+        Node(K key, V value, int height) { this.key = key; this.value = value; this.next = new Object[height]; }
+    }
+
+    // Stands in for a deleted node's next pointer; wraps the successor it had.
+    private static final class Marked {
+        final Object next;
+        Marked(Object next) { this.next = next; }
+    }
+
+    private final Node<K, V> head = new Node<>(null, null, MAX_LEVEL);
+    private final AtomicInteger levels = new AtomicInteger(1); // levels in use; only grows
+    private final LongAdder size = new LongAdder();
+
+    private static Object next(Node<?, ?> n, int level) { return NEXT.getVolatile(n.next, level); }
+
+    private static boolean casNext(Node<?, ?> n, int level, Object expect, Object update) {
+        return NEXT.compareAndSet(n.next, level, expect, update);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V> node(Object next) {
+        return (Node<K, V>) (next instanceof Marked ? ((Marked) next).next : next);
+    }
+
+    private static int randomLevel() {
+        int r = ThreadLocalRandom.current().nextInt();
+        int level = 1;
+        while ((r & 3) == 0 && level < MAX_LEVEL) { level++; r >>>= 2; }
+        return level;
+    }
+
+    // Finds the node with key at level 0 (or null), unlinking marked nodes on the way. For each level
+    // below preds.length it records the last node before key and the first node at or after it.
+    @SuppressWarnings("unchecked")
+    private Node<K, V> find(K key, Node<K, V>[] preds, Node<K, V>[] succs) {
+        retry:
+        while (true) {
+            Node<K, V> pred = head, curr = null;
+            for (int i = levels.get() - 1; i >= 0; i--) {
+                Object raw = next(pred, i);
+                if (raw instanceof Marked) continue retry; // pred was deleted under us
+                curr = (Node<K, V>) raw;
+                while (curr != null) {
+                    Object succ = next(curr, i);
+                    if (succ instanceof Marked) {
+                        Object after = ((Marked) succ).next;
+                        if (!casNext(pred, i, curr, after)) continue retry;
+                        curr = (Node<K, V>) after;
+                    } else if (curr.key.compareTo(key) < 0) {
+                        pred = curr;
+                        curr = (Node<K, V>) succ;
+                    } else {
+                        break;
+                    }
+                }
+                if (i < preds.length) { preds[i] = pred; succs[i] = curr; }
+            }
+            return curr != null && curr.key.compareTo(key) == 0 ? curr : null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K, V> Node<K, V>[] nodes(int n) { return (Node<K, V>[]) new Node<?, ?>[n]; }
+
+    @SuppressWarnings("unchecked")
+    private Node<K, V> find(K key) { return find(key, (Node<K, V>[]) NONE, (Node<K, V>[]) NONE); }
+
+    // Marks every level of a node whose value is already null, top down. Idempotent, so any thread
+    // that runs into a half-deleted node can finish the job.
+    private static void markAll(Node<?, ?> n) {
+        for (int i = n.next.length - 1; i >= 0; i--) {
+            while (true) {
+                Object succ = next(n, i);
+                if (succ instanceof Marked || casNext(n, i, succ, new Marked(succ))) break;
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <K> K key(Object key) {
+        return (K) Objects.requireNonNull(key, "key");
+    }
+
+    // Read-only descent; skips deleted nodes without unlinking them.
+    @Override
+    public V get(Object key) {
+        K k = key(key);
+        Node<K, V> pred = head, curr = null;
+        for (int i = levels.get() - 1; i >= 0; i--) {
+            curr = node(next(pred, i));
+            while (curr != null) {
+                Object succ = next(curr, i);
+                if (succ instanceof Marked) curr = node(succ);
+                else if (curr.key.compareTo(k) < 0) { pred = curr; curr = node(succ); }
+                else break;
+            }
+        }
+        if (curr == null || curr.key.compareTo(k) != 0) return null;
+        V v = curr.value;
+        if (v != null) return v;
+        // a removed node that is still linked may hide a newer one; look again, unlinking it
+        Node<K, V> n = find(k);
+        return n == null ? null : n.value;
+    }
+
+    @Override public boolean containsKey(Object key) { return get(key) != null; }
+
+    @Override public V put(K key, V value) { return put(key, value, false); }
+
+    @Override public V putIfAbsent(K key, V value) { return put(key, value, true); }
+
+    private V put(K key, V value, boolean onlyIfAbsent) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(value, "value");
+        int height = randomLevel();
+        if (height > levels.get()) levels.accumulateAndGet(height, Math::max);
+        // sized to this node's height: most inserts need one level
+        Node<K, V>[] preds = nodes(height), succs = nodes(height);
+        while (true) {
+            Node<K, V> found = find(key, preds, succs);
+            if (found != null) {
+                V v = found.value;
+                if (v == null) { markAll(found); continue; } // being removed: help, then retry
+                if (onlyIfAbsent || VALUE.compareAndSet(found, v, value)) return v;
+                continue;
+            }
+            Node<K, V> node = new Node<>(key, value, height);
+            for (int i = 0; i < height; i++) node.next[i] = succs[i];
+            if (!casNext(preds[0], 0, succs[0], node)) continue;
+            size.increment();
+            for (int i = 1; i < height; i++) {
+                while (!casNext(preds[i], i, succs[i], node)) {
+                    // the neighbourhood changed: search again and repoint this level before retrying
+                    if (find(key, preds, succs) != node) return null; // removed meanwhile
+                    Object old = next(node, i);
+                    if (old instanceof Marked) return null;
+                    if (old != succs[i] && !casNext(node, i, old, succs[i])) return null; // marked meanwhile
+                }
+            }
+            return null;
+        }
+    }
+
+    @Override public V remove(Object key) { return remove(key(key), null); }
+
+    @Override public boolean remove(Object key, Object value) { return value != null && remove(key(key), value) != null; }
+
+    // Removes key if it maps to expected (any value if expected is null); returns the removed value.
+    private V remove(K key, Object expected) {
+        Node<K, V> n = find(key);
+        if (n == null) return null;
+        while (true) {
+            V v = n.value;
+            if (v == null || (expected != null && !expected.equals(v))) return null;
+            if (VALUE.compareAndSet(n, v, null)) {
+                size.decrement();
+                markAll(n);
+                find(key); // unlinks it
+                return v;
+            }
+        }
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        Objects.requireNonNull(value, "value");
+        Node<K, V> n = find(key(key));
+        if (n == null) return null;
+        while (true) {
+            V v = n.value;
+            if (v == null) return null;
+            if (VALUE.compareAndSet(n, v, value)) return v;
+        }
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        Objects.requireNonNull(oldValue, "oldValue");
+        Objects.requireNonNull(newValue, "newValue");
+        Node<K, V> n = find(key(key));
+        if (n == null) return false;
+        while (true) {
+            V v = n.value;
+            if (v == null || !oldValue.equals(v)) return false;
+            if (VALUE.compareAndSet(n, v, newValue)) return true;
+        }
+    }
+
+    // Approximate while updates are in flight.
+    @Override
+    public int size() {
+        long s = size.sum();
+        return s < 0 ? 0 : (int) Math.min(s, Integer.MAX_VALUE);
+    }
+
+    @Override public boolean isEmpty() { return !entrySet().iterator().hasNext(); }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return new AbstractSet<>() {
+            @Override public Iterator<Entry<K, V>> iterator() { return new EntryIterator(null, true, null, false); }
+            @Override public int size() { return ConcurrentSkipList.this.size(); }
+        };
+    }
+
+    // Keys in [from, to).
+    public Map<K, V> subMap(K from, K to) { return subMap(from, true, to, false); }
+
+    public Map<K, V> subMap(K from, boolean fromInclusive, K to, boolean toInclusive) {
+        Objects.requireNonNull(from, "from");
+        Objects.requireNonNull(to, "to");
+        if (from.compareTo(to) > 0) throw new IllegalArgumentException("from > to");
+        return new Range(from, fromInclusive, to, toInclusive);
+    }
+
+    // Keys below to.
+    public Map<K, V> headMap(K to) { return new Range(null, true, Objects.requireNonNull(to, "to"), false); }
+
+    // Keys from from on.
+    public Map<K, V> tailMap(K from) { return new Range(Objects.requireNonNull(from, "from"), true, null, false); }
+
+    // First live node at or after lo (after it if !inclusive), or the first live node if lo is null.
+    private Node<K, V> seek(K lo, boolean inclusive) {
+        Node<K, V> pred = head;
+        if (lo != null) {
+            for (int i = levels.get() - 1; i >= 0; i--) {
+                Node<K, V> curr = node(next(pred, i));
+                while (curr != null) {
+                    int c = curr.key.compareTo(lo);
+                    if (c < 0 || (c == 0 && !inclusive)) { pred = curr; curr = node(next(curr, i)); }
+                    else break;
+                }
+            }
+        }
+        Node<K, V> n = node(next(pred, 0));
+        while (n != null && (n.value == null || (lo != null && !inclusive && n.key.compareTo(lo) == 0))) n = node(next(n, 0));
+        return n;
+    }
+
+    private final class EntryIterator implements Iterator<Entry<K, V>> {
+        private final K hi;
+        private final boolean hiInclusive;
+        private Node<K, V> nextNode;
+        private V nextValue;
+        private K lastKey;
+
+        EntryIterator(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+            this.hi = hi;
+            this.hiInclusive = hiInclusive;
+            advance(seek(lo, loInclusive));
+        }
+
+        // Moves to the first node from n on that is live and within hi.
+        private void advance(Node<K, V> n) {
+            for (; n != null; n = node(ConcurrentSkipList.next(n, 0))) {
+                if (hi != null) {
+                    int c = n.key.compareTo(hi);
+                    if (c > 0 || (c == 0 && !hiInclusive)) break;
+                }
+                V v = n.value;
+                if (v != null) { nextNode = n; nextValue = v; return; }
+            }
+            nextNode = null;
+            nextValue = null;
+        }
+
+        @Override public boolean hasNext() { return nextNode != null; }
+
+        @Override
+        public Entry<K, V> next() {
+            if (nextNode == null) throw new NoSuchElementException();
+            Entry<K, V> e = new SimpleImmutableEntry<>(nextNode.key, nextValue);
+            lastKey = nextNode.key;
+            advance(node(ConcurrentSkipList.next(nextNode, 0)));
+            return e;
+        }
+
+        @Override
+        public void remove() {
+            if (lastKey == null) throw new IllegalStateException();
+            ConcurrentSkipList.this.remove(lastKey);
+            lastKey = null;
+        }
+    }
+
+    // Live view of the keys between two bounds (null = unbounded). size() counts by walking the range.
+    private final class Range extends AbstractMap<K, V> {
+        private final K lo, hi;
+        private final boolean loInclusive, hiInclusive;
+
+        Range(K lo, boolean loInclusive, K hi, boolean hiInclusive) {
+            this.lo = lo; this.loInclusive = loInclusive; this.hi = hi; this.hiInclusive = hiInclusive;
+        }
+
+        private boolean inRange(Object key) {
+            K k = key(key);
+            if (lo != null) {
+                int c = k.compareTo(lo);
+                if (c < 0 || (c == 0 && !loInclusive)) return false;
+            }
+            if (hi != null) {
+                int c = k.compareTo(hi);
+                if (c > 0 || (c == 0 && !hiInclusive)) return false;
+            }
+            return true;
+        }
+
+        @Override public V get(Object key) { return inRange(key) ? ConcurrentSkipList.this.get(key) : null; }
+        @Override public boolean containsKey(Object key) { return get(key) != null; }
+        @Override public V remove(Object key) { return inRange(key) ? ConcurrentSkipList.this.remove(key) : null; }
+
+        @Override
+        public V put(K key, V value) {
+            if (!inRange(key)) throw new IllegalArgumentException("Key out of range: " + key);
+            return ConcurrentSkipList.this.put(key, value);
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<>() {
+                @Override public Iterator<Entry<K, V>> iterator() { return new EntryIterator(lo, loInclusive, hi, hiInclusive); }
+                @Override public int size() {
+                    int n = 0;
+                    for (Iterator<Entry<K, V>> it = iterator(); it.hasNext(); it.next()) n++;
+                    return n;
+                }
+            };
+        }
+    }
+}
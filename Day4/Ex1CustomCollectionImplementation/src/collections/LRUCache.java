@@ -2,6 +2,7 @@ package collections;
 
 import java.util.*;
 
+// Single-threaded (even get reorders the list); ConcurrentCache is the thread-safe replacement.
 public class LRUCache<K,V> {
     private final int capacity;
     private final Map<K,V> map;
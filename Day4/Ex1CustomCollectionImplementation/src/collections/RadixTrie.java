@@ -0,0 +1,240 @@
+package collections;
+
+import java.util.*;
+
+// Compressed (patricia) trie for autocomplete over many strings.
+//
+// Each edge carries a whole run of characters, so a chain of single-child nodes collapses into one
+// node, and children sit in two parallel sorted arrays (first char -> node) searched by binary
+// search instead of a HashMap<Character, Node> per node.
+//
+// Every word has a frequency (how often it was inserted), and every node with children caches the
+// k most frequent words below it. Frequencies only grow, so an insert updates those caches along
+// its own path, and suggest(prefix, n) for n <= k reads one cache instead of walking the subtree.
+public class RadixTrie {
+    private static final char[] EMPTY = new char[0];
+    private static final Node[] NONE = new Node[0];
+
+    private static final class Node {
+        char[] label;   // chars on the edge from the parent
+        char[] first;   // first char of each child's label, sorted; null for a leaf
+        Node[] kids;    // aligned with first
+        Node parent;
+        long freq;      // > 0 marks the end of a word
+        Node[] top;     // most frequent word nodes below, best first; null for a leaf (just itself)
+
+        Node(char[] label, Node parent) { this.label = label; this.parent = parent; }
+    }
+
+    private final int cacheSize;
+    private final Node root = new Node(EMPTY, null);
+    private int words, nodes = 1;
+
+    public RadixTrie() { this(10); }
+
+    // cacheSize: how many completions each node keeps ranked; larger requests walk the subtree.
+    public RadixTrie(int cacheSize) {
+        if (cacheSize <= 0) throw new IllegalArgumentException("cacheSize must be positive: " + cacheSize);
+        this.cacheSize = cacheSize;
+    }
+
+    public void insert(String word) { insert(word, 1); }
+
+    // Adds count to word's frequency.
+    public void insert(String word, long count) {
+        if (count <= 0) throw new IllegalArgumentException("count must be positive: " + count);
+        Node node = root;
+        int i = 0;
+        while (i < word.length()) {
+            int slot = node.first == null ? -1 : Arrays.binarySearch(node.first, word.charAt(i));
+            if (slot < 0) {
+                node = addChild(node, -slot - 1, word.substring(i).toCharArray());
+                break;
+            }
+            Node child = node.kids[slot];
+            int common = commonPrefix(child.label, word, i);
+            if (common < child.label.length) child = split(child, common);
+            node = child;
+            i += common;
+        }
+        if (node.freq == 0) words++;
+        node.freq += count;
+        for (Node n = node; n != null; n = n.parent) offer(n, node);
+    }
+
+    public boolean search(String word) { return frequency(word) > 0; }
+
+    public boolean startsWith(String prefix) { return locate(prefix) != null; }
+
+    public long frequency(String word) {
+        Node n = locate(word);
+        // the prefix may end inside n's label, in which case no word ends there
+        return n != null && depth(n) == word.length() ? n.freq : 0;
+    }
+
+    // Up to n words starting with prefix, most frequent first (ties in alphabetical order).
+    public List<String> suggest(String prefix, int n) {
+        if (n < 0) throw new IllegalArgumentException("n must not be negative: " + n);
+        Node locus = locate(prefix);
+        List<String> result = new ArrayList<>();
+        if (locus == null || n == 0) return result;
+        Node[] best = n <= cacheSize ? topOf(locus) : walk(locus, n);
+        for (int i = 0; i < best.length && i < n; i++) result.add(word(best[i]));
+        return result;
+    }
+
+    public int size() { return words; }
+
+    public int nodeCount() { return nodes; }
+
+    // The node whose path spells prefix or runs through its end; null if no word starts with prefix.
+    private Node locate(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            int slot = node.first == null ? -1 : Arrays.binarySearch(node.first, prefix.charAt(i));
+            if (slot < 0) return null;
+            node = node.kids[slot];
+            int common = commonPrefix(node.label, prefix, i);
+            if (common < node.label.length && i + common < prefix.length()) return null; // diverges mid-edge
+            i += common;
+        }
+        return node;
+    }
+
+    private static int commonPrefix(char[] label, String s, int from) {
+        int n = Math.min(label.length, s.length() - from), i = 0;
+        while (i < n && label[i] == s.charAt(from + i)) i++;
+        return i;
+    }
+
+    private Node addChild(Node parent, int at, char[] label) {
+        if (parent.first == null) {
+            parent.top = topOf(parent); // no longer a leaf: its cache becomes explicit
+            parent.first = EMPTY;
+            parent.kids = NONE;
+        }
+        Node child = new Node(label, parent);
+        int len = parent.first.length;
+        char[] first = new char[len + 1];
+        Node[] kids = new Node[len + 1];
+        System.arraycopy(parent.first, 0, first, 0, at);
+        System.arraycopy(parent.kids, 0, kids, 0, at);
+        System.arraycopy(parent.first, at, first, at + 1, len - at);
+        System.arraycopy(parent.kids, at, kids, at + 1, len - at);
+        first[at] = label[0];
+        kids[at] = child;
+        parent.first = first;
+        parent.kids = kids;
+        nodes++;
+        return child;
+    }
+
+    // Cuts child's edge after `at` chars; returns the new node in between, which covers the same words.
+    private Node split(Node child, int at) {
+        Node parent = child.parent;
+        Node mid = new Node(Arrays.copyOf(child.label, at), parent);
+        mid.top = topOf(child).clone();
+        parent.kids[Arrays.binarySearch(parent.first, child.label[0])] = mid;
+        child.label = Arrays.copyOfRange(child.label, at, child.label.length);
+        child.parent = mid;
+        mid.first = new char[] {child.label[0]};
+        mid.kids = new Node[] {child};
+        nodes++;
+        return mid;
+    }
+
+    private static Node[] topOf(Node n) {
+        if (n.top != null) return n.top;
+        return n.freq > 0 ? new Node[] {n} : NONE;
+    }
+
+    // w's frequency just grew: move it up in n's cache, or into it if it now beats the last entry.
+    private void offer(Node n, Node w) {
+        if (n.top == null) return; // a leaf's only word is itself
+        Node[] top = n.top;
+        int i = 0;
+        while (i < top.length && top[i] != w) i++;
+        if (i == top.length) {
+            if (top.length < cacheSize) {
+                top = n.top = Arrays.copyOf(top, top.length + 1);
+            } else if (!better(w, top[i - 1])) {
+                return;
+            } else {
+                i--;
+            }
+            top[i] = w;
+        }
+        for (; i > 0 && better(top[i], top[i - 1]); i--) {
+            Node t = top[i]; top[i] = top[i - 1]; top[i - 1] = t;
+        }
+    }
+
+    private boolean better(Node a, Node b) {
+        if (a.freq != b.freq) return a.freq > b.freq;
+        return compareWords(a, b) < 0;
+    }
+
+    // Alphabetical order of the words ending at a and b, without spelling them out: if one node is
+    // an ancestor of the other its word is a prefix of the other's; otherwise the two paths leave
+    // their lowest common ancestor through children whose labels start with different chars.
+    private static int compareWords(Node a, Node b) {
+        if (a == b) return 0;
+        int da = levels(a), db = levels(b);
+        Node x = a, y = b;
+        for (int d = da; d > db; d--) x = x.parent;
+        for (int d = db; d > da; d--) y = y.parent;
+        if (x == y) return da > db ? 1 : -1;
+        while (x.parent != y.parent) {
+            x = x.parent;
+            y = y.parent;
+        }
+        return Character.compare(x.label[0], y.label[0]);
+    }
+
+    private static int levels(Node n) {
+        int d = 0;
+        for (; n.parent != null; n = n.parent) d++;
+        return d;
+    }
+
+    // The n best words below locus, for requests larger than the cache: a bounded heap over the subtree.
+    // The walk visits words in alphabetical order, so of two equally frequent words the one seen
+    // first ranks higher and ties never need the words spelled out.
+    private Node[] walk(Node locus, int n) {
+        Map<Node, Integer> seen = new HashMap<>();
+        Comparator<Node> worse = Comparator.<Node>comparingLong(x -> x.freq).thenComparing(x -> -seen.get(x));
+        PriorityQueue<Node> heap = new PriorityQueue<>(n + 1, worse); // worst on top
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(locus);
+        int order = 0;
+        while (!stack.isEmpty()) {
+            Node x = stack.pop();
+            if (x.freq > 0 && (heap.size() < n || x.freq > heap.peek().freq)) {
+                seen.put(x, order++);
+                heap.add(x);
+                if (heap.size() > n) seen.remove(heap.poll());
+            }
+            if (x.kids != null) for (int i = x.kids.length - 1; i >= 0; i--) stack.push(x.kids[i]);
+        }
+        Node[] best = new Node[heap.size()];
+        for (int i = best.length - 1; i >= 0; i--) best[i] = heap.poll();
+        return best;
+    }
+
+    private static int depth(Node n) {
+        int d = 0;
+        for (; n != null; n = n.parent) d += n.label.length;
+        return d;
+    }
+
+    private static String word(Node n) {
+        char[] out = new char[depth(n)];
+        int end = out.length;
+        for (; n != null; n = n.parent) {
+            end -= n.label.length;
+            System.arraycopy(n.label, 0, out, end, n.label.length);
+        }
+        return new String(out);
+    }
+}
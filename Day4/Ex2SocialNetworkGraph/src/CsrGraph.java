@@ -0,0 +1,254 @@
+import java.util.Arrays;
+
+// Immutable undirected graph over dense int ids in compressed sparse row form: the neighbours of u
+// are row(u)[rowStart(u) .. rowEnd(u)), sorted ascending, and every edge is stored in both rows.
+// A snapshot is never modified. apply() derives a new one by rebuilding only the rows a batch of
+// edge mutations touches and laying them over the shared base arrays as versioned row patches, so
+// a read after a small write costs the size of the changed rows rather than of the graph;
+// compact() folds the patches back into fresh base arrays, copying untouched rows in bulk.
+// Snapshots derived from one base share its patch table: apply() may only run on one thread at a
+// time, and not while another reads an older snapshot with patches. A compacted one shares nothing.
+public final class CsrGraph {
+    private static final int[] NO_TARGETS = new int[0];
+    private static final CsrGraph EMPTY = new CsrGraph(new int[] {0}, NO_TARGETS, null, 0, 0, 0);
+
+    private final int[] offsets; // base rows: length baseCount + 1
+    private final int[] targets;
+    private final Patches patches; // null when no row is patched
+    private final int version;     // patches newer than this belong to later snapshots
+    private final int vertexCount;
+    private final int targetCount; // 2 * edgeCount
+
+    private CsrGraph(int[] offsets, int[] targets, Patches patches, int version, int vertexCount, int targetCount) {
+        this.offsets = offsets;
+        this.targets = targets;
+        this.patches = patches;
+        this.version = version;
+        this.vertexCount = vertexCount;
+        this.targetCount = targetCount;
+    }
+
+    public static CsrGraph empty() { return EMPTY; }
+
+    public int vertexCount() { return vertexCount; }
+
+    public int edgeCount() { return targetCount / 2; }
+
+    // The array holding u's neighbours, between rowStart(u) and rowEnd(u).
+    public int[] row(int u) {
+        Patch p = patch(u);
+        if (p != null) return p.row;
+        return u < baseCount() ? targets : NO_TARGETS;
+    }
+
+    public int rowStart(int u) { return u < baseCount() && patch(u) == null ? offsets[u] : 0; }
+
+    public int rowEnd(int u) {
+        Patch p = patch(u);
+        if (p != null) return p.row.length;
+        return u < baseCount() ? offsets[u + 1] : 0;
+    }
+
+    public int degree(int u) {
+        Patch p = patch(u);
+        if (p != null) return p.row.length;
+        return u < baseCount() ? offsets[u + 1] - offsets[u] : 0;
+    }
+
+    public int[] neighbors(int u) { return Arrays.copyOfRange(row(u), rowStart(u), rowEnd(u)); }
+
+    public boolean hasEdge(int u, int v) {
+        return u < vertexCount && Arrays.binarySearch(row(u), rowStart(u), rowEnd(u), v) >= 0;
+    }
+
+    // Ints held by row patches, current and superseded, since the base arrays were built: what
+    // compact() would reclaim.
+    public long patchedSize() { return patches == null ? 0 : patches.size; }
+
+    // New snapshot with vertexCount vertices (at least the current count) and the log's mutations
+    // applied; for an edge logged more than once the last mutation wins. The log is left as is.
+    public CsrGraph apply(int vertexCount, Log log) {
+        int oldN = vertexCount();
+        if (vertexCount < oldN) throw new IllegalArgumentException("cannot shrink from " + oldN + " to " + vertexCount);
+        long[] changes = log.resolve(); // (src << 32 | dst << 1 | add), sorted
+        if (changes.length == 0 && vertexCount == oldN) return this;
+        if (patches != null && version != patches.latest) {
+            return compact().apply(vertexCount, log); // a later snapshot already extended the shared patches
+        }
+
+        Patches into = patches != null ? patches : new Patches();
+        int next = into.latest + 1, count = targetCount;
+        int[] merged = new int[16];
+        for (int c = 0; c < changes.length; ) {
+            int u = (int) (changes[c] >>> 32);
+            if (u >= vertexCount) throw new IllegalArgumentException("vertex " + u + " out of range " + vertexCount);
+            int[] src = row(u);
+            int i = rowStart(u), end = rowEnd(u), m = 0, group = c;
+            while (group < changes.length && (int) (changes[group] >>> 32) == u) group++;
+            if (merged.length < end - i + group - c) merged = new int[Math.max(end - i + group - c, merged.length * 2)];
+            for (; c < group; c++) {
+                int v = (int) changes[c] >>> 1;
+                boolean add = (changes[c] & 1) != 0;
+                while (i < end && src[i] < v) merged[m++] = src[i++];
+                boolean present = i < end && src[i] == v;
+                if (present) i++;
+                if (add) merged[m++] = v;
+            }
+            while (i < end) merged[m++] = src[i++];
+            count += m - degree(u);
+            into.put(u, new Patch(next, Arrays.copyOf(merged, m), into.get(u)));
+        }
+        if (changes.length > 0) into.latest = next;
+        return new CsrGraph(offsets, targets, changes.length > 0 ? into : patches, into.latest, vertexCount, count);
+    }
+
+    // The same graph with every row in fresh base arrays and no patches: untouched base rows between
+    // two patched ones are contiguous in both arrays and copied in one run.
+    public CsrGraph compact() {
+        if (patches == null && vertexCount == baseCount()) return this;
+        int n = vertexCount, baseN = baseCount();
+        int[] newOffsets = new int[n + 1];
+        for (int u = 0; u < n; u++) newOffsets[u + 1] = newOffsets[u] + degree(u);
+        int[] newTargets = new int[newOffsets[n]];
+        int from = 0;
+        for (int u = 0; u <= n; u++) {
+            Patch p = u < n ? patch(u) : null;
+            if (u < Math.min(n, baseN) && p == null) continue;
+            int to = Math.min(u, baseN);
+            if (from < to) System.arraycopy(targets, offsets[from], newTargets, newOffsets[from], offsets[to] - offsets[from]);
+            if (p != null) System.arraycopy(p.row, 0, newTargets, newOffsets[u], p.row.length);
+            from = u + 1;
+        }
+        return new CsrGraph(newOffsets, newTargets, null, 0, n, newTargets.length);
+    }
+
+    private int baseCount() { return offsets.length - 1; }
+
+    // u's row as of this snapshot, or null if it is the base row.
+    private Patch patch(int u) {
+        if (patches == null) return null;
+        Patch p = patches.get(u);
+        while (p != null && p.version > version) p = p.older;
+        return p;
+    }
+
+    // One rebuilt row, valid from version on, over the row it replaced.
+    private static final class Patch {
+        final int version;
+        final int[] row;
+        final Patch older;
+
+        Patch(int version, int[] row, Patch older) {
+            this.version = version;
+            this.row = row;
+            this.older = older;
+        }
+    }
+
+    // Newest patch per vertex in an open-addressed table, so a row lookup does not box its id.
+    private static final class Patches {
+        private int[] keys = filled(16);
+        private Patch[] heads = new Patch[16];
+        private int count, latest;
+        private long size;
+
+        Patch get(int u) {
+            int mask = keys.length - 1;
+            for (int slot = hash(u) & mask; keys[slot] != -1; slot = (slot + 1) & mask) {
+                if (keys[slot] == u) return heads[slot];
+            }
+            return null;
+        }
+
+        void put(int u, Patch p) {
+            if (2 * (count + 1) > keys.length) grow();
+            int mask = keys.length - 1, slot = hash(u) & mask;
+            while (keys[slot] != -1 && keys[slot] != u) slot = (slot + 1) & mask;
+            if (keys[slot] == -1) count++;
+            keys[slot] = u;
+            heads[slot] = p;
+            size += p.row.length;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            Patch[] oldHeads = heads;
+            keys = filled(oldKeys.length * 2);
+            heads = new Patch[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == -1) continue;
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != -1) slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                heads[slot] = oldHeads[i];
+            }
+        }
+
+        private static int hash(int u) { return (u * 0x9E3779B9) >>> 7; }
+
+        private static int[] filled(int n) {
+            int[] a = new int[n];
+            Arrays.fill(a, -1);
+            return a;
+        }
+    }
+
+    // Pending edge mutations, in order, as packed primitives. Not thread-safe.
+    public static final class Log {
+        private long[] edges = new long[64]; // (min << 32 | max)
+        private boolean[] adds = new boolean[64];
+        private int size;
+
+        public void add(int u, int v) { append(u, v, true); }
+
+        public void remove(int u, int v) { append(u, v, false); }
+
+        public int size() { return size; }
+
+        public void clear() { size = 0; }
+
+        private void append(int u, int v, boolean add) {
+            if (u < 0 || v < 0) throw new IllegalArgumentException("negative vertex id");
+            if (u == v) throw new IllegalArgumentException("self loop on " + u);
+            if (size == edges.length) {
+                edges = Arrays.copyOf(edges, size * 2);
+                adds = Arrays.copyOf(adds, size * 2);
+            }
+            edges[size] = (long) Math.min(u, v) << 32 | Math.max(u, v);
+            adds[size++] = add;
+        }
+
+        // Last mutation per edge, both directions, sorted by (src, dst). The last-wins pass uses an
+        // open-addressed table rather than a HashMap so a large log does not box every entry.
+        long[] resolve() {
+            int cap = Integer.highestOneBit(Math.max(size, 1) * 2 - 1) << 1, mask = cap - 1;
+            int shift = 64 - Integer.numberOfTrailingZeros(cap); // the product's top bits index the table
+            long[] keys = new long[cap];
+            boolean[] ops = new boolean[cap];
+            Arrays.fill(keys, -1L);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                long e = edges[i];
+                int slot = (int) (e * 0x9E3779B97F4A7C15L >>> shift);
+                while (keys[slot] != -1L && keys[slot] != e) slot = (slot + 1) & mask;
+                if (keys[slot] == -1L) {
+                    keys[slot] = e;
+                    unique++;
+                }
+                ops[slot] = adds[i];
+            }
+            long[] out = new long[unique * 2];
+            int n = 0;
+            for (int slot = 0; slot < cap; slot++) {
+                long e = keys[slot];
+                if (e == -1L) continue;
+                long lo = e >>> 32, hi = e & 0xFFFFFFFFL, op = ops[slot] ? 1 : 0;
+                out[n++] = lo << 32 | hi << 1 | op;
+                out[n++] = hi << 32 | lo << 1 | op;
+            }
+            Arrays.sort(out);
+            return out;
+        }
+    }
+}
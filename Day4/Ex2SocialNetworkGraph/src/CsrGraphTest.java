@@ -0,0 +1,181 @@
+import java.util.*;
+
+/**
+ * CsrGraph snapshots hold exactly the edges applied to them, whether read through row patches or
+ * after compact(), and older snapshots keep their edges; SocialNetwork's friends, paths and
+ * communities follow connect, disconnect and removeUser.
+ * Run with assertions enabled: java -ea CsrGraphTest
+ */
+public class CsrGraphTest {
+
+    private static void assertSame(String label, CsrGraph g, List<TreeSet<Integer>> reference) {
+        assert g.vertexCount() == reference.size() : label + ": " + g.vertexCount() + " vertices, expected " + reference.size();
+        long ends = 0;
+        for (int u = 0; u < reference.size(); u++) {
+            int[] expected = reference.get(u).stream().mapToInt(Integer::intValue).toArray();
+            ends += expected.length;
+            assert Arrays.equals(g.neighbors(u), expected) : label + ": row " + u + " is " + Arrays.toString(g.neighbors(u));
+            assert g.degree(u) == expected.length : label + ": degree of " + u;
+            for (int v : expected) assert g.hasEdge(u, v) && g.hasEdge(v, u) : label + ": missing edge " + u + "-" + v;
+        }
+        assert g.edgeCount() == ends / 2 : label + ": " + g.edgeCount() + " edges, expected " + ends / 2;
+    }
+
+    private static List<TreeSet<Integer>> copy(List<TreeSet<Integer>> reference) {
+        List<TreeSet<Integer>> c = new ArrayList<>();
+        for (TreeSet<Integer> row : reference) c.add(new TreeSet<>(row));
+        return c;
+    }
+
+    // Random batches applied to a chain of snapshots, now and then compacted or branched off an older
+    // one, compared with a TreeSet per vertex.
+    public void testApplyMatchesReference() {
+        Random rnd = new Random(1);
+        for (int round = 0; round < 50; round++) {
+            CsrGraph g = CsrGraph.empty();
+            List<TreeSet<Integer>> reference = new ArrayList<>();
+            List<CsrGraph> snapshots = new ArrayList<>();
+            List<List<TreeSet<Integer>>> references = new ArrayList<>();
+            for (int step = 0; step < 60; step++) {
+                for (int i = rnd.nextInt(4); i > 0; i--) reference.add(new TreeSet<>());
+                int n = reference.size();
+                CsrGraph.Log log = new CsrGraph.Log();
+                for (int k = n < 2 ? 0 : rnd.nextInt(12); k > 0; k--) {
+                    int u = rnd.nextInt(n), v = rnd.nextInt(n);
+                    if (u == v) continue;
+                    boolean add = rnd.nextBoolean();
+                    if (add) log.add(u, v);
+                    else log.remove(u, v);
+                    if (add) { reference.get(u).add(v); reference.get(v).add(u); }
+                    else { reference.get(u).remove(v); reference.get(v).remove(u); }
+                }
+                if (rnd.nextInt(10) == 0 && !snapshots.isEmpty()) {
+                    int s = rnd.nextInt(snapshots.size());
+                    g = snapshots.get(s);
+                    reference = copy(references.get(s));
+                    continue;
+                }
+                g = g.apply(n, log);
+                if (rnd.nextInt(8) == 0) g = g.compact();
+                assertSame("round " + round + " step " + step, g, reference);
+                snapshots.add(g);
+                references.add(copy(reference));
+            }
+            for (int s = 0; s < snapshots.size(); s++) {
+                assertSame("round " + round + " snapshot " + s, snapshots.get(s), references.get(s));
+                assertSame("round " + round + " snapshot " + s + " compacted", snapshots.get(s).compact(), references.get(s));
+            }
+        }
+        System.out.println("✓ testApplyMatchesReference passed");
+    }
+
+    public void testLastMutationWins() {
+        CsrGraph.Log log = new CsrGraph.Log();
+        log.add(0, 1);
+        log.remove(1, 0);
+        log.remove(2, 3);
+        log.add(3, 2);
+        log.add(4, 5);
+        log.add(5, 4);
+        CsrGraph g = CsrGraph.empty().apply(6, log);
+        assert !g.hasEdge(0, 1) && g.hasEdge(2, 3) && g.hasEdge(4, 5) : "last mutation per edge";
+        assert g.edgeCount() == 2 : "an edge logged in both directions counted twice";
+        assert log.size() == 6 : "apply changed the log";
+        CsrGraph again = g.apply(6, log);
+        assert again.edgeCount() == 2 && g.compact().edgeCount() == 2 : "reapplying the same log";
+        CsrGraph.Log nothing = new CsrGraph.Log();
+        nothing.remove(0, 5);
+        assert g.apply(8, nothing).vertexCount() == 8 && g.apply(8, nothing).degree(7) == 0 : "growing the vertex count";
+        System.out.println("✓ testLastMutationWins passed");
+    }
+
+    // Enough users and edges that reads cross patches, folds and the parallel algorithms' splits.
+    public void testSocialNetworkFollowsChanges() {
+        int n = 3000;
+        SocialNetwork network = new SocialNetwork();
+        List<TreeSet<Integer>> reference = new ArrayList<>();
+        Set<Integer> live = new HashSet<>();
+        for (int i = 0; i < n; i++) {
+            network.addUser("u" + i, "User " + i);
+            reference.add(new TreeSet<>());
+            live.add(i);
+        }
+        Random rnd = new Random(9);
+        for (int step = 0; step < 40_000; step++) {
+            int u = rnd.nextInt(n), v = rnd.nextInt(n);
+            int action = rnd.nextInt(100);
+            if (action < 70) {
+                network.connect("u" + u, "u" + v);
+                if (u != v && live.contains(u) && live.contains(v)) { reference.get(u).add(v); reference.get(v).add(u); }
+            } else if (action < 98) {
+                network.disconnect("u" + u, "u" + v);
+                reference.get(u).remove(v);
+                reference.get(v).remove(u);
+            } else if (action < 99 && live.remove(u)) {
+                network.removeUser("u" + u);
+                for (int w : reference.get(u)) reference.get(w).remove(u);
+                reference.get(u).clear();
+            } else {
+                int w = rnd.nextInt(n);
+                List<String> expected = new ArrayList<>();
+                if (live.contains(w)) for (int f : reference.get(w)) expected.add("u" + f);
+                assert network.getFriends("u" + w).equals(expected) : "friends of u" + w + " after step " + step;
+            }
+        }
+        assertSame("network", network.graph(), reference);
+
+        // components and shortest paths against a BFS over the reference
+        int[] component = new int[n];
+        Arrays.fill(component, -1);
+        int[] distance = new int[n];
+        for (int s = 0; s < n; s++) {
+            if (component[s] >= 0 || !live.contains(s)) continue;
+            ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(s));
+            component[s] = s;
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (int v : reference.get(u)) if (component[v] < 0) { component[v] = s; queue.add(v); }
+            }
+        }
+        List<Set<String>> communities = network.detectCommunities();
+        Set<Integer> roots = new HashSet<>();
+        for (int u : live) roots.add(component[u]);
+        assert communities.size() == roots.size() : communities.size() + " communities, expected " + roots.size();
+        for (Set<String> community : communities) {
+            int root = component[Integer.parseInt(community.iterator().next().substring(1))];
+            for (String name : community) assert component[Integer.parseInt(name.substring(1))] == root : "community mixes components";
+        }
+
+        int source = live.iterator().next();
+        Arrays.fill(distance, -1);
+        distance[source] = 0;
+        ArrayDeque<Integer> queue = new ArrayDeque<>(List.of(source));
+        while (!queue.isEmpty()) {
+            int u = queue.poll();
+            for (int v : reference.get(u)) if (distance[v] < 0) { distance[v] = distance[u] + 1; queue.add(v); }
+        }
+        for (int t = 0; t < n; t += 97) {
+            if (!live.contains(t)) continue;
+            List<String> path = network.findShortestPath("u" + source, "u" + t);
+            assert path.size() == distance[t] + 1 : "path u" + source + " -> u" + t + " has " + path.size() + " users, distance " + distance[t];
+            for (int i = 1; i < path.size(); i++) {
+                int a = Integer.parseInt(path.get(i - 1).substring(1)), b = Integer.parseInt(path.get(i).substring(1));
+                assert reference.get(a).contains(b) : "path uses a missing edge " + a + "-" + b;
+            }
+        }
+        System.out.println("✓ testSocialNetworkFollowsChanges passed");
+    }
+
+    public static void main(String[] args) {
+        CsrGraphTest test = new CsrGraphTest();
+        try {
+            test.testApplyMatchesReference();
+            test.testLastMutationWins();
+            test.testSocialNetworkFollowsChanges();
+            System.out.println("\n✓ All CsrGraphTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
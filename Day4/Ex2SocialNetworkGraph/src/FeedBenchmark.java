@@ -0,0 +1,101 @@
+import java.util.*;
+
+// Feed reads per second on a synthetic power-law graph (preferential attachment, each new user
+// befriending 5 existing ones, so a few hubs collect thousands of friends). Compares the old
+// pull-and-sort feed (every friend's posts concatenated and sorted per read) with fan-out on write
+// only and with the hub hybrid, for first pages and for scrolling 5 pages deep.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java -Xmx2g FeedBenchmark [users] [posts]
+public class FeedBenchmark {
+    private static final int PAGE = 20, READS = 200_000;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int postCount = args.length > 1 ? Integer.parseInt(args[1]) : 1_000_000;
+        Random rnd = new Random(42);
+        int[][] edges = powerLawEdges(users, 5, rnd);
+        int[] authors = new int[postCount];
+        for (int i = 0; i < postCount; i++) authors[i] = rnd.nextInt(users);
+        int[] readers = new int[READS];
+        for (int i = 0; i < READS; i++) readers[i] = rnd.nextInt(users);
+        System.out.printf("users=%,d friendships=%,d posts=%,d page=%d%n", users, edges.length, postCount, PAGE);
+
+        pullAndSort(users, edges, authors, readers);
+        System.out.printf("%-22s %12s %14s %14s%n", "feed", "posts/s", "first pages/s", "5-page scrolls/s");
+        precomputed("fan-out on write", Integer.MAX_VALUE, users, edges, authors, readers);
+        for (int limit : new int[] {1000, 200}) precomputed("hybrid, hubs >= " + limit, limit, users, edges, authors, readers);
+    }
+
+    // The feed as SocialNetwork used to build it, over the same data.
+    static void pullAndSort(int users, int[][] edges, int[] authors, int[] readers) {
+        List<List<Integer>> friends = new ArrayList<>(users);
+        List<List<Post>> posts = new ArrayList<>(users);
+        for (int u = 0; u < users; u++) {
+            friends.add(new ArrayList<>());
+            posts.add(new ArrayList<>());
+        }
+        for (int[] e : edges) {
+            friends.get(e[0]).add(e[1]);
+            friends.get(e[1]).add(e[0]);
+        }
+        for (int i = 0; i < authors.length; i++) posts.get(authors[i]).add(new Post(i + 1, "u" + authors[i], "post " + i));
+        int reads = READS / 10; // far slower per read
+        long sink = 0, t0 = System.nanoTime();
+        for (int i = 0; i < reads; i++) {
+            List<Post> feed = new ArrayList<>();
+            for (int f : friends.get(readers[i])) feed.addAll(posts.get(f));
+            feed.sort(Comparator.comparing(Post::getTimestamp).reversed());
+            sink += feed.size();
+        }
+        System.out.printf("pull and sort (old)    %,.0f full-feed reads/s (sink %d)%n", reads / ((System.nanoTime() - t0) / 1e9), sink);
+    }
+
+    static void precomputed(String name, int fanOutLimit, int users, int[][] edges, int[] authors, int[] readers) {
+        SocialNetwork sn = new SocialNetwork(800, fanOutLimit);
+        for (int u = 0; u < users; u++) sn.addUser("u" + u, "User " + u);
+        for (int[] e : edges) sn.connect("u" + e[0], "u" + e[1]);
+        sn.graph();
+        long t0 = System.nanoTime();
+        for (int i = 0; i < authors.length; i++) sn.addPost("u" + authors[i], "post " + i);
+        double postsPerSec = authors.length / ((System.nanoTime() - t0) / 1e9);
+
+        String[] names = new String[readers.length];
+        for (int i = 0; i < readers.length; i++) names[i] = "u" + readers[i];
+        long sink = 0;
+        for (int i = 0; i < readers.length / 10; i++) sink += sn.getNewsFeed(names[i], FeedPage.FIRST, PAGE).getPosts().size(); // warm-up
+        t0 = System.nanoTime();
+        for (String reader : names) sink += sn.getNewsFeed(reader, FeedPage.FIRST, PAGE).getPosts().size();
+        double firstPages = readers.length / ((System.nanoTime() - t0) / 1e9);
+        int scrolls = readers.length / 5;
+        t0 = System.nanoTime();
+        for (int i = 0; i < scrolls; i++) {
+            long cursor = FeedPage.FIRST;
+            for (int p = 0; p < 5; p++) {
+                FeedPage page = sn.getNewsFeed(names[i], cursor, PAGE);
+                sink += page.getPosts().size();
+                if (!page.hasMore()) break;
+                cursor = page.getNextCursor();
+            }
+        }
+        double scrollRate = scrolls / ((System.nanoTime() - t0) / 1e9);
+        System.out.printf("%-22s %12.0f %14.0f %14.0f   (sink %d)%n", name, postsPerSec, firstPages, scrollRate, sink);
+    }
+
+    // Barabasi-Albert: each new user links to m distinct earlier users chosen proportionally to degree.
+    static int[][] powerLawEdges(int users, int m, Random rnd) {
+        int[] endpoints = new int[2 * m * users];
+        int ends = 0;
+        List<int[]> edges = new ArrayList<>(m * users);
+        for (int u = 1; u < users; u++) {
+            Set<Integer> picked = new HashSet<>();
+            int want = Math.min(m, u);
+            while (picked.size() < want) picked.add(ends == 0 ? 0 : endpoints[rnd.nextInt(ends)]);
+            for (int v : picked) {
+                edges.add(new int[] {u, v});
+                endpoints[ends++] = u;
+                endpoints[ends++] = v;
+            }
+        }
+        return edges.toArray(new int[0][]);
+    }
+}
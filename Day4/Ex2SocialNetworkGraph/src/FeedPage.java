@@ -0,0 +1,24 @@
+import java.util.List;
+
+// One page of a news feed, newest first. Pass getNextCursor() to the next call to continue after the
+// last post of this page; FIRST starts from the newest post.
+public class FeedPage {
+    public static final long FIRST = Long.MAX_VALUE;
+
+    private final List<Post> posts;
+    private final long nextCursor; // 0 when there is nothing more
+
+    public FeedPage(List<Post> posts, long nextCursor) {
+        this.posts = posts;
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Post> getPosts() { return posts; }
+    public long getNextCursor() { return nextCursor; }
+    public boolean hasMore() { return nextCursor != 0; }
+
+    @Override
+    public String toString() {
+        return posts + (hasMore() ? " next=" + nextCursor : "");
+    }
+}
@@ -0,0 +1,275 @@
+import java.util.Arrays;
+
+// Friend-of-friend recommendations ranked by mutual friends or Adamic-Adar (mutual friends weighted
+// by 1 / log(their degree)), ties broken by lower id. Each user's top-N list is cached and kept
+// up to date from the stream of edge changes instead of being rescanned:
+// - the endpoints of a changed edge are dropped, as their whole two-hop neighbourhood moved;
+// - for mutual friends, a friend x of endpoint a only sees its score for the other endpoint b
+//   change, so that one score is recomputed (a sorted-row intersection) and moved within x's list.
+//   Each list remembers an upper bound on the best candidate it left out; a list entry falling
+//   below that bound drops the list, as does an entry leaving a list with candidates left out;
+// - Adamic-Adar scores of x also shift with the degrees of a and b, so x's list is dropped.
+// Edge changes are only queued by edgeChanged() and applied on the next query, against the
+// graph passed in then. Nothing is queued while no list is cached, and a queue reaching
+// MAX_QUEUED drops every list instead, so a writer with no readers keeps no backlog. Not thread-safe.
+public class FriendRecommender {
+    public enum Scoring { MUTUAL_FRIENDS, ADAMIC_ADAR }
+
+    private static final int MAX_QUEUED = 1 << 16;
+
+    private final Scoring scoring;
+    private final int topN;
+    private Entry[] cache = new Entry[16];
+    private int cached; // non-null entries of cache
+    private int[] changedA = new int[16], changedB = new int[16];
+    private int changes;
+
+    // scratch, sized to the graph
+    private double[] score = new double[0];
+    private int[] mark = new int[0], touched = new int[0];
+    private int epoch;
+
+    private static final class Entry {
+        int[] ids;
+        double[] scores;
+        int size;
+        int floorId = -1; // best candidate left out, or -1 if every candidate is listed
+        double floorScore;
+    }
+
+    public FriendRecommender(Scoring scoring, int topN) {
+        if (topN <= 0) throw new IllegalArgumentException("topN must be positive: " + topN);
+        this.scoring = scoring;
+        this.topN = topN;
+    }
+
+    public void edgeChanged(int a, int b) {
+        if (cached == 0) return; // nothing to keep up to date; lists are computed on the next query
+        if (changes == MAX_QUEUED) {
+            Arrays.fill(cache, null);
+            cached = 0;
+            changes = 0;
+            return;
+        }
+        if (changes == changedA.length) {
+            changedA = Arrays.copyOf(changedA, changes * 2);
+            changedB = Arrays.copyOf(changedB, changes * 2);
+        }
+        changedA[changes] = a;
+        changedB[changes++] = b;
+    }
+
+    // Best limit candidates for user, best first. Served from the cache when limit <= topN.
+    public int[] recommend(CsrGraph g, int user, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive: " + limit);
+        sync(g);
+        if (limit > topN) {
+            Entry e = compute(g, user, limit);
+            return Arrays.copyOf(e.ids, e.size);
+        }
+        Entry e = user < cache.length ? cache[user] : null;
+        if (e == null) {
+            if (user >= cache.length) cache = Arrays.copyOf(cache, Math.max(g.vertexCount(), cache.length * 2));
+            cache[user] = e = compute(g, user, topN);
+            cached++;
+        }
+        return Arrays.copyOf(e.ids, Math.min(limit, e.size));
+    }
+
+    public int cachedUsers() {
+        return cached;
+    }
+
+    private void sync(CsrGraph g) {
+        if (changes == 0) return;
+        ensureScratch(g.vertexCount());
+        int endpoints = ++epoch;
+        for (int i = 0; i < changes; i++) {
+            mark[changedA[i]] = endpoints;
+            mark[changedB[i]] = endpoints;
+            drop(changedA[i]);
+            drop(changedB[i]);
+        }
+        for (int i = 0; i < changes; i++) {
+            int a = changedA[i], b = changedB[i];
+            for (int k = 0; k < 2; k++, a = changedB[i], b = changedA[i]) {
+                int[] row = g.row(a);
+                for (int j = g.rowStart(a), end = g.rowEnd(a); j < end; j++) {
+                    int x = row[j];
+                    if (mark[x] == endpoints || x >= cache.length || cache[x] == null) continue;
+                    if (scoring == Scoring.ADAMIC_ADAR) drop(x);
+                    else refresh(g, x, b);
+                }
+            }
+        }
+        changes = 0;
+    }
+
+    private void drop(int user) {
+        if (user < cache.length && cache[user] != null) {
+            cache[user] = null;
+            cached--;
+        }
+    }
+
+    // Re-scores candidate c in x's list, dropping the list if it can no longer be trusted.
+    private void refresh(CsrGraph g, int x, int c) {
+        Entry e = cache[x];
+        double s = g.hasEdge(x, c) ? 0 : commonNeighbors(g, x, c);
+        int i = 0;
+        while (i < e.size && e.ids[i] != c) i++;
+        if (i < e.size) {
+            if (s == e.scores[i]) return;
+            if (s == 0) {
+                if (e.floorId >= 0) { drop(x); return; }
+                System.arraycopy(e.ids, i + 1, e.ids, i, e.size - i - 1);
+                System.arraycopy(e.scores, i + 1, e.scores, i, e.size - i - 1);
+                e.size--;
+                return;
+            }
+            if (e.floorId >= 0 && better(e.floorScore, e.floorId, s, c)) { drop(x); return; }
+            e.scores[i] = s;
+            reposition(e, i);
+        } else if (s > 0) {
+            if (e.size < topN) {
+                e.ids[e.size] = c;
+                e.scores[e.size] = s;
+                reposition(e, e.size++);
+            } else if (better(s, c, e.scores[e.size - 1], e.ids[e.size - 1])) {
+                raiseFloor(e, e.scores[e.size - 1], e.ids[e.size - 1]);
+                e.ids[e.size - 1] = c;
+                e.scores[e.size - 1] = s;
+                reposition(e, e.size - 1);
+            } else {
+                raiseFloor(e, s, c);
+            }
+        }
+    }
+
+    private static void raiseFloor(Entry e, double s, int id) {
+        if (e.floorId < 0 || better(s, id, e.floorScore, e.floorId)) {
+            e.floorScore = s;
+            e.floorId = id;
+        }
+    }
+
+    // Moves entry i up or down to restore best-first order.
+    private static void reposition(Entry e, int i) {
+        int id = e.ids[i];
+        double s = e.scores[i];
+        for (; i > 0 && better(s, id, e.scores[i - 1], e.ids[i - 1]); i--) {
+            e.ids[i] = e.ids[i - 1];
+            e.scores[i] = e.scores[i - 1];
+        }
+        for (; i + 1 < e.size && better(e.scores[i + 1], e.ids[i + 1], s, id); i++) {
+            e.ids[i] = e.ids[i + 1];
+            e.scores[i] = e.scores[i + 1];
+        }
+        e.ids[i] = id;
+        e.scores[i] = s;
+    }
+
+    private static boolean better(double s1, int id1, double s2, int id2) {
+        return s1 > s2 || (s1 == s2 && id1 < id2);
+    }
+
+    private static int commonNeighbors(CsrGraph g, int x, int y) {
+        int[] xs = g.row(x), ys = g.row(y);
+        int i = g.rowStart(x), iEnd = g.rowEnd(x), j = g.rowStart(y), jEnd = g.rowEnd(y), n = 0;
+        while (i < iEnd && j < jEnd) {
+            int a = xs[i], b = ys[j];
+            if (a == b) { n++; i++; j++; }
+            else if (a < b) i++;
+            else j++;
+        }
+        return n;
+    }
+
+    // Full two-hop scan with primitive scratch arrays, keeping the best limit in a bounded heap.
+    private Entry compute(CsrGraph g, int user, int limit) {
+        ensureScratch(g.vertexCount());
+        int friend = ++epoch, seen = ++epoch;
+        int[] friends = g.row(user);
+        int start = g.rowStart(user), end = g.rowEnd(user);
+        for (int i = start; i < end; i++) mark[friends[i]] = friend;
+        mark[user] = friend;
+        int count = 0;
+        for (int i = start; i < end; i++) {
+            int f = friends[i], degree = g.degree(f);
+            if (degree < 2) continue; // only knows user
+            double w = scoring == Scoring.MUTUAL_FRIENDS ? 1 : 1 / Math.log(degree);
+            int[] row = g.row(f);
+            for (int j = g.rowStart(f), fEnd = g.rowEnd(f); j < fEnd; j++) {
+                int c = row[j];
+                if (mark[c] == friend) continue;
+                if (mark[c] != seen) {
+                    mark[c] = seen;
+                    score[c] = 0;
+                    touched[count++] = c;
+                }
+                score[c] += w;
+            }
+        }
+
+        Entry e = new Entry();
+        int[] heap = new int[Math.min(limit, count) + 1]; // worst kept candidate on top
+        int size = 0;
+        for (int k = 0; k < count; k++) {
+            int c = touched[k];
+            heap[size] = c;
+            siftUp(heap, size++);
+            if (size > limit) {
+                int out = heap[0];
+                heap[0] = heap[--size];
+                siftDown(heap, size);
+                if (e.floorId < 0 || better(score[out], out, e.floorScore, e.floorId)) {
+                    e.floorId = out;
+                    e.floorScore = score[out];
+                }
+            }
+        }
+        e.ids = new int[Math.max(limit == topN ? topN : size, 1)];
+        e.scores = new double[e.ids.length];
+        e.size = size;
+        for (int k = size - 1; k >= 0; k--) {
+            e.ids[k] = heap[0];
+            e.scores[k] = score[heap[0]];
+            heap[0] = heap[--size];
+            siftDown(heap, size);
+        }
+        return e;
+    }
+
+    private void siftUp(int[] heap, int i) {
+        int c = heap[i];
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (!better(score[heap[parent]], heap[parent], score[c], c)) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = c;
+    }
+
+    private void siftDown(int[] heap, int size) {
+        if (size == 0) return;
+        int c = heap[0], i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && better(score[heap[child]], heap[child], score[heap[child + 1]], heap[child + 1])) child++;
+            if (!better(score[c], c, score[heap[child]], heap[child])) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = c;
+    }
+
+    private void ensureScratch(int n) {
+        if (score.length >= n) return;
+        score = new double[n];
+        mark = new int[n];
+        touched = new int[n];
+        epoch = 0;
+    }
+}
@@ -0,0 +1,216 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+// Graph algorithms over CsrGraph snapshots using only primitive arrays. The whole-graph ones
+// (components, PageRank) split the vertex range across the common fork/join pool; since a snapshot
+// is immutable they need no locking against concurrent mutation of the network (pass them a
+// compacted one, which shares no patch table with later snapshots).
+public final class GraphAlgorithms {
+    private static final int GRAIN = 1 << 12; // vertices per leaf task
+
+    private GraphAlgorithms() {}
+
+    // BFS tree from source: parent[v] is v's predecessor on a shortest path, parent[source] ==
+    // source, and -1 marks vertices that cannot be reached.
+    public static int[] bfsParents(CsrGraph g, int source) {
+        int[] parent = new int[g.vertexCount()];
+        Arrays.fill(parent, -1);
+        int[] queue = new int[g.vertexCount()];
+        int head = 0, tail = 0;
+        parent[source] = source;
+        queue[tail++] = source;
+        while (head < tail) {
+            int u = queue[head++];
+            int[] row = g.row(u);
+            for (int i = g.rowStart(u), end = g.rowEnd(u); i < end; i++) {
+                int v = row[i];
+                if (parent[v] < 0) {
+                    parent[v] = u;
+                    queue[tail++] = v;
+                }
+            }
+        }
+        return parent;
+    }
+
+    // Shortest path from s to t, inclusive, or an empty array if there is none. Searches from both
+    // ends, always growing the smaller frontier by one whole level, and joins the two parent arrays
+    // at the best meeting vertex of that level.
+    public static int[] shortestPath(CsrGraph g, int s, int t) {
+        if (s == t) return new int[] {s};
+        int n = g.vertexCount();
+        int[] fromS = new int[n], fromT = new int[n], distS = new int[n], distT = new int[n];
+        Arrays.fill(fromS, -1);
+        Arrays.fill(fromT, -1);
+        int[] queueS = new int[n], queueT = new int[n];
+        int headS = 0, tailS = 0, headT = 0, tailT = 0;
+        fromS[s] = s;
+        fromT[t] = t;
+        queueS[tailS++] = s;
+        queueT[tailT++] = t;
+        while (headS < tailS && headT < tailT) {
+            boolean forward = (tailS - headS) <= (tailT - headT);
+            int[] parent = forward ? fromS : fromT, other = forward ? fromT : fromS;
+            int[] dist = forward ? distS : distT, otherDist = forward ? distT : distS;
+            int[] queue = forward ? queueS : queueT;
+            int head = forward ? headS : headT, tail = forward ? tailS : tailT, levelEnd = tail;
+            int meet = -1, best = Integer.MAX_VALUE;
+            for (; head < levelEnd; head++) {
+                int u = queue[head];
+                int[] row = g.row(u);
+                for (int i = g.rowStart(u), end = g.rowEnd(u); i < end; i++) {
+                    int v = row[i];
+                    if (parent[v] >= 0) continue;
+                    parent[v] = u;
+                    dist[v] = dist[u] + 1;
+                    queue[tail++] = v;
+                    if (other[v] >= 0 && dist[v] + otherDist[v] < best) {
+                        best = dist[v] + otherDist[v];
+                        meet = v;
+                    }
+                }
+            }
+            if (forward) { headS = head; tailS = tail; } else { headT = head; tailT = tail; }
+            if (meet >= 0) return join(fromS, fromT, distS[meet] + distT[meet] + 1, meet);
+        }
+        return new int[0];
+    }
+
+    private static int[] join(int[] fromS, int[] fromT, int length, int meet) {
+        int[] path = new int[length];
+        int i = 0;
+        for (int v = meet; ; v = fromS[v]) {
+            path[i++] = v;
+            if (fromS[v] == v) break;
+        }
+        for (int a = 0, b = i - 1; a < b; a++, b--) {
+            int tmp = path[a]; path[a] = path[b]; path[b] = tmp;
+        }
+        for (int v = meet; fromT[v] != v; ) {
+            v = fromT[v];
+            path[i++] = v;
+        }
+        return path;
+    }
+
+    // Connected component label of every vertex: the smallest vertex id in its component. Edges are
+    // united in parallel with a lock-free union-find (a root is linked under the smaller root by CAS,
+    // finds halve paths as they go), then every vertex is resolved to its root.
+    public static int[] connectedComponents(CsrGraph g) {
+        int n = g.vertexCount();
+        AtomicIntegerArray parent = new AtomicIntegerArray(n);
+        parallelSum(0, n, (from, to) -> {
+            for (int u = from; u < to; u++) parent.lazySet(u, u);
+            return 0;
+        });
+        parallelSum(0, n, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                int[] row = g.row(u);
+                for (int i = g.rowStart(u), end = g.rowEnd(u); i < end; i++) {
+                    int v = row[i];
+                    if (v > u) union(parent, u, v); // each undirected edge once
+                }
+            }
+            return 0;
+        });
+        int[] label = new int[n];
+        parallelSum(0, n, (from, to) -> {
+            for (int u = from; u < to; u++) label[u] = find(parent, u);
+            return 0;
+        });
+        return label;
+    }
+
+    private static int find(AtomicIntegerArray parent, int x) {
+        while (true) {
+            int p = parent.get(x);
+            if (p == x) return x;
+            int gp = parent.get(p);
+            if (gp != p) parent.compareAndSet(x, p, gp);
+            x = gp;
+        }
+    }
+
+    private static void union(AtomicIntegerArray parent, int a, int b) {
+        while (true) {
+            int ra = find(parent, a), rb = find(parent, b);
+            if (ra == rb) return;
+            if (ra < rb) { int tmp = ra; ra = rb; rb = tmp; }
+            if (parent.compareAndSet(ra, ra, rb)) return; // fails if ra stopped being a root
+        }
+    }
+
+    // PageRank by power iteration with damping d; isolated vertices spread their rank evenly.
+    // Stops after maxIterations or when the L1 change of an iteration drops below tolerance. Each
+    // iteration pulls rank along every vertex's row, so a vertex is only ever written by one task.
+    public static double[] pageRank(CsrGraph g, double d, int maxIterations, double tolerance) {
+        if (d < 0 || d > 1) throw new IllegalArgumentException("damping must be in [0, 1]: " + d);
+        int n = g.vertexCount();
+        if (n == 0) return new double[0];
+        double[] rank = new double[n], next = new double[n], share = new double[n];
+        Arrays.fill(rank, 1.0 / n);
+        for (int it = 0; it < maxIterations; it++) {
+            double[] r = rank, nx = next;
+            double dangling = parallelSum(0, n, (from, to) -> {
+                double lost = 0;
+                for (int u = from; u < to; u++) {
+                    int degree = g.degree(u);
+                    if (degree == 0) lost += r[u];
+                    else share[u] = r[u] / degree;
+                }
+                return lost;
+            });
+            double base = (1 - d) / n + d * dangling / n;
+            double delta = parallelSum(0, n, (from, to) -> {
+                double change = 0;
+                for (int u = from; u < to; u++) {
+                    double sum = 0;
+                    int[] row = g.row(u);
+                    for (int i = g.rowStart(u), end = g.rowEnd(u); i < end; i++) sum += share[row[i]];
+                    nx[u] = base + d * sum;
+                    change += Math.abs(nx[u] - r[u]);
+                }
+                return change;
+            });
+            rank = nx;
+            next = r;
+            if (delta < tolerance) break;
+        }
+        return rank;
+    }
+
+    interface RangeBody {
+        double apply(int from, int to);
+    }
+
+    // Runs body over [from, to) in GRAIN-sized pieces on the common pool and sums the results.
+    static double parallelSum(int from, int to, RangeBody body) {
+        if (to - from <= GRAIN) return body.apply(from, to);
+        return ForkJoinPool.commonPool().invoke(new RangeTask(from, to, body));
+    }
+
+    private static final class RangeTask extends RecursiveTask<Double> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from, to;
+        private final RangeBody body;
+
+        RangeTask(int from, int to, RangeBody body) {
+            this.from = from;
+            this.to = to;
+            this.body = body;
+        }
+
+        @Override
+        protected Double compute() {
+            if (to - from <= GRAIN) return body.apply(from, to);
+            int mid = (from + to) >>> 1;
+            RangeTask left = new RangeTask(from, mid, body);
+            left.fork();
+            double right = new RangeTask(mid, to, body).compute();
+            return left.join() + right;
+        }
+    }
+}
@@ -21,6 +21,13 @@ public class Main {
         // News feed
         System.out.println("Alice's feed: " + sn.getNewsFeed("alice"));
 
+        // Paged feed
+        sn.connect("alice", "carol");
+        FeedPage page = sn.getNewsFeed("alice", FeedPage.FIRST, 1);
+        System.out.println("Alice's feed, page 1: " + page);
+        System.out.println("Alice's feed, page 2: " + sn.getNewsFeed("alice", page.getNextCursor(), 1));
+        sn.disconnect("alice", "carol");
+
         // Shortest path
         System.out.println("Path Alice -> Dave: " + sn.findShortestPath("alice", "dave"));
 
@@ -0,0 +1,142 @@
+import java.util.*;
+
+// Precomputed news feeds over the int ids of a CsrGraph. Every post goes to its author's outbox,
+// and a normal author's post is also pushed into each friend's inbox when written (fan-out on
+// write). An author who reaches fanOutLimit friends becomes a hub: their posts stay in the outbox,
+// and a reader merges the outboxes of their hub friends into their own inbox when reading (k-way
+// heap merge), so one post never turns into millions of inbox writes. Hub status is sticky, so no
+// post made as a hub is ever missing from inboxes later. Timelines are bounded, so a feed reaches
+// back at most timelineCapacity posts per source; inbox posts from authors who are no longer
+// friends, or were removed since posting, are skipped on read. Not thread-safe.
+public class NewsFeed {
+    private final int timelineCapacity, fanOutLimit;
+    private Post[] posts = new Post[1024];       // by id, from 1
+    private int[] postAuthor = new int[1024], postGeneration = new int[1024];
+    private int lastId;
+    private Timeline[] inbox = new Timeline[16], outbox = new Timeline[16]; // null until first used
+    private boolean[] hub = new boolean[16];
+    private int[] generation = new int[16]; // bumped when a user is removed, voiding their posts
+
+    public NewsFeed(int timelineCapacity, int fanOutLimit) {
+        if (timelineCapacity <= 0) throw new IllegalArgumentException("timelineCapacity must be positive: " + timelineCapacity);
+        if (fanOutLimit <= 0) throw new IllegalArgumentException("fanOutLimit must be positive: " + fanOutLimit);
+        this.timelineCapacity = timelineCapacity;
+        this.fanOutLimit = fanOutLimit;
+    }
+
+    public Post publish(CsrGraph g, int author, String authorName, String content) {
+        int id = ++lastId;
+        if (id == posts.length) {
+            posts = Arrays.copyOf(posts, id * 2);
+            postAuthor = Arrays.copyOf(postAuthor, id * 2);
+            postGeneration = Arrays.copyOf(postGeneration, id * 2);
+        }
+        Post post = new Post(id, authorName, content);
+        posts[id] = post;
+        ensureUsers(g.vertexCount());
+        postAuthor[id] = author;
+        postGeneration[id] = generation[author];
+        timeline(outbox, author).add(id);
+        if (!hub[author] && g.degree(author) >= fanOutLimit) hub[author] = true;
+        if (!hub[author]) {
+            int[] row = g.row(author);
+            for (int i = g.rowStart(author), end = g.rowEnd(author); i < end; i++) timeline(inbox, row[i]).add(id);
+        }
+        return post;
+    }
+
+    // Backfills each inbox with the new friend's recent posts; hub posts arrive at read time anyway.
+    public void connected(int a, int b) {
+        ensureUsers(Math.max(a, b) + 1);
+        if (!hub[b] && outbox[b] != null) timeline(inbox, a).mergeFrom(outbox[b]);
+        if (!hub[a] && outbox[a] != null) timeline(inbox, b).mergeFrom(outbox[a]);
+    }
+
+    public void removed(int user) {
+        if (user >= hub.length) return;
+        inbox[user] = null;
+        outbox[user] = null;
+        hub[user] = false;
+        generation[user]++;
+    }
+
+    public boolean isHub(int user) { return user < hub.length && hub[user]; }
+
+    // Up to limit posts older than cursor, newest first.
+    public FeedPage read(CsrGraph g, int user, long cursor, int limit) {
+        if (limit <= 0) throw new IllegalArgumentException("limit must be positive: " + limit);
+        Timeline[] sources = new Timeline[1 + g.degree(user)];
+        int k = 0;
+        if (user < inbox.length && inbox[user] != null) sources[k++] = inbox[user];
+        int[] row = g.row(user);
+        for (int i = g.rowStart(user), end = g.rowEnd(user); i < end; i++) {
+            int f = row[i];
+            if (f < hub.length && hub[f] && outbox[f] != null) sources[k++] = outbox[f];
+        }
+
+        // max-heap of sources by the id each is positioned at; pos walks each source backwards
+        int[] pos = new int[k], heap = new int[k];
+        int heapSize = 0;
+        for (int s = 0; s < k; s++) {
+            pos[s] = sources[s].countBefore(cursor) - 1;
+            if (pos[s] >= 0) siftUp(heap, heapSize++, s, sources, pos);
+        }
+        List<Post> page = new ArrayList<>(Math.min(limit, 64));
+        long previous = 0;
+        while (heapSize > 0) {
+            int s = heap[0];
+            long id = sources[s].get(pos[s]);
+            if (--pos[s] < 0) heap[0] = heap[--heapSize];
+            if (heapSize > 0) siftDown(heap, heapSize, sources, pos);
+            if (id == previous) continue; // in an inbox and in a hub outbox
+            previous = id;
+            int author = postAuthor[(int) id];
+            if (postGeneration[(int) id] != generation[author] || !g.hasEdge(user, author)) continue;
+            if (page.size() == limit) return new FeedPage(page, page.get(limit - 1).getId());
+            page.add(posts[(int) id]);
+        }
+        return new FeedPage(page, 0);
+    }
+
+    private static long head(int s, Timeline[] sources, int[] pos) { return sources[s].get(pos[s]); }
+
+    private static void siftUp(int[] heap, int i, int s, Timeline[] sources, int[] pos) {
+        long key = head(s, sources, pos);
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (head(heap[parent], sources, pos) >= key) break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = s;
+    }
+
+    private static void siftDown(int[] heap, int size, Timeline[] sources, int[] pos) {
+        int s = heap[0], i = 0;
+        long key = head(s, sources, pos);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size) break;
+            if (child + 1 < size && head(heap[child + 1], sources, pos) > head(heap[child], sources, pos)) child++;
+            if (head(heap[child], sources, pos) <= key) break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = s;
+    }
+
+    private Timeline timeline(Timeline[] timelines, int user) {
+        Timeline t = timelines[user];
+        if (t == null) timelines[user] = t = new Timeline(timelineCapacity);
+        return t;
+    }
+
+    private void ensureUsers(int count) {
+        if (count <= hub.length) return;
+        int n = Math.max(count, hub.length * 2);
+        inbox = Arrays.copyOf(inbox, n);
+        outbox = Arrays.copyOf(outbox, n);
+        hub = Arrays.copyOf(hub, n);
+        generation = Arrays.copyOf(generation, n);
+    }
+}
@@ -1,16 +1,19 @@
 import java.time.LocalDateTime;
 
 public class Post {
+    private final long id; // increasing in posting order
     private final String author;
     private final String content;
     private final LocalDateTime timestamp;
 
-    public Post(String author, String content) {
+    public Post(long id, String author, String content) {
+        this.id = id;
         this.author = author;
         this.content = content;
         this.timestamp = LocalDateTime.now();
     }
 
+    public long getId() { return id; }
     public String getAuthor() { return author; }
     public String getContent() { return content; }
     public LocalDateTime getTimestamp() { return timestamp; }
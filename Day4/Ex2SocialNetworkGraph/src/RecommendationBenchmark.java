@@ -0,0 +1,48 @@
+import java.util.*;
+
+// Friend recommendation latency on the power-law graph of FeedBenchmark: the full two-hop scan
+// (a fresh recommender per query) against the cached, incrementally maintained lists, with
+// reads only and with one new friendship per 10 reads. Readers are drawn by degree so hubs are hit
+// as often as they would be in practice.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java -Xmx2g RecommendationBenchmark [users]
+public class RecommendationBenchmark {
+    private static final int QUERIES = 100_000, LIMIT = 10;
+
+    public static void main(String[] args) {
+        int users = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        Random rnd = new Random(42);
+        int[][] edges = FeedBenchmark.powerLawEdges(users, 5, rnd);
+        SocialNetwork sn = new SocialNetwork();
+        for (int u = 0; u < users; u++) sn.addUser("u" + u, "User " + u);
+        for (int[] e : edges) sn.connect("u" + e[0], "u" + e[1]);
+        CsrGraph g = sn.graph();
+        int[] readers = new int[QUERIES];
+        for (int i = 0; i < QUERIES; i++) readers[i] = edges[rnd.nextInt(edges.length)][rnd.nextInt(2)];
+        System.out.printf("users=%,d friendships=%,d limit=%d%n", users, edges.length, LIMIT);
+        System.out.printf("%-34s %12s %12s%n", "", "queries/s", "avg us");
+
+        for (FriendRecommender.Scoring scoring : FriendRecommender.Scoring.values()) {
+            long sink = 0, t0 = System.nanoTime();
+            int cold = QUERIES / 20;
+            for (int i = 0; i < cold; i++) sink += new FriendRecommender(scoring, 20).recommend(g, readers[i], LIMIT).length;
+            report(scoring + ", two-hop scan", cold, System.nanoTime() - t0, sink);
+
+            for (int i = 0; i < QUERIES; i++) sink += sn.recommendFriends("u" + readers[i], LIMIT, scoring).size(); // fill caches
+            t0 = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) sink += sn.recommendFriends("u" + readers[i], LIMIT, scoring).size();
+            report(scoring + ", cached", QUERIES, System.nanoTime() - t0, sink);
+
+            t0 = System.nanoTime();
+            for (int i = 0; i < QUERIES; i++) {
+                if (i % 10 == 0) sn.connect("u" + rnd.nextInt(users), "u" + readers[(i * 31) % QUERIES]);
+                sink += sn.recommendFriends("u" + readers[i], LIMIT, scoring).size();
+            }
+            report(scoring + ", cached + 1 connect/10", QUERIES, System.nanoTime() - t0, sink);
+        }
+    }
+
+    private static void report(String name, int queries, long nanos, long sink) {
+        System.out.printf("%-34s %12.0f %12.2f   (sink %d)%n", name, queries / (nanos / 1e9), nanos / 1e3 / queries, sink);
+    }
+}
@@ -1,131 +1,175 @@
 import java.util.*;
-import java.util.stream.Collectors;
 
+// Users are interned to dense int ids and friendships live in an immutable CsrGraph snapshot.
+// connect/disconnect only append to a mutation log, which the next read of the graph (or the log
+// growing past half the edge count) applies by rebuilding just the rows it touches. Those rows are
+// folded into fresh arrays once they add up to half the edge count, or before a whole-graph pass. Ids of removed users stay reserved, as isolated vertices, until re-added.
+// Posts and feeds are kept by NewsFeed; recommendations by one FriendRecommender per scoring, which
+// hear about every edge change through log().
 public class SocialNetwork {
+    private static final int MIN_LOG_FOLD = 1 << 16;
+
     private final Map<String, User> users = new HashMap<>();
-    private final Map<String, Set<String>> connections = new HashMap<>();
-    private final Map<String, List<Post>> userPosts = new HashMap<>();
+    private final Map<String, Integer> ids = new HashMap<>();
+    private String[] names = new String[16];
+    private CsrGraph graph = CsrGraph.empty();
+    private final CsrGraph.Log pending = new CsrGraph.Log();
+    private final NewsFeed feed;
+    private final FriendRecommender byMutualFriends = new FriendRecommender(FriendRecommender.Scoring.MUTUAL_FRIENDS, 20);
+    private final FriendRecommender byAdamicAdar = new FriendRecommender(FriendRecommender.Scoring.ADAMIC_ADAR, 20);
+
+    public SocialNetwork() {
+        this(800, 1000);
+    }
+
+    // Feeds keep the newest timelineCapacity posts per timeline; users with fanOutLimit or more
+    // friends have their posts merged into feeds at read time instead of pushed at write time.
+    public SocialNetwork(int timelineCapacity, int fanOutLimit) {
+        this.feed = new NewsFeed(timelineCapacity, fanOutLimit);
+    }
 
     // ---- User management ----
     public void addUser(String username, String name) {
         users.putIfAbsent(username, new User(username, name));
-        connections.putIfAbsent(username, new HashSet<>());
-        userPosts.putIfAbsent(username, new ArrayList<>());
+        ids.computeIfAbsent(username, k -> {
+            int id = ids.size();
+            if (id == names.length) names = Arrays.copyOf(names, id * 2);
+            names[id] = k;
+            return id;
+        });
     }
 
     public void removeUser(String username) {
-        users.remove(username);
-        connections.remove(username);
-        userPosts.remove(username);
-        for (Set<String> friends : connections.values()) {
-            friends.remove(username);
-        }
+        if (users.remove(username) == null) return;
+        int id = ids.get(username);
+        CsrGraph g = graph();
+        int[] row = g.row(id);
+        for (int i = g.rowStart(id), end = g.rowEnd(id); i < end; i++) log(id, row[i], false);
+        feed.removed(id);
     }
 
     // ---- Friend connections ----
     public void connect(String u1, String u2) {
-        if (users.containsKey(u1) && users.containsKey(u2)) {
-            connections.get(u1).add(u2);
-            connections.get(u2).add(u1);
+        if (users.containsKey(u1) && users.containsKey(u2) && !u1.equals(u2)) {
+            int a = ids.get(u1), b = ids.get(u2);
+            log(a, b, true);
+            feed.connected(a, b);
         }
     }
 
     public void disconnect(String u1, String u2) {
-        if (connections.containsKey(u1)) connections.get(u1).remove(u2);
-        if (connections.containsKey(u2)) connections.get(u2).remove(u1);
+        if (users.containsKey(u1) && users.containsKey(u2) && !u1.equals(u2)) {
+            log(ids.get(u1), ids.get(u2), false);
+        }
+    }
+
+    private void log(int u, int v, boolean add) {
+        if (add) pending.add(u, v);
+        else pending.remove(u, v);
+        byMutualFriends.edgeChanged(u, v);
+        byAdamicAdar.edgeChanged(u, v);
+        if (pending.size() >= foldThreshold()) graph();
+    }
+
+    // Current snapshot with all pending mutations applied.
+    public CsrGraph graph() {
+        if (pending.size() > 0 || graph.vertexCount() < ids.size()) {
+            graph = graph.apply(ids.size(), pending);
+            pending.clear();
+            if (graph.patchedSize() >= foldThreshold()) graph = graph.compact();
+        }
+        return graph;
+    }
+
+    // The current snapshot folded into plain arrays, for the whole-graph algorithms, which visit
+    // every row anyway.
+    private CsrGraph compactGraph() {
+        graph = graph().compact();
+        return graph;
+    }
+
+    private int foldThreshold() { return Math.max(MIN_LOG_FOLD, graph.edgeCount() >>> 1); }
+
+    // Friends of a user as names, in id order.
+    public List<String> getFriends(String username) {
+        if (!users.containsKey(username)) return List.of();
+        CsrGraph g = graph();
+        int id = ids.get(username);
+        int[] row = g.row(id);
+        List<String> friends = new ArrayList<>(g.degree(id));
+        for (int i = g.rowStart(id), end = g.rowEnd(id); i < end; i++) friends.add(names[row[i]]);
+        return friends;
     }
 
     // ---- Posting ----
     public void addPost(String username, String content) {
         if (users.containsKey(username)) {
-            userPosts.get(username).add(new Post(username, content));
+            feed.publish(graph(), ids.get(username), username, content);
         }
     }
 
+    // Whole (bounded) feed, newest first.
     public List<Post> getNewsFeed(String username) {
-        if (!users.containsKey(username)) return List.of();
-        Set<String> friends = connections.get(username);
-        List<Post> feed = new ArrayList<>();
-        for (String f : friends) {
-            feed.addAll(userPosts.getOrDefault(f, List.of()));
-        }
-        feed.sort(Comparator.comparing(Post::getTimestamp).reversed());
-        return feed;
+        return getNewsFeed(username, FeedPage.FIRST, Integer.MAX_VALUE).getPosts();
+    }
+
+    // Page of up to limit posts older than cursor; start with FeedPage.FIRST.
+    public FeedPage getNewsFeed(String username, long cursor, int limit) {
+        if (!users.containsKey(username)) return new FeedPage(List.of(), 0);
+        return feed.read(graph(), ids.get(username), cursor, limit);
     }
 
     // ---- Graph algorithms ----
-    // BFS shortest path
+    // Bidirectional BFS shortest path
     public List<String> findShortestPath(String start, String end) {
         if (!users.containsKey(start) || !users.containsKey(end)) return List.of();
-        Queue<List<String>> queue = new LinkedList<>();
-        Set<String> visited = new HashSet<>();
-        queue.add(List.of(start));
-        visited.add(start);
-
-        while (!queue.isEmpty()) {
-            List<String> path = queue.poll();
-            String last = path.get(path.size() - 1);
-            if (last.equals(end)) return path;
-            for (String neighbor : connections.getOrDefault(last, Set.of())) {
-                if (!visited.contains(neighbor)) {
-                    visited.add(neighbor);
-                    List<String> newPath = new ArrayList<>(path);
-                    newPath.add(neighbor);
-                    queue.add(newPath);
-                }
-            }
-        }
-        return List.of();
-    }
-
-    // Recommend friends (friends of friends)
-    public Set<String> recommendFriends(String username) {
-        if (!users.containsKey(username)) return Set.of();
-        Set<String> direct = connections.get(username);
-        Set<String> recs = new HashSet<>();
-        for (String f : direct) {
-            for (String fof : connections.get(f)) {
-                if (!fof.equals(username) && !direct.contains(fof)) {
-                    recs.add(fof);
-                }
-            }
-        }
-        return recs;
+        int[] path = GraphAlgorithms.shortestPath(graph(), ids.get(start), ids.get(end));
+        List<String> result = new ArrayList<>(path.length);
+        for (int id : path) result.add(names[id]);
+        return result;
     }
 
-    // Influencers (highest degree centrality)
+    // Recommend friends (friends of friends, most mutual friends first)
+    public List<String> recommendFriends(String username) {
+        return recommendFriends(username, 20, FriendRecommender.Scoring.MUTUAL_FRIENDS);
+    }
+
+    public List<String> recommendFriends(String username, int limit, FriendRecommender.Scoring scoring) {
+        if (!users.containsKey(username)) return List.of();
+        FriendRecommender recommender = scoring == FriendRecommender.Scoring.ADAMIC_ADAR ? byAdamicAdar : byMutualFriends;
+        int[] recs = recommender.recommend(graph(), ids.get(username), limit);
+        List<String> result = new ArrayList<>(recs.length);
+        for (int id : recs) result.add(names[id]);
+        return result;
+    }
+
+    // Influencers (highest PageRank)
     public List<String> findInfluencers(int topN) {
-        return connections.entrySet().stream()
-                .sorted((a, b) -> Integer.compare(b.getValue().size(), a.getValue().size()))
-                .limit(topN)
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        if (topN <= 0) return List.of();
+        double[] rank = GraphAlgorithms.pageRank(compactGraph(), 0.85, 50, 1e-6);
+        // min-heap of the best topN live users so far
+        PriorityQueue<Integer> top = new PriorityQueue<>(Comparator.comparingDouble((Integer u) -> rank[u]));
+        for (int u = 0; u < rank.length; u++) {
+            if (!users.containsKey(names[u])) continue;
+            if (top.size() < topN) top.add(u);
+            else if (rank[u] > rank[top.peek()]) {
+                top.poll();
+                top.add(u);
+            }
+        }
+        List<String> result = new ArrayList<>(top.size());
+        while (!top.isEmpty()) result.add(names[top.poll()]);
+        Collections.reverse(result);
+        return result;
     }
 
-    // Community detection using BFS (connected components)
+    // Community detection (connected components)
     public List<Set<String>> detectCommunities() {
-        List<Set<String>> communities = new ArrayList<>();
-        Set<String> visited = new HashSet<>();
-
-        for (String user : users.keySet()) {
-            if (!visited.contains(user)) {
-                Set<String> community = new HashSet<>();
-                Queue<String> queue = new LinkedList<>();
-                queue.add(user);
-                visited.add(user);
-                while (!queue.isEmpty()) {
-                    String u = queue.poll();
-                    community.add(u);
-                    for (String neighbor : connections.getOrDefault(u, Set.of())) {
-                        if (!visited.contains(neighbor)) {
-                            visited.add(neighbor);
-                            queue.add(neighbor);
-                        }
-                    }
-                }
-                communities.add(community);
-            }
+        int[] label = GraphAlgorithms.connectedComponents(compactGraph());
+        Map<Integer, Set<String>> byLabel = new LinkedHashMap<>();
+        for (int u = 0; u < label.length; u++) {
+            if (users.containsKey(names[u])) byLabel.computeIfAbsent(label[u], k -> new HashSet<>()).add(names[u]);
         }
-        return communities;
+        return new ArrayList<>(byLabel.values());
     }
 }
@@ -0,0 +1,70 @@
+// Bounded ring of post ids in ascending order; once full, adding drops the oldest. Ids must be
+// added in increasing order, except through mergeFrom which handles any overlap. The array grows
+// on demand up to capacity, so the many timelines of quiet users stay small.
+public final class Timeline {
+    private final int capacity;
+    private long[] ids;
+    private int start, size;
+
+    public Timeline(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.ids = new long[Math.min(capacity, 8)];
+    }
+
+    public int size() { return size; }
+
+    public int capacity() { return capacity; }
+
+    public void add(long id) {
+        if (size > 0 && id <= get(size - 1)) throw new IllegalArgumentException("post id " + id + " is not newer than " + get(size - 1));
+        if (size == ids.length && size < capacity) {
+            long[] grown = new long[Math.min(capacity, size * 2)];
+            for (int i = 0; i < size; i++) grown[i] = get(i);
+            ids = grown;
+            start = 0;
+        }
+        if (size < ids.length) {
+            ids[(start + size++) % ids.length] = id;
+        } else {
+            ids[start] = id;
+            start = (start + 1) % ids.length;
+        }
+    }
+
+    // i-th oldest id.
+    public long get(int i) { return ids[(start + i) % ids.length]; }
+
+    // How many ids are smaller than cursor, i.e. the index just past the newest one below it.
+    public int countBefore(long cursor) {
+        int lo = 0, hi = size;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (get(mid) < cursor) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    // Union with other's ids, keeping the newest capacity() of them.
+    public void mergeFrom(Timeline other) {
+        if (other.size == 0) return;
+        long[] merged = new long[Math.min(capacity, Math.max(ids.length, size + other.size))];
+        int i = size - 1, j = other.size - 1, n = merged.length;
+        while (n > 0 && (i >= 0 || j >= 0)) {
+            long a = i >= 0 ? get(i) : Long.MIN_VALUE, b = j >= 0 ? other.get(j) : Long.MIN_VALUE;
+            long next = Math.max(a, b);
+            if (a == next) i--;
+            if (b == next) j--;
+            merged[--n] = next;
+        }
+        ids = merged;
+        start = n % merged.length;
+        size = merged.length - n;
+    }
+
+    public void clear() {
+        start = 0;
+        size = 0;
+    }
+}
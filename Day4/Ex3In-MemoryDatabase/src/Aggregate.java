@@ -0,0 +1,43 @@
+import java.util.Objects;
+
+// One aggregate of a grouped aggregation: a function over a column, e.g. Aggregate.sum("amount").
+// COUNT without a column counts rows; with one it counts the column's non-null values.
+public final class Aggregate {
+    public final AggregateFunction function;
+    public final String column; // null for COUNT(*)
+    public final String alias;
+
+    public Aggregate(AggregateFunction function, String column, String alias) {
+        Objects.requireNonNull(function, "function");
+        if (column == null && function != AggregateFunction.COUNT) throw new IllegalArgumentException(function + " needs a column");
+        this.function = function;
+        this.column = column;
+        this.alias = alias != null ? alias : function + "(" + (column == null ? "*" : column) + ")";
+    }
+
+    public static Aggregate count() { return new Aggregate(AggregateFunction.COUNT, null, null); }
+    public static Aggregate count(String column) { return new Aggregate(AggregateFunction.COUNT, column, null); }
+    public static Aggregate sum(String column) { return new Aggregate(AggregateFunction.SUM, column, null); }
+    public static Aggregate avg(String column) { return new Aggregate(AggregateFunction.AVG, column, null); }
+    public static Aggregate min(String column) { return new Aggregate(AggregateFunction.MIN, column, null); }
+    public static Aggregate max(String column) { return new Aggregate(AggregateFunction.MAX, column, null); }
+    public static Aggregate approxDistinct(String column) { return new Aggregate(AggregateFunction.APPROX_DISTINCT, column, null); }
+
+    // Same aggregate under another output name.
+    public Aggregate as(String alias) { return new Aggregate(function, column, alias); }
+
+    AggregateState newState() { return new AggregateState(function); }
+
+    // Adds one matching row's value of column (ignored for COUNT(*)).
+    void add(AggregateState st, Object value) {
+        if (column == null) st.rows++;
+        else st.addValue(value);
+    }
+
+    Object result(AggregateState st) {
+        if (function == AggregateFunction.COUNT) return (int) (column == null ? st.rows : st.count + st.others);
+        return st.result(function, column);
+    }
+
+    @Override public String toString() { return alias; }
+}
@@ -0,0 +1,9 @@
+public enum AggregateFunction {
+    COUNT, SUM, AVG, MIN, MAX,
+    APPROX_DISTINCT; // distinct non-null values, estimated with a HyperLogLog sketch (about 1.6% error)
+
+    public static AggregateFunction parse(String name) {
+        try { return valueOf(name.toUpperCase()); }
+        catch (IllegalArgumentException e) { throw new IllegalArgumentException("Unknown function: " + name); }
+    }
+}
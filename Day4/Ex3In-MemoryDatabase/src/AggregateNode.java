@@ -0,0 +1,76 @@
+import java.util.*;
+
+// Hash GROUP BY. Output tuples are the group values followed by one value per aggregate.
+// When the optimizer pushes the aggregate into its scan (pushedTo != null), Table.aggregate computes
+// it instead, in one parallel pass that lets columnar tables work on their vectors.
+class AggregateNode extends PlanNode {
+    PlanNode child;
+    final List<String> groupBy;               // column references into the child
+    final List<AggregateFunction> functions;
+    final List<String> arguments;             // column reference per function; null for COUNT(*)
+    final List<String> labels;                // output names of the aggregates
+    ScanNode pushedTo;
+
+    AggregateNode(PlanNode child, List<String> groupBy, List<AggregateFunction> functions, List<String> arguments, List<String> labels) {
+        this.child = child; this.groupBy = groupBy; this.functions = functions; this.arguments = arguments; this.labels = labels;
+    }
+
+    @Override
+    List<String> columns() {
+        List<String> cols = new ArrayList<>();
+        for (String g : groupBy) cols.add(child.columns().get(child.indexOf(g)));
+        cols.addAll(labels);
+        return cols;
+    }
+
+    @Override List<PlanNode> children() { return List.of(child); }
+    @Override void setChild(int i, PlanNode child) { this.child = child; }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        if (pushedTo != null) {
+            return new LazyIterator(() -> {
+                List<String> groups = new ArrayList<>();
+                for (String g : groupBy) groups.add(plain(g));
+                List<Aggregate> aggregates = new ArrayList<>();
+                for (int i = 0; i < functions.size(); i++) {
+                    aggregates.add(new Aggregate(functions.get(i), arguments.get(i) == null ? null : plain(arguments.get(i)), labels.get(i)));
+                }
+                return pushedTo.table.groupAggregate(groups, aggregates, pushedTo.conditions, tx).tuples().iterator();
+            });
+        }
+        int[] keys = new int[groupBy.size()];
+        for (int i = 0; i < keys.length; i++) keys[i] = child.indexOf(groupBy.get(i));
+        int[] args = new int[arguments.size()];
+        List<Aggregate> aggregates = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            args[i] = arguments.get(i) == null ? -1 : child.indexOf(arguments.get(i));
+            aggregates.add(new Aggregate(functions.get(i), arguments.get(i), labels.get(i)));
+        }
+        return new LazyIterator(() -> {
+            GroupedAggregation groups = new GroupedAggregation(groupBy, aggregates);
+            Iterator<Object[]> in = child.open(tx);
+            while (in.hasNext()) {
+                Object[] t = in.next();
+                Object[] key = new Object[keys.length];
+                for (int i = 0; i < keys.length; i++) key[i] = t[keys[i]];
+                AggregateState[] states = groups.group(Arrays.asList(key));
+                for (int i = 0; i < args.length; i++) aggregates.get(i).add(states[i], args[i] < 0 ? null : t[args[i]]);
+            }
+            return groups.tuples().iterator();
+        });
+    }
+
+    // Table column behind a reference into the pushed-to scan.
+    private String plain(String ref) { return pushedTo.tableColumns().get(pushedTo.indexOf(ref)); }
+
+    @Override long estimate() { return groupBy.isEmpty() ? 1 : Math.max(1, child.estimate() / 10); }
+
+    @Override
+    String describe() {
+        StringBuilder sb = new StringBuilder(groupBy.isEmpty() ? "Aggregate " : "HashAggregate group by " + groupBy + " ");
+        sb.append(labels);
+        if (pushedTo != null) sb.append(" pushed into scan of ").append(pushedTo.table.getName());
+        return sb.toString();
+    }
+}
@@ -0,0 +1,54 @@
+// Partial result of an aggregate over one column. States from the main store, from row versions
+// and from a transaction's own writes merge, so an aggregate never needs all rows in one place.
+class AggregateState {
+    long rows;   // matching rows, for COUNT
+    long count;  // non-null numeric values
+    long others; // non-null values that are not numbers
+    double sum, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+    boolean nonNumeric;
+    HyperLogLog distinct; // only for APPROX_DISTINCT
+
+    AggregateState() { }
+
+    AggregateState(AggregateFunction fn) {
+        if (fn == AggregateFunction.APPROX_DISTINCT) distinct = new HyperLogLog();
+    }
+
+    void addRow(Object value) { rows++; addValue(value); }
+
+    void addValue(Object value) {
+        if (value == null) return;
+        if (distinct != null) distinct.add(HyperLogLog.hash(value));
+        if (!(value instanceof Number)) { others++; nonNumeric = true; return; }
+        addNumber(((Number) value).doubleValue());
+    }
+
+    void addNumber(double v) {
+        count++; sum += v;
+        if (v < min) min = v;
+        if (v > max) max = v;
+    }
+
+    void merge(AggregateState o) {
+        rows += o.rows; count += o.count; others += o.others; sum += o.sum;
+        min = Math.min(min, o.min); max = Math.max(max, o.max);
+        nonNumeric |= o.nonNumeric;
+        if (o.distinct != null) {
+            if (distinct == null) distinct = new HyperLogLog();
+            distinct.merge(o.distinct);
+        }
+    }
+
+    Object result(AggregateFunction fn, String column) {
+        if (fn == AggregateFunction.COUNT) return (int) rows;
+        if (fn == AggregateFunction.APPROX_DISTINCT) return distinct == null ? 0L : distinct.estimate();
+        if (nonNumeric) throw new IllegalArgumentException("Column " + column + " is not numeric");
+        switch (fn) {
+            case SUM: return sum;
+            case AVG: return count == 0 ? null : sum / count;
+            case MIN: return count == 0 ? null : min;
+            case MAX: return count == 0 ? null : max;
+            default: throw new IllegalArgumentException("Unknown function: " + fn);
+        }
+    }
+}
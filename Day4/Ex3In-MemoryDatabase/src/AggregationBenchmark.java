@@ -0,0 +1,38 @@
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+// A dashboard's worth of aggregates: per category COUNT, SUM, AVG, MIN and MAX of price plus AVG of
+// qty, computed as one Table.aggregate call per category and function (the old way, 48 calls) and as
+// a single grouped call. Uses ColumnarBenchmark's table and timing loop.
+// Run: java -Xmx4g AggregationBenchmark [rows]
+//      add -Djava.util.concurrent.ForkJoinPool.common.parallelism=1 to see the single-threaded time
+public class AggregationBenchmark {
+    private static final String[] CATEGORIES = {"books", "games", "music", "garden", "toys", "tools", "food", "sport"};
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("rows=%,d parallelism=%d%n", n, ForkJoinPool.getCommonPoolParallelism());
+        for (StorageMode mode : StorageMode.values()) {
+            Table t = ColumnarBenchmark.load(mode, n);
+            ColumnarBenchmark.bench(mode + " 48 single aggregates", () -> {
+                List<Object> out = new ArrayList<>();
+                for (String c : CATEGORIES) {
+                    Map<String,Object> where = Map.of("category", c);
+                    out.add(t.aggregate("price", AggregateFunction.COUNT, where));
+                    out.add(t.aggregate("price", AggregateFunction.SUM, where));
+                    out.add(t.aggregate("price", AggregateFunction.AVG, where));
+                    out.add(t.aggregate("price", AggregateFunction.MIN, where));
+                    out.add(t.aggregate("price", AggregateFunction.MAX, where));
+                    out.add(t.aggregate("qty", AggregateFunction.AVG, where));
+                }
+                return out.size();
+            });
+            List<Aggregate> dashboard = List.of(Aggregate.count(), Aggregate.sum("price"), Aggregate.avg("price"),
+                    Aggregate.min("price"), Aggregate.max("price"), Aggregate.avg("qty"));
+            ColumnarBenchmark.bench(mode + " one grouped pass", () -> t.aggregate(List.of("category"), dashboard, List.of(), null).size());
+            ColumnarBenchmark.bench(mode + " + APPROX_DISTINCT(qty, price)", () -> t.aggregate(List.of("category"),
+                    List.of(Aggregate.count(), Aggregate.approxDistinct("qty"), Aggregate.approxDistinct("price")), List.of(), null).size());
+            ColumnarBenchmark.bench(mode + " GROUP BY category, qty", () -> t.aggregate(List.of("category", "qty"), dashboard, List.of(), null).size());
+        }
+    }
+}
@@ -0,0 +1,20 @@
+// Helpers for long[] bitmaps used by the columnar store (selection vectors, null and live bits).
+final class Bits {
+    private Bits() {}
+
+    static int words(int bits) { return (bits + 63) >>> 6; }
+    static boolean get(long[] b, int i) { int w = i >>> 6; return w < b.length && (b[w] & (1L << i)) != 0; }
+    static void set(long[] b, int i) { b[i >>> 6] |= 1L << i; }
+    static void clear(long[] b, int i) { int w = i >>> 6; if (w < b.length) b[w] &= ~(1L << i); }
+
+    static void and(long[] sel, long[] other) {
+        for (int w = 0; w < sel.length; w++) sel[w] &= w < other.length ? other[w] : 0L;
+    }
+    static void andNot(long[] sel, long[] other) {
+        int n = Math.min(sel.length, other.length);
+        for (int w = 0; w < n; w++) sel[w] &= ~other[w];
+    }
+    static int cardinality(long[] b) {
+        int c = 0; for (long w : b) c += Long.bitCount(w); return c;
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+
+// A full image of every table as of one commit timestamp, written to checkpoint.tmp and renamed
+// over checkpoint.db once it is on disk. Log segments numbered below firstSegment hold only
+// records the image already contains; recovery loads the image and replays the rest.
+final class Checkpoint {
+    static final String FILE = "checkpoint.db";
+    private static final int MAGIC = 0x4d444243; // "MDBC"
+
+    final long ts;
+    final long firstSegment;
+    final List<Table> tables;
+
+    private Checkpoint(long ts, long firstSegment, List<Table> tables) {
+        this.ts = ts; this.firstSegment = firstSegment; this.tables = tables;
+    }
+
+    // Rows are read at ts, which the caller keeps open as a snapshot.
+    static void write(Path dir, long ts, long firstSegment, List<Table> tables) throws IOException {
+        Path tmp = dir.resolve(FILE + ".tmp");
+        try (FileChannel ch = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(ch), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeLong(ts);
+            out.writeLong(firstSegment);
+            out.writeInt(tables.size());
+            for (Table t : tables) {
+                LogCodec.writeString(out, t.getName());
+                out.writeByte(t.getStorageMode().ordinal());
+                LogCodec.writeSchema(out, t.getSchema());
+                Collection<Index> indexes = t.getIndexes();
+                out.writeInt(indexes.size());
+                for (Index idx : indexes) {
+                    LogCodec.writeString(out, idx.getColumn());
+                    out.writeByte(idx.getType().ordinal());
+                }
+                List<Row> rows = t.rowsAt(ts);
+                out.writeInt(rows.size());
+                for (Row r : rows) {
+                    out.writeLong(r.getId());
+                    LogCodec.writeRow(out, r);
+                }
+            }
+            out.flush();
+            ch.force(true);
+        }
+        Files.move(tmp, dir.resolve(FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // the rename lives in the directory: force it before the caller drops the log it replaces
+        forceDirectory(dir);
+    }
+
+    static void forceDirectory(Path dir) throws IOException {
+        if (System.getProperty("os.name").startsWith("Windows")) return; // directories cannot be opened there
+        try (FileChannel ch = FileChannel.open(dir, StandardOpenOption.READ)) {
+            ch.force(true);
+        }
+    }
+
+    // The last checkpoint in dir with its tables rebuilt under txm, or null if there is none.
+    static Checkpoint read(Path dir, TransactionManager txm) throws IOException {
+        Path file = dir.resolve(FILE);
+        if (!Files.exists(file)) return null;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (in.readInt() != MAGIC) throw new IOException("Not a checkpoint file: " + file);
+            long ts = in.readLong();
+            long firstSegment = in.readLong();
+            List<Table> tables = new ArrayList<>();
+            for (int n = in.readInt(); n > 0; n--) {
+                String name = LogCodec.readString(in);
+                StorageMode mode = StorageMode.values()[in.readByte()];
+                Table t = new Table(name, LogCodec.readSchema(in), mode, txm);
+                Map<String, IndexType> indexes = new LinkedHashMap<>();
+                for (int i = in.readInt(); i > 0; i--) indexes.put(LogCodec.readString(in), IndexType.values()[in.readByte()]);
+                for (int i = in.readInt(); i > 0; i--) {
+                    long id = in.readLong();
+                    t.restore(id, LogCodec.readRow(in, id));
+                }
+                // built once over the loaded rows rather than maintained row by row
+                indexes.forEach(t::createIndex);
+                tables.add(t);
+            }
+            return new Checkpoint(ts, firstSegment, tables);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+
+// Columnar layout: one ColumnVector per schema column, row id N lives at position N-1.
+// A live bitmap marks which positions hold a row; scans and aggregates work on bitmaps
+// and primitive arrays and only materialize Row objects for the rows that are returned.
+// put/remove publish through the volatile limit, which readers read before anything else.
+class ColumnStore implements TableStore {
+    private final Map<String, ColumnVector> vectors = new LinkedHashMap<>();
+    private long[] live = new long[1];
+    private volatile int limit; // highest position ever written + 1
+    private volatile int size;
+
+    ColumnStore(Schema schema) {
+        for (Column c : schema.getColumns()) vectors.put(c.name, ColumnVector.forColumn(c));
+    }
+
+    private static int position(long id) {
+        if (id < 1 || id > Integer.MAX_VALUE) throw new IllegalArgumentException("Row id out of range for columnar table: " + id);
+        return (int) (id - 1);
+    }
+
+    @Override
+    public void coerce(Row r) {
+        position(r.getId());
+        for (ColumnVector v : vectors.values()) {
+            Object value = r.get(v.name);
+            if (value != null) r.set(v.name, v.coerce(value));
+        }
+    }
+
+    @Override
+    public void put(Row r) {
+        int p = position(r.getId());
+        for (ColumnVector v : vectors.values()) v.set(p, r.get(v.name));
+        if (p >= live.length << 6) live = Arrays.copyOf(live, Math.max(Bits.words(p + 1), live.length * 2));
+        if (!Bits.get(live, p)) { Bits.set(live, p); size++; }
+        limit = Math.max(limit, p + 1);
+    }
+
+    @Override
+    public Row get(long id) {
+        return contains(id) ? materialize((int) (id - 1)) : null;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return id >= 1 && id <= limit && Bits.get(live, (int) (id - 1));
+    }
+
+    @Override
+    public Row remove(long id) {
+        Row r = get(id);
+        if (r != null) {
+            int p = (int) (id - 1);
+            Bits.clear(live, p);
+            for (ColumnVector v : vectors.values()) v.set(p, null);
+            size--;
+            limit = limit; // volatile write publishes the cleared bit
+        }
+        return r;
+    }
+
+    @Override public int size() { return size; }
+    @Override public List<Row> rows() { return materialize(liveSelection(limit)); }
+
+    @Override
+    public List<Row> scan(List<Condition> where, Collection<Long> candidates, Set<Long> excluded) {
+        return materialize(select(where, candidates, excluded));
+    }
+
+    @Override
+    public AggregateState aggregate(String column, List<Condition> where, Collection<Long> candidates, Set<Long> excluded) {
+        long[] sel = select(where, candidates, excluded);
+        AggregateState st = new AggregateState();
+        st.rows = Bits.cardinality(sel);
+        ColumnVector v = vectors.get(column);
+        if (v != null) v.accumulate(sel, st);
+        return st;
+    }
+
+    // Filters with the selection bitmap as usual, then groups and aggregates the selected positions in
+    // batches of BATCH: each batch is numbered by group key (GroupIds), then each aggregate runs one
+    // primitive loop over the batch. Word ranges of the bitmap are aggregated in parallel.
+    @Override
+    public GroupedAggregation aggregate(List<String> groupBy, List<Aggregate> aggregates, List<Condition> where,
+                                        Collection<Long> candidates, Set<Long> excluded) {
+        long[] sel = select(where, candidates, excluded);
+        ColumnVector[] keys = new ColumnVector[groupBy.size()];
+        for (int k = 0; k < keys.length; k++) keys[k] = vectors.get(groupBy.get(k));
+        ColumnVector[] args = new ColumnVector[aggregates.size()];
+        for (int a = 0; a < args.length; a++) args[a] = aggregates.get(a).column == null ? null : vectors.get(aggregates.get(a).column);
+        return new GroupTask(sel, 0, sel.length, keys, args, groupBy, aggregates).invoke();
+    }
+
+    private static final int BATCH = 1024;
+
+    private static final class GroupTask extends RecursiveTask<GroupedAggregation> {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] sel;
+        private final int from, to; // words of sel
+        private final ColumnVector[] keys, args;
+        private final List<String> groupBy;
+        private final List<Aggregate> aggregates;
+
+        GroupTask(long[] sel, int from, int to, ColumnVector[] keys, ColumnVector[] args, List<String> groupBy, List<Aggregate> aggregates) {
+            this.sel = sel; this.from = from; this.to = to; this.keys = keys; this.args = args;
+            this.groupBy = groupBy; this.aggregates = aggregates;
+        }
+
+        @Override
+        protected GroupedAggregation compute() {
+            if ((long) (to - from) << 6 > GroupedAggregation.PARTITION_ROWS) {
+                int mid = (from + to) >>> 1;
+                GroupTask right = new GroupTask(sel, mid, to, keys, args, groupBy, aggregates);
+                right.fork();
+                GroupedAggregation left = new GroupTask(sel, from, mid, keys, args, groupBy, aggregates).compute();
+                left.merge(right.join()); // left first keeps groups in first-seen order
+                return left;
+            }
+            GroupIds ids = new GroupIds(keys);
+            int[] pos = new int[BATCH], group = new int[BATCH];
+            AggregateState[][] states = new AggregateState[args.length][16];
+            int created = 0;
+            for (int w = from; w < to; ) {
+                int n = 0;
+                for (; w < to && n <= BATCH - 64; w++) {
+                    long bits = sel[w];
+                    while (bits != 0) {
+                        pos[n++] = (w << 6) + Long.numberOfTrailingZeros(bits);
+                        bits &= bits - 1;
+                    }
+                }
+                if (n == 0) continue;
+                ids.assign(pos, n, group);
+                for (; created < ids.groups(); created++) {
+                    for (int a = 0; a < args.length; a++) {
+                        if (created == states[a].length) states[a] = Arrays.copyOf(states[a], created * 2);
+                        states[a][created] = aggregates.get(a).newState();
+                    }
+                }
+                for (int a = 0; a < args.length; a++) {
+                    AggregateState[] out = states[a];
+                    if (aggregates.get(a).column == null) { for (int i = 0; i < n; i++) out[group[i]].rows++; }
+                    else if (args[a] == null) continue; // unknown column reads as null
+                    else if (aggregates.get(a).function == AggregateFunction.APPROX_DISTINCT) args[a].accumulateDistinct(pos, group, n, out);
+                    else args[a].accumulate(pos, group, n, out);
+                }
+            }
+            GroupedAggregation g = new GroupedAggregation(groupBy, aggregates);
+            for (int i = 0; i < created; i++) {
+                AggregateState[] st = new AggregateState[args.length];
+                for (int a = 0; a < st.length; a++) st[a] = states[a][i];
+                g.put(ids.key(i), st);
+            }
+            return g;
+        }
+    }
+
+    // Selection bitmap of live rows matching every condition (and in candidates, if given).
+    long[] select(List<Condition> where, Collection<Long> candidates, Set<Long> excluded) {
+        int lim = limit;
+        long[] sel;
+        if (candidates == null) sel = liveSelection(lim);
+        else {
+            sel = new long[Bits.words(lim)];
+            for (Long id : candidates) {
+                if (id >= 1 && id <= lim && Bits.get(live, (int) (id - 1))) Bits.set(sel, (int) (id - 1));
+            }
+        }
+        for (Long id : excluded) if (id >= 1 && id <= lim) Bits.clear(sel, (int) (id - 1));
+        for (Condition c : where) {
+            ColumnVector v = vectors.get(c.column);
+            if (v != null) v.filter(c, sel);
+            else if (!c.test(null)) Arrays.fill(sel, 0L); // unknown column reads as null
+        }
+        return sel;
+    }
+
+    private long[] liveSelection(int lim) {
+        long[] sel = Arrays.copyOf(live, Bits.words(lim));
+        if ((lim & 63) != 0) sel[sel.length - 1] &= -1L >>> (64 - (lim & 63)); // bits past lim are not published yet
+        return sel;
+    }
+
+    private List<Row> materialize(long[] sel) {
+        List<Row> result = new ArrayList<>(Bits.cardinality(sel));
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                result.add(materialize((w << 6) + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    private Row materialize(int p) {
+        Row r = new Row(p + 1L);
+        for (ColumnVector v : vectors.values()) r.set(v.name, v.get(p));
+        return r;
+    }
+
+    long sizeInBytes() {
+        long total = 8L * live.length;
+        for (ColumnVector v : vectors.values()) total += v.sizeInBytes();
+        return total;
+    }
+}
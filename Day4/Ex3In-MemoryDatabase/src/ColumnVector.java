@@ -0,0 +1,116 @@
+import java.util.*;
+
+// One typed column of a columnar table. Values live in a primitive array indexed by position,
+// nulls are tracked in a separate bitmap so the array itself never holds boxed objects.
+abstract class ColumnVector {
+    protected final String name;
+    protected long[] nulls = new long[1]; // bit p set -> value at p is null
+    protected int capacity;
+
+    ColumnVector(String name, int capacity) { this.name = name; this.capacity = capacity; }
+
+    static ColumnVector forColumn(Column c) {
+        switch (c.type) {
+            case INTEGER: return new IntColumnVector(c.name);
+            case DOUBLE: return new DoubleColumnVector(c.name);
+            case STRING: return new StringColumnVector(c.name);
+            default: throw new IllegalArgumentException("Unsupported type: " + c.type);
+        }
+    }
+
+    void set(int pos, Object value) {
+        if (pos >= capacity) ensureCapacity(pos + 1);
+        if (value == null) { Bits.set(nulls, pos); clear(pos); }
+        else { Bits.clear(nulls, pos); store(pos, value); }
+    }
+
+    Object get(int pos) { return Bits.get(nulls, pos) ? null : load(pos); }
+    boolean isNull(int pos) { return Bits.get(nulls, pos); }
+
+    private void ensureCapacity(int min) {
+        int newCap = Math.max(min, capacity * 2);
+        grow(newCap);
+        nulls = Arrays.copyOf(nulls, Bits.words(newCap));
+        capacity = newCap;
+    }
+
+    // Clears bits in sel whose value does not satisfy c (nulls only match EQ null).
+    void filter(Condition c, long[] sel) {
+        if (c.op == Condition.Op.EQ && c.value == null) { Bits.and(sel, nulls); return; }
+        Bits.andNot(sel, nulls);
+        if (c.op == Condition.Op.EQ) filterEqNonNull(c.value, sel);
+        else filterNonNull(c, sel);
+    }
+
+    // Generic path: box each selected value and test it. Subclasses override the common cases.
+    protected void filterNonNull(Condition c, long[] sel) {
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                long low = bits & -bits;
+                if (!c.test(load((w << 6) + Long.numberOfTrailingZeros(bits)))) sel[w] &= ~low;
+                bits ^= low;
+            }
+        }
+    }
+
+    // Numeric range as [lo, hi] with open/closed ends, or null if c is not a numeric range.
+    protected static double[] numericRange(Condition c) {
+        double lo = Double.NEGATIVE_INFINITY, hi = Double.POSITIVE_INFINITY;
+        boolean loOpen = false, hiOpen = false;
+        switch (c.op) {
+            case LT: case LE:
+                if (!(c.value instanceof Number)) return null;
+                hi = ((Number) c.value).doubleValue(); hiOpen = c.op == Condition.Op.LT; break;
+            case GT: case GE:
+                if (!(c.value instanceof Number)) return null;
+                lo = ((Number) c.value).doubleValue(); loOpen = c.op == Condition.Op.GT; break;
+            case BETWEEN:
+                if (!(c.value instanceof Number) || !(c.upper instanceof Number)) return null;
+                lo = ((Number) c.value).doubleValue(); hi = ((Number) c.upper).doubleValue(); break;
+            default: return null;
+        }
+        return new double[] {lo, hi, loOpen ? 1 : 0, hiOpen ? 1 : 0};
+    }
+
+    protected static boolean inRange(double v, double[] r) {
+        return (r[2] == 0 ? v >= r[0] : v > r[0]) && (r[3] == 0 ? v <= r[1] : v < r[1]);
+    }
+
+    // Adds the non-null values of the positions set in sel to st. Row counts are handled by the store.
+    void accumulate(long[] sel, AggregateState st) {
+        for (int w = 0; w < sel.length; w++) {
+            if ((sel[w] & ~(w < nulls.length ? nulls[w] : 0L)) != 0) { st.nonNumeric = true; return; }
+        }
+    }
+
+    // Grouped kernels: row pos[i] belongs to group[i] and out[g] is group g's state. Both add the
+    // non-null values of the n rows; subclasses read their primitive arrays directly.
+    void accumulate(int[] pos, int[] group, int n, AggregateState[] out) {
+        for (int i = 0; i < n; i++) {
+            if (isNull(pos[i])) continue;
+            AggregateState st = out[group[i]];
+            st.others++;
+            st.nonNumeric = true;
+        }
+    }
+
+    void accumulateDistinct(int[] pos, int[] group, int n, AggregateState[] out) {
+        for (int i = 0; i < n; i++) if (!isNull(pos[i])) out[group[i]].distinct.add(hash(pos[i]));
+    }
+
+    // Equal non-null values at two positions have equal codes and vice versa; used to group rows.
+    abstract long keyCode(int pos);
+
+    protected long hash(int pos) { return HyperLogLog.hash(load(pos)); }
+
+    // The value as it will be stored, or IllegalArgumentException if the column cannot hold it.
+    abstract Object coerce(Object value);
+
+    protected abstract void grow(int newCapacity);
+    protected abstract void store(int pos, Object value);
+    protected abstract void clear(int pos);
+    protected abstract Object load(int pos);
+    protected abstract void filterEqNonNull(Object value, long[] sel);
+    abstract long sizeInBytes();
+}
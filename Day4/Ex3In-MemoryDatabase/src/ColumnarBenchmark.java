@@ -0,0 +1,81 @@
+import java.util.*;
+
+// Row store vs columnar store: heap per row and aggregate throughput.
+// Plain main-method harness (the module has no build file to pull in JMH); it does explicit
+// warmup rounds and reports the median of the measured rounds.
+// Run: java -Xmx4g ColumnarBenchmark [rows]
+public class ColumnarBenchmark {
+    private static final String[] CATEGORIES = {"books", "games", "music", "garden", "toys", "tools", "food", "sport"};
+    private static final int WARMUP = 5, ROUNDS = 10;
+
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        System.out.printf("rows=%,d%n", n);
+        for (StorageMode mode : StorageMode.values()) {
+            System.out.printf("%-8s heap/row: %6.1f bytes%n", mode, heapPerRow(mode, n));
+        }
+        for (StorageMode mode : StorageMode.values()) run(mode, n);
+    }
+
+    static double heapPerRow(StorageMode mode, int n) {
+        long before = usedHeap();
+        Table t = load(mode, n);
+        long after = usedHeap();
+        java.lang.ref.Reference.reachabilityFence(t);
+        return (after - before) / (double) n;
+    }
+
+    static void run(StorageMode mode, int n) {
+        Table t = load(mode, n);
+        bench(mode + " SUM(price)", () -> t.aggregate("price", AggregateFunction.SUM, List.of()));
+        bench(mode + " AVG(qty)", () -> t.aggregate("qty", AggregateFunction.AVG, List.of()));
+        bench(mode + " MAX(price) where category=toys", () -> t.aggregate("price", AggregateFunction.MAX, Map.of("category", "toys")));
+        bench(mode + " COUNT where qty=7", () -> t.aggregate("qty", AggregateFunction.COUNT, Map.of("qty", 7)));
+    }
+
+    static Table load(StorageMode mode, int n) {
+        Schema s = new Schema();
+        s.addColumn("id", DataType.INTEGER);
+        s.addColumn("category", DataType.STRING);
+        s.addColumn("price", DataType.DOUBLE);
+        s.addColumn("qty", DataType.INTEGER);
+        Table t = new Table("sales", s, mode);
+        Random rnd = new Random(42);
+        Map<String,Object> values = new HashMap<>();
+        for (int i = 0; i < n; i++) {
+            values.put("id", i);
+            values.put("category", CATEGORIES[rnd.nextInt(CATEGORIES.length)]);
+            values.put("price", rnd.nextInt(100_000) / 100.0);
+            values.put("qty", rnd.nextInt(20));
+            t.insert(values, null);
+        }
+        t.vacuum(); // fold the insert versions into the main store before measuring
+        return t;
+    }
+
+    static void bench(String label, java.util.function.Supplier<Object> op) {
+        Object sink = null;
+        for (int i = 0; i < WARMUP; i++) sink = op.get();
+        long[] times = new long[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            long t0 = System.nanoTime();
+            sink = op.get();
+            times[i] = System.nanoTime() - t0;
+        }
+        Arrays.sort(times);
+        System.out.printf("  %-40s %8.2f ms/op  (result=%s)%n", label, times[ROUNDS / 2] / 1e6, sink);
+    }
+
+    static long usedHeap() {
+        // a single System.gc() does not always reclaim everything; repeat until usage stops dropping
+        Runtime rt = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 10; i++) {
+            System.gc();
+            long now = rt.totalMemory() - rt.freeMemory();
+            if (now >= used) break;
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,56 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+
+// Mixed read/write throughput on one table as the thread count grows. Readers run a point select
+// and a small range aggregate; writers run autocommit updates of random rows. Under MVCC neither
+// side waits for the other, so reads should scale with cores even while writes are going on.
+// Run: java ConcurrencyBenchmark [rows] [seconds per step]
+public class ConcurrencyBenchmark {
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int cores = Runtime.getRuntime().availableProcessors();
+        Database db = new Database();
+        Schema s = new Schema();
+        s.addColumn("id", DataType.INTEGER);
+        s.addColumn("score", DataType.INTEGER);
+        db.createTable("scores", s);
+        Table t = db.getTable("scores");
+        Random rnd = new Random(1);
+        for (int i = 0; i < n; i++) t.insert(Map.of("id", i, "score", rnd.nextInt(1000)), null);
+        db.vacuum();
+        t.createIndex("id");
+        t.createIndex("score", IndexType.SORTED);
+
+        System.out.printf("rows=%,d cores=%d, %ds per step (1 writer per 4 threads)%n", n, cores, seconds);
+        for (int threads = 1; threads <= Math.max(8, 2 * cores); threads *= 2) {
+            int writers = threads / 4;
+            LongAdder reads = new LongAdder(), writes = new LongAdder();
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            long end = System.nanoTime() + seconds * 1_000_000_000L;
+            for (int i = 0; i < threads; i++) {
+                boolean writer = i < writers;
+                pool.submit(() -> {
+                    ThreadLocalRandom r = ThreadLocalRandom.current();
+                    while (System.nanoTime() < end) {
+                        if (writer) {
+                            t.update(Map.of("id", r.nextInt(n)), Map.of("score", r.nextInt(1000)), null);
+                            writes.increment();
+                        } else {
+                            t.select(List.of(Condition.eq("id", r.nextInt(n))));
+                            int lo = r.nextInt(1000);
+                            t.aggregate("score", AggregateFunction.COUNT, List.of(Condition.between("score", lo, lo + 2)));
+                            reads.increment();
+                        }
+                    }
+                });
+            }
+            pool.shutdown();
+            pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+            System.out.printf("  threads=%2d readers=%2d writers=%2d  reads/s=%,10d  writes/s=%,8d%n", threads,
+                    threads - writers, writers, reads.sum() / seconds, writes.sum() / seconds);
+        }
+        db.close();
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.*;
+
+// One predicate of a where-clause: column <op> value. A list of conditions is AND-ed together.
+public class Condition {
+    public enum Op { EQ, LT, LE, GT, GE, BETWEEN, PREFIX }
+
+    public final String column;
+    public final Op op;
+    public final Object value; // EQ/LT/LE/GT/GE operand, BETWEEN lower bound, PREFIX string
+    public final Object upper; // BETWEEN upper bound (inclusive)
+
+    private Condition(String column, Op op, Object value, Object upper) {
+        this.column = column; this.op = op; this.value = value; this.upper = upper;
+    }
+
+    public static Condition eq(String column, Object value) { return new Condition(column, Op.EQ, value, null); }
+    public static Condition lt(String column, Object value) { return new Condition(column, Op.LT, value, null); }
+    public static Condition le(String column, Object value) { return new Condition(column, Op.LE, value, null); }
+    public static Condition gt(String column, Object value) { return new Condition(column, Op.GT, value, null); }
+    public static Condition ge(String column, Object value) { return new Condition(column, Op.GE, value, null); }
+    public static Condition between(String column, Object low, Object high) { return new Condition(column, Op.BETWEEN, low, high); }
+    public static Condition prefix(String column, String prefix) { return new Condition(column, Op.PREFIX, prefix, null); }
+
+    // The same predicate on another column name.
+    Condition withColumn(String column) { return new Condition(column, op, value, upper); }
+
+    public static List<Condition> fromWhereEq(Map<String,Object> whereEq) {
+        if (whereEq == null || whereEq.isEmpty()) return List.of();
+        List<Condition> result = new ArrayList<>(whereEq.size());
+        for (Map.Entry<String,Object> e : whereEq.entrySet()) result.add(eq(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    public boolean isRange() { return op != Op.EQ && op != Op.PREFIX; }
+
+    public boolean matches(Row r) { return test(r.get(column)); }
+
+    // EQ compares numbers by value like the column vectors do (so 1L matches an INTEGER 1 whether the
+    // row sits in a column or in a version chain) and other values with equals(); range operators
+    // compare numbers by value and other values by natural order. A null or incomparable column value
+    // never matches a range.
+    public boolean test(Object v) {
+        if (op == Op.EQ) {
+            if (v instanceof Number && value instanceof Number) return numericEquals((Number) v, (Number) value);
+            return Objects.equals(v, value);
+        }
+        if (v == null) return false;
+        switch (op) {
+            case LT: return comparable(v, value) && compare(v, value) < 0;
+            case LE: return comparable(v, value) && compare(v, value) <= 0;
+            case GT: return comparable(v, value) && compare(v, value) > 0;
+            case GE: return comparable(v, value) && compare(v, value) >= 0;
+            case BETWEEN: return comparable(v, value) && comparable(v, upper) && compare(v, value) >= 0 && compare(v, upper) <= 0;
+            case PREFIX: return v instanceof String && ((String) v).startsWith((String) value);
+            default: throw new IllegalStateException("Unknown op: " + op);
+        }
+    }
+
+    static boolean allMatch(List<Condition> conditions, Row r) {
+        for (Condition c : conditions) if (!c.matches(r)) return false;
+        return true;
+    }
+
+    static boolean comparable(Object a, Object b) {
+        if (a == null || b == null) return false;
+        if (a instanceof Number) return b instanceof Number;
+        return a.getClass() == b.getClass() && a instanceof Comparable;
+    }
+
+    static boolean numericEquals(Number a, Number b) {
+        if (integral(a) && integral(b)) return a.longValue() == b.longValue();
+        return a.doubleValue() == b.doubleValue();
+    }
+
+    static boolean integral(Number n) {
+        return n instanceof Long || n instanceof Integer || n instanceof Short || n instanceof Byte;
+    }
+
+    static int compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        return KeyComparator.INSTANCE.compare(a, b);
+    }
+
+    @Override
+    public String toString() {
+        switch (op) {
+            case BETWEEN: return column + " BETWEEN " + value + " AND " + upper;
+            case PREFIX: return column + " LIKE '" + value + "%'";
+            case EQ: return column + " = " + value;
+            case LT: return column + " < " + value;
+            case LE: return column + " <= " + value;
+            case GT: return column + " > " + value;
+            default: return column + " >= " + value;
+        }
+    }
+}
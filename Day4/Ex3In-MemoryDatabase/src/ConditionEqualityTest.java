@@ -0,0 +1,80 @@
+import java.util.*;
+
+/**
+ * Condition EQ on numbers must give the same rows wherever a row lives: in the main store (rows or
+ * column vectors), in a version chain not yet vacuumed, or behind an index.
+ * Run with assertions enabled: java -ea ConditionEqualityTest
+ */
+public class ConditionEqualityTest {
+
+    private Database db;
+
+    public void setUp(StorageMode mode, IndexType index) {
+        db = new Database();
+        Schema schema = new Schema();
+        schema.addColumn("k", DataType.INTEGER);
+        schema.addColumn("x", DataType.DOUBLE);
+        db.createTable("t", schema, mode);
+        if (index != null) {
+            db.getTable("t").createIndex("k", index);
+            db.getTable("t").createIndex("x", index);
+        }
+    }
+
+    private List<Row> select(String column, Object value) {
+        return db.getTable("t").select(List.of(Condition.eq(column, value)));
+    }
+
+    public void testEqualAcrossStoragePaths(String label) {
+        Table t = db.getTable("t");
+        Transaction reader = db.beginTransaction(); // keeps the next insert in its version chain
+        t.insert(Map.of("k", 1, "x", 2.0), null);
+        t.insert(Map.of("k", 3, "x", 2.5), null);
+
+        assertMatches(label + " in version chain", 1, 2.0);
+
+        reader.rollback();
+        db.vacuum();
+        assertMatches(label + " in main store", 1, 2.0);
+        System.out.println("✓ testEqualAcrossStoragePaths passed (" + label + ")");
+    }
+
+    private void assertMatches(String where, int k, double x) {
+        for (Object v : new Object[]{k, (long) k, (double) k, (short) k}) {
+            assert select("k", v).size() == 1 : where + ": k = " + v + " (" + v.getClass().getSimpleName() + ")";
+        }
+        assert select("k", k + 0.5).isEmpty() : where + ": k = " + (k + 0.5);
+        assert select("k", String.valueOf(k)).isEmpty() : where + ": k = '" + k + "'";
+        for (Object v : new Object[]{x, (float) x, (long) x, (int) x}) {
+            assert select("x", v).size() == 1 : where + ": x = " + v + " (" + v.getClass().getSimpleName() + ")";
+        }
+    }
+
+    public void testConditionTest() {
+        assert Condition.eq("k", 1L).test(1);
+        assert Condition.eq("k", 1).test(1.0);
+        assert !Condition.eq("k", 1).test(2L);
+        assert !Condition.eq("k", Double.NaN).test(Double.NaN);
+        assert !Condition.eq("k", "1").test(1);
+        assert Condition.eq("k", null).test(null);
+        System.out.println("✓ testConditionTest passed");
+    }
+
+    public static void main(String[] args) {
+        ConditionEqualityTest test = new ConditionEqualityTest();
+        try {
+            test.testConditionTest();
+            for (StorageMode mode : StorageMode.values()) {
+                for (IndexType index : new IndexType[]{null, IndexType.HASH, IndexType.SORTED}) {
+                    test.setUp(mode, index);
+                    test.testEqualAcrossStoragePaths(mode + (index == null ? "" : " + " + index + " index"));
+                    test.db.close();
+                }
+            }
+            System.out.println("\n✓ All ConditionEqualityTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
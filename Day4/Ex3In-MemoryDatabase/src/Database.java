@@ -1,12 +1,139 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
-public class Database {
-    private final Map<String, Table> tables = new HashMap<>();
+public class Database implements AutoCloseable {
+    private static final ScheduledExecutorService CHECKPOINTS = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "wal-checkpoint");
+        t.setDaemon(true);
+        return t;
+    });
+    // A checkpoint is taken once this much log has been written since the last one.
+    static final long CHECKPOINT_LOG_BYTES = 64L << 20;
+    static final long CHECKPOINT_POLL_MS = 1000;
 
-    public void createTable(String name, Schema schema) {
-        if (tables.containsKey(name)) throw new IllegalArgumentException("Table exists");
-        tables.put(name, new Table(name, schema));
+    private final Map<String, Table> tables = new ConcurrentHashMap<>();
+    // one commit timeline for all tables, so a transaction can span several of them
+    private final TransactionManager txm = new TransactionManager();
+    private final Path dir; // null for a purely in-memory database
+    private final WriteAheadLog wal;
+    private final ScheduledFuture<?> checkpointTask;
+    private final Object checkpointMonitor = new Object();
+
+    public Database() { dir = null; wal = null; checkpointTask = null; }
+
+    public Database(Path dir) { this(dir, SyncPolicy.GROUP_COMMIT); }
+
+    // Durable database in dir: loads the last checkpoint, replays the log after it, then logs every
+    // commit and schema change. A commit returns only once its log record is on disk.
+    public Database(Path dir, SyncPolicy policy) {
+        this.dir = dir;
+        try {
+            Files.createDirectories(dir);
+            long ts = recover();
+            wal = new WriteAheadLog(dir, policy);
+            txm.recovered(ts, wal);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open database in " + dir, e);
+        }
+        // the task only holds a weak reference, so an abandoned database can still be collected
+        WeakReference<Database> self = new WeakReference<>(this);
+        ScheduledFuture<?>[] handle = new ScheduledFuture<?>[1];
+        handle[0] = CHECKPOINTS.scheduleWithFixedDelay(() -> {
+            Database db = self.get();
+            if (db == null) { handle[0].cancel(false); return; }
+            try {
+                if (db.wal.sinceRoll() >= CHECKPOINT_LOG_BYTES) db.checkpoint();
+            } catch (RuntimeException e) { System.err.println("wal-checkpoint: " + e); }
+        }, CHECKPOINT_POLL_MS, CHECKPOINT_POLL_MS, TimeUnit.MILLISECONDS);
+        checkpointTask = handle[0];
+    }
+
+    // Loads the checkpoint and replays newer log records; returns the last recovered commit timestamp.
+    private long recover() throws IOException {
+        Checkpoint cp = Checkpoint.read(dir, txm);
+        long checkpointTs = cp == null ? 0 : cp.ts;
+        long firstSegment = cp == null ? 0 : cp.firstSegment;
+        if (cp != null) for (Table t : cp.tables) tables.put(t.getName(), t);
+        long[] last = {checkpointTs};
+        List<Path> segments = WriteAheadLog.segments(dir);
+        for (int i = 0; i < segments.size(); i++) {
+            if (WriteAheadLog.segmentNumber(segments.get(i)) < firstSegment) continue; // left over from a checkpoint
+            WriteAheadLog.replay(segments.get(i), i == segments.size() - 1, (type, ts, body) -> {
+                if (type == WriteAheadLog.COMMIT && ts > checkpointTs) {
+                    replayCommit(body);
+                    last[0] = Math.max(last[0], ts);
+                } else if (type == WriteAheadLog.CREATE_TABLE) {
+                    String name = LogCodec.readString(body);
+                    StorageMode mode = StorageMode.values()[body.readByte()];
+                    Schema schema = LogCodec.readSchema(body);
+                    // a table created during a checkpoint is in both the image and the log
+                    if (!tables.containsKey(name)) tables.put(name, new Table(name, schema, mode, txm));
+                } else if (type == WriteAheadLog.CREATE_INDEX) {
+                    Table t = tables.get(LogCodec.readString(body));
+                    String column = LogCodec.readString(body);
+                    IndexType indexType = IndexType.values()[body.readByte()];
+                    if (t != null && t.getIndex(column) == null) t.createIndex(column, indexType);
+                }
+            });
+        }
+        return last[0];
+    }
+
+    private void replayCommit(DataInputStream body) throws IOException {
+        for (int n = body.readInt(); n > 0; n--) {
+            String name = LogCodec.readString(body);
+            Table t = tables.get(name);
+            if (t == null) throw new IOException("Log record for unknown table " + name);
+            long id = body.readLong();
+            t.restore(id, body.readBoolean() ? LogCodec.readRow(body, id) : null);
+        }
+    }
+
+    // Writes every table as of now to a new checkpoint and drops the log segments it covers.
+    // Commits continue meanwhile; only the switch to a new log segment holds the commit lock.
+    public void checkpoint() {
+        if (wal == null) throw new IllegalStateException("In-memory database has no log to checkpoint");
+        synchronized (checkpointMonitor) {
+            long firstSegment;
+            Snapshot snapshot;
+            List<Table> list;
+            txm.commitLock.lock();
+            try {
+                firstSegment = wal.roll(); // everything committed so far is now durable ...
+                txm.publishAssigned();     // ... and visible, so the snapshot below covers exactly the old segments
+                snapshot = txm.openSnapshot();
+                list = new ArrayList<>(tables.values());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally { txm.commitLock.unlock(); }
+            try {
+                Checkpoint.write(dir, snapshot.ts, firstSegment, list);
+                wal.deleteBefore(firstSegment);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally { txm.closeSnapshot(snapshot); }
+        }
+    }
+
+    public void createTable(String name, Schema schema) { createTable(name, schema, StorageMode.ROW); }
+    public void createTable(String name, Schema schema, StorageMode mode) {
+        long pos;
+        txm.commitLock.lock(); // keeps the log record and the table on the same side of a checkpoint
+        try {
+            if (tables.containsKey(name)) throw new IllegalArgumentException("Table exists");
+            pos = txm.logSchemaChange(WriteAheadLog.CREATE_TABLE, LogCodec.createTableBody(name, schema, mode));
+            tables.put(name, new Table(name, schema, mode, txm));
+        } finally { txm.commitLock.unlock(); }
+        txm.awaitDurable(pos);
     }
     public Table getTable(String name) { return tables.get(name); }
 
@@ -14,7 +141,16 @@ public class Database {
     public List<Map<String,Object>> select(String tableName, List<String> columns, Map<String,Object> whereEq) {
         Table t = getTable(tableName);
         if (t == null) return List.of();
-        List<Row> rows = t.select(whereEq);
+        return project(t.select(whereEq), columns);
+    }
+
+    public List<Map<String,Object>> select(String tableName, List<String> columns, List<Condition> where) {
+        Table t = getTable(tableName);
+        if (t == null) return List.of();
+        return project(t.select(where), columns);
+    }
+
+    private static List<Map<String,Object>> project(List<Row> rows, List<String> columns) {
         return rows.stream().map(r -> {
             Map<String,Object> m = new LinkedHashMap<>();
             for (String c : columns) m.put(c, r.get(c));
@@ -22,75 +158,128 @@ public class Database {
         }).collect(Collectors.toList());
     }
 
-    // Join two tables on equality col1 (tableA) = col2 (tableB)
+    // Join two tables on equality col1 (tableA) = col2 (tableB); materializes every match.
     public List<Map<String,Object>> join(String tableA, String tableB, String colA, String colB) {
-        Table a = getTable(tableA);
-        Table b = getTable(tableB);
-        if (a == null || b == null) return List.of();
         List<Map<String,Object>> result = new ArrayList<>();
-        // if b has index on colB, use it:
-        Index idxB = null;
-        try {
-            java.lang.reflect.Field f = Table.class.getDeclaredField("indexes");
-            f.setAccessible(true);
-            @SuppressWarnings("unchecked")
-            Map<String, Index> idxMap = (Map<String,Index>) f.get(b);
-            idxB = idxMap.get(colB);
-        } catch (Exception ignored) {}
-
-        if (idxB != null) {
-            for (Row ra : a.getAllRows()) {
-                Object v = ra.get(colA);
-                for (Long idb : idxB.find(v)) {
-                    // reflectively get row from b
-                    for (Row rb : b.getAllRows()) {
-                        if (rb.getId() == idb) {
-                            Map<String,Object> m = new LinkedHashMap<>();
-                            m.putAll(ra.asMap()); m.putAll(rb.asMap());
-                            result.add(m);
-                        }
-                    }
-                }
-            }
-        } else {
-            // nested loop
-            for (Row ra : a.getAllRows()) {
-                Object va = ra.get(colA);
-                for (Row rb : b.getAllRows()) {
-                    if (Objects.equals(va, rb.get(colB))) {
-                        Map<String,Object> m = new LinkedHashMap<>();
-                        m.putAll(ra.asMap()); m.putAll(rb.asMap());
-                        result.add(m);
-                    }
-                }
-            }
+        try (JoinIterator it = joinIterator(tableA, tableB, colA, colB, JoinStrategy.AUTO)) {
+            it.forEachRemaining(r -> result.add(r.asMap()));
         }
         return result;
     }
 
+    // Lazy join: matches are produced one at a time as views over the two source rows. Both tables are
+    // read at one snapshot; an index join holds it until the iterator is exhausted or closed, so a
+    // caller that may stop early must close it (try-with-resources).
+    public JoinIterator joinIterator(String tableA, String tableB, String colA, String colB, JoinStrategy strategy) {
+        Table a = getTable(tableA);
+        Table b = getTable(tableB);
+        if (a == null || b == null) return JoinIterator.empty();
+        JoinPlanner.Plan plan = JoinPlanner.plan(a, colA, b, colB, strategy);
+        return JoinPlanner.execute(plan, a, colA, b, colB, beginTransaction());
+    }
+
+    // The lazy join as a stream; close it (try-with-resources) if it may not be consumed to the end.
+    public Stream<JoinedRow> joinStream(String tableA, String tableB, String colA, String colB) {
+        JoinIterator it = joinIterator(tableA, tableB, colA, colB, JoinStrategy.AUTO);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(it::close);
+    }
+
+    // Which join operator would be used, with its estimated cost.
+    public String explainJoin(String tableA, String tableB, String colA, String colB) {
+        Table a = getTable(tableA);
+        Table b = getTable(tableB);
+        if (a == null || b == null) return "EMPTY";
+        return JoinPlanner.plan(a, colA, b, colB, JoinStrategy.AUTO).toString();
+    }
+
     // Aggregation on a table column: function: COUNT, SUM, AVG, MIN, MAX
     public Object aggregate(String tableName, String column, String function, Map<String,Object> whereEq) {
         Table t = getTable(tableName);
         if (t == null) return null;
-        List<Row> rows = t.select(whereEq);
-        switch (function.toUpperCase()) {
-            case "COUNT": return rows.size();
-            case "SUM": {
-                double s = 0; for (Row r: rows) { Number n = (Number) r.get(column); if (n!=null) s+=n.doubleValue(); } return s;
-            }
-            case "AVG": {
-                double s=0; int c=0; for (Row r: rows) { Number n = (Number) r.get(column); if (n!=null) { s+=n.doubleValue(); c++; } } return c==0?null:s/c;
-            }
-            case "MIN": {
-                Double min = null; for (Row r: rows) { Number n = (Number) r.get(column); if (n!=null) { double v=n.doubleValue(); min = (min==null||v<min)?v:min; } } return min;
-            }
-            case "MAX": {
-                Double max = null; for (Row r: rows) { Number n = (Number) r.get(column); if (n!=null) { double v=n.doubleValue(); max = (max==null||v>max)?v:max; } } return max;
-            }
-            default: throw new IllegalArgumentException("Unknown function: " + function);
+        return t.aggregate(column, AggregateFunction.parse(function), whereEq);
+    }
+
+    // Many aggregates per group in one pass, e.g.
+    //   aggregate("orders", List.of("region"), List.of(Aggregate.count(), Aggregate.sum("amount")), List.of())
+    // returns one map per region: {region=..., COUNT(*)=..., SUM(amount)=...}.
+    public List<Map<String,Object>> aggregate(String tableName, List<String> groupBy, List<Aggregate> aggregates, List<Condition> where) {
+        return aggregate(tableName, groupBy, aggregates, where, null);
+    }
+
+    public List<Map<String,Object>> aggregate(String tableName, List<String> groupBy, List<Aggregate> aggregates,
+                                              List<Condition> where, Transaction tx) {
+        Table t = getTable(tableName);
+        if (t == null) return List.of();
+        return t.aggregate(groupBy, aggregates, where, tx);
+    }
+
+    // Runs a SELECT (see SqlParser for the supported subset) in its own read transaction. The result
+    // is lazy and holds that transaction's snapshot until it is exhausted or closed. For EXPLAIN the
+    // result has one "plan" column with a line of the plan per row.
+    public QueryResult query(String sql) {
+        Transaction tx = beginTransaction();
+        try {
+            QueryResult r = execute(sql, tx, tx);
+            if (!r.hasNext()) r.close();
+            return r;
+        } catch (RuntimeException e) {
+            tx.rollback();
+            throw e;
         }
     }
 
-    // Transaction helper
-    public Transaction beginTransaction() { return new Transaction(); }
+    // Runs a SELECT inside tx, seeing its uncommitted writes.
+    public QueryResult query(String sql, Transaction tx) {
+        if (tx == null || !tx.isActive()) throw new IllegalStateException("Transaction is not active");
+        return execute(sql, tx, null);
+    }
+
+    private QueryResult execute(String sql, Transaction tx, Transaction ownTx) {
+        SelectStatement s = SqlParser.parse(sql);
+        List<String> notes = new ArrayList<>();
+        PlanNode plan = QueryOptimizer.optimize(QueryPlanner.plan(this, s), notes);
+        if (s.explain) {
+            List<Object[]> lines = new ArrayList<>();
+            for (String line : explain(plan, notes).split("\n")) lines.add(new Object[]{line});
+            return new QueryResult(List.of("plan"), lines.iterator(), ownTx);
+        }
+        return new QueryResult(plan.columns(), plan.open(tx), ownTx);
+    }
+
+    // The optimized plan of a SELECT and the rewrites that produced it, without running it.
+    public String explain(String sql) {
+        SelectStatement s = SqlParser.parse(sql);
+        List<String> notes = new ArrayList<>();
+        return explain(QueryOptimizer.optimize(QueryPlanner.plan(this, s), notes), notes);
+    }
+
+    private static String explain(PlanNode plan, List<String> notes) {
+        StringBuilder sb = new StringBuilder();
+        plan.explain(sb, 0);
+        if (!notes.isEmpty()) {
+            sb.append("Optimizations:\n");
+            for (String n : notes) sb.append("  - ").append(n).append('\n');
+        }
+        return sb.toString();
+    }
+
+    // Transaction helper: reads see the database as of this call, writes are published on commit.
+    public Transaction beginTransaction() { return txm.begin(); }
+
+    // Merges committed row versions into the tables now instead of waiting for the background pass.
+    public int vacuum() { return txm.collectGarbage(); }
+
+    // Snapshots held by open transactions, lazy query results and joins; the oldest holds back vacuum.
+    public int getOpenSnapshotCount() { return txm.openSnapshots(); }
+
+    // Stops background work and, for a durable database, forces and closes the log.
+    @Override
+    public void close() {
+        txm.shutdown();
+        if (checkpointTask != null) checkpointTask.cancel(false);
+        if (wal != null) {
+            try { wal.close(); } catch (IOException e) { throw new UncheckedIOException(e); }
+        }
+    }
 }
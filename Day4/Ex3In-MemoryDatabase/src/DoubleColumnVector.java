@@ -0,0 +1,75 @@
+import java.util.*;
+
+class DoubleColumnVector extends ColumnVector {
+    private double[] data;
+
+    DoubleColumnVector(String name) { super(name, 64); data = new double[64]; }
+
+    @Override protected void grow(int newCapacity) { data = Arrays.copyOf(data, newCapacity); }
+    @Override protected void clear(int pos) { data[pos] = 0; }
+    @Override protected Object load(int pos) { return data[pos]; }
+
+    @Override
+    Object coerce(Object value) {
+        if (value instanceof Double) return value;
+        if (!(value instanceof Number)) throw new IllegalArgumentException("Column " + name + " expects DOUBLE but got " + value);
+        return ((Number) value).doubleValue();
+    }
+
+    @Override protected void store(int pos, Object value) { data[pos] = (Double) coerce(value); }
+
+    @Override
+    protected void filterEqNonNull(Object value, long[] sel) {
+        if (!(value instanceof Number)) { Arrays.fill(sel, 0L); return; }
+        double v = ((Number) value).doubleValue();
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                long low = bits & -bits;
+                int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (data[p] != v) sel[w] &= ~low;
+                bits ^= low;
+            }
+        }
+    }
+
+    @Override
+    protected void filterNonNull(Condition c, long[] sel) {
+        double[] range = numericRange(c);
+        if (range == null) { super.filterNonNull(c, sel); return; }
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                long low = bits & -bits;
+                if (!inRange(data[(w << 6) + Long.numberOfTrailingZeros(bits)], range)) sel[w] &= ~low;
+                bits ^= low;
+            }
+        }
+    }
+
+    @Override
+    void accumulate(long[] sel, AggregateState st) {
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w] & ~(w < nulls.length ? nulls[w] : 0L);
+            int base = w << 6;
+            while (bits != 0) {
+                st.addNumber(data[base + Long.numberOfTrailingZeros(bits)]);
+                bits &= bits - 1;
+            }
+        }
+    }
+
+    @Override
+    void accumulate(int[] pos, int[] group, int n, AggregateState[] out) {
+        long[] nl = nulls;
+        for (int i = 0; i < n; i++) {
+            int p = pos[i];
+            if (!Bits.get(nl, p)) out[group[i]].addNumber(data[p]);
+        }
+    }
+
+    @Override long keyCode(int pos) { return Double.doubleToLongBits(data[pos]); }
+    @Override protected long hash(int pos) { return HyperLogLog.hash(Double.doubleToLongBits(data[pos])); }
+
+    @Override long sizeInBytes() { return 16L + 8L * data.length + 8L * nulls.length; }
+}
@@ -0,0 +1,47 @@
+import java.util.*;
+
+// Keeps tuples matching every condition. Condition.column holds a column reference into the child.
+class FilterNode extends PlanNode {
+    PlanNode child;
+    final List<Condition> conditions;
+
+    FilterNode(PlanNode child, List<Condition> conditions) { this.child = child; this.conditions = conditions; }
+
+    @Override List<String> columns() { return child.columns(); }
+    @Override List<PlanNode> children() { return List.of(child); }
+    @Override void setChild(int i, PlanNode child) { this.child = child; }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        int[] at = new int[conditions.size()];
+        for (int i = 0; i < at.length; i++) at[i] = child.indexOf(conditions.get(i).column);
+        Iterator<Object[]> in = child.open(tx);
+        return new Iterator<Object[]>() {
+            private Object[] next;
+            @Override public boolean hasNext() {
+                while (next == null && in.hasNext()) {
+                    Object[] t = in.next();
+                    boolean ok = true;
+                    for (int i = 0; i < at.length && ok; i++) ok = conditions.get(i).test(t[at[i]]);
+                    if (ok) next = t;
+                }
+                return next != null;
+            }
+            @Override public Object[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                Object[] t = next;
+                next = null;
+                return t;
+            }
+        };
+    }
+
+    @Override
+    long estimate() {
+        double e = child.estimate();
+        for (Condition c : conditions) e *= c.op == Condition.Op.EQ ? 0.1 : 0.3;
+        return Math.max(1, Math.round(e));
+    }
+
+    @Override String describe() { return "Filter " + conditions; }
+}
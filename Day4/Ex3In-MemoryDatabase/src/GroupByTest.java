@@ -0,0 +1,128 @@
+import java.util.*;
+
+/**
+ * Grouped aggregation gives the same groups and results as a plain pass over the rows, in either
+ * storage mode, across the partitions it aggregates in parallel, with uncommitted and newer rows
+ * in the picture, and through SQL GROUP BY.
+ * Run with assertions enabled: java -ea GroupByTest
+ */
+public class GroupByTest {
+
+    private static final int ROWS = 2 * GroupedAggregation.PARTITION_ROWS + 1000; // several partitions
+
+    private Database db;
+    private final List<Object[]> inserted = new ArrayList<>(); // region, product, amount
+
+    public void setUp(StorageMode mode) {
+        db = new Database();
+        Schema schema = new Schema();
+        schema.addColumn("region", DataType.STRING);
+        schema.addColumn("product", DataType.INTEGER);
+        schema.addColumn("amount", DataType.DOUBLE);
+        db.createTable("orders", schema, mode);
+        inserted.clear();
+        Random rnd = new Random(3);
+        Transaction load = db.beginTransaction();
+        for (int i = 0; i < ROWS; i++) {
+            String region = i % 50 == 0 ? null : "R" + rnd.nextInt(7);
+            int product = rnd.nextInt(1000);
+            Double amount = i % 31 == 0 ? null : (double) rnd.nextInt(10_000) / 100;
+            Map<String, Object> row = new HashMap<>();
+            row.put("region", region);
+            row.put("product", product);
+            row.put("amount", amount);
+            db.getTable("orders").insert(row, load);
+            inserted.add(new Object[]{region, product, amount});
+        }
+        load.commit();
+    }
+
+    // region -> {count(*), count(amount), sum, min, max}, computed row by row
+    private Map<String, double[]> expected(double minAmount) {
+        Map<String, double[]> byRegion = new HashMap<>();
+        for (Object[] r : inserted) {
+            if (r[2] != null && (Double) r[2] < minAmount) continue;
+            if (r[2] == null && minAmount > Double.NEGATIVE_INFINITY) continue;
+            double[] s = byRegion.computeIfAbsent((String) r[0], k -> new double[]{0, 0, 0, Double.MAX_VALUE, -Double.MAX_VALUE});
+            s[0]++;
+            if (r[2] == null) continue;
+            double a = (Double) r[2];
+            s[1]++;
+            s[2] += a;
+            s[3] = Math.min(s[3], a);
+            s[4] = Math.max(s[4], a);
+        }
+        return byRegion;
+    }
+
+    private static void assertGroups(String label, List<Map<String, Object>> groups, Map<String, double[]> expected) {
+        assert groups.size() == expected.size() : label + ": " + groups.size() + " groups, expected " + expected.size();
+        for (Map<String, Object> g : groups) {
+            double[] s = expected.get((String) g.get("region"));
+            assert s != null : label + ": unexpected group " + g.get("region");
+            assert ((Number) g.get("COUNT(*)")).intValue() == (int) s[0] : label + ": COUNT(*) of " + g.get("region");
+            assert ((Number) g.get("COUNT(amount)")).intValue() == (int) s[1] : label + ": COUNT(amount) of " + g.get("region");
+            assert Math.abs(((Number) g.get("SUM(amount)")).doubleValue() - s[2]) < 1e-6 * Math.max(1, s[2]) : label + ": SUM of " + g.get("region");
+            assert Math.abs(((Number) g.get("AVG(amount)")).doubleValue() - s[2] / s[1]) < 1e-9 * Math.max(1, s[2]) : label + ": AVG of " + g.get("region");
+            assert ((Number) g.get("MIN(amount)")).doubleValue() == s[3] : label + ": MIN of " + g.get("region");
+            assert ((Number) g.get("MAX(amount)")).doubleValue() == s[4] : label + ": MAX of " + g.get("region");
+        }
+    }
+
+    private static final List<Aggregate> ALL = List.of(Aggregate.count(), Aggregate.count("amount"), Aggregate.sum("amount"),
+            Aggregate.avg("amount"), Aggregate.min("amount"), Aggregate.max("amount"));
+
+    public void testGroupsMatchRowByRow(String label) {
+        assertGroups(label, db.aggregate("orders", List.of("region"), ALL, List.of()), expected(Double.NEGATIVE_INFINITY));
+        assertGroups(label + " WHERE amount >= 50",
+                db.aggregate("orders", List.of("region"), ALL, List.of(Condition.ge("amount", 50))), expected(50));
+        System.out.println("✓ testGroupsMatchRowByRow passed (" + label + ")");
+    }
+
+    public void testSnapshotAndOwnWrites(String label) {
+        Transaction reader = db.beginTransaction();
+        Transaction writer = db.beginTransaction();
+        db.getTable("orders").insert(Map.of("region", "NEW", "product", 1, "amount", 5.0), writer);
+        List<Map<String, Object>> own = db.aggregate("orders", List.of("region"), List.of(Aggregate.count()), List.of(), writer);
+        assert own.stream().anyMatch(g -> "NEW".equals(g.get("region"))) : label + ": writer misses its own row";
+        writer.commit();
+        List<Map<String, Object>> old = db.aggregate("orders", List.of("region"), List.of(Aggregate.count()), List.of(), reader);
+        assert old.stream().noneMatch(g -> "NEW".equals(g.get("region"))) : label + ": reader sees a later commit";
+        reader.rollback();
+        db.getTable("orders").delete(Map.of("region", "NEW"), null);
+        System.out.println("✓ testSnapshotAndOwnWrites passed (" + label + ")");
+    }
+
+    public void testApproxDistinctAndSql(String label) {
+        List<Map<String, Object>> total = db.aggregate("orders", List.of(), List.of(Aggregate.count(), Aggregate.approxDistinct("product")), List.of());
+        assert total.size() == 1 && ((Number) total.get(0).get("COUNT(*)")).intValue() == ROWS : label + ": ungrouped count";
+        long distinct = ((Number) total.get(0).get("APPROX_DISTINCT(product)")).longValue();
+        assert Math.abs(distinct - 1000) < 50 : label + ": about 1000 distinct products, estimated " + distinct;
+
+        Map<String, double[]> expected = expected(Double.NEGATIVE_INFINITY);
+        int groups = 0;
+        for (Map<String, Object> row : db.query("SELECT region, COUNT(*) AS n FROM orders GROUP BY region").toList()) {
+            assert ((Number) row.get("n")).intValue() == (int) expected.get((String) row.get("region"))[0] : label + ": SQL count of " + row.get("region");
+            groups++;
+        }
+        assert groups == expected.size() : label + ": SQL gave " + groups + " groups";
+        System.out.println("✓ testApproxDistinctAndSql passed (" + label + ")");
+    }
+
+    public static void main(String[] args) {
+        GroupByTest test = new GroupByTest();
+        try {
+            for (StorageMode mode : StorageMode.values()) {
+                test.setUp(mode);
+                test.testGroupsMatchRowByRow(mode.toString());
+                test.testSnapshotAndOwnWrites(mode.toString());
+                test.testApproxDistinctAndSql(mode.toString());
+                test.db.close();
+            }
+            System.out.println("\n✓ All GroupByTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
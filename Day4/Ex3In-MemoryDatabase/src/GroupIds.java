@@ -0,0 +1,68 @@
+import java.util.*;
+
+// Numbers the rows of a columnar batch by their group key. Each key column is numbered on its own
+// first (int values, double bits or dictionary codes; null gets a number of its own), then the
+// per-column numbers are folded left to right, so a key of any width becomes one dense int without
+// boxing. The first position of each group is kept to read its key values back at the end.
+final class GroupIds {
+    private final ColumnVector[] keys;
+    private final LongIntMap[] columnIds;
+    private final int[] nullIds;
+    private final LongIntMap[] folded; // folded[k]: (group over keys 0..k-1, number of key k) -> group over 0..k
+    private int[] first = new int[16];
+    private int groups;
+    private int[] scratch = new int[0];
+
+    GroupIds(ColumnVector[] keys) {
+        this.keys = keys;
+        columnIds = new LongIntMap[keys.length];
+        folded = new LongIntMap[keys.length];
+        nullIds = new int[keys.length];
+        Arrays.fill(nullIds, -1);
+        for (int k = 0; k < keys.length; k++) {
+            columnIds[k] = new LongIntMap();
+            if (k > 0) folded[k] = new LongIntMap();
+        }
+    }
+
+    // Writes the group of pos[i] to out[i] for i < n.
+    void assign(int[] pos, int n, int[] out) {
+        if (keys.length == 0) Arrays.fill(out, 0, n, 0);
+        else {
+            if (scratch.length < n) scratch = new int[n];
+            number(0, pos, n, out);
+            for (int k = 1; k < keys.length; k++) {
+                number(k, pos, n, scratch);
+                LongIntMap f = folded[k];
+                for (int i = 0; i < n; i++) out[i] = f.idOf(((long) out[i] << 32) | scratch[i]);
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            if (out[i] < groups) continue;
+            // ids are handed out densely, so a new group is always the next number
+            if (groups == first.length) first = Arrays.copyOf(first, groups * 2);
+            first[groups++] = pos[i];
+        }
+    }
+
+    private void number(int k, int[] pos, int n, int[] out) {
+        ColumnVector v = keys[k];
+        LongIntMap ids = columnIds[k];
+        for (int i = 0; i < n; i++) {
+            int p = pos[i];
+            if (!v.isNull(p)) out[i] = ids.idOf(v.keyCode(p));
+            else {
+                if (nullIds[k] < 0) nullIds[k] = ids.newId();
+                out[i] = nullIds[k];
+            }
+        }
+    }
+
+    int groups() { return groups; }
+
+    List<Object> key(int group) {
+        Object[] key = new Object[keys.length];
+        for (int k = 0; k < key.length; k++) key[k] = keys[k].get(first[group]);
+        return Arrays.asList(key);
+    }
+}
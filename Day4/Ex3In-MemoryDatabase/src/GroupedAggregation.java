@@ -0,0 +1,73 @@
+import java.util.*;
+
+// Aggregate states per group key (the values of the GROUP BY columns, in order). Partitions of a
+// table are aggregated into separate instances and merged; groups keep first-seen order.
+final class GroupedAggregation {
+    // Stores split larger scans into partitions of about this many rows, aggregated in parallel.
+    static final int PARTITION_ROWS = 1 << 16;
+
+    final List<String> groupBy;
+    final List<Aggregate> aggregates;
+    private final Map<List<Object>, AggregateState[]> groups = new LinkedHashMap<>();
+
+    GroupedAggregation(List<String> groupBy, List<Aggregate> aggregates) {
+        this.groupBy = groupBy; this.aggregates = aggregates;
+    }
+
+    AggregateState[] group(List<Object> key) {
+        AggregateState[] states = groups.get(key);
+        if (states == null) {
+            states = new AggregateState[aggregates.size()];
+            for (int i = 0; i < states.length; i++) states[i] = aggregates.get(i).newState();
+            groups.put(key, states);
+        }
+        return states;
+    }
+
+    void add(Row r) {
+        Object[] key = new Object[groupBy.size()];
+        for (int i = 0; i < key.length; i++) key[i] = r.get(groupBy.get(i));
+        AggregateState[] states = group(Arrays.asList(key));
+        for (int i = 0; i < states.length; i++) {
+            Aggregate a = aggregates.get(i);
+            a.add(states[i], a.column == null ? null : r.get(a.column));
+        }
+    }
+
+    // Adds a group's states; key must not be present yet.
+    void put(List<Object> key, AggregateState[] states) { groups.put(key, states); }
+
+    void merge(GroupedAggregation o) {
+        for (Map.Entry<List<Object>, AggregateState[]> e : o.groups.entrySet()) {
+            AggregateState[] mine = groups.get(e.getKey());
+            if (mine == null) { groups.put(e.getKey(), e.getValue()); continue; }
+            for (int i = 0; i < mine.length; i++) mine[i].merge(e.getValue()[i]);
+        }
+    }
+
+    int groupCount() { return groups.size(); }
+
+    // One tuple per group: the group values followed by the aggregate results. Without GROUP BY
+    // there is always exactly one tuple, even over no rows.
+    List<Object[]> tuples() {
+        if (groups.isEmpty() && groupBy.isEmpty()) group(List.of());
+        List<Object[]> out = new ArrayList<>(groups.size());
+        for (Map.Entry<List<Object>, AggregateState[]> g : groups.entrySet()) {
+            Object[] t = Arrays.copyOf(g.getKey().toArray(), groupBy.size() + aggregates.size());
+            for (int i = 0; i < aggregates.size(); i++) t[groupBy.size() + i] = aggregates.get(i).result(g.getValue()[i]);
+            out.add(t);
+        }
+        return out;
+    }
+
+    List<Map<String,Object>> toMaps() {
+        List<Map<String,Object>> out = new ArrayList<>();
+        for (Object[] t : tuples()) {
+            Map<String,Object> m = new LinkedHashMap<>();
+            for (int i = 0; i < groupBy.size(); i++) m.put(groupBy.get(i), t[i]);
+            for (int i = 0; i < aggregates.size(); i++) m.put(aggregates.get(i).alias, t[groupBy.size() + i]);
+            out.add(m);
+        }
+        return out;
+    }
+}
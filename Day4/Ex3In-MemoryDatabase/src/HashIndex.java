@@ -0,0 +1,60 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Writers are serialized by the table's commit lock; lookups run concurrently with them.
+public class HashIndex extends Index {
+    private final Map<Object, Set<Long>> index = new ConcurrentHashMap<>();
+    private final Set<Long> nullIds = ConcurrentHashMap.newKeySet(); // ConcurrentHashMap has no null key
+
+    public HashIndex(String column) { super(column); }
+
+    @Override public IndexType getType() { return IndexType.HASH; }
+
+    @Override
+    public void add(Object value, long rowId) {
+        if (value == null) nullIds.add(rowId);
+        else index.computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet()).add(rowId);
+    }
+    @Override
+    public void remove(Object value, long rowId) {
+        if (value == null) { nullIds.remove(rowId); return; }
+        Set<Long> s = index.get(value);
+        if (s != null) { s.remove(rowId); if (s.isEmpty()) index.remove(value); }
+    }
+    @Override
+    public Set<Long> find(Object value) {
+        if (value == null) return Collections.unmodifiableSet(nullIds);
+        return index.getOrDefault(value, Collections.emptySet());
+    }
+
+    @Override boolean supports(Condition c) { return c.op == Condition.Op.EQ; }
+    @Override
+    void lookup(Condition c, Collection<Long> out) {
+        if (!(c.value instanceof Number)) { out.addAll(find(c.value)); return; }
+        for (Object k : equalNumbers((Number) c.value)) out.addAll(find(k));
+    }
+
+    @Override
+    long estimate(Condition c, long cap) {
+        if (!(c.value instanceof Number)) return find(c.value).size();
+        long n = 0;
+        for (Object k : equalNumbers((Number) c.value)) n += find(k).size();
+        return n;
+    }
+
+    // Keys of every number class that Condition EQ considers equal to n; the index is keyed by equals()
+    private static List<Object> equalNumbers(Number n) {
+        List<Object> keys = new ArrayList<>(6);
+        double d = n.doubleValue();
+        keys.add(d);
+        keys.add((float) d);
+        long l = Condition.integral(n) ? n.longValue() : (long) d;
+        if (Condition.integral(n) || (l == d && d != 0x1p63)) {
+            keys.add(l);
+            if (l == (int) l) keys.add((int) l);
+            if (l == (short) l) keys.add((short) l);
+            if (l == (byte) l) keys.add((byte) l);
+        }
+        return keys;
+    }
+}
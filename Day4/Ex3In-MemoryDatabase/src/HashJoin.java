@@ -0,0 +1,48 @@
+import java.util.*;
+
+// Build/probe equi-join. The build side is hashed once, the probe side is streamed row by row.
+// Keys are compared as JoinIterator.key() normalises them, so numbers match by value; null keys
+// never match (SQL semantics).
+class HashJoin extends JoinIterator {
+    private final Map<Object, Object> buildTable = new HashMap<>(); // key -> Row, or List<Row> for duplicates
+    private final Iterator<Row> probe;
+    private final String probeColumn;
+    private final boolean buildIsLeft;
+    private Row probeRow;
+    private List<Row> matches = List.of();
+    private int matchPos;
+
+    HashJoin(Collection<Row> build, String buildColumn, Collection<Row> probe, String probeColumn, boolean buildIsLeft) {
+        for (Row r : build) {
+            Object k = key(r.get(buildColumn));
+            if (k == null) continue;
+            Object prev = buildTable.putIfAbsent(k, r);
+            if (prev instanceof Row) {
+                List<Row> list = new ArrayList<>(2);
+                list.add((Row) prev); list.add(r);
+                buildTable.put(k, list);
+            } else if (prev != null) {
+                @SuppressWarnings("unchecked") List<Row> list = (List<Row>) prev;
+                list.add(r);
+            }
+        }
+        this.probe = probe.iterator();
+        this.probeColumn = probeColumn;
+        this.buildIsLeft = buildIsLeft;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected JoinedRow advance() {
+        while (matchPos >= matches.size()) {
+            if (!probe.hasNext()) return null;
+            probeRow = probe.next();
+            Object k = key(probeRow.get(probeColumn));
+            Object hit = k == null ? null : buildTable.get(k);
+            matches = hit == null ? List.of() : hit instanceof Row ? List.of((Row) hit) : (List<Row>) hit;
+            matchPos = 0;
+        }
+        Row b = matches.get(matchPos++);
+        return buildIsLeft ? new JoinedRow(b, probeRow) : new JoinedRow(probeRow, b);
+    }
+}
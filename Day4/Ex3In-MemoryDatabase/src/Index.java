@@ -1,20 +1,25 @@
 import java.util.*;
 
-
-public class Index {
+// Secondary index over one column: maps a value to the ids of the rows holding it.
+public abstract class Index {
     private final String column;
-    private final Map<Object, Set<Long>> index = new HashMap<>();
 
-    public Index(String column) { this.column = column; }
-    public void add(Object value, long rowId) {
-        index.computeIfAbsent(value, k -> new HashSet<>()).add(rowId);
-    }
-    public void remove(Object value, long rowId) {
-        Set<Long> s = index.get(value);
-        if (s != null) { s.remove(rowId); if (s.isEmpty()) index.remove(value); }
-    }
-    public Set<Long> find(Object value) {
-        return index.getOrDefault(value, Collections.emptySet());
+    protected Index(String column) { this.column = column; }
+
+    static Index create(String column, IndexType type) {
+        return type == IndexType.SORTED ? new SortedIndex(column) : new HashIndex(column);
     }
+
     public String getColumn() { return column; }
+    public abstract IndexType getType();
+    public abstract void add(Object value, long rowId);
+    public abstract void remove(Object value, long rowId);
+    public abstract Set<Long> find(Object value);
+
+    // Whether lookup() can answer the condition.
+    abstract boolean supports(Condition c);
+    // Adds the ids of rows that may satisfy c (callers re-check the condition on the row).
+    abstract void lookup(Condition c, Collection<Long> out);
+    // Number of ids lookup() would return, counting at most cap + 1.
+    abstract long estimate(Condition c, long cap);
 }
@@ -0,0 +1,54 @@
+import java.util.*;
+
+// Index nested-loop join: streams the outer input and looks every key up in the inner table's index.
+// Keys match as in Condition EQ (numbers by value). Probed rows are read at the snapshot of tx (the
+// one the outer input was read at), which stays open until the join is exhausted or closed.
+class IndexJoin extends JoinIterator {
+    private final Iterator<Row> outer;
+    private final String outerColumn;
+    private final Table inner;
+    private final Index innerIndex;
+    private final boolean outerIsLeft;
+    private final Transaction tx;
+    private Row outerRow;
+    private Condition match;
+    private Iterator<Long> hits = Collections.emptyIterator();
+
+    IndexJoin(Collection<Row> outer, String outerColumn, Table inner, Index innerIndex, boolean outerIsLeft, Transaction tx) {
+        this.outer = outer.iterator();
+        this.outerColumn = outerColumn;
+        this.inner = inner;
+        this.innerIndex = innerIndex;
+        this.outerIsLeft = outerIsLeft;
+        this.tx = tx;
+    }
+
+    @Override
+    protected JoinedRow advance() {
+        while (true) {
+            while (hits.hasNext()) {
+                Row in = inner.getRow(hits.next(), tx);
+                // not visible at the snapshot (the index holds every live version), or an index
+                // candidate that is not equal (a sorted index range also covers nearby doubles)
+                if (in == null || !match.matches(in)) continue;
+                return outerIsLeft ? new JoinedRow(outerRow, in) : new JoinedRow(in, outerRow);
+            }
+            if (!outer.hasNext()) return null;
+            outerRow = outer.next();
+            Object k = outerRow.get(outerColumn);
+            if (k == null) continue;
+            match = Condition.eq(innerIndex.getColumn(), k);
+            // copied: the index may change while the caller consumes results. A set, as a row whose
+            // live versions hold 1 and 1.0 sits under both keys.
+            Set<Long> ids = new LinkedHashSet<>();
+            innerIndex.lookup(match, ids);
+            hits = ids.iterator();
+        }
+    }
+
+    @Override
+    public void close() {
+        super.close();
+        tx.rollback();
+    }
+}
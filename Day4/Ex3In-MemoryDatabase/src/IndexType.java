@@ -0,0 +1,4 @@
+public enum IndexType {
+    HASH,   // equality lookups only
+    SORTED  // equality, range and prefix scans, ordered iteration
+}
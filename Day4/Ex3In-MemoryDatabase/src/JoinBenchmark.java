@@ -0,0 +1,37 @@
+import java.util.*;
+
+// Join throughput per strategy on two generated tables (customers 1 : N orders).
+// Run: java -Xmx6g JoinBenchmark [rows]
+public class JoinBenchmark {
+    public static void main(String[] args) {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        Database db = new Database();
+        Schema customers = new Schema();
+        customers.addColumn("id", DataType.INTEGER);
+        customers.addColumn("name", DataType.STRING);
+        db.createTable("customers", customers);
+        Schema orders = new Schema();
+        orders.addColumn("orderId", DataType.INTEGER);
+        orders.addColumn("customerId", DataType.INTEGER);
+        db.createTable("orders", orders);
+
+        Random rnd = new Random(7);
+        Table c = db.getTable("customers"), o = db.getTable("orders");
+        for (int i = 0; i < n; i++) c.insert(Map.of("id", i, "name", "c" + i), null);
+        for (int i = 0; i < n; i++) o.insert(Map.of("orderId", i, "customerId", rnd.nextInt(n)), null);
+        db.vacuum();
+        c.createIndex("id");
+        System.out.printf("rows=%,d x %,d, AUTO plan: %s%n", n, n, db.explainJoin("customers", "orders", "id", "customerId"));
+
+        for (int round = 0; round < 2; round++) { // first round warms up
+            for (JoinStrategy s : List.of(JoinStrategy.HASH, JoinStrategy.SORT_MERGE, JoinStrategy.INDEX)) {
+                long t0 = System.nanoTime();
+                long count = 0;
+                Iterator<JoinedRow> it = db.joinIterator("customers", "orders", "id", "customerId", s);
+                while (it.hasNext()) { it.next(); count++; }
+                if (round == 1) System.out.printf("  %-10s %,d matches in %,d ms%n", s, count, (System.nanoTime() - t0) / 1_000_000);
+            }
+        }
+        db.close();
+    }
+}
@@ -0,0 +1,55 @@
+import java.util.*;
+
+// Base for the lazy join operators: subclasses produce one match at a time from advance(). An
+// operator holding a read snapshot releases it when exhausted or closed, whichever comes first;
+// callers that may stop early must close it.
+public abstract class JoinIterator implements Iterator<JoinedRow>, AutoCloseable {
+    private JoinedRow next;
+    private boolean done;
+
+    // Returns the next match, or null when the join is exhausted.
+    protected abstract JoinedRow advance();
+
+    @Override
+    public boolean hasNext() {
+        if (next == null && !done) {
+            next = advance();
+            done = next == null;
+            if (done) close();
+        }
+        return next != null;
+    }
+
+    @Override
+    public JoinedRow next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        JoinedRow r = next;
+        next = null;
+        return r;
+    }
+
+    // Stops the join; later hasNext() calls return false.
+    @Override
+    public void close() {
+        done = true;
+        next = null;
+    }
+
+    static JoinIterator empty() {
+        return new JoinIterator() {
+            @Override protected JoinedRow advance() { return null; }
+        };
+    }
+
+    // Join key for a column value, equal for the values Condition EQ finds equal: numbers with an
+    // integral value become a Long and other numbers a Double, so 1, 1L and 1.0 meet. null for null
+    // and NaN, which never match.
+    static Object key(Object v) {
+        if (!(v instanceof Number)) return v;
+        Number n = (Number) v;
+        if (Condition.integral(n)) return n.longValue();
+        double d = n.doubleValue();
+        if (Double.isNaN(d)) return null;
+        return d == Math.rint(d) && d >= -0x1p63 && d < 0x1p63 ? (Object) (long) d : (Object) d;
+    }
+}
@@ -0,0 +1,110 @@
+import java.util.*;
+
+// Inner equi-join of two subplans; output tuples are the left columns followed by the right ones.
+// HASH builds a hash table on one side (buildLeft) and streams the other. INDEX requires the right
+// side to be a table scan and looks each left key up through that table's index. Keys match as in
+// Condition EQ (numbers by value), like the Database.join operators; null keys never match.
+class JoinNode extends PlanNode {
+    PlanNode left, right;
+    final String leftKey, rightKey; // column references into left and right
+    JoinStrategy strategy = JoinStrategy.HASH;
+    boolean buildLeft;
+
+    JoinNode(PlanNode left, PlanNode right, String leftKey, String rightKey) {
+        this.left = left; this.right = right; this.leftKey = leftKey; this.rightKey = rightKey;
+    }
+
+    @Override
+    List<String> columns() {
+        List<String> cols = new ArrayList<>(left.columns());
+        cols.addAll(right.columns());
+        return cols;
+    }
+
+    @Override List<PlanNode> children() { return List.of(left, right); }
+
+    @Override
+    void setChild(int i, PlanNode child) {
+        if (i == 0) left = child; else right = child;
+    }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        int lk = left.indexOf(leftKey), rk = right.indexOf(rightKey);
+        int lw = left.columns().size(), rw = right.columns().size();
+        if (strategy == JoinStrategy.INDEX) {
+            ScanNode scan = (ScanNode) right;
+            String column = scan.tableColumns().get(rk);
+            return new Matches(left.open(tx), lk, lw + rw, true) {
+                @Override Iterator<Object[]> lookup(Object key) {
+                    List<Condition> where = new ArrayList<>(scan.conditions);
+                    where.add(Condition.eq(column, key));
+                    return ScanNode.tuples(scan.table.select(where, tx), scan.tableColumns());
+                }
+            };
+        }
+        PlanNode build = buildLeft ? left : right, probe = buildLeft ? right : left;
+        int bk = buildLeft ? lk : rk, pk = buildLeft ? rk : lk;
+        return new LazyIterator(() -> {
+            Map<Object, List<Object[]>> table = new HashMap<>();
+            build.open(tx).forEachRemaining(t -> {
+                Object k = JoinIterator.key(t[bk]);
+                if (k != null) table.computeIfAbsent(k, x -> new ArrayList<>(1)).add(t);
+            });
+            return new Matches(probe.open(tx), pk, lw + rw, !buildLeft) {
+                @Override Iterator<Object[]> lookup(Object key) {
+                    List<Object[]> hits = table.get(JoinIterator.key(key));
+                    return hits == null ? Collections.emptyIterator() : hits.iterator();
+                }
+            };
+        });
+    }
+
+    // Streams the outer side and concatenates each tuple with its matches from lookup().
+    private abstract static class Matches implements Iterator<Object[]> {
+        private final Iterator<Object[]> outer;
+        private final int key, width;
+        private final boolean outerIsLeft;
+        private Object[] current;
+        private Iterator<Object[]> hits = Collections.emptyIterator();
+
+        Matches(Iterator<Object[]> outer, int key, int width, boolean outerIsLeft) {
+            this.outer = outer; this.key = key; this.width = width; this.outerIsLeft = outerIsLeft;
+        }
+
+        abstract Iterator<Object[]> lookup(Object key);
+
+        @Override
+        public boolean hasNext() {
+            while (!hits.hasNext()) {
+                if (!outer.hasNext()) return false;
+                current = outer.next();
+                if (current[key] != null) hits = lookup(current[key]);
+            }
+            return true;
+        }
+
+        @Override
+        public Object[] next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            Object[] inner = hits.next();
+            Object[] l = outerIsLeft ? current : inner, r = outerIsLeft ? inner : current;
+            Object[] t = Arrays.copyOf(l, width);
+            System.arraycopy(r, 0, t, l.length, r.length);
+            return t;
+        }
+    }
+
+    @Override
+    long estimate() {
+        // key/foreign-key joins: about one match per row of the larger side
+        return Math.max(left.estimate(), right.estimate());
+    }
+
+    @Override
+    String describe() {
+        String how = strategy == JoinStrategy.INDEX ? "IndexJoin lookup right by " + rightKey
+                : "HashJoin build=" + (buildLeft ? "left" : "right");
+        return how + " on " + leftKey + " = " + rightKey + " ~" + estimate() + " rows";
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.*;
+
+// Picks a join operator for a.colA = b.colB from table cardinalities and the indexes that exist.
+// Costs are rough "rows touched" estimates; only their relative size matters.
+class JoinPlanner {
+    static final double HASH_BUILD_COST = 2.0;  // hashing + inserting one build row
+    static final double INDEX_PROBE_COST = 3.0; // index lookup + row fetch per outer row
+
+    static final class Plan {
+        final JoinStrategy strategy;
+        final double cost;
+        final boolean leftIsBuildOrOuter; // hash: left is the build side; index: left is the outer side
+        Plan(JoinStrategy strategy, double cost, boolean leftIsBuildOrOuter) {
+            this.strategy = strategy; this.cost = cost; this.leftIsBuildOrOuter = leftIsBuildOrOuter;
+        }
+        @Override public String toString() {
+            String side = strategy == JoinStrategy.HASH ? (leftIsBuildOrOuter ? " build=left" : " build=right")
+                    : strategy == JoinStrategy.INDEX ? (leftIsBuildOrOuter ? " outer=left" : " outer=right") : "";
+            return strategy + side + String.format(" cost=%.0f", cost);
+        }
+    }
+
+    static Plan plan(Table a, String colA, Table b, String colB, JoinStrategy forced) {
+        long n = a.size(), m = b.size();
+        List<Plan> candidates = new ArrayList<>();
+        candidates.add(new Plan(JoinStrategy.HASH, HASH_BUILD_COST * Math.min(n, m) + Math.max(n, m), n <= m));
+        // inputs with a sorted index on the join column are read in key order instead of sorted
+        double sortA = a.getIndex(colA) instanceof SortedIndex ? n : sortCost(n);
+        double sortB = b.getIndex(colB) instanceof SortedIndex ? m : sortCost(m);
+        candidates.add(new Plan(JoinStrategy.SORT_MERGE, sortA + sortB + n + m, true));
+        Index ia = a.getIndex(colA), ib = b.getIndex(colB);
+        if (ib != null) candidates.add(new Plan(JoinStrategy.INDEX, n * INDEX_PROBE_COST, true));
+        if (ia != null) candidates.add(new Plan(JoinStrategy.INDEX, m * INDEX_PROBE_COST, false));
+
+        Plan best = null;
+        for (Plan p : candidates) {
+            if (forced != JoinStrategy.AUTO && p.strategy != forced) continue;
+            if (best == null || p.cost < best.cost) best = p;
+        }
+        if (best == null) throw new IllegalArgumentException("No index available for " + forced + " join on " + colA + "/" + colB);
+        return best;
+    }
+
+    static double sortCost(long rows) { return rows <= 1 ? 0 : rows * (Math.log(rows) / Math.log(2)); }
+
+    // Reads both inputs in tx, so they come from one snapshot. The index join keeps probing at tx and
+    // rolls it back once exhausted or closed; the other operators have read everything when they
+    // return and roll it back right away.
+    static JoinIterator execute(Plan p, Table a, String colA, Table b, String colB, Transaction tx) {
+        try {
+            switch (p.strategy) {
+                case HASH:
+                    return p.leftIsBuildOrOuter
+                            ? new HashJoin(a.getAllRows(tx), colA, b.getAllRows(tx), colB, true)
+                            : new HashJoin(b.getAllRows(tx), colB, a.getAllRows(tx), colA, false);
+                case SORT_MERGE: {
+                    List<Row> orderedA = a.rowsOrderedBy(colA, tx), orderedB = b.rowsOrderedBy(colB, tx);
+                    return new SortMergeJoin(orderedA != null ? orderedA : a.getAllRows(tx), colA, orderedA != null,
+                            orderedB != null ? orderedB : b.getAllRows(tx), colB, orderedB != null);
+                }
+                case INDEX: {
+                    IndexJoin join = p.leftIsBuildOrOuter
+                            ? new IndexJoin(a.getAllRows(tx), colA, b, b.getIndex(colB), true, tx)
+                            : new IndexJoin(b.getAllRows(tx), colB, a, a.getIndex(colA), false, tx);
+                    tx = null; // now owned by the join
+                    return join;
+                }
+                default:
+                    throw new IllegalArgumentException("Unknown join strategy: " + p.strategy);
+            }
+        } finally {
+            if (tx != null) tx.rollback();
+        }
+    }
+}
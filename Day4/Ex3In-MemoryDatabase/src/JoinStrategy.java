@@ -0,0 +1,6 @@
+public enum JoinStrategy {
+    AUTO,        // let JoinPlanner pick from table cardinalities and available indexes
+    HASH,        // build a hash table on the smaller input, stream the larger one through it
+    SORT_MERGE,  // sort both inputs on the join key and merge them
+    INDEX        // probe an existing index on one side for every row of the other
+}
@@ -0,0 +1,86 @@
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * Every join strategy, SQL and WHERE agree on numeric keys of different classes, and a lazy join
+ * stopped early gives its snapshot back once closed.
+ * Run with assertions enabled: java -ea JoinTest
+ */
+public class JoinTest {
+
+    private Database db;
+
+    public void setUp(StorageMode mode, IndexType index) {
+        db = new Database();
+        Schema ids = new Schema();
+        ids.addColumn("id", DataType.INTEGER);
+        Schema refs = new Schema();
+        refs.addColumn("ref", DataType.DOUBLE);
+        db.createTable("a", ids, mode);
+        db.createTable("b", refs, mode);
+        for (int i = 0; i < 20; i++) db.getTable("a").insert(Map.of("id", i), null);
+        for (int i = 0; i < 40; i++) db.getTable("b").insert(Map.of("ref", i * 0.5), null); // 0.0, 0.5, 1.0, ...
+        if (index != null) {
+            db.getTable("a").createIndex("id", index);
+            db.getTable("b").createIndex("ref", index);
+        }
+    }
+
+    public void testNumericKeysMatchByValue(String label) {
+        int where = 0;
+        for (Row r : db.getTable("a").getAllRows()) {
+            where += db.getTable("b").select(List.of(Condition.eq("ref", r.get("id")))).size();
+        }
+        assert where == 20 : label + ": WHERE found " + where;
+        for (JoinStrategy strategy : JoinStrategy.values()) {
+            if (strategy == JoinStrategy.INDEX && db.getTable("b").getIndex("ref") == null) continue;
+            int n = 0;
+            try (JoinIterator it = db.joinIterator("a", "b", "id", "ref", strategy)) {
+                while (it.hasNext()) {
+                    JoinedRow r = it.next();
+                    assert ((Number) r.getLeft().get("id")).doubleValue() == (Double) r.getRight().get("ref");
+                    n++;
+                }
+            }
+            assert n == where : label + ": " + strategy + " join found " + n;
+        }
+        int sql = db.query("SELECT * FROM a JOIN b ON a.id = b.ref").toList().size();
+        assert sql == where : label + ": SQL join found " + sql;
+        System.out.println("✓ testNumericKeysMatchByValue passed (" + label + ")");
+    }
+
+    public void testEarlyStopReleasesSnapshot(String label) {
+        assert db.getOpenSnapshotCount() == 0;
+        for (int i = 0; i < 3; i++) {
+            try (Stream<JoinedRow> s = db.joinStream("a", "b", "id", "ref")) {
+                assert s.findFirst().isPresent();
+            }
+        }
+        if (db.getTable("b").getIndex("ref") != null) {
+            try (JoinIterator it = db.joinIterator("a", "b", "id", "ref", JoinStrategy.INDEX)) {
+                it.next();
+            }
+        }
+        assert db.getOpenSnapshotCount() == 0 : label + ": " + db.getOpenSnapshotCount() + " snapshots left open";
+        System.out.println("✓ testEarlyStopReleasesSnapshot passed (" + label + ")");
+    }
+
+    public static void main(String[] args) {
+        JoinTest test = new JoinTest();
+        try {
+            for (StorageMode mode : StorageMode.values()) {
+                for (IndexType index : new IndexType[]{null, IndexType.HASH, IndexType.SORTED}) {
+                    String label = mode + (index == null ? "" : " + " + index + " index");
+                    test.setUp(mode, index);
+                    test.testNumericKeysMatchByValue(label);
+                    test.testEarlyStopReleasesSnapshot(label);
+                    test.db.close();
+                }
+            }
+            System.out.println("\n✓ All JoinTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,25 @@
+import java.util.*;
+
+// One join result: a view over the matching left and right rows, no values are copied.
+// Column lookups prefer the right row, matching the old putAll(left); putAll(right) behaviour.
+public class JoinedRow {
+    private final Row left;
+    private final Row right;
+
+    JoinedRow(Row left, Row right) { this.left = left; this.right = right; }
+
+    public Row getLeft() { return left; }
+    public Row getRight() { return right; }
+
+    public Object get(String column) {
+        return right.has(column) ? right.get(column) : left.get(column);
+    }
+
+    public Map<String,Object> asMap() {
+        Map<String,Object> m = new LinkedHashMap<>(left.asMap());
+        m.putAll(right.asMap());
+        return m;
+    }
+
+    @Override public String toString() { return asMap().toString(); }
+}
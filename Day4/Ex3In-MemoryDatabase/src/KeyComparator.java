@@ -0,0 +1,52 @@
+import java.util.*;
+
+// Total order over column values that is consistent with equals(). Numbers form one group ordered
+// by numeric value (ties between different number classes broken by class name), other values of
+// the same class use their natural order, and groups are ordered by name. Nulls sort first.
+// Bound sentinels let range scans include every number equal to a bound.
+final class KeyComparator implements Comparator<Object> {
+    static final KeyComparator INSTANCE = new KeyComparator();
+
+    private static final String NUMBER_GROUP = "java.lang.Number";
+
+    private KeyComparator() {}
+
+    private static String group(Object o) { return o instanceof Number ? NUMBER_GROUP : o.getClass().getName(); }
+
+    // Sorts just below (low) or just above (high) every number with the given value.
+    static final class Bound {
+        final double value; final boolean high;
+        Bound(double value, boolean high) { this.value = value; this.high = high; }
+    }
+
+    @Override
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public int compare(Object a, Object b) {
+        if (a == b) return 0;
+        if (a == null) return -1;
+        if (b == null) return 1;
+        if (a instanceof Bound || b instanceof Bound) return compareBound(a, b);
+        if (a instanceof Number && b instanceof Number) {
+            int c = Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+            if (c != 0) return c;
+        } else if (a.getClass() != b.getClass()) {
+            return group(a).compareTo(group(b));
+        }
+        if (a.getClass() != b.getClass()) return a.getClass().getName().compareTo(b.getClass().getName());
+        if (a instanceof Comparable) return ((Comparable) a).compareTo(b);
+        return Integer.compare(a.hashCode(), b.hashCode());
+    }
+
+    private int compareBound(Object a, Object b) {
+        if (a instanceof Bound && b instanceof Bound) {
+            Bound x = (Bound) a, y = (Bound) b;
+            int c = Double.compare(x.value, y.value);
+            return c != 0 ? c : Boolean.compare(x.high, y.high);
+        }
+        if (a instanceof Bound) return -compareBound(b, a);
+        Bound bb = (Bound) b;
+        if (!(a instanceof Number)) return group(a).compareTo(NUMBER_GROUP) > 0 ? 1 : -1;
+        int c = Double.compare(((Number) a).doubleValue(), bb.value);
+        return c != 0 ? c : (bb.high ? -1 : 1);
+    }
+}
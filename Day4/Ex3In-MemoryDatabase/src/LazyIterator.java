@@ -0,0 +1,18 @@
+import java.util.*;
+import java.util.function.Supplier;
+
+// Defers building the underlying iterator until a row is first requested.
+final class LazyIterator implements Iterator<Object[]> {
+    private Supplier<Iterator<Object[]>> source;
+    private Iterator<Object[]> it;
+
+    LazyIterator(Supplier<Iterator<Object[]>> source) { this.source = source; }
+
+    private Iterator<Object[]> it() {
+        if (it == null) { it = source.get(); source = null; }
+        return it;
+    }
+
+    @Override public boolean hasNext() { return it().hasNext(); }
+    @Override public Object[] next() { return it().next(); }
+}
@@ -0,0 +1,29 @@
+import java.util.*;
+
+class LimitNode extends PlanNode {
+    PlanNode child;
+    final int limit;
+
+    LimitNode(PlanNode child, int limit) { this.child = child; this.limit = limit; }
+
+    @Override List<String> columns() { return child.columns(); }
+    @Override List<PlanNode> children() { return List.of(child); }
+    @Override void setChild(int i, PlanNode child) { this.child = child; }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        Iterator<Object[]> in = child.open(tx);
+        return new Iterator<Object[]>() {
+            private int returned;
+            @Override public boolean hasNext() { return returned < limit && in.hasNext(); }
+            @Override public Object[] next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                returned++;
+                return in.next();
+            }
+        };
+    }
+
+    @Override long estimate() { return Math.min(limit, child.estimate()); }
+    @Override String describe() { return "Limit " + limit; }
+}
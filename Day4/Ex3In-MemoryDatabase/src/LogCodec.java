@@ -0,0 +1,115 @@
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+// Binary encoding of values, rows and schemas shared by the write-ahead log and checkpoints.
+final class LogCodec {
+    private static final byte NULL = 0, INT = 1, LONG = 2, DOUBLE = 3, STRING = 4, BOOLEAN = 5;
+
+    private LogCodec() { }
+
+    static void writeString(DataOutput out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8); // writeUTF stops at 64 KB
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        byte[] b = new byte[in.readInt()];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    static void writeValue(DataOutput out, Object v) throws IOException {
+        if (v == null) out.writeByte(NULL);
+        else if (v instanceof Integer || v instanceof Short || v instanceof Byte) { out.writeByte(INT); out.writeInt(((Number) v).intValue()); }
+        else if (v instanceof Long) { out.writeByte(LONG); out.writeLong((Long) v); }
+        else if (v instanceof Double || v instanceof Float) { out.writeByte(DOUBLE); out.writeDouble(((Number) v).doubleValue()); }
+        else if (v instanceof String) { out.writeByte(STRING); writeString(out, (String) v); }
+        else if (v instanceof Boolean) { out.writeByte(BOOLEAN); out.writeBoolean((Boolean) v); }
+        else throw new IllegalArgumentException("Cannot persist value of type " + v.getClass().getName() + ": " + v);
+    }
+
+    static Object readValue(DataInput in) throws IOException {
+        byte tag = in.readByte();
+        switch (tag) {
+            case NULL: return null;
+            case INT: return in.readInt();
+            case LONG: return in.readLong();
+            case DOUBLE: return in.readDouble();
+            case STRING: return readString(in);
+            case BOOLEAN: return in.readBoolean();
+            default: throw new IOException("Unknown value tag: " + tag);
+        }
+    }
+
+    static void writeRow(DataOutput out, Row r) throws IOException {
+        Map<String, Object> values = r.asMap();
+        out.writeInt(values.size());
+        for (Map.Entry<String, Object> e : values.entrySet()) {
+            writeString(out, e.getKey());
+            writeValue(out, e.getValue());
+        }
+    }
+
+    static Row readRow(DataInput in, long id) throws IOException {
+        Row r = new Row(id);
+        for (int i = in.readInt(); i > 0; i--) r.set(readString(in), readValue(in));
+        return r;
+    }
+
+    static void writeSchema(DataOutput out, Schema schema) throws IOException {
+        out.writeInt(schema.getColumns().size());
+        for (Column c : schema.getColumns()) {
+            writeString(out, c.name);
+            out.writeByte(c.type.ordinal());
+        }
+    }
+
+    static Schema readSchema(DataInput in) throws IOException {
+        Schema schema = new Schema();
+        for (int i = in.readInt(); i > 0; i--) schema.addColumn(readString(in), DataType.values()[in.readByte()]);
+        return schema;
+    }
+
+    // Body of a COMMIT record: the transaction's net writes.
+    static byte[] commitBody(List<Transaction.Op> ops) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(ops.size());
+            for (Transaction.Op op : ops) {
+                writeString(out, op.table.getName());
+                out.writeLong(op.rowId);
+                out.writeBoolean(op.row != null);
+                if (op.row != null) writeRow(out, op.row);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by an in-memory stream
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] createTableBody(String name, Schema schema, StorageMode mode) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, name);
+            out.writeByte(mode.ordinal());
+            writeSchema(out, schema);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    static byte[] createIndexBody(String table, String column, IndexType type) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            writeString(out, table);
+            writeString(out, column);
+            out.writeByte(type.ordinal());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,47 @@
+import java.util.Arrays;
+
+// Open-addressing map from long keys to dense ids 0, 1, 2, ... in insertion order. Numbers group
+// keys without boxing them.
+final class LongIntMap {
+    private long[] keys = new long[16];
+    private int[] ids = new int[16]; // -1 = empty slot
+    private int size;                // ids handed out, including those from newId()
+    private int entries;
+
+    LongIntMap() { Arrays.fill(ids, -1); }
+
+    // The id of key, assigning the next one if key is new.
+    int idOf(long key) {
+        int mask = ids.length - 1;
+        for (int i = (int) HyperLogLog.hash(key) & mask; ; i = (i + 1) & mask) {
+            if (ids[i] < 0) {
+                keys[i] = key;
+                ids[i] = size++;
+                if (++entries * 2 > ids.length) grow();
+                return size - 1;
+            }
+            if (keys[i] == key) return ids[i];
+        }
+    }
+
+    // An id not tied to any key (for a null value).
+    int newId() { return size++; }
+
+    int size() { return size; }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[oldKeys.length * 2];
+        ids = new int[oldIds.length * 2];
+        Arrays.fill(ids, -1);
+        int mask = ids.length - 1;
+        for (int j = 0; j < oldIds.length; j++) {
+            if (oldIds[j] < 0) continue;
+            int i = (int) HyperLogLog.hash(oldKeys[j]) & mask;
+            while (ids[i] >= 0) i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            ids[i] = oldIds[j];
+        }
+    }
+}
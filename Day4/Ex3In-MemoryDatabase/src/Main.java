@@ -1,7 +1,7 @@
 import java.util.*;
 
 public class Main {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws java.io.IOException {
         Database db = new Database();
 
         // ---------------------------
@@ -29,6 +29,13 @@ public class Main {
         List<Map<String,Object>> bob = db.select("users", List.of("id","name","age"), Map.of("name","Bob"));
         System.out.println(bob);
 
+        // Sorted index: range predicates and ordered reads
+        users.createIndex("age", IndexType.SORTED);
+        System.out.println("Age between 26 and 40, oldest first: "
+                + users.select(List.of(Condition.between("age", 26, 40)), "age", false, 0));
+        System.out.println("Name starting with 'C' and age > 30: "
+                + db.select("users", List.of("name","age"), List.of(Condition.prefix("name", "C"), Condition.gt("age", 30))));
+
         // Aggregation
         System.out.println("AVG age: " + db.aggregate("users", "age", "AVG", null));
         System.out.println("COUNT: " + db.aggregate("users", "age", "COUNT", null));
@@ -42,7 +49,9 @@ public class Main {
         Transaction tx = db.beginTransaction();
         users.insert(Map.of("id",4,"name","Dave","age",28), tx);
         users.delete(Map.of("name","Alice"), tx);
-        System.out.println("Before rollback, all users: ");
+        System.out.println("Before rollback, users seen by the transaction: ");
+        users.getAllRows(tx).forEach(System.out::println);
+        System.out.println("Before rollback, committed users (uncommitted writes are invisible): ");
         users.getAllRows().forEach(System.out::println);
         tx.rollback();
         System.out.println("After rollback, all users: ");
@@ -67,6 +76,52 @@ public class Main {
         // Aggregation with where
         System.out.println("SUM amount where userId=1: " + db.aggregate("orders","amount","SUM", Map.of("userId",1)));
 
+        // Columnar table: same API, values kept in typed primitive arrays
+        Schema saleSchema = new Schema();
+        saleSchema.addColumn("region", DataType.STRING);
+        saleSchema.addColumn("amount", DataType.DOUBLE);
+        db.createTable("sales", saleSchema, StorageMode.COLUMNAR);
+        Table sales = db.getTable("sales");
+        sales.insert(Map.of("region","north","amount",120.0), null);
+        sales.insert(Map.of("region","south","amount",80.0), null);
+        sales.insert(Map.of("region","north","amount",40.0), null);
+        System.out.println("Columnar SUM amount where region=north: " + db.aggregate("sales","amount","SUM", Map.of("region","north")));
+        System.out.println("Per region, one pass: " + db.aggregate("sales", List.of("region"),
+                List.of(Aggregate.count(), Aggregate.sum("amount"), Aggregate.max("amount")), List.of()));
+
+        // Snapshot isolation: concurrent writers to the same row, first committer wins
+        Transaction t1 = db.beginTransaction();
+        Transaction t2 = db.beginTransaction();
+        users.update(Map.of("name","Carol"), Map.of("age", 41), t1);
+        users.update(Map.of("name","Carol"), Map.of("age", 42), t2);
+        t1.commit();
+        try {
+            t2.commit();
+        } catch (TransactionConflictException e) {
+            System.out.println("Second writer aborted: " + e.getMessage());
+        }
+        System.out.println("Carol after both commits: " + db.select("users", List.of("name","age"), Map.of("name","Carol")));
+
+        // SQL: parsed, optimized and run as a pull-based plan
+        String sql = "SELECT u.name, SUM(o.amount) AS total FROM users u JOIN orders o ON u.id = o.userId "
+                + "WHERE u.age > 20 GROUP BY u.name ORDER BY total DESC LIMIT 5";
+        System.out.println("SQL: " + db.query(sql).toList());
+        System.out.print(db.explain(sql));
+
+        db.close();
+
+        // Durable database: commits go to a write-ahead log and survive a restart
+        java.nio.file.Path dir = java.nio.file.Files.createTempDirectory("minidb");
+        Database durable = new Database(dir);
+        durable.createTable("users", userSchema);
+        durable.getTable("users").insert(Map.of("id", 1, "name", "Alice", "age", 30), null);
+        durable.checkpoint();
+        durable.getTable("users").update(Map.of("name", "Alice"), Map.of("age", 31), null);
+        durable.close();
+        Database reopened = new Database(dir);
+        System.out.println("After restart: " + reopened.getTable("users").getAllRows());
+        reopened.close();
+
         System.out.println("Demo complete.");
     }
 }
@@ -0,0 +1,48 @@
+import java.util.*;
+
+// One operator of a query plan. Operators pass tuples (Object[]) laid out as columns(), where scan
+// columns are named "alias.column". open() returns a pull iterator that does no work until the
+// first row is asked for, so a LIMIT above a join stops the join early.
+abstract class PlanNode {
+    abstract List<String> columns();
+    abstract List<PlanNode> children();
+    // Replaces the i-th of children(); used by the optimizer's rewrites.
+    abstract void setChild(int i, PlanNode child);
+    // Rows are read at tx's snapshot.
+    abstract Iterator<Object[]> open(Transaction tx);
+    // Estimated output rows, for join planning and EXPLAIN.
+    abstract long estimate();
+    // One line for EXPLAIN.
+    abstract String describe();
+
+    // Position of a column reference ("col" or "alias.col") in columns(). An exact name wins over
+    // an unqualified match on the column part.
+    int indexOf(String ref) {
+        List<String> cols = columns();
+        int exact = cols.indexOf(ref);
+        if (exact >= 0) return exact;
+        int found = -1;
+        if (ref.indexOf('.') < 0) {
+            for (int i = 0; i < cols.size(); i++) {
+                if (!cols.get(i).endsWith("." + ref)) continue;
+                if (found >= 0) throw new IllegalArgumentException("Ambiguous column: " + ref);
+                found = i;
+            }
+        }
+        if (found < 0) throw new IllegalArgumentException("Unknown column: " + ref);
+        return found;
+    }
+
+    // The full name of a column reference, as it appears in columns().
+    String resolve(String ref) { return columns().get(indexOf(ref)); }
+
+    boolean has(String ref) {
+        try { indexOf(ref); return true; } catch (IllegalArgumentException e) { return false; }
+    }
+
+    void explain(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++) sb.append("  ");
+        sb.append(describe()).append('\n');
+        for (PlanNode c : children()) c.explain(sb, depth + 1);
+    }
+}
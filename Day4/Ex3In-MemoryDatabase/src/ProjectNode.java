@@ -0,0 +1,33 @@
+import java.util.*;
+
+// Picks and renames the output columns of the query.
+class ProjectNode extends PlanNode {
+    PlanNode child;
+    final List<String> refs;   // column references into the child
+    final List<String> labels; // output names
+
+    ProjectNode(PlanNode child, List<String> refs, List<String> labels) { this.child = child; this.refs = refs; this.labels = labels; }
+
+    @Override List<String> columns() { return labels; }
+    @Override List<PlanNode> children() { return List.of(child); }
+    @Override void setChild(int i, PlanNode child) { this.child = child; }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        int[] at = new int[refs.size()];
+        for (int i = 0; i < at.length; i++) at[i] = child.indexOf(refs.get(i));
+        Iterator<Object[]> in = child.open(tx);
+        return new Iterator<Object[]>() {
+            @Override public boolean hasNext() { return in.hasNext(); }
+            @Override public Object[] next() {
+                Object[] t = in.next();
+                Object[] out = new Object[at.length];
+                for (int i = 0; i < at.length; i++) out[i] = t[at[i]];
+                return out;
+            }
+        };
+    }
+
+    @Override long estimate() { return child.estimate(); }
+    @Override String describe() { return "Project " + labels; }
+}
@@ -0,0 +1,165 @@
+import java.util.*;
+import java.util.function.UnaryOperator;
+
+// Rule-based rewrites of a QueryPlanner plan, applied in this order:
+//   1. predicate pushdown   - WHERE conditions move into the scans of their tables (so Table.select can
+//                             use an index), and are copied across equi-join keys to the other side
+//   2. aggregate pushdown   - an aggregate straight over one scan runs as Table.aggregate
+//   3. sort/limit pushdown  - ORDER BY served by a sorted index, LIMIT into the scan, LIMIT over a
+//                             sort turns it into a top-N
+//   4. join selection       - index lookup join when the outer side is much smaller and the inner
+//                             side is an indexed scan; otherwise hash join building the smaller side
+//   5. projection pruning   - scans emit only the columns something above them uses
+// Each rule that fires adds a line to notes, which EXPLAIN prints.
+final class QueryOptimizer {
+    private static final int INDEX_JOIN_RATIO = 4; // a lookup costs about as much as hashing 4 rows
+
+    private QueryOptimizer() { }
+
+    static PlanNode optimize(PlanNode root, List<String> notes) {
+        root = transform(root, n -> n instanceof FilterNode ? pushDownFilter((FilterNode) n, notes) : n);
+        transform(root, n -> { if (n instanceof AggregateNode) pushDownAggregate((AggregateNode) n, notes); return n; });
+        root = transform(root, n -> n instanceof SortNode ? pushDownSort((SortNode) n, notes)
+                : n instanceof LimitNode ? pushDownLimit((LimitNode) n, notes) : n);
+        root = transform(root, n -> n instanceof JoinNode ? chooseJoin((JoinNode) n, notes) : n);
+        pruneColumns(root, notes);
+        return root;
+    }
+
+    // Bottom-up: children first, then rule on the node itself, whose result replaces it.
+    private static PlanNode transform(PlanNode n, UnaryOperator<PlanNode> rule) {
+        List<PlanNode> children = n.children();
+        for (int i = 0; i < children.size(); i++) n.setChild(i, transform(children.get(i), rule));
+        return rule.apply(n);
+    }
+
+    private static PlanNode pushDownFilter(FilterNode f, List<String> notes) {
+        Map<String, ScanNode> scans = new HashMap<>();
+        Map<String, Set<String>> equal = new HashMap<>();
+        collect(f.child, scans, equal);
+        for (Condition c : f.conditions) {
+            for (String col : equal.getOrDefault(c.column, Set.of(c.column))) {
+                ScanNode scan = scans.get(col.substring(0, col.indexOf('.')));
+                scan.conditions.add(c.withColumn(col.substring(col.indexOf('.') + 1)));
+                notes.add(col.equals(c.column)
+                        ? "predicate pushdown: " + c + " evaluated by scan of " + scan.alias
+                        : "predicate transfer: " + c.withColumn(col) + " derived from " + c + " through the join");
+            }
+        }
+        return f.child;
+    }
+
+    // Scans by alias, and for each join key column every column it is joined equal to (itself included).
+    private static void collect(PlanNode n, Map<String, ScanNode> scans, Map<String, Set<String>> equal) {
+        if (n instanceof ScanNode) scans.put(((ScanNode) n).alias, (ScanNode) n);
+        if (n instanceof JoinNode) {
+            JoinNode j = (JoinNode) n;
+            Set<String> a = equal.computeIfAbsent(j.leftKey, k -> new LinkedHashSet<>(List.of(k)));
+            Set<String> b = equal.computeIfAbsent(j.rightKey, k -> new LinkedHashSet<>(List.of(k)));
+            if (a != b) {
+                a.addAll(b);
+                for (String col : b) equal.put(col, a);
+            }
+        }
+        for (PlanNode c : n.children()) collect(c, scans, equal);
+    }
+
+    private static void pushDownAggregate(AggregateNode a, List<String> notes) {
+        if (!(a.child instanceof ScanNode)) return;
+        a.pushedTo = (ScanNode) a.child;
+        notes.add("aggregate pushdown: " + a.labels + " computed by Table.aggregate on " + a.pushedTo.table.getName());
+    }
+
+    private static PlanNode pushDownSort(SortNode s, List<String> notes) {
+        if (s.keys.size() != 1 || !(s.child instanceof ScanNode) || s.limit == 0) return s;
+        ScanNode scan = (ScanNode) s.child;
+        String column = scan.tableColumns().get(scan.indexOf(s.keys.get(0)));
+        if (!(scan.table.getIndex(column) instanceof SortedIndex)) return s;
+        scan.orderBy = column;
+        scan.ascending = s.ascending.get(0);
+        scan.limit = s.limit;
+        notes.add("sort elimination: ORDER BY " + s.keys.get(0) + " read in order from the sorted index");
+        return scan;
+    }
+
+    private static PlanNode pushDownLimit(LimitNode l, List<String> notes) {
+        if (l.child instanceof SortNode && ((SortNode) l.child).limit < 0) {
+            SortNode s = (SortNode) l.child;
+            s.limit = l.limit;
+            notes.add("limit pushdown: ORDER BY ... LIMIT " + l.limit + " runs as a bounded top-N heap");
+            return s;
+        }
+        // Table.select treats a limit of 0 as "no limit"
+        if (l.child instanceof ScanNode && l.limit > 0 && ((ScanNode) l.child).limit < 0) {
+            ScanNode scan = (ScanNode) l.child;
+            scan.limit = l.limit;
+            notes.add("limit pushdown: scan of " + scan.alias + " stops after " + l.limit + " rows");
+            return scan;
+        }
+        return l;
+    }
+
+    private static PlanNode chooseJoin(JoinNode j, List<String> notes) {
+        long l = j.left.estimate(), r = j.right.estimate();
+        if (!indexed(j.right, j.rightKey) && indexed(j.left, j.leftKey) && r * INDEX_JOIN_RATIO < l) {
+            // only the right side can be looked up; output columns are matched by name, so the order is free
+            j = new JoinNode(j.right, j.left, j.rightKey, j.leftKey);
+            long t = l; l = r; r = t;
+        }
+        if (indexed(j.right, j.rightKey) && l * INDEX_JOIN_RATIO < r) {
+            j.strategy = JoinStrategy.INDEX;
+            notes.add("join selection: index lookup into " + ((ScanNode) j.right).alias + " by " + j.rightKey
+                    + " (~" + l + " outer rows vs ~" + r + " to hash)");
+        } else {
+            j.strategy = JoinStrategy.HASH;
+            j.buildLeft = l < r;
+            notes.add("join selection: hash join on " + j.leftKey + " = " + j.rightKey + ", building the "
+                    + (j.buildLeft ? "left" : "right") + " side (~" + Math.min(l, r) + " rows)");
+        }
+        return j;
+    }
+
+    private static boolean indexed(PlanNode n, String key) {
+        if (!(n instanceof ScanNode)) return false;
+        ScanNode scan = (ScanNode) n;
+        return scan.table.getIndex(scan.tableColumns().get(scan.indexOf(key))) != null;
+    }
+
+    private static void pruneColumns(PlanNode root, List<String> notes) {
+        Set<String> used = new HashSet<>();
+        List<ScanNode> scans = new ArrayList<>();
+        uses(root, used, scans);
+        for (ScanNode scan : scans) {
+            List<String> all = scan.tableColumns(), needed = new ArrayList<>();
+            for (String c : all) if (used.contains(scan.alias + "." + c)) needed.add(c);
+            if (needed.size() == all.size()) continue;
+            scan.needed = needed;
+            notes.add("projection pruning: scan of " + scan.alias + " emits " + needed + " of " + all.size() + " columns");
+        }
+    }
+
+    // Column names referenced by n and everything above the scans, resolved to their full names.
+    private static void uses(PlanNode n, Set<String> used, List<ScanNode> scans) {
+        if (n instanceof ScanNode) { scans.add((ScanNode) n); return; }
+        if (n instanceof ProjectNode) {
+            ProjectNode p = (ProjectNode) n;
+            for (String r : p.refs) used.add(p.child.resolve(r));
+        } else if (n instanceof SortNode) {
+            SortNode s = (SortNode) n;
+            for (String k : s.keys) used.add(s.child.resolve(k));
+        } else if (n instanceof FilterNode) {
+            FilterNode f = (FilterNode) n;
+            for (Condition c : f.conditions) used.add(f.child.resolve(c.column));
+        } else if (n instanceof JoinNode) {
+            JoinNode j = (JoinNode) n;
+            used.add(j.left.resolve(j.leftKey));
+            used.add(j.right.resolve(j.rightKey));
+        } else if (n instanceof AggregateNode) {
+            AggregateNode a = (AggregateNode) n;
+            if (a.pushedTo != null) return; // the scan itself never runs
+            for (String g : a.groupBy) used.add(a.child.resolve(g));
+            for (String arg : a.arguments) if (arg != null) used.add(a.child.resolve(arg));
+        }
+        for (PlanNode c : n.children()) uses(c, used, scans);
+    }
+}
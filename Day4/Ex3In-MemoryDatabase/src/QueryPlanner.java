@@ -0,0 +1,111 @@
+import java.util.*;
+
+// Turns a parsed SELECT into a straightforward logical plan, bottom to top:
+//   Scan -> Join... -> Filter(WHERE) -> Aggregate(GROUP BY) -> Sort(ORDER BY) -> Limit -> Project
+// Every column reference is checked here, so a bad query fails before anything runs.
+// QueryOptimizer then rewrites the plan.
+final class QueryPlanner {
+    private QueryPlanner() { }
+
+    static PlanNode plan(Database db, SelectStatement s) {
+        Map<String, ScanNode> scans = new HashMap<>();
+        PlanNode node = scan(db, s.table, s.alias, scans);
+        for (SelectStatement.Join j : s.joins) {
+            ScanNode right = scan(db, j.table, j.alias, scans);
+            String a = j.leftColumn, b = j.rightColumn;
+            boolean aLeft = node.has(a), aRight = right.has(a), bLeft = node.has(b), bRight = right.has(b);
+            if (aLeft && bRight && !aRight && !bLeft) node = new JoinNode(node, right, node.resolve(a), right.resolve(b));
+            else if (bLeft && aRight && !bRight && !aLeft) node = new JoinNode(node, right, node.resolve(b), right.resolve(a));
+            else throw new IllegalArgumentException("JOIN " + j.table + " ON " + a + " = " + b
+                    + ": need one column from " + j.table + " and one from the tables before it (qualify ambiguous names)");
+        }
+        if (!s.where.isEmpty()) {
+            List<Condition> where = new ArrayList<>();
+            for (Condition c : s.where) {
+                String col = node.resolve(c.column);
+                ScanNode scan = scans.get(col.substring(0, col.indexOf('.')));
+                where.add(literalTyped(c.withColumn(col), scan.table.getSchema().get(col.substring(col.indexOf('.') + 1)).type));
+            }
+            node = new FilterNode(node, where);
+        }
+
+        List<String> refs = new ArrayList<>(), labels = new ArrayList<>();
+        Map<String, String> aliasToColumn = new HashMap<>();
+        if (s.hasAggregates()) {
+            List<String> groupBy = new ArrayList<>();
+            for (String g : s.groupBy) groupBy.add(node.resolve(g));
+            List<AggregateFunction> functions = new ArrayList<>();
+            List<String> arguments = new ArrayList<>(), aggLabels = new ArrayList<>();
+            for (SelectStatement.Item item : s.items) {
+                if (item.isStar()) throw new IllegalArgumentException("SELECT * cannot be combined with GROUP BY or aggregates");
+                if (item.fn == null) continue;
+                functions.add(item.fn);
+                arguments.add(item.column == null ? null : node.resolve(item.column));
+                aggLabels.add(item.label());
+            }
+            AggregateNode agg = new AggregateNode(node, groupBy, functions, arguments, aggLabels);
+            int a = 0;
+            for (SelectStatement.Item item : s.items) {
+                String col;
+                if (item.fn != null) col = aggLabels.get(a++);
+                else {
+                    col = node.resolve(item.column);
+                    if (!groupBy.contains(col)) throw new IllegalArgumentException("Column " + item.column + " must appear in GROUP BY or inside an aggregate");
+                }
+                refs.add(col);
+                labels.add(item.label());
+                aliasToColumn.put(item.label(), col);
+            }
+            node = agg;
+        } else {
+            List<String> cols = node.columns();
+            for (SelectStatement.Item item : s.items) {
+                if (item.isStar()) {
+                    for (String c : cols) {
+                        String plain = c.substring(c.indexOf('.') + 1);
+                        refs.add(c);
+                        labels.add(node.has(plain) ? plain : c); // qualify only names that clash
+                    }
+                } else {
+                    String col = node.resolve(item.column);
+                    refs.add(col);
+                    labels.add(item.label());
+                    if (item.alias != null) aliasToColumn.put(item.alias, col);
+                }
+            }
+        }
+
+        if (!s.orderBy.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            List<Boolean> asc = new ArrayList<>();
+            for (SelectStatement.Order o : s.orderBy) {
+                String col = aliasToColumn.get(o.column);
+                keys.add(col != null ? col : node.resolve(o.column));
+                asc.add(o.ascending);
+            }
+            node = new SortNode(node, keys, asc);
+        }
+        if (s.limit >= 0) node = new LimitNode(node, s.limit);
+        return new ProjectNode(node, refs, labels);
+    }
+
+    private static ScanNode scan(Database db, String table, String alias, Map<String, ScanNode> scans) {
+        Table t = db.getTable(table);
+        if (t == null) throw new IllegalArgumentException("No such table: " + table);
+        String name = alias != null ? alias : table;
+        if (scans.containsKey(name)) throw new IllegalArgumentException("Table name or alias used twice: " + name);
+        ScanNode scan = new ScanNode(t, name);
+        scans.put(name, scan);
+        return scan;
+    }
+
+    // EQ compares with equals(), so a numeric literal is converted to the column's type: "amount = 3"
+    // must match the DOUBLE 3.0. A literal the column cannot hold (id = 2.5) is left to match nothing.
+    private static Condition literalTyped(Condition c, DataType type) {
+        if (c.op != Condition.Op.EQ || !(c.value instanceof Number)) return c;
+        Number n = (Number) c.value;
+        if (type == DataType.DOUBLE) return Condition.eq(c.column, n.doubleValue());
+        if (type == DataType.INTEGER && n.doubleValue() == n.intValue()) return Condition.eq(c.column, n.intValue());
+        return c;
+    }
+}
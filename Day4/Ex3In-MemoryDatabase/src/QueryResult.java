@@ -0,0 +1,49 @@
+import java.util.*;
+
+// Rows of a SQL query, produced one at a time as they are pulled. A result that opened its own
+// read transaction ends it once the last row has been read or close() is called.
+public class QueryResult implements Iterator<Object[]>, AutoCloseable {
+    private final List<String> columns;
+    private final Iterator<Object[]> rows;
+    private final Transaction ownTx; // null when the caller's transaction is used
+    private boolean closed;
+
+    QueryResult(List<String> columns, Iterator<Object[]> rows, Transaction ownTx) {
+        this.columns = List.copyOf(columns); this.rows = rows; this.ownTx = ownTx;
+    }
+
+    public List<String> getColumns() { return columns; }
+
+    @Override
+    public boolean hasNext() {
+        if (closed) return false;
+        if (rows.hasNext()) return true;
+        close();
+        return false;
+    }
+
+    @Override
+    public Object[] next() {
+        if (!hasNext()) throw new NoSuchElementException();
+        return rows.next();
+    }
+
+    // Reads the remaining rows as column -> value maps.
+    public List<Map<String,Object>> toList() {
+        List<Map<String,Object>> result = new ArrayList<>();
+        while (hasNext()) {
+            Object[] t = next();
+            Map<String,Object> m = new LinkedHashMap<>();
+            for (int i = 0; i < t.length; i++) m.put(columns.get(i), t[i]);
+            result.add(m);
+        }
+        return result;
+    }
+
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (ownTx != null && ownTx.isActive()) ownTx.rollback();
+    }
+}
@@ -0,0 +1,98 @@
+import java.util.*;
+
+/**
+ * Range predicates and ordered selects give the same rows with a sorted index, a hash index or no
+ * index, in either storage mode, and agree with a plain filter over all rows.
+ * Run with assertions enabled: java -ea RangeIndexTest
+ */
+public class RangeIndexTest {
+
+    private Database db;
+    private final List<Map<String, Object>> inserted = new ArrayList<>();
+
+    public void setUp(StorageMode mode, IndexType index) {
+        db = new Database();
+        Schema schema = new Schema();
+        schema.addColumn("k", DataType.INTEGER);
+        schema.addColumn("name", DataType.STRING);
+        db.createTable("t", schema, mode);
+        if (index != null) {
+            db.getTable("t").createIndex("k", index);
+            db.getTable("t").createIndex("name", index);
+        }
+        inserted.clear();
+        Random rnd = new Random(7);
+        for (int i = 0; i < 500; i++) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("k", rnd.nextInt(100) - 50);
+            row.put("name", i % 10 == 0 ? null : "user" + rnd.nextInt(60));
+            inserted.add(row);
+            db.getTable("t").insert(row, null);
+        }
+    }
+
+    public void testRangesMatchFilter(String label) {
+        List<Condition> conditions = List.of(
+                Condition.lt("k", -10), Condition.le("k", 0), Condition.gt("k", 40L), Condition.ge("k", 49.5),
+                Condition.between("k", -5, 5), Condition.between("k", 5, -5), Condition.prefix("name", "user1"),
+                Condition.gt("name", "user4"), Condition.between("name", "user2", "user3"));
+        for (Condition c : conditions) {
+            long expected = inserted.stream().filter(r -> c.test(r.get(c.column))).count();
+            int got = db.getTable("t").select(List.of(c)).size();
+            assert got == expected : label + ": " + c + " gave " + got + " rows, expected " + expected;
+        }
+        // a range and an equality on different columns are AND-ed
+        List<Condition> both = List.of(Condition.ge("k", 0), Condition.prefix("name", "user5"));
+        long expected = inserted.stream().filter(r -> both.get(0).test(r.get("k")) && both.get(1).test(r.get("name"))).count();
+        assert db.getTable("t").select(both).size() == expected : label + ": k >= 0 AND name LIKE 'user5%'";
+        System.out.println("✓ testRangesMatchFilter passed (" + label + ")");
+    }
+
+    public void testOrderedSelectWithLimit(String label) {
+        for (boolean ascending : new boolean[]{true, false}) {
+            List<Row> rows = db.getTable("t").select(List.of(Condition.between("k", -20, 20)), "k", ascending, 25);
+            assert rows.size() == 25 : label + ": limit";
+            List<Integer> keys = new ArrayList<>();
+            for (Row r : rows) keys.add(((Number) r.get("k")).intValue());
+            List<Integer> expected = new ArrayList<>();
+            for (Map<String, Object> r : inserted) {
+                int k = (Integer) r.get("k");
+                if (k >= -20 && k <= 20) expected.add(k);
+            }
+            expected.sort(ascending ? Comparator.naturalOrder() : Comparator.reverseOrder());
+            assert keys.equals(expected.subList(0, 25)) : label + ": order " + keys;
+        }
+        System.out.println("✓ testOrderedSelectWithLimit passed (" + label + ")");
+    }
+
+    public void testRangeSeesUpdates(String label) {
+        Table t = db.getTable("t");
+        int before = t.select(List.of(Condition.gt("k", 1000))).size();
+        assert before == 0;
+        t.update(Map.of("k", 0), Map.of("k", 2000), null);
+        long moved = inserted.stream().filter(r -> r.get("k").equals(0)).count();
+        assert t.select(List.of(Condition.gt("k", 1000))).size() == moved : label + ": updated keys not found by range";
+        assert t.select(List.of(Condition.between("k", 0, 0))).isEmpty() : label + ": old keys still found by range";
+        System.out.println("✓ testRangeSeesUpdates passed (" + label + ")");
+    }
+
+    public static void main(String[] args) {
+        RangeIndexTest test = new RangeIndexTest();
+        try {
+            for (StorageMode mode : StorageMode.values()) {
+                for (IndexType index : new IndexType[]{null, IndexType.HASH, IndexType.SORTED}) {
+                    String label = mode + (index == null ? "" : " + " + index + " index");
+                    test.setUp(mode, index);
+                    test.testRangesMatchFilter(label);
+                    test.testOrderedSelectWithLimit(label);
+                    test.testRangeSeesUpdates(label);
+                    test.db.close();
+                }
+            }
+            System.out.println("\n✓ All RangeIndexTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
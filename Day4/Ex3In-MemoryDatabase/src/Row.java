@@ -9,6 +9,7 @@ public class Row {
     public long getId() { return id; }
     public void set(String col, Object val) { values.put(col, val); }
     public Object get(String col) { return values.get(col); }
+    public boolean has(String col) { return values.containsKey(col); }
     public Map<String,Object> asMap() { return Collections.unmodifiableMap(values); }
     public Row shallowCopyWithNewId(long newId) {
         Row r = new Row(newId);
@@ -0,0 +1,121 @@
+import java.util.*;
+import java.util.concurrent.RecursiveTask;
+
+// Classic row layout: one Row object (with its own HashMap) per record. Row ids are dense, so row
+// id N sits in slot N-1 and a scan in slot order is a scan in id order. Like ColumnStore, put/remove
+// publish through the volatile limit, which readers read before anything else.
+class RowStore implements TableStore {
+    private Row[] slots = new Row[64];
+    private volatile int limit; // highest slot ever written + 1
+    private volatile int size;
+
+    private static int slot(long id) {
+        if (id < 1 || id > Integer.MAX_VALUE) throw new IllegalArgumentException("Row id out of range: " + id);
+        return (int) (id - 1);
+    }
+
+    @Override
+    public void put(Row r) {
+        int p = slot(r.getId());
+        if (p >= slots.length) slots = Arrays.copyOf(slots, Math.max(p + 1, slots.length * 2));
+        if (slots[p] == null) size++;
+        slots[p] = r;
+        limit = Math.max(limit, p + 1);
+    }
+    @Override
+    public Row get(long id) {
+        if (id < 1 || id > limit) return null;
+        return slots[(int) (id - 1)];
+    }
+    @Override
+    public Row remove(long id) {
+        Row r = get(id);
+        if (r != null) {
+            slots[(int) (id - 1)] = null;
+            size--;
+            limit = limit; // volatile write publishes the cleared slot
+        }
+        return r;
+    }
+    @Override public boolean contains(long id) { return get(id) != null; }
+    @Override public int size() { return size; }
+    @Override public void coerce(Row r) { slot(r.getId()); }
+
+    @Override
+    public List<Row> rows() { return scan(List.of(), null, Set.of()); }
+
+    @Override
+    public List<Row> scan(List<Condition> where, Collection<Long> candidates, Set<Long> excluded) {
+        List<Row> result = new ArrayList<>();
+        if (candidates == null) {
+            int lim = limit;
+            Row[] s = slots;
+            for (int p = 0; p < lim; p++) {
+                Row r = s[p];
+                if (r != null && !excluded.contains(r.getId()) && Condition.allMatch(where, r)) result.add(r);
+            }
+            return result;
+        }
+        List<Long> ids = new ArrayList<>(candidates);
+        Collections.sort(ids); // keep results in id order, like a scan
+        for (Long id : ids) {
+            Row r = excluded.contains(id) ? null : get(id);
+            if (r != null && Condition.allMatch(where, r)) result.add(r);
+        }
+        return result;
+    }
+
+    @Override
+    public AggregateState aggregate(String column, List<Condition> where, Collection<Long> candidates, Set<Long> excluded) {
+        AggregateState st = new AggregateState();
+        for (Row r : scan(where, candidates, excluded)) st.addRow(r.get(column));
+        return st;
+    }
+
+    @Override
+    public GroupedAggregation aggregate(List<String> groupBy, List<Aggregate> aggregates, List<Condition> where,
+                                        Collection<Long> candidates, Set<Long> excluded) {
+        if (candidates != null) { // already narrowed by an index
+            GroupedAggregation g = new GroupedAggregation(groupBy, aggregates);
+            for (Row r : scan(where, candidates, excluded)) g.add(r);
+            return g;
+        }
+        int lim = limit;
+        return new GroupTask(slots, 0, lim, groupBy, aggregates, where, excluded).invoke();
+    }
+
+    // Aggregates slots [from, to), splitting into fork/join subtasks down to PARTITION_ROWS slots.
+    private static final class GroupTask extends RecursiveTask<GroupedAggregation> {
+        private static final long serialVersionUID = 1L;
+
+        private final Row[] slots;
+        private final int from, to;
+        private final List<String> groupBy;
+        private final List<Aggregate> aggregates;
+        private final List<Condition> where;
+        private final Set<Long> excluded;
+
+        GroupTask(Row[] slots, int from, int to, List<String> groupBy, List<Aggregate> aggregates, List<Condition> where, Set<Long> excluded) {
+            this.slots = slots; this.from = from; this.to = to;
+            this.groupBy = groupBy; this.aggregates = aggregates; this.where = where; this.excluded = excluded;
+        }
+
+        @Override
+        protected GroupedAggregation compute() {
+            if (to - from > GroupedAggregation.PARTITION_ROWS) {
+                int mid = (from + to) >>> 1;
+                GroupTask right = new GroupTask(slots, mid, to, groupBy, aggregates, where, excluded);
+                right.fork();
+                GroupedAggregation left = new GroupTask(slots, from, mid, groupBy, aggregates, where, excluded).compute();
+                left.merge(right.join()); // left first keeps groups in first-seen order
+                return left;
+            }
+            GroupedAggregation g = new GroupedAggregation(groupBy, aggregates);
+            for (int p = from; p < to; p++) {
+                Row r = slots[p];
+                if (r != null && !excluded.contains(r.getId()) && Condition.allMatch(where, r)) g.add(r);
+            }
+            return g;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+import java.util.*;
+
+// Reads one table through Table.select, which picks the index. The optimizer fills in the pushed
+// conditions, the columns actually needed above, and an order/limit the table can serve itself.
+class ScanNode extends PlanNode {
+    final Table table;
+    final String alias;
+    final List<Condition> conditions = new ArrayList<>(); // on plain column names
+    List<String> needed;                                  // table columns to emit; null = all
+    String orderBy;                                       // set when a sorted index provides the order
+    boolean ascending = true;
+    int limit = -1;
+
+    ScanNode(Table table, String alias) { this.table = table; this.alias = alias; }
+
+    List<String> tableColumns() {
+        if (needed != null) return needed;
+        List<String> all = new ArrayList<>();
+        for (Column c : table.getSchema().getColumns()) all.add(c.name);
+        return all;
+    }
+
+    @Override
+    List<String> columns() {
+        List<String> cols = new ArrayList<>();
+        for (String c : tableColumns()) cols.add(alias + "." + c);
+        return cols;
+    }
+
+    @Override List<PlanNode> children() { return List.of(); }
+    @Override void setChild(int i, PlanNode child) { throw new IndexOutOfBoundsException(i); }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        return new LazyIterator(() -> {
+            List<Row> rows = orderBy != null || limit >= 0
+                    ? table.select(conditions, orderBy, ascending, Math.max(limit, 0), tx)
+                    : table.select(conditions, tx);
+            return tuples(rows, tableColumns());
+        });
+    }
+
+    // Emits only the given columns of each row.
+    static Iterator<Object[]> tuples(List<Row> rows, List<String> cols) {
+        Iterator<Row> it = rows.iterator();
+        return new Iterator<Object[]>() {
+            @Override public boolean hasNext() { return it.hasNext(); }
+            @Override public Object[] next() {
+                Row r = it.next();
+                Object[] t = new Object[cols.size()];
+                for (int i = 0; i < t.length; i++) t[i] = r.get(cols.get(i));
+                return t;
+            }
+        };
+    }
+
+    @Override
+    long estimate() {
+        long e = table.estimateRows(conditions);
+        return limit >= 0 ? Math.min(e, limit) : e;
+    }
+
+    @Override
+    String describe() {
+        StringBuilder sb = new StringBuilder("Scan " + table.getName());
+        if (!alias.equals(table.getName())) sb.append(" AS ").append(alias);
+        if (!conditions.isEmpty()) sb.append(" where ").append(conditions);
+        sb.append(" [").append(table.describeAccess(conditions, orderBy, ascending)).append("]");
+        if (orderBy != null) sb.append(" order by ").append(orderBy).append(ascending ? " ASC" : " DESC");
+        if (limit >= 0) sb.append(" limit ").append(limit);
+        sb.append(" columns=").append(tableColumns());
+        sb.append(" ~").append(estimate()).append(" rows");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,52 @@
+import java.util.*;
+
+// Parsed form of one SELECT. Column references are kept as written ("col" or "alias.col") and
+// resolved against the tables by QueryPlanner.
+final class SelectStatement {
+    static final class Item {
+        final String column;       // null for * and COUNT(*)
+        final AggregateFunction fn; // null for a plain column
+        final String alias;        // null if none
+
+        Item(String column, AggregateFunction fn, String alias) { this.column = column; this.fn = fn; this.alias = alias; }
+
+        boolean isStar() { return fn == null && column == null; }
+
+        String label() {
+            if (alias != null) return alias;
+            if (fn == null) return column;
+            return fn + "(" + (column == null ? "*" : column) + ")";
+        }
+    }
+
+    static final class Join {
+        final String table, alias;
+        final String leftColumn, rightColumn; // ON leftColumn = rightColumn, in the order written
+
+        Join(String table, String alias, String leftColumn, String rightColumn) {
+            this.table = table; this.alias = alias; this.leftColumn = leftColumn; this.rightColumn = rightColumn;
+        }
+    }
+
+    static final class Order {
+        final String column;
+        final boolean ascending;
+
+        Order(String column, boolean ascending) { this.column = column; this.ascending = ascending; }
+    }
+
+    boolean explain;
+    final List<Item> items = new ArrayList<>();
+    String table, alias;
+    final List<Join> joins = new ArrayList<>();
+    final List<Condition> where = new ArrayList<>(); // Condition.column holds the reference as written
+    final List<String> groupBy = new ArrayList<>();
+    final List<Order> orderBy = new ArrayList<>();
+    int limit = -1; // -1: no LIMIT
+
+    boolean hasAggregates() {
+        if (!groupBy.isEmpty()) return true;
+        for (Item i : items) if (i.fn != null) return true;
+        return false;
+    }
+}
@@ -0,0 +1,13 @@
+// A registered read timestamp. While it is open the garbage collector keeps every version it can see.
+final class Snapshot implements Comparable<Snapshot> {
+    final long ts;
+    private final long seq; // tells apart snapshots taken at the same timestamp
+
+    Snapshot(long ts, long seq) { this.ts = ts; this.seq = seq; }
+
+    @Override
+    public int compareTo(Snapshot o) {
+        int c = Long.compare(ts, o.ts);
+        return c != 0 ? c : Long.compare(seq, o.seq);
+    }
+}
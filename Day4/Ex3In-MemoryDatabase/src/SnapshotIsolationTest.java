@@ -0,0 +1,135 @@
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * Transactions read the database as of their start plus their own writes, concurrent writers to one
+ * row conflict, and vacuum keeps every version an open snapshot can still see.
+ * Run with assertions enabled: java -ea SnapshotIsolationTest
+ */
+public class SnapshotIsolationTest {
+
+    private Database db;
+    private Table accounts;
+
+    public void setUp(StorageMode mode) {
+        db = new Database();
+        Schema schema = new Schema();
+        schema.addColumn("id", DataType.INTEGER);
+        schema.addColumn("balance", DataType.INTEGER);
+        db.createTable("accounts", schema, mode);
+        accounts = db.getTable("accounts");
+        accounts.createIndex("id", IndexType.HASH);
+        for (int i = 0; i < 10; i++) accounts.insert(Map.of("id", i, "balance", 100), null);
+    }
+
+    private int balance(int id, Transaction tx) {
+        List<Row> rows = accounts.select(List.of(Condition.eq("id", id)), tx);
+        assert rows.size() == 1 : "account " + id + " has " + rows.size() + " rows";
+        return ((Number) rows.get(0).get("balance")).intValue();
+    }
+
+    public void testReaderKeepsItsSnapshot(String label) {
+        Transaction reader = db.beginTransaction();
+        accounts.update(Map.of("id", 1), Map.of("balance", 50), null);
+        accounts.delete(Map.of("id", 2), null);
+        accounts.insert(Map.of("id", 10, "balance", 1), null);
+        assert balance(1, reader) == 100 : label + ": reader saw a later update";
+        assert accounts.getAllRows(reader).size() == 10 : label + ": reader saw a later insert or delete";
+        db.vacuum();
+        assert balance(1, reader) == 100 : label + ": vacuum dropped a version an open snapshot needs";
+        reader.commit();
+        assert balance(1, null) == 50 && accounts.getAllRows().size() == 10 : label + ": latest state";
+        System.out.println("✓ testReaderKeepsItsSnapshot passed (" + label + ")");
+    }
+
+    public void testOwnWritesAndRollback(String label) {
+        Transaction tx = db.beginTransaction();
+        accounts.update(Map.of("id", 3), Map.of("balance", 0), tx);
+        accounts.insert(Map.of("id", 11, "balance", 5), tx);
+        assert balance(3, tx) == 0 : label + ": tx does not see its own update";
+        assert accounts.select(List.of(Condition.eq("id", 11)), tx).size() == 1 : label + ": tx does not see its own insert";
+        assert balance(3, null) == 100 : label + ": uncommitted update visible outside the tx";
+        tx.rollback();
+        assert balance(3, null) == 100 && accounts.select(List.of(Condition.eq("id", 11))).isEmpty() : label + ": rollback";
+        System.out.println("✓ testOwnWritesAndRollback passed (" + label + ")");
+    }
+
+    public void testFirstCommitterWins(String label) {
+        Transaction a = db.beginTransaction(), b = db.beginTransaction();
+        accounts.update(Map.of("id", 4), Map.of("balance", 1), a);
+        accounts.update(Map.of("id", 4), Map.of("balance", 2), b);
+        a.commit();
+        boolean conflicted = false;
+        try {
+            b.commit();
+        } catch (TransactionConflictException e) {
+            conflicted = true;
+        }
+        assert conflicted : label + ": second writer of the same row committed";
+        assert balance(4, null) == 1 : label + ": losing write became visible";
+        System.out.println("✓ testFirstCommitterWins passed (" + label + ")");
+    }
+
+    // Concurrent transfers between accounts keep the total, and every snapshot sees a consistent one.
+    public void testConcurrentTransfersKeepTotal(String label) throws Exception {
+        int total = 0;
+        for (Row r : accounts.getAllRows()) total += ((Number) r.get("balance")).intValue();
+        int expected = total;
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        AtomicInteger committed = new AtomicInteger(), badSnapshots = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+        for (int w = 0; w < 4; w++) {
+            int seed = w;
+            futures.add(pool.submit(() -> {
+                Random rnd = new Random(seed);
+                for (int i = 0; i < 300; i++) {
+                    Transaction tx = db.beginTransaction();
+                    try {
+                        int sum = 0;
+                        for (Row r : accounts.getAllRows(tx)) sum += ((Number) r.get("balance")).intValue();
+                        if (sum != expected) badSnapshots.incrementAndGet();
+                        int from = rnd.nextInt(10), to = rnd.nextInt(10);
+                        if (from == 2 || to == 2 || from == to) { tx.rollback(); continue; } // 2 was deleted
+                        accounts.update(Map.of("id", from), Map.of("balance", balance(from, tx) - 1), tx);
+                        accounts.update(Map.of("id", to), Map.of("balance", balance(to, tx) + 1), tx);
+                        tx.commit();
+                        committed.incrementAndGet();
+                    } catch (TransactionConflictException e) {
+                        // lost to a concurrent transfer
+                    } finally {
+                        if (tx.isActive()) tx.rollback();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> f : futures) f.get();
+        pool.shutdown();
+        int after = 0;
+        for (Row r : accounts.getAllRows()) after += ((Number) r.get("balance")).intValue();
+        assert committed.get() > 0 : label + ": no transfer committed";
+        assert badSnapshots.get() == 0 : label + ": " + badSnapshots.get() + " snapshots saw a partial transfer";
+        assert after == expected : label + ": total " + after + ", expected " + expected;
+        assert db.getOpenSnapshotCount() == 0 : label + ": snapshots left open";
+        System.out.println("✓ testConcurrentTransfersKeepTotal passed (" + label + ", " + committed.get() + " transfers)");
+    }
+
+    public static void main(String[] args) {
+        SnapshotIsolationTest test = new SnapshotIsolationTest();
+        try {
+            for (StorageMode mode : StorageMode.values()) {
+                test.setUp(mode);
+                test.testReaderKeepsItsSnapshot(mode.toString());
+                test.testOwnWritesAndRollback(mode.toString());
+                test.testFirstCommitterWins(mode.toString());
+                test.testConcurrentTransfersKeepTotal(mode.toString());
+                test.db.close();
+            }
+            System.out.println("\n✓ All SnapshotIsolationTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
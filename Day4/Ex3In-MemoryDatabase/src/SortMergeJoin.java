@@ -0,0 +1,81 @@
+import java.util.*;
+
+// Sort-merge equi-join: both inputs are ordered by key (KeyComparator) and merged in one pass.
+// Inputs that are already in key order skip the sort. Keys are normalised by JoinIterator.key(), so
+// numbers match by value; null keys never match.
+class SortMergeJoin extends JoinIterator {
+    private final Row[] left, right;
+    private final Object[] leftKeys, rightKeys;
+    private int li, ri;
+    // current group of equal keys: left rows [li, leftEnd) x right rows [groupStart, groupEnd)
+    private int leftEnd, groupStart, groupEnd, lp, rp;
+
+    SortMergeJoin(Collection<Row> left, String leftColumn, boolean leftSorted,
+                  Collection<Row> right, String rightColumn, boolean rightSorted) {
+        Keyed l = sorted(left, leftColumn, leftSorted), r = sorted(right, rightColumn, rightSorted);
+        this.left = l.rows; this.leftKeys = l.keys;
+        this.right = r.rows; this.rightKeys = r.keys;
+    }
+
+    private static final class Keyed {
+        final Row[] rows; final Object[] keys;
+        Keyed(Row[] rows, Object[] keys) { this.rows = rows; this.keys = keys; }
+    }
+
+    // Extracts each key once, then sorts a permutation so the comparator never goes back to the rows.
+    // Presorted input is only trusted while its normalised keys stay in order.
+    private static Keyed sorted(Collection<Row> rows, String column, boolean sorted) {
+        List<Row> nonNull = new ArrayList<>(rows.size());
+        List<Object> keys = new ArrayList<>(rows.size());
+        for (Row r : rows) {
+            Object k = key(r.get(column));
+            if (k == null) continue;
+            if (sorted && !keys.isEmpty() && KeyComparator.INSTANCE.compare(keys.get(keys.size() - 1), k) > 0) sorted = false;
+            nonNull.add(r);
+            keys.add(k);
+        }
+        int n = nonNull.size();
+        Row[] outRows = new Row[n];
+        Object[] outKeys = new Object[n];
+        if (sorted) {
+            nonNull.toArray(outRows);
+            keys.toArray(outKeys);
+            return new Keyed(outRows, outKeys);
+        }
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (x, y) -> KeyComparator.INSTANCE.compare(keys.get(x), keys.get(y)));
+        for (int i = 0; i < n; i++) { outRows[i] = nonNull.get(order[i]); outKeys[i] = keys.get(order[i]); }
+        return new Keyed(outRows, outKeys);
+    }
+
+    @Override
+    protected JoinedRow advance() {
+        while (true) {
+            if (lp < leftEnd) {
+                if (rp < groupEnd) return new JoinedRow(left[lp], right[rp++]);
+                lp++;
+                rp = groupStart;
+                continue;
+            }
+            // current group exhausted: find the next pair of equal keys
+            li = leftEnd > li ? leftEnd : li;
+            ri = groupEnd > ri ? groupEnd : ri;
+            while (li < left.length && ri < right.length) {
+                int c = KeyComparator.INSTANCE.compare(leftKeys[li], rightKeys[ri]);
+                if (c < 0) li++;
+                else if (c > 0) ri++;
+                else break;
+            }
+            if (li >= left.length || ri >= right.length) return null;
+            Object key = leftKeys[li];
+            leftEnd = li + 1;
+            while (leftEnd < left.length && KeyComparator.INSTANCE.compare(leftKeys[leftEnd], key) == 0) leftEnd++;
+            groupStart = ri;
+            groupEnd = ri + 1;
+            while (groupEnd < right.length && KeyComparator.INSTANCE.compare(rightKeys[groupEnd], key) == 0) groupEnd++;
+            lp = li;
+            rp = groupStart;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.*;
+
+// Sorts the child's tuples by one or more keys. With a limit it keeps only the first limit tuples in
+// a bounded heap instead of sorting everything.
+class SortNode extends PlanNode {
+    PlanNode child;
+    final List<String> keys;
+    final List<Boolean> ascending;
+    int limit = -1;
+
+    SortNode(PlanNode child, List<String> keys, List<Boolean> ascending) { this.child = child; this.keys = keys; this.ascending = ascending; }
+
+    @Override List<String> columns() { return child.columns(); }
+    @Override List<PlanNode> children() { return List.of(child); }
+    @Override void setChild(int i, PlanNode child) { this.child = child; }
+
+    @Override
+    Iterator<Object[]> open(Transaction tx) {
+        return new LazyIterator(() -> {
+            Comparator<Object[]> cmp = comparator();
+            Iterator<Object[]> in = child.open(tx);
+            List<Object[]> rows = new ArrayList<>();
+            if (limit < 0) {
+                in.forEachRemaining(rows::add);
+                rows.sort(cmp);
+                return rows.iterator();
+            }
+            // top-N: the heap's head is the worst row kept so far
+            PriorityQueue<Object[]> heap = new PriorityQueue<>(Math.max(1, limit), cmp.reversed());
+            while (in.hasNext()) {
+                Object[] t = in.next();
+                if (heap.size() < limit) heap.add(t);
+                else if (limit > 0 && cmp.compare(t, heap.peek()) < 0) { heap.poll(); heap.add(t); }
+            }
+            rows.addAll(heap);
+            rows.sort(cmp);
+            return rows.iterator();
+        });
+    }
+
+    private Comparator<Object[]> comparator() {
+        Comparator<Object[]> cmp = null;
+        for (int k = 0; k < keys.size(); k++) {
+            int at = child.indexOf(keys.get(k));
+            Comparator<Object[]> c = (a, b) -> KeyComparator.INSTANCE.compare(a[at], b[at]);
+            if (!ascending.get(k)) c = c.reversed();
+            cmp = cmp == null ? c : cmp.thenComparing(c);
+        }
+        return cmp;
+    }
+
+    @Override long estimate() { return limit >= 0 ? Math.min(limit, child.estimate()) : child.estimate(); }
+
+    @Override
+    String describe() {
+        StringBuilder sb = new StringBuilder(limit >= 0 ? "TopN " + limit + " by " : "Sort by ");
+        for (int k = 0; k < keys.size(); k++) {
+            if (k > 0) sb.append(", ");
+            sb.append(keys.get(k)).append(ascending.get(k) ? " ASC" : " DESC");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,133 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.BiPredicate;
+
+// Ordered index on a skip list: equality, range and prefix scans plus ordered iteration.
+// Keys are ordered by KeyComparator; rows with a null value are kept apart and sort first.
+// Writers are serialized by the table's commit lock; lookups run concurrently with them.
+public class SortedIndex extends Index {
+    private final ConcurrentSkipListMap<Object, Set<Long>> index = new ConcurrentSkipListMap<>(KeyComparator.INSTANCE);
+    private final Set<Long> nullIds = ConcurrentHashMap.newKeySet();
+
+    public SortedIndex(String column) { super(column); }
+
+    @Override public IndexType getType() { return IndexType.SORTED; }
+
+    @Override
+    public void add(Object value, long rowId) {
+        if (value == null) nullIds.add(rowId);
+        else index.computeIfAbsent(value, k -> ConcurrentHashMap.newKeySet()).add(rowId);
+    }
+    @Override
+    public void remove(Object value, long rowId) {
+        if (value == null) { nullIds.remove(rowId); return; }
+        Set<Long> s = index.get(value);
+        if (s != null) { s.remove(rowId); if (s.isEmpty()) index.remove(value); }
+    }
+    @Override
+    public Set<Long> find(Object value) {
+        if (value == null) return Collections.unmodifiableSet(nullIds);
+        return index.getOrDefault(value, Collections.emptySet());
+    }
+
+    @Override
+    boolean supports(Condition c) {
+        return c.op != Condition.Op.PREFIX || c.value instanceof String;
+    }
+
+    // Entries whose keys can satisfy c; EQ on a non-number is answered with find() by the callers.
+    private NavigableMap<Object, Set<Long>> range(Condition c) {
+        switch (c.op) {
+            case EQ: {
+                // numbers of every class with the value, as Condition EQ compares them
+                if (c.value instanceof Number) return index.subMap(lowerBound(c.value, true), true, upperBound(c.value, true), true);
+                Set<Long> s = c.value == null ? null : index.get(c.value);
+                NavigableMap<Object, Set<Long>> one = new TreeMap<>(KeyComparator.INSTANCE);
+                if (s != null) one.put(c.value, s);
+                return one;
+            }
+            case LT: return index.headMap(upperBound(c.value, false), false);
+            case LE: return index.headMap(upperBound(c.value, true), true);
+            case GT: return index.tailMap(lowerBound(c.value, false), false);
+            case GE: return index.tailMap(lowerBound(c.value, true), true);
+            case BETWEEN: {
+                Object lo = lowerBound(c.value, true), hi = upperBound(c.upper, true);
+                if (KeyComparator.INSTANCE.compare(lo, hi) > 0) return new TreeMap<>(KeyComparator.INSTANCE);
+                return index.subMap(lo, true, hi, true);
+            }
+            case PREFIX: return index.tailMap(c.value, true);
+            default: throw new IllegalArgumentException("Unsupported condition: " + c);
+        }
+    }
+
+    // Numeric bounds become sentinels so that every number class equal to the bound is in range.
+    private static Object lowerBound(Object v, boolean inclusive) {
+        return v instanceof Number ? new KeyComparator.Bound(((Number) v).doubleValue(), !inclusive) : v;
+    }
+    private static Object upperBound(Object v, boolean inclusive) {
+        return v instanceof Number ? new KeyComparator.Bound(((Number) v).doubleValue(), inclusive) : v;
+    }
+
+    @Override
+    void lookup(Condition c, Collection<Long> out) {
+        if (c.op == Condition.Op.EQ && !(c.value instanceof Number)) { out.addAll(find(c.value)); return; }
+        for (Map.Entry<Object, Set<Long>> e : range(c).entrySet()) {
+            if (c.op == Condition.Op.PREFIX && !startsWith(e.getKey(), c.value)) break;
+            out.addAll(e.getValue());
+        }
+    }
+
+    @Override
+    long estimate(Condition c, long cap) {
+        if (c.op == Condition.Op.EQ && !(c.value instanceof Number)) return find(c.value).size();
+        long n = 0;
+        for (Map.Entry<Object, Set<Long>> e : range(c).entrySet()) {
+            if (c.op == Condition.Op.PREFIX && !startsWith(e.getKey(), c.value)) break;
+            n += e.getValue().size();
+            if (n > cap) break;
+        }
+        return n;
+    }
+
+    private static boolean startsWith(Object key, Object prefix) {
+        return key instanceof String && ((String) key).startsWith((String) prefix);
+    }
+
+    // Row ids in key order (nulls first when ascending, last when descending).
+    public Iterator<Long> orderedIds(boolean ascending) {
+        List<Iterator<? extends Collection<Long>>> groups = new ArrayList<>();
+        if (ascending) groups.add(List.of(new ArrayList<>(nullIds)).iterator());
+        groups.add((ascending ? index : index.descendingMap()).values().iterator());
+        if (!ascending) groups.add(List.of(new ArrayList<>(nullIds)).iterator());
+        Iterator<Iterator<? extends Collection<Long>>> outer = groups.iterator();
+        return new Iterator<Long>() {
+            private Iterator<? extends Collection<Long>> keys = Collections.emptyIterator();
+            private Iterator<Long> ids = Collections.emptyIterator();
+            @Override public boolean hasNext() {
+                while (!ids.hasNext()) {
+                    while (!keys.hasNext()) {
+                        if (!outer.hasNext()) return false;
+                        keys = outer.next();
+                    }
+                    ids = new ArrayList<>(keys.next()).iterator(); // copy: the set may change while we iterate
+                }
+                return true;
+            }
+            @Override public Long next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return ids.next();
+            }
+        };
+    }
+
+    // Calls visitor with (key, id) in key order until it returns false. An id is listed under the key
+    // of each row version still held, so callers re-check the key against the row they read.
+    void visit(boolean ascending, BiPredicate<Object, Long> visitor) {
+        if (ascending) for (Long id : nullIds) if (!visitor.test(null, id)) return;
+        for (Map.Entry<Object, Set<Long>> e : (ascending ? index : index.descendingMap()).entrySet()) {
+            for (Long id : e.getValue()) if (!visitor.test(e.getKey(), id)) return;
+        }
+        if (!ascending) for (Long id : nullIds) if (!visitor.test(null, id)) return;
+    }
+}
@@ -0,0 +1,63 @@
+import java.util.*;
+
+// Splits a SQL string into identifiers, numbers, quoted strings and symbols.
+final class SqlLexer {
+    enum Kind { IDENT, NUMBER, STRING, SYMBOL, END }
+
+    static final class Token {
+        final Kind kind;
+        final String text;
+        final int pos;
+
+        Token(Kind kind, String text, int pos) { this.kind = kind; this.text = text; this.pos = pos; }
+
+        boolean is(String word) {
+            return (kind == Kind.IDENT || kind == Kind.SYMBOL) && text.equalsIgnoreCase(word);
+        }
+
+        @Override public String toString() { return kind == Kind.END ? "end of input" : "'" + text + "'"; }
+    }
+
+    private SqlLexer() { }
+
+    static List<Token> tokenize(String sql) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0, n = sql.length();
+        while (i < n) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) { i++; continue; }
+            int start = i;
+            if (Character.isLetter(c) || c == '_') {
+                while (i < n && (Character.isLetterOrDigit(sql.charAt(i)) || sql.charAt(i) == '_')) i++;
+                tokens.add(new Token(Kind.IDENT, sql.substring(start, i), start));
+            } else if (Character.isDigit(c) || (c == '-' && i + 1 < n && Character.isDigit(sql.charAt(i + 1)))) {
+                i++;
+                while (i < n && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) i++;
+                tokens.add(new Token(Kind.NUMBER, sql.substring(start, i), start));
+            } else if (c == '\'') {
+                StringBuilder sb = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= n) throw new IllegalArgumentException("Unterminated string at position " + start);
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < n && sql.charAt(i + 1) == '\'') { sb.append('\''); i += 2; continue; } // '' escapes a quote
+                        i++;
+                        break;
+                    }
+                    sb.append(sql.charAt(i++));
+                }
+                tokens.add(new Token(Kind.STRING, sb.toString(), start));
+            } else if ((c == '<' || c == '>' || c == '!') && i + 1 < n && (sql.charAt(i + 1) == '=' || (c == '<' && sql.charAt(i + 1) == '>'))) {
+                tokens.add(new Token(Kind.SYMBOL, sql.substring(i, i + 2), start));
+                i += 2;
+            } else if ("(),.*=<>;".indexOf(c) >= 0) {
+                tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), start));
+                i++;
+            } else {
+                throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + i);
+            }
+        }
+        tokens.add(new Token(Kind.END, "", n));
+        return tokens;
+    }
+}
@@ -0,0 +1,181 @@
+import java.util.*;
+
+// Recursive-descent parser for the supported subset:
+//
+//   [EXPLAIN] SELECT item {, item} FROM table [[AS] alias]
+//     {[INNER] JOIN table [[AS] alias] ON ref = ref}
+//     [WHERE predicate {AND predicate}]
+//     [GROUP BY ref {, ref}]
+//     [ORDER BY ref [ASC | DESC] {, ...}]
+//     [LIMIT n]
+//
+//   item      := * | ref [[AS] alias] | fn ( * | ref ) [[AS] alias]     fn: COUNT SUM AVG MIN MAX
+//   predicate := ref (= | < | <= | > | >=) literal | ref BETWEEN literal AND literal
+//              | ref LIKE 'prefix%' | ref IS NULL
+//   ref       := column | alias.column
+final class SqlParser {
+    private static final Set<String> KEYWORDS = Set.of("SELECT", "FROM", "WHERE", "JOIN", "INNER", "ON", "AND", "GROUP",
+            "ORDER", "BY", "LIMIT", "AS", "ASC", "DESC", "BETWEEN", "LIKE", "IS", "NULL", "EXPLAIN", "TRUE", "FALSE");
+
+    private final List<SqlLexer.Token> tokens;
+    private int pos;
+
+    private SqlParser(String sql) { this.tokens = SqlLexer.tokenize(sql); }
+
+    static SelectStatement parse(String sql) {
+        SqlParser p = new SqlParser(sql);
+        SelectStatement s = p.select();
+        p.accept(";");
+        if (p.peek().kind != SqlLexer.Kind.END) throw p.error("end of statement");
+        return s;
+    }
+
+    private SelectStatement select() {
+        SelectStatement s = new SelectStatement();
+        s.explain = accept("EXPLAIN");
+        expect("SELECT");
+        do { s.items.add(item()); } while (accept(","));
+        expect("FROM");
+        s.table = identifier();
+        s.alias = alias();
+        while (peek().is("JOIN") || peek().is("INNER")) {
+            accept("INNER");
+            expect("JOIN");
+            String table = identifier();
+            String alias = alias();
+            expect("ON");
+            String left = ref();
+            expect("=");
+            s.joins.add(new SelectStatement.Join(table, alias, left, ref()));
+        }
+        if (accept("WHERE")) {
+            do { s.where.add(predicate()); } while (accept("AND"));
+        }
+        if (accept("GROUP")) {
+            expect("BY");
+            do { s.groupBy.add(ref()); } while (accept(","));
+        }
+        if (accept("ORDER")) {
+            expect("BY");
+            do {
+                String col = ref();
+                boolean asc = !accept("DESC");
+                if (asc) accept("ASC");
+                s.orderBy.add(new SelectStatement.Order(col, asc));
+            } while (accept(","));
+        }
+        if (accept("LIMIT")) {
+            SqlLexer.Token t = next();
+            if (t.kind != SqlLexer.Kind.NUMBER || !t.text.matches("\\d+")) throw error(t, "row count");
+            s.limit = Integer.parseInt(t.text);
+        }
+        return s;
+    }
+
+    private SelectStatement.Item item() {
+        if (accept("*")) return new SelectStatement.Item(null, null, null);
+        SqlLexer.Token t = peek();
+        if (t.kind == SqlLexer.Kind.IDENT && tokens.get(pos + 1).is("(")) {
+            AggregateFunction fn;
+            try { fn = AggregateFunction.parse(t.text); } catch (IllegalArgumentException e) { throw error(t, "aggregate function"); }
+            next();
+            next();
+            String col = null;
+            if (!accept("*")) col = ref();
+            else if (fn != AggregateFunction.COUNT) throw error(tokens.get(pos - 1), "column");
+            expect(")");
+            return new SelectStatement.Item(col, fn, alias());
+        }
+        String col = ref();
+        return new SelectStatement.Item(col, null, alias());
+    }
+
+    private String alias() {
+        if (accept("AS")) return identifier();
+        SqlLexer.Token t = peek();
+        if (t.kind == SqlLexer.Kind.IDENT && !KEYWORDS.contains(t.text.toUpperCase(Locale.ROOT))) return identifier();
+        return null;
+    }
+
+    private Condition predicate() {
+        String col = ref();
+        SqlLexer.Token op = next();
+        if (op.is("BETWEEN")) {
+            Object lo = literal();
+            expect("AND");
+            return Condition.between(col, lo, literal());
+        }
+        if (op.is("LIKE")) {
+            SqlLexer.Token t = next();
+            if (t.kind != SqlLexer.Kind.STRING || !t.text.endsWith("%") || t.text.indexOf('%') != t.text.length() - 1
+                    || t.text.indexOf('_') >= 0) {
+                throw new IllegalArgumentException("Only prefix patterns ('abc%') are supported by LIKE, got '" + t.text + "'");
+            }
+            return Condition.prefix(col, t.text.substring(0, t.text.length() - 1));
+        }
+        if (op.is("IS")) {
+            expect("NULL");
+            return Condition.eq(col, null);
+        }
+        Object v = literal();
+        switch (op.text) {
+            case "=": return Condition.eq(col, v);
+            case "<": return Condition.lt(col, v);
+            case "<=": return Condition.le(col, v);
+            case ">": return Condition.gt(col, v);
+            case ">=": return Condition.ge(col, v);
+            default: throw error(op, "comparison operator");
+        }
+    }
+
+    private Object literal() {
+        SqlLexer.Token t = next();
+        switch (t.kind) {
+            case STRING: return t.text;
+            case NUMBER:
+                if (t.text.indexOf('.') >= 0) return Double.parseDouble(t.text);
+                long v = Long.parseLong(t.text);
+                return v == (int) v ? (Object) (int) v : (Object) v;
+            default:
+                if (t.is("NULL")) return null;
+                if (t.is("TRUE")) return true;
+                if (t.is("FALSE")) return false;
+                throw error(t, "literal");
+        }
+    }
+
+    private String ref() {
+        String first = identifier();
+        return accept(".") ? first + "." + identifier() : first;
+    }
+
+    private String identifier() {
+        SqlLexer.Token t = next();
+        if (t.kind != SqlLexer.Kind.IDENT || KEYWORDS.contains(t.text.toUpperCase(Locale.ROOT))) throw error(t, "identifier");
+        return t.text;
+    }
+
+    private SqlLexer.Token peek() { return tokens.get(pos); }
+
+    private SqlLexer.Token next() {
+        SqlLexer.Token t = tokens.get(pos);
+        if (t.kind != SqlLexer.Kind.END) pos++;
+        return t;
+    }
+
+    private boolean accept(String word) {
+        if (!peek().is(word)) return false;
+        pos++;
+        return true;
+    }
+
+    private void expect(String word) {
+        if (!accept(word)) throw error(word);
+    }
+
+    private IllegalArgumentException error(String expected) { return error(peek(), expected); }
+
+    private static IllegalArgumentException error(SqlLexer.Token t, String expected) {
+        return new IllegalArgumentException("SQL syntax error at position " + t.pos + ": expected " + expected + " but found " + t);
+    }
+}
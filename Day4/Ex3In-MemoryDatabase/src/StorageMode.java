@@ -0,0 +1,4 @@
+public enum StorageMode {
+    ROW,      // one Row (HashMap) per record, good for point lookups and frequent updates
+    COLUMNAR  // typed primitive column vectors + null bitmap, good for scans and aggregates
+}
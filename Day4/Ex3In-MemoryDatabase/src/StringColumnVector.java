@@ -0,0 +1,81 @@
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Dictionary-encoded strings: each position stores an int code, each distinct string is kept once.
+// Codes are only ever appended, so a reader that saw a code also sees its dictionary entry.
+class StringColumnVector extends ColumnVector {
+    private int[] codes;
+    private final Map<String, Integer> dictionary = new ConcurrentHashMap<>();
+    private String[] values = new String[16];
+    private int count; // distinct values; published with the store's limit
+
+    StringColumnVector(String name) { super(name, 64); codes = new int[64]; }
+
+    @Override protected void grow(int newCapacity) { codes = Arrays.copyOf(codes, newCapacity); }
+    @Override protected void clear(int pos) { codes[pos] = 0; }
+    @Override protected Object load(int pos) { return values[codes[pos]]; }
+
+    @Override
+    Object coerce(Object value) {
+        if (!(value instanceof String)) throw new IllegalArgumentException("Column " + name + " expects STRING but got " + value);
+        return value;
+    }
+
+    @Override
+    protected void store(int pos, Object value) {
+        String s = (String) coerce(value);
+        Integer code = dictionary.get(s);
+        if (code == null) {
+            code = count;
+            if (code == values.length) values = Arrays.copyOf(values, code * 2);
+            values[code] = s;
+            count = code + 1;
+            dictionary.put(s, code);
+        }
+        codes[pos] = code;
+    }
+
+    @Override
+    protected void filterEqNonNull(Object value, long[] sel) {
+        Integer code = value instanceof String ? dictionary.get(value) : null;
+        if (code == null) { Arrays.fill(sel, 0L); return; }
+        int c = code;
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                long low = bits & -bits;
+                int p = (w << 6) + Long.numberOfTrailingZeros(bits);
+                if (codes[p] != c) sel[w] &= ~low;
+                bits ^= low;
+            }
+        }
+    }
+
+    // Any other predicate is evaluated once per dictionary entry, then applied to the int codes.
+    @Override
+    protected void filterNonNull(Condition c, long[] sel) {
+        String[] vals = values;
+        boolean[] ok = new boolean[count];
+        for (int i = 0; i < ok.length; i++) ok[i] = c.test(vals[i]);
+        for (int w = 0; w < sel.length; w++) {
+            long bits = sel[w];
+            while (bits != 0) {
+                long low = bits & -bits;
+                if (!ok[codes[(w << 6) + Long.numberOfTrailingZeros(bits)]]) sel[w] &= ~low;
+                bits ^= low;
+            }
+        }
+    }
+
+    @Override long keyCode(int pos) { return codes[pos]; }
+
+    int dictionarySize() { return count; }
+
+    @Override
+    long sizeInBytes() {
+        long dict = 8L * values.length;
+        // per distinct value: String + backing array + map node + boxed code
+        for (int i = 0; i < count; i++) dict += 40 + values[i].length() + 48;
+        return 16L + 4L * codes.length + 8L * nulls.length + dict;
+    }
+}
@@ -0,0 +1,4 @@
+public enum SyncPolicy {
+    GROUP_COMMIT, // committers waiting at the same time share one fsync
+    PER_COMMIT    // every commit forces the log on its own, inside the commit lock
+}
@@ -1,144 +1,512 @@
 import java.util.*;
-import java.util.concurrent.locks.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongFunction;
 
+// A table under multi-version concurrency control.
+//
+// The main store holds row images every open snapshot agrees on. Newer committed images live in
+// per-row version chains (newest first) until the garbage collector merges them into the store.
+// A reader at timestamp ts sees, per row, its own transaction's pending write, else the newest
+// version with commitTs <= ts, else the main store. Reads never lock; commits install versions
+// under the manager's commit lock. Indexes hold the values of every live version, so index hits
+// are always re-checked against the visible row.
 public class Table {
     private final String name;
     private final Schema schema;
-    private final Map<Long, Row> rows = new LinkedHashMap<>();
-    private long nextId = 1;
-    private final Map<String, Index> indexes = new HashMap<>();
-    private final ReadWriteLock rw = new ReentrantReadWriteLock();
+    private final StorageMode mode;
+    private final TableStore store;
+    private final TransactionManager txm;
+    private final ConcurrentHashMap<Long, Version> versions = new ConcurrentHashMap<>();
+    private final AtomicLong nextId = new AtomicLong(1);
+    private final AtomicLong liveRows = new AtomicLong(); // rows in the latest committed state
+    private final Map<String, Index> indexes = new ConcurrentHashMap<>();
+    // Fetching and re-checking one row costs about this many index entry reads.
+    private static final double FETCH_COST = 4.0;
+    // Autocommit update/delete re-run on a write conflict at most this many times.
+    private static final int AUTOCOMMIT_RETRIES = 16;
+    // Version chains merged per commit-lock hold, so vacuum never stalls committers for long.
+    private static final int VACUUM_BATCH = 1024;
 
-    public Table(String name, Schema schema) {
-        this.name = name; this.schema = schema;
+    public Table(String name, Schema schema) { this(name, schema, StorageMode.ROW); }
+
+    public Table(String name, Schema schema, StorageMode mode) { this(name, schema, mode, new TransactionManager()); }
+
+    Table(String name, Schema schema, StorageMode mode, TransactionManager txm) {
+        this.name = name; this.schema = schema; this.mode = mode; this.txm = txm;
+        this.store = mode == StorageMode.COLUMNAR ? new ColumnStore(schema) : new RowStore();
+        txm.register(this);
     }
 
     public String getName() { return name; }
+    public StorageMode getStorageMode() { return mode; }
 
     // Create index on a column
-    public void createIndex(String column) {
+    public void createIndex(String column) { createIndex(column, IndexType.HASH); }
+
+    public void createIndex(String column, IndexType type) {
         if (!schema.hasColumn(column)) throw new IllegalArgumentException("No such column: " + column);
-        rw.writeLock().lock();
+        txm.commitLock.lock(); // no installs or merges while the index is built
         try {
-            Index idx = new Index(column);
-            for (Row r : rows.values()) {
-                idx.add(r.get(column), r.getId());
+            Index idx = Index.create(column, type);
+            for (Row r : store.rows()) idx.add(r.get(column), r.getId());
+            for (Map.Entry<Long, Version> e : versions.entrySet()) {
+                for (Version v = e.getValue(); v != null; v = v.older) {
+                    if (v.row != null) idx.add(v.row.get(column), e.getKey());
+                }
             }
             indexes.put(column, idx);
-        } finally { rw.writeLock().unlock(); }
+        } finally { txm.commitLock.unlock(); }
+        txm.awaitDurable(txm.logSchemaChange(WriteAheadLog.CREATE_INDEX, LogCodec.createIndexBody(name, column, type)));
     }
 
-    // Insert row: values map column->value. Returns Row id.
+    // Insert row: values map column->value. Returns Row id. Without tx the row is committed at once.
     public long insert(Map<String,Object> values, Transaction tx) {
-        rw.writeLock().lock();
-        try {
-            long id = nextId++;
-            Row r = new Row(id);
-            for (Column c : schema.getColumns()) {
-                Object v = values.get(c.name);
-                r.set(c.name, v);
-            }
-            rows.put(id, r);
-            // update indexes
-            for (Index idx : indexes.values()) idx.add(r.get(idx.getColumn()), id);
-            // log for transaction
-            if (tx != null) tx.logInsert(this, r);
-            return id;
-        } finally { rw.writeLock().unlock(); }
+        checkTransaction(tx);
+        long id = nextId.getAndIncrement();
+        Row r = new Row(id);
+        for (Column c : schema.getColumns()) {
+            Object v = values.get(c.name);
+            r.set(c.name, v);
+        }
+        store.coerce(r); // reject bad values before anything is logged
+        if (tx != null) tx.logInsert(this, r);
+        else {
+            // a blind insert reads nothing and cannot conflict, so it needs no snapshot
+            Transaction auto = new Transaction(txm, null);
+            auto.logInsert(this, r);
+            auto.commit();
+        }
+        return id;
     }
 
     // Select rows matching whereEq (map of column->value). If whereEq null -> all.
-    public List<Row> select(Map<String,Object> whereEq) {
-        rw.readLock().lock();
-        try {
-            List<Row> result = new ArrayList<>();
-            if (whereEq != null && whereEq.size() == 1) {
-                // Optimize single equality using index if exists
-                Map.Entry<String,Object> e = whereEq.entrySet().iterator().next();
-                Index idx = indexes.get(e.getKey());
-                if (idx != null) {
-                    for (Long id : idx.find(e.getValue())) {
-                        Row r = rows.get(id);
-                        if (r != null) result.add(r);
-                    }
-                    return result;
-                }
+    public List<Row> select(Map<String,Object> whereEq) { return select(Condition.fromWhereEq(whereEq)); }
+
+    public List<Row> select(List<Condition> where) { return select(where, (Transaction) null); }
+
+    // Select rows matching every condition as seen by tx (or by the latest committed state if tx is null).
+    // Indexed conditions are looked up cheapest first and their id sets intersected while that still pays
+    // off; the rest is checked on the fetched rows.
+    public List<Row> select(List<Condition> where, Transaction tx) {
+        return atSnapshot(tx, ts -> selectAt(where, ts, tx));
+    }
+
+    private List<Row> selectAt(List<Condition> where, long ts, Transaction tx) {
+        Set<Long> ids = indexCandidates(where);
+        Set<Long> shadowed = new HashSet<>();
+        List<Row> newer = new ArrayList<>();
+        overlay(ids, ts, tx, shadowed, newer);
+        newer.removeIf(r -> !Condition.allMatch(where, r));
+        return mergeById(store.scan(where, ids, shadowed), newer);
+    }
+
+    public List<Row> select(List<Condition> where, String orderBy, boolean ascending, int limit) {
+        return select(where, orderBy, ascending, limit, null);
+    }
+
+    // Ordered select. A sorted index on orderBy is walked in order (stopping after limit rows) unless
+    // another index already narrows the candidates, in which case those few rows are sorted instead.
+    public List<Row> select(List<Condition> where, String orderBy, boolean ascending, int limit, Transaction tx) {
+        if (orderBy != null && indexes.get(orderBy) instanceof SortedIndex
+                && (tx == null || tx.pending(this).isEmpty()) && indexCandidates(where) == null) {
+            SortedIndex order = (SortedIndex) indexes.get(orderBy);
+            return atSnapshot(tx, ts -> {
+                List<Row> result = new ArrayList<>();
+                order.visit(ascending, (key, id) -> {
+                    Row r = visibleRow(id, ts, null);
+                    // the id is also listed under the keys of its other versions
+                    if (r != null && KeyComparator.INSTANCE.compare(r.get(orderBy), key) == 0
+                            && Condition.allMatch(where, r)) result.add(r);
+                    return limit <= 0 || result.size() < limit;
+                });
+                return result;
+            });
+        }
+        List<Row> rows = select(where, tx);
+        if (orderBy != null) {
+            Comparator<Row> cmp = (a, b) -> KeyComparator.INSTANCE.compare(a.get(orderBy), b.get(orderBy));
+            rows.sort(ascending ? cmp : cmp.reversed());
+        }
+        return limit > 0 && rows.size() > limit ? new ArrayList<>(rows.subList(0, limit)) : rows;
+    }
+
+    // Index-usable conditions, cheapest first, with their estimated hits; null when a full scan is cheaper.
+    private List<Condition> indexPlan(List<Condition> where, Map<Condition, Long> estimates) {
+        if (where.isEmpty() || indexes.isEmpty()) return null;
+        long scanThreshold = (long) (liveRows.get() / FETCH_COST); // beyond this many hits a full scan wins
+        List<Condition> usable = new ArrayList<>();
+        for (Condition c : where) {
+            Index idx = indexes.get(c.column);
+            if (idx == null || !idx.supports(c)) continue;
+            usable.add(c);
+            estimates.put(c, idx.estimate(c, scanThreshold));
+        }
+        if (usable.isEmpty()) return null;
+        usable.sort(Comparator.comparing(estimates::get));
+        return estimates.get(usable.get(0)) > scanThreshold ? null : usable;
+    }
+
+    // Candidate row ids from the indexes, or null when a full scan is cheaper.
+    private Set<Long> indexCandidates(List<Condition> where) {
+        Map<Condition, Long> estimates = new HashMap<>();
+        List<Condition> usable = indexPlan(where, estimates);
+        if (usable == null) return null;
+        long n = liveRows.get();
+        Set<Long> ids = new HashSet<>();
+        indexes.get(usable.get(0).column).lookup(usable.get(0), ids);
+        for (int i = 1; i < usable.size() && !ids.isEmpty(); i++) {
+            Condition c = usable.get(i);
+            long e = estimates.get(c);
+            // assuming independent predicates, intersecting keeps ids.size() * e / n rows
+            double saved = (ids.size() - ids.size() * (double) e / Math.max(1, n)) * FETCH_COST;
+            if (saved <= e) break;
+            Set<Long> other = new HashSet<>();
+            indexes.get(c.column).lookup(c, other);
+            ids.retainAll(other);
+        }
+        return ids;
+    }
+
+    // How select(where, orderBy, ...) would read the table, for EXPLAIN; orderBy may be null.
+    String describeAccess(List<Condition> where, String orderBy, boolean ascending) {
+        Map<Condition, Long> estimates = new HashMap<>();
+        List<Condition> usable = indexPlan(where, estimates);
+        if (usable == null && orderBy != null && indexes.get(orderBy) instanceof SortedIndex) {
+            return "index " + orderBy + "(SORTED) walked " + (ascending ? "ascending" : "descending");
+        }
+        if (usable == null) return "full scan of " + liveRows.get() + " rows";
+        Condition first = usable.get(0);
+        StringBuilder sb = new StringBuilder("index " + first.column + "(" + indexes.get(first.column).getType() + ") on "
+                + first + " ~" + estimates.get(first) + " rows");
+        if (usable.size() > 1) sb.append(", may intersect ").append(usable.subList(1, usable.size()));
+        return sb.toString();
+    }
+
+    // Estimated rows matching where: the best index estimate, else a fixed guess per condition.
+    long estimateRows(List<Condition> where) {
+        Map<Condition, Long> estimates = new HashMap<>();
+        List<Condition> usable = indexPlan(where, estimates);
+        double rows = usable != null ? estimates.get(usable.get(0)) : liveRows.get();
+        for (Condition c : where) {
+            if (usable != null && c == usable.get(0)) continue;
+            rows *= c.op == Condition.Op.EQ ? 0.1 : 0.3;
+        }
+        return Math.max(1, Math.round(rows));
+    }
+
+    // Rows whose main-store image a reader at ts must not use: tx's own writes and rows with a visible
+    // committed version (only those among ids, unless ids is null). Their ids go to shadowed and their
+    // visible images, unless deleted, to newer.
+    private void overlay(Collection<Long> ids, long ts, Transaction tx, Set<Long> shadowed, List<Row> newer) {
+        if (tx != null) {
+            for (Transaction.Op op : tx.pending(this)) {
+                shadowed.add(op.rowId);
+                if (op.row != null) newer.add(op.row);
             }
-            for (Row r : rows.values()) {
-                if (matches(r, whereEq)) result.add(r);
+        }
+        if (ids == null) {
+            for (Map.Entry<Long, Version> e : versions.entrySet()) shadow(e.getKey(), e.getValue(), ts, shadowed, newer);
+        } else {
+            for (Long id : ids) {
+                Version head = versions.get(id);
+                if (head != null) shadow(id, head, ts, shadowed, newer);
             }
-            return result;
-        } finally { rw.readLock().unlock(); }
+        }
+    }
+
+    private static void shadow(long id, Version head, long ts, Set<Long> shadowed, List<Row> newer) {
+        Version v = visible(head, ts);
+        if (v == null || !shadowed.add(id)) return; // nothing visible yet, or tx's own write wins
+        if (v.row != null) newer.add(v.row);
+    }
+
+    private static Version visible(Version head, long ts) {
+        Version v = head;
+        while (v != null && v.commitTs > ts) v = v.older;
+        return v;
     }
 
-    private boolean matches(Row r, Map<String,Object> whereEq) {
-        if (whereEq == null || whereEq.isEmpty()) return true;
-        for (Map.Entry<String,Object> e : whereEq.entrySet()) {
-            Object val = r.get(e.getKey());
-            if (!Objects.equals(val, e.getValue())) return false;
+    private Row visibleRow(long id, long ts, Transaction tx) {
+        if (tx != null) {
+            Transaction.Op op = tx.pending(this, id);
+            if (op != null) return op.row;
         }
-        return true;
+        Version head = versions.get(id);
+        Version v = head == null ? null : visible(head, ts);
+        return v != null ? v.row : store.get(id);
+    }
+
+    // Both lists are in id order and disjoint.
+    private static List<Row> mergeById(List<Row> main, List<Row> newer) {
+        if (newer.isEmpty()) return main;
+        newer.sort(Comparator.comparingLong(Row::getId));
+        List<Row> result = new ArrayList<>(main.size() + newer.size());
+        int i = 0, j = 0;
+        while (i < main.size() || j < newer.size()) {
+            if (j == newer.size() || (i < main.size() && main.get(i).getId() < newer.get(j).getId())) result.add(main.get(i++));
+            else result.add(newer.get(j++));
+        }
+        return result;
+    }
+
+    // Runs a read at tx's snapshot, or at a snapshot held open for the duration of the read.
+    private <T> T atSnapshot(Transaction tx, LongFunction<T> read) {
+        checkTransaction(tx);
+        if (tx != null) {
+            if (!tx.isActive()) throw new IllegalStateException("Transaction is not active");
+            return read.apply(tx.startTs);
+        }
+        Snapshot s = txm.openSnapshot();
+        try { return read.apply(s.ts); } finally { txm.closeSnapshot(s); }
+    }
+
+    private void checkTransaction(Transaction tx) {
+        if (tx != null && tx.manager() != txm) throw new IllegalArgumentException("Transaction belongs to another database");
+    }
+
+    // Aggregate one column over rows matching whereEq; columnar tables aggregate the primitive arrays directly.
+    public Object aggregate(String column, AggregateFunction fn, Map<String,Object> whereEq) {
+        return aggregate(column, fn, Condition.fromWhereEq(whereEq));
+    }
+
+    public Object aggregate(String column, AggregateFunction fn, List<Condition> where) {
+        return aggregate(column, fn, where, null);
+    }
+
+    public Object aggregate(String column, AggregateFunction fn, List<Condition> where, Transaction tx) {
+        if (fn == AggregateFunction.APPROX_DISTINCT) {
+            return aggregate(List.of(), List.of(Aggregate.approxDistinct(column)), where, tx).get(0).values().iterator().next();
+        }
+        return atSnapshot(tx, ts -> {
+            Set<Long> ids = indexCandidates(where);
+            Set<Long> shadowed = new HashSet<>();
+            List<Row> newer = new ArrayList<>();
+            overlay(ids, ts, tx, shadowed, newer);
+            AggregateState st = store.aggregate(column, where, ids, shadowed);
+            for (Row r : newer) if (Condition.allMatch(where, r)) st.addRow(r.get(column));
+            return st.result(fn, column);
+        });
+    }
+
+    // Grouped aggregation: one map per distinct combination of the groupBy values (column -> value,
+    // then alias -> result per aggregate). All aggregates are computed in one parallel pass.
+    public List<Map<String,Object>> aggregate(List<String> groupBy, List<Aggregate> aggregates, List<Condition> where, Transaction tx) {
+        return groupAggregate(groupBy, aggregates, where, tx).toMaps();
+    }
+
+    GroupedAggregation groupAggregate(List<String> groupBy, List<Aggregate> aggregates, List<Condition> where, Transaction tx) {
+        for (String c : groupBy) if (!schema.hasColumn(c)) throw new IllegalArgumentException("No such column: " + c);
+        for (Aggregate a : aggregates) {
+            if (a.column != null && !schema.hasColumn(a.column)) throw new IllegalArgumentException("No such column: " + a.column);
+        }
+        return atSnapshot(tx, ts -> {
+            Set<Long> ids = indexCandidates(where);
+            Set<Long> shadowed = new HashSet<>();
+            List<Row> newer = new ArrayList<>();
+            overlay(ids, ts, tx, shadowed, newer);
+            GroupedAggregation g = store.aggregate(groupBy, aggregates, where, ids, shadowed);
+            for (Row r : newer) if (Condition.allMatch(where, r)) g.add(r);
+            return g;
+        });
     }
 
     // Update matching rows with updates map; returns count updated.
     public int update(Map<String,Object> whereEq, Map<String,Object> updates, Transaction tx) {
-        rw.writeLock().lock();
-        try {
-            List<Row> matched = select(whereEq);
-            for (Row r : matched) {
-                // log old copy for rollback
-                if (tx != null) tx.logUpdate(this, r.shallowCopyWithNewId(r.getId()));
-                // update indexes: remove old index entries and add new
-                for (Index idx : indexes.values()) {
-                    String col = idx.getColumn();
-                    Object oldVal = r.get(col);
-                    Object newVal = updates.containsKey(col) ? updates.get(col) : oldVal;
-                    if (!Objects.equals(oldVal, newVal)) {
-                        idx.remove(oldVal, r.getId());
-                        idx.add(newVal, r.getId());
-                    }
-                }
-                // apply updates
-                for (Map.Entry<String,Object> u : updates.entrySet()) r.set(u.getKey(), u.getValue());
+        List<Condition> where = Condition.fromWhereEq(whereEq);
+        return write(tx, t -> {
+            List<Row> after = new ArrayList<>();
+            for (Row r : select(where, t)) {
+                Row copy = r.shallowCopyWithNewId(r.getId()); // committed images are never modified
+                for (Map.Entry<String,Object> u : updates.entrySet()) copy.set(u.getKey(), u.getValue());
+                store.coerce(copy);
+                after.add(copy);
             }
-            return matched.size();
-        } finally { rw.writeLock().unlock(); }
+            // all values checked first, so a rejected update logs nothing
+            for (Row r : after) t.logUpdate(this, r);
+            return after.size();
+        });
     }
 
     // Delete matching rows; returns count deleted
     public int delete(Map<String,Object> whereEq, Transaction tx) {
-        rw.writeLock().lock();
-        try {
-            List<Row> matched = select(whereEq);
-            for (Row r : matched) {
-                if (tx != null) tx.logDelete(this, r);
-                rows.remove(r.getId());
-                for (Index idx : indexes.values()) idx.remove(r.get(idx.getColumn()), r.getId());
-            }
+        List<Condition> where = Condition.fromWhereEq(whereEq);
+        return write(tx, t -> {
+            List<Row> matched = select(where, t);
+            for (Row r : matched) t.logDelete(this, r);
             return matched.size();
-        } finally { rw.writeLock().unlock(); }
+        });
     }
 
-    public Schema getSchema() { return schema; }
-    public Collection<Row> getAllRows() {
-        rw.readLock().lock();
-        try { return new ArrayList<>(rows.values()); } finally { rw.readLock().unlock(); }
+    private interface Write { int apply(Transaction tx); }
+
+    // Runs a read-modify-write in tx, or in its own transaction that is retried after a write conflict.
+    private int write(Transaction tx, Write w) {
+        checkTransaction(tx);
+        if (tx != null) return w.apply(tx);
+        for (int attempt = 0; ; attempt++) {
+            Transaction auto = txm.begin();
+            try {
+                int n = w.apply(auto);
+                auto.commit();
+                return n;
+            } catch (TransactionConflictException e) {
+                if (attempt == AUTOCOMMIT_RETRIES) throw e;
+            } finally {
+                if (auto.isActive()) auto.rollback();
+            }
+        }
     }
 
-    // Internal utility used by Transaction rollback
-    void internalInsertRow(Row r) {
-        rw.writeLock().lock();
-        try {
-            rows.put(r.getId(), r);
-            for (Index idx : indexes.values()) idx.add(r.get(idx.getColumn()), r.getId());
-            nextId = Math.max(nextId, r.getId()+1);
-        } finally { rw.writeLock().unlock(); }
+    // Newest commit timestamp of the row, or 0 if every open snapshot sees its main-store image.
+    long lastCommitTs(long id) {
+        Version head = versions.get(id);
+        return head == null ? 0 : head.commitTs;
     }
-    void internalRemoveRow(long id) {
-        rw.writeLock().lock();
-        try {
-            Row r = rows.remove(id);
-            if (r != null) for (Index idx : indexes.values()) idx.remove(r.get(idx.getColumn()), id);
-        } finally { rw.writeLock().unlock(); }
+
+    // Publishes a committed image (null = delete) under the manager's commit lock.
+    void install(long id, Row row, long commitTs) {
+        Version head = versions.get(id);
+        boolean existed = head != null ? head.row != null : store.contains(id);
+        versions.put(id, new Version(row, commitTs, head));
+        if (row != null) for (Index idx : indexes.values()) idx.add(row.get(idx.getColumn()), id);
+        liveRows.addAndGet((row != null ? 1 : 0) - (existed ? 1 : 0));
+    }
+
+    // Takes back what install() added under commitTs, for a commit whose log write failed; under the
+    // commit lock. Any later write to the row conflicts with that version, so it is still the head.
+    void uninstall(long id, long commitTs) {
+        Version head = versions.get(id);
+        if (head == null || head.commitTs != commitTs) return;
+        Version older = head.older;
+        if (older != null) versions.put(id, older);
+        else versions.remove(id);
+        boolean existed = older != null ? older.row != null : store.contains(id);
+        if (head.row != null) {
+            List<Row> kept = new ArrayList<>();
+            for (Version v = older; v != null; v = v.older) if (v.row != null) kept.add(v.row);
+            Row stored = store.get(id);
+            if (stored != null) kept.add(stored);
+            unindex(id, List.of(head.row), kept);
+        }
+        liveRows.addAndGet((existed ? 1 : 0) - (head.row != null ? 1 : 0));
+    }
+
+    // Merges versions no snapshot at or after horizon can miss into the main store and trims the chains
+    // behind them, dropping index entries no remaining image holds. Returns the number of rows merged.
+    int vacuum(long horizon) {
+        int merged = 0;
+        Iterator<Long> it = versions.keySet().iterator();
+        while (it.hasNext()) {
+            txm.commitLock.lock();
+            try {
+                for (int i = 0; i < VACUUM_BATCH && it.hasNext(); i++) {
+                    long id = it.next();
+                    Version head = versions.get(id);
+                    if (head == null) continue;
+                    if (head.commitTs <= horizon) { merge(id, head); merged++; }
+                    else prune(id, head, horizon);
+                }
+            } finally { txm.commitLock.unlock(); }
+        }
+        return merged;
+    }
+
+    // Merges all committed versions every open snapshot can see; returns the number of rows merged.
+    public int vacuum() { return vacuum(txm.computeHorizon()); }
+
+    private void merge(long id, Version head) {
+        List<Row> dropped = new ArrayList<>();
+        if (!indexes.isEmpty()) {
+            Row old = store.get(id);
+            if (old != null) dropped.add(old);
+            for (Version v = head.older; v != null; v = v.older) if (v.row != null) dropped.add(v.row);
+        }
+        // the store is written before the chain goes, so a reader always finds one of the two
+        if (head.row != null) store.put(head.row);
+        else store.remove(id);
+        versions.remove(id, head);
+        unindex(id, dropped, head.row == null ? List.of() : List.of(head.row));
+    }
+
+    private void prune(long id, Version head, long horizon) {
+        Version keep = visible(head, horizon);
+        if (keep == null || keep.older == null) return;
+        List<Row> dropped = new ArrayList<>();
+        for (Version v = keep.older; v != null; v = v.older) if (v.row != null) dropped.add(v.row);
+        keep.older = null;
+        if (indexes.isEmpty()) return;
+        List<Row> kept = new ArrayList<>();
+        for (Version v = head; v != null; v = v.older) if (v.row != null) kept.add(v.row);
+        Row main = store.get(id);
+        if (main != null) kept.add(main);
+        unindex(id, dropped, kept);
+    }
+
+    private void unindex(long id, List<Row> dropped, List<Row> kept) {
+        for (Index idx : indexes.values()) {
+            String col = idx.getColumn();
+            for (Row d : dropped) {
+                Object v = d.get(col);
+                boolean stillHeld = false;
+                for (Row k : kept) if (Objects.equals(k.get(col), v)) { stillHeld = true; break; }
+                if (!stillHeld) idx.remove(v, id);
+            }
+        }
+    }
+
+    // Recovery only, before the table is shared: applies a logged or checkpointed image (null = delete)
+    // straight to the main store.
+    void restore(long id, Row row) {
+        Row old = store.get(id);
+        if (row != null) {
+            store.coerce(row);
+            store.put(row);
+        } else if (old != null) {
+            store.remove(id);
+        }
+        for (Index idx : indexes.values()) {
+            if (old != null) idx.remove(old.get(idx.getColumn()), id);
+            if (row != null) idx.add(row.get(idx.getColumn()), id);
+        }
+        liveRows.addAndGet((row != null ? 1 : 0) - (old != null ? 1 : 0));
+        if (id >= nextId.get()) nextId.set(id + 1);
+    }
+
+    // Every row visible at ts; the caller keeps a snapshot at ts open.
+    List<Row> rowsAt(long ts) { return selectAt(List.of(), ts, null); }
+
+    public Schema getSchema() { return schema; }
+    public Index getIndex(String column) { return indexes.get(column); }
+    Collection<Index> getIndexes() { return new ArrayList<>(indexes.values()); }
+    // Latest committed image of the row, or null.
+    public Row getRow(long id) { return visibleRow(id, txm.lastCommitted(), null); }
+    // The row as tx sees it, or null.
+    Row getRow(long id, Transaction tx) {
+        checkTransaction(tx);
+        if (!tx.isActive()) throw new IllegalStateException("Transaction is not active");
+        return visibleRow(id, tx.startTs, tx);
+    }
+    // Rows in the order of a sorted index on column, or null if there is no such index.
+    List<Row> rowsOrderedBy(String column, Transaction tx) {
+        Index idx = indexes.get(column);
+        if (!(idx instanceof SortedIndex)) return null;
+        return atSnapshot(tx, ts -> {
+            List<Row> result = new ArrayList<>();
+            ((SortedIndex) idx).visit(true, (key, id) -> {
+                Row r = visibleRow(id, ts, tx);
+                if (r != null && KeyComparator.INSTANCE.compare(r.get(column), key) == 0) result.add(r);
+                return true;
+            });
+            return result;
+        });
+    }
+    public Collection<Row> getAllRows() { return select(List.of()); }
+    public Collection<Row> getAllRows(Transaction tx) { return select(List.of(), tx); }
+    // Rows in the latest committed state.
+    public int size() { return (int) liveRows.get(); }
+    // Approximate heap footprint of a columnar table's main store; -1 for row tables.
+    public long columnarSizeInBytes() {
+        return store instanceof ColumnStore ? ((ColumnStore) store).sizeInBytes() : -1;
     }
 }
@@ -0,0 +1,22 @@
+import java.util.*;
+
+// Main storage behind a Table: the row images every open snapshot agrees on. Row ids are assigned
+// by the Table. Writes come from a single thread at a time (the MVCC garbage collector, or a table
+// load), while any number of readers scan without locking.
+interface TableStore {
+    void put(Row r);            // insert or overwrite the row with r.getId()
+    Row get(long id);           // null if absent
+    Row remove(long id);        // returns removed row or null
+    boolean contains(long id);
+    int size();
+    List<Row> rows();           // all rows in id order
+    // Validates (and for typed stores converts) r's values before they are written anywhere.
+    void coerce(Row r);
+    // Rows matching every condition; candidates == null -> every row, otherwise only those ids.
+    // Ids in excluded are skipped (their visible image lives in a newer version).
+    List<Row> scan(List<Condition> where, Collection<Long> candidates, Set<Long> excluded);
+    AggregateState aggregate(String column, List<Condition> where, Collection<Long> candidates, Set<Long> excluded);
+    // Every aggregate per distinct value of the groupBy columns, in one pass over the matching rows.
+    GroupedAggregation aggregate(List<String> groupBy, List<Aggregate> aggregates, List<Condition> where,
+                                 Collection<Long> candidates, Set<Long> excluded);
+}
@@ -1,49 +1,80 @@
 import java.util.*;
 
-
+// Snapshot-isolated transaction. Reads see the database as of begin plus this transaction's own
+// writes; writes stay private until commit, which fails with TransactionConflictException if another
+// transaction committed a write to the same row first. Not thread-safe: use one per thread.
 public class Transaction {
     public enum OpType {INSERT, UPDATE, DELETE}
     public static class Op {
         final OpType type;
         final Table table;
-        final Row rowBefore; // for update/delete: snapshot before; for insert: null
-        final Row rowAfter;  // for insert: inserted row; update: after copy? not needed for rollback
+        final long rowId;
+        final Row row; // after-image for insert/update, null for delete
 
-        Op(OpType type, Table table, Row before, Row after) {
-            this.type = type; this.table = table; this.rowBefore = before; this.rowAfter = after;
+        Op(OpType type, Table table, long rowId, Row row) {
+            this.type = type; this.table = table; this.rowId = rowId; this.row = row;
         }
     }
 
-    private final List<Op> ops = new ArrayList<>();
+    private final TransactionManager txm;
+    private final Snapshot snapshot; // null for blind autocommit inserts, which read nothing
+    final long startTs;
+    // net effect per row, in first-write order: the commit write set and the overlay for own reads
+    private final Map<Table, LinkedHashMap<Long, Op>> writes = new LinkedHashMap<>();
     private boolean active = true;
-    void logInsert(Table t, Row inserted) { ops.add(new Op(OpType.INSERT, t, null, inserted)); }
-    void logDelete(Table t, Row deleted) { ops.add(new Op(OpType.DELETE, t, deleted, null)); }
-    void logUpdate(Table t, Row beforeSnapshot) { ops.add(new Op(OpType.UPDATE, t, beforeSnapshot, null)); }
 
-    public void commit() { active = false; ops.clear(); }
+    Transaction(TransactionManager txm, Snapshot snapshot) {
+        this.txm = txm;
+        this.snapshot = snapshot;
+        this.startTs = snapshot != null ? snapshot.ts : txm.lastCommitted();
+    }
+
+    TransactionManager manager() { return txm; }
+
+    void logInsert(Table t, Row inserted) { put(new Op(OpType.INSERT, t, inserted.getId(), inserted)); }
+    void logUpdate(Table t, Row after) {
+        Op prev = pending(t, after.getId());
+        put(new Op(prev != null && prev.type == OpType.INSERT ? OpType.INSERT : OpType.UPDATE, t, after.getId(), after));
+    }
+    void logDelete(Table t, Row deleted) {
+        Op prev = pending(t, deleted.getId());
+        if (prev != null && prev.type == OpType.INSERT) writes.get(t).remove(deleted.getId());
+        else put(new Op(OpType.DELETE, t, deleted.getId(), null));
+    }
+
+    private void put(Op op) {
+        if (!active) throw new IllegalStateException("Transaction is not active");
+        writes.computeIfAbsent(op.table, k -> new LinkedHashMap<>()).put(op.rowId, op);
+    }
+
+    // This transaction's pending write to the row, or null if it has not touched it.
+    Op pending(Table t, long rowId) {
+        Map<Long, Op> m = writes.get(t);
+        return m == null ? null : m.get(rowId);
+    }
+    Collection<Op> pending(Table t) {
+        Map<Long, Op> m = writes.get(t);
+        return m == null ? Collections.emptyList() : m.values();
+    }
+
+    List<Op> ops() {
+        List<Op> all = new ArrayList<>();
+        for (Map<Long, Op> m : writes.values()) all.addAll(m.values());
+        return all;
+    }
+
+    public void commit() {
+        if (!active) throw new IllegalStateException("Transaction is not active");
+        try { txm.commit(this, ops()); } finally { end(); }
+    }
     public void rollback() {
-        // reverse operations in reverse order
-        ListIterator<Op> it = ops.listIterator(ops.size());
-        while (it.hasPrevious()) {
-            Op op = it.previous();
-            switch (op.type) {
-                case INSERT:
-                    // remove inserted row
-                    op.table.internalRemoveRow(op.rowAfter.getId());
-                    break;
-                case DELETE:
-                    // re-insert deleted row
-                    op.table.internalInsertRow(op.rowBefore);
-                    break;
-                case UPDATE:
-                    // restore previous values: remove current row and insert previous snapshot
-                    op.table.internalRemoveRow(op.rowBefore.getId());
-                    op.table.internalInsertRow(op.rowBefore);
-                    break;
-            }
-        }
+        // nothing was published, so dropping the write set is enough
+        if (active) end();
+    }
+    private void end() {
         active = false;
-        ops.clear();
+        writes.clear();
+        txm.closeSnapshot(snapshot);
     }
     public boolean isActive() { return active; }
 }
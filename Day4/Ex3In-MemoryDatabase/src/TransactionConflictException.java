@@ -0,0 +1,6 @@
+// Thrown by Transaction.commit when another transaction committed a write to the same row first.
+public class TransactionConflictException extends IllegalStateException {
+    private static final long serialVersionUID = 1L;
+
+    public TransactionConflictException(String message) { super(message); }
+}
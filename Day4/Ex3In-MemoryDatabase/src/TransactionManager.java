@@ -0,0 +1,158 @@
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+// Commit timestamps, open snapshots and version garbage collection for one Database.
+//
+// Readers take a snapshot at lastCommitted and only share horizonLock with each other while they
+// register it, so a horizon never misses a snapshot opened concurrently. Commits are validated and installed under
+// commitLock (first committer wins) and become visible by advancing lastCommitted. The horizon is the
+// oldest timestamp an open snapshot may still read; versions hidden behind it are merged into the
+// tables' main stores by a background task.
+//
+// With a write-ahead log attached, a commit is appended to the log before its versions are installed
+// and only becomes visible once the log is durable up to it. Timestamps are handed out under the
+// lock, so a later commit may become durable (and publish both) before an earlier one wakes up.
+class TransactionManager {
+    private static final ScheduledExecutorService GC = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "mvcc-gc");
+        t.setDaemon(true);
+        return t;
+    });
+    static final long GC_INTERVAL_MS = 50;
+
+    final ReentrantLock commitLock = new ReentrantLock();
+    private volatile long lastCommitted;
+    private long assigned; // last timestamp handed to a commit; guarded by commitLock
+    private volatile WriteAheadLog wal;
+    private volatile long horizon;
+    // read-locked while a snapshot registers, write-locked while the horizon is computed
+    private final StampedLock horizonLock = new StampedLock();
+    private final ConcurrentSkipListSet<Snapshot> active = new ConcurrentSkipListSet<>();
+    private final AtomicLong seq = new AtomicLong();
+    private final List<Table> tables = new CopyOnWriteArrayList<>();
+    private final ScheduledFuture<?> gcTask;
+
+    TransactionManager() {
+        // the task only holds a weak reference, so an abandoned database can still be collected
+        WeakReference<TransactionManager> self = new WeakReference<>(this);
+        ScheduledFuture<?>[] handle = new ScheduledFuture<?>[1];
+        handle[0] = GC.scheduleWithFixedDelay(() -> {
+            TransactionManager m = self.get();
+            if (m == null) { handle[0].cancel(false); return; }
+            try { m.collectGarbage(); } catch (RuntimeException e) { System.err.println("mvcc-gc: " + e); }
+        }, GC_INTERVAL_MS, GC_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        gcTask = handle[0];
+    }
+
+    void register(Table t) { tables.add(t); }
+    long lastCommitted() { return lastCommitted; }
+
+    // Called once recovery has replayed everything up to ts; later commits go to wal.
+    void recovered(long ts, WriteAheadLog wal) {
+        commitLock.lock();
+        try {
+            assigned = ts;
+            lastCommitted = ts;
+            this.wal = wal;
+        } finally { commitLock.unlock(); }
+    }
+
+    WriteAheadLog wal() { return wal; }
+    // Caller holds commitLock: every timestamp handed out so far.
+    long assigned() { return assigned; }
+
+    private synchronized void publish(long ts) {
+        if (ts > lastCommitted) lastCommitted = ts;
+    }
+
+    // Logs a table or index creation; returns the position to pass to awaitDurable, or -1 without a log.
+    long logSchemaChange(byte type, byte[] body) {
+        WriteAheadLog log = wal;
+        if (log == null) return -1;
+        commitLock.lock();
+        try { return log.append(type, assigned, body); } finally { commitLock.unlock(); }
+    }
+
+    void awaitDurable(long pos) {
+        if (pos >= 0) wal.awaitDurable(pos);
+    }
+
+    Transaction begin() { return new Transaction(this, openSnapshot()); }
+
+    Snapshot openSnapshot() {
+        long stamp = horizonLock.readLock();
+        try {
+            // a horizon computed before this point is at most lastCommitted, one computed after sees us
+            Snapshot s = new Snapshot(lastCommitted, seq.incrementAndGet());
+            active.add(s);
+            return s;
+        } finally { horizonLock.unlockRead(stamp); }
+    }
+
+    void closeSnapshot(Snapshot s) { if (s != null) active.remove(s); }
+    int openSnapshots() { return active.size(); }
+
+    // First-committer-wins: a row written by tx must not have a version committed after tx started.
+    // With a log, the versions become visible only once the record is durable; if the log fails they
+    // are removed again and the commit fails.
+    void commit(Transaction tx, List<Transaction.Op> ops) {
+        if (ops.isEmpty()) return;
+        WriteAheadLog log = wal;
+        byte[] record = log == null ? null : LogCodec.commitBody(ops); // encode outside the lock
+        long ts, pos = -1;
+        commitLock.lock();
+        try {
+            for (Transaction.Op op : ops) {
+                if (op.type != Transaction.OpType.INSERT && op.table.lastCommitTs(op.rowId) > tx.startTs) {
+                    throw new TransactionConflictException("Write conflict on " + op.table.getName() + " row " + op.rowId);
+                }
+            }
+            ts = assigned + 1;
+            if (log != null) pos = log.append(WriteAheadLog.COMMIT, ts, record); // throws before anything is installed
+            assigned = ts;
+            // installed but unpublished versions already count for conflict checks of later commits
+            for (Transaction.Op op : ops) op.table.install(op.rowId, op.row, ts);
+            if (log == null) lastCommitted = ts;
+        } finally { commitLock.unlock(); }
+        if (log != null) {
+            try {
+                log.awaitDurable(pos);
+            } catch (RuntimeException e) {
+                // not durable, so never published: take the versions back before reporting the failure
+                commitLock.lock();
+                try {
+                    for (Transaction.Op op : ops) op.table.uninstall(op.rowId, ts);
+                } finally { commitLock.unlock(); }
+                throw e;
+            }
+            publish(ts);
+        }
+    }
+
+    // Caller holds commitLock: makes every assigned timestamp visible after the log was forced.
+    void publishAssigned() { publish(assigned); }
+
+    long computeHorizon() {
+        long stamp = horizonLock.writeLock();
+        try {
+            long h = lastCommitted;
+            try { h = Math.min(h, active.first().ts); } catch (NoSuchElementException empty) { /* no readers */ }
+            if (h > horizon) horizon = h;
+            return horizon;
+        } finally { horizonLock.unlockWrite(stamp); }
+    }
+
+    // Merges every version no open snapshot can miss into the main stores; returns rows merged.
+    int collectGarbage() {
+        long h = computeHorizon();
+        int merged = 0;
+        for (Table t : tables) merged += t.vacuum(h);
+        return merged;
+    }
+
+    void shutdown() { gcTask.cancel(false); }
+}
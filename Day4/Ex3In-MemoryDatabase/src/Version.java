@@ -0,0 +1,11 @@
+// One committed image of a row, stamped with the commit timestamp that created it. row == null
+// marks a delete. Chains run newest to oldest; the garbage collector trims them by clearing older.
+final class Version {
+    final Row row;
+    final long commitTs;
+    volatile Version older;
+
+    Version(Row row, long commitTs, Version older) {
+        this.row = row; this.commitTs = commitTs; this.older = older;
+    }
+}
@@ -0,0 +1,95 @@
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Durability costs of the write-ahead log:
+//  1. committed transactions per second, group commit vs one fsync per commit, by thread count
+//  2. recovery time (open = load checkpoint + replay log) against log size
+// Run: java WalBenchmark [dir] [seconds per step]   (dir defaults to a temp directory; use a real disk)
+public class WalBenchmark {
+    public static void main(String[] args) throws Exception {
+        Path base = args.length > 0 ? Paths.get(args[0]) : Files.createTempDirectory("walbench");
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        System.out.println("dir=" + base);
+
+        System.out.println("commits/s (one insert per transaction)");
+        for (int threads : new int[] {1, 4, 16, 64}) {
+            StringBuilder line = new StringBuilder(String.format("  threads=%2d", threads));
+            for (SyncPolicy policy : SyncPolicy.values()) {
+                Path dir = Files.createDirectories(base.resolve(policy + "-" + threads));
+                line.append(String.format("  %s=%,9d", policy, commitsPerSecond(dir, policy, threads, seconds)));
+                delete(dir);
+            }
+            System.out.println(line);
+        }
+
+        System.out.println("recovery time by size of the log left to replay");
+        for (int commits : new int[] {10_000, 100_000, 1_000_000}) {
+            Path dir = Files.createDirectories(base.resolve("recovery-" + commits));
+            long logBytes = writeLog(dir, commits);
+            long t0 = System.nanoTime();
+            Database db = new Database(dir);
+            long ms = (System.nanoTime() - t0) / 1_000_000;
+            System.out.printf("  commits=%,10d  log=%,7d KB  recovery=%,6d ms  rows=%,d%n", commits, logBytes >> 10, ms, db.getTable("kv").size());
+            db.close();
+            delete(dir);
+        }
+    }
+
+    static Schema schema() {
+        Schema s = new Schema();
+        s.addColumn("k", DataType.INTEGER);
+        s.addColumn("v", DataType.STRING);
+        return s;
+    }
+
+    static long commitsPerSecond(Path dir, SyncPolicy policy, int threads, int seconds) throws Exception {
+        Database db = new Database(dir, policy);
+        db.createTable("kv", schema());
+        Table t = db.getTable("kv");
+        LongAdder commits = new LongAdder();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        long end = System.nanoTime() + seconds * 1_000_000_000L;
+        for (int i = 0; i < threads; i++) {
+            pool.submit(() -> {
+                int k = 0;
+                while (System.nanoTime() < end) {
+                    t.insert(Map.of("k", k++, "v", "value"), null);
+                    commits.increment();
+                }
+            });
+        }
+        pool.shutdown();
+        pool.awaitTermination(seconds + 60L, TimeUnit.SECONDS);
+        db.close();
+        return commits.sum() / seconds;
+    }
+
+    // Writes commits of one insert each, batched over many threads so group commit keeps it quick.
+    static long writeLog(Path dir, int commits) throws Exception {
+        Database db = new Database(dir);
+        db.createTable("kv", schema());
+        Table t = db.getTable("kv");
+        ExecutorService pool = Executors.newFixedThreadPool(32);
+        for (int w = 0; w < 32; w++) {
+            int from = w;
+            pool.submit(() -> { for (int k = from; k < commits; k += 32) t.insert(Map.of("k", k, "v", "value-" + k), null); });
+        }
+        pool.shutdown();
+        pool.awaitTermination(1, TimeUnit.HOURS);
+        db.close();
+        long bytes = 0;
+        for (Path p : WriteAheadLog.segments(dir)) bytes += Files.size(p);
+        return bytes;
+    }
+
+    static void delete(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path p : (Iterable<Path>) files::iterator) Files.delete(p);
+        }
+        Files.delete(dir);
+    }
+}
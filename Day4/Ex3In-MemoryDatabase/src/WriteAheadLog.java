@@ -0,0 +1,185 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Append-only redo log kept in numbered segment files (wal-<n>.log). Each record is framed as
+// [int length][int crc32c][byte type][long ts][body]; a torn or corrupt frame ends the log.
+//
+// append() runs under the commit lock and only hands the record to the OS. awaitDurable() then
+// waits for an fsync that covers it: with GROUP_COMMIT the first waiter that finds no fsync in
+// flight forces everything appended so far, so committers arriving meanwhile share the next one.
+// With PER_COMMIT append() forces the log itself before returning.
+class WriteAheadLog implements Closeable {
+    static final byte COMMIT = 1, CREATE_TABLE = 2, CREATE_INDEX = 3;
+    private static final int FRAME_HEADER = 8;  // length + crc
+    private static final int RECORD_HEADER = 9; // type + ts
+
+    interface Replayer { void apply(byte type, long ts, DataInputStream body) throws IOException; }
+
+    private final Path dir;
+    private final SyncPolicy policy;
+    private volatile FileChannel channel;
+    private long segment;             // number of the segment being appended to
+    private volatile long written;    // bytes appended since open, across segments
+    private long durable;             // bytes known to be on disk; guarded by this
+    private boolean syncing;          // an fsync is in flight; guarded by this
+    private IOException failure;      // a failed fsync poisons the log; guarded by this
+    private volatile long sinceRoll;  // bytes appended to the current segment
+
+    // Starts a new segment after every existing one.
+    WriteAheadLog(Path dir, SyncPolicy policy) throws IOException {
+        this.dir = dir;
+        this.policy = policy;
+        List<Path> existing = segments(dir);
+        this.segment = existing.isEmpty() ? 1 : segmentNumber(existing.get(existing.size() - 1)) + 1;
+        this.channel = open(segment);
+    }
+
+    private FileChannel open(long n) throws IOException {
+        return FileChannel.open(dir.resolve(String.format("wal-%012d.log", n)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    }
+
+    static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            List<Path> result = new ArrayList<>();
+            files.filter(p -> p.getFileName().toString().matches("wal-\\d+\\.log")).forEach(result::add);
+            result.sort(Comparator.comparingLong(WriteAheadLog::segmentNumber));
+            return result;
+        }
+    }
+
+    static long segmentNumber(Path p) {
+        String f = p.getFileName().toString();
+        return Long.parseLong(f.substring(4, f.length() - 4));
+    }
+
+    // Caller holds the commit lock. Returns the log position awaitDurable() must reach.
+    long append(byte type, long ts, byte[] body) {
+        ByteBuffer buf = ByteBuffer.allocate(FRAME_HEADER + RECORD_HEADER + body.length);
+        buf.putInt(RECORD_HEADER + body.length).putInt(0).put(type).putLong(ts).put(body);
+        CRC32C crc = new CRC32C();
+        crc.update(buf.array(), FRAME_HEADER, RECORD_HEADER + body.length);
+        buf.putInt(4, (int) crc.getValue());
+        buf.flip();
+        synchronized (this) {
+            if (failure != null) throw new UncheckedIOException("Write-ahead log failed earlier", failure);
+        }
+        try {
+            while (buf.hasRemaining()) channel.write(buf);
+            if (policy == SyncPolicy.PER_COMMIT) channel.force(false);
+        } catch (IOException e) {
+            // a partial frame may be on disk; nothing after it can be trusted
+            synchronized (this) { failure = e; }
+            throw new UncheckedIOException(e);
+        }
+        sinceRoll += buf.limit();
+        written += buf.limit();
+        if (policy == SyncPolicy.PER_COMMIT) synchronized (this) { durable = written; }
+        return written;
+    }
+
+    // Blocks until everything up to pos is on disk.
+    void awaitDurable(long pos) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                long target;
+                FileChannel ch;
+                synchronized (this) {
+                    while (durable < pos && syncing && failure == null) {
+                        // the record is already in the log, so the wait cannot be abandoned
+                        try { wait(); } catch (InterruptedException e) { interrupted = true; }
+                    }
+                    if (durable >= pos) return; // forced before any failure
+                    if (failure != null) throw new UncheckedIOException("Write-ahead log failed", failure);
+                    syncing = true;
+                    target = written;
+                    ch = channel;
+                }
+                IOException error = null;
+                try { ch.force(false); } catch (IOException e) { error = e; }
+                synchronized (this) {
+                    syncing = false;
+                    if (error == null) durable = Math.max(durable, target);
+                    else failure = error;
+                    notifyAll();
+                }
+            }
+        } finally {
+            if (interrupted) Thread.currentThread().interrupt();
+        }
+    }
+
+    // Caller holds the commit lock. Forces the current segment and continues in a new one; returns
+    // the new segment's number. Records appended before the roll are all durable afterwards.
+    long roll() throws IOException {
+        synchronized (this) {
+            boolean interrupted = false;
+            while (syncing) {
+                try { wait(); } catch (InterruptedException e) { interrupted = true; }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            if (failure != null) throw new IOException("Write-ahead log failed", failure);
+            channel.force(false);
+            durable = written;
+            FileChannel next = open(segment + 1);
+            channel.close();
+            channel = next;
+            segment++;
+            sinceRoll = 0;
+            return segment;
+        }
+    }
+
+    // Bytes appended since the last roll (checkpoint).
+    long sinceRoll() { return sinceRoll; }
+
+    // Deletes segments numbered below first; a checkpoint covers their records.
+    void deleteBefore(long first) throws IOException {
+        for (Path p : segments(dir)) if (segmentNumber(p) < first) Files.deleteIfExists(p);
+    }
+
+    // Feeds the records of one segment to r in order. A torn or corrupt frame in the last segment
+    // is the tail of an interrupted write and is cut off; anywhere else the log is damaged.
+    static void replay(Path segment, boolean last, Replayer r) throws IOException {
+        long good = 0;
+        try (FileChannel ch = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(java.nio.channels.Channels.newInputStream(ch), 1 << 16))) {
+            long size = ch.size();
+            CRC32C crc = new CRC32C();
+            while (true) {
+                if (size - good < FRAME_HEADER) break;
+                int len = in.readInt();
+                int sum = in.readInt();
+                if (len < RECORD_HEADER || len > size - good - FRAME_HEADER) break;
+                byte[] payload = new byte[len];
+                in.readFully(payload);
+                crc.reset();
+                crc.update(payload, 0, len);
+                if ((int) crc.getValue() != sum) break;
+                DataInputStream body = new DataInputStream(new ByteArrayInputStream(payload, RECORD_HEADER, len - RECORD_HEADER));
+                ByteBuffer head = ByteBuffer.wrap(payload, 0, RECORD_HEADER);
+                r.apply(head.get(), head.getLong(), body);
+                good += FRAME_HEADER + len;
+            }
+            if (good < size) {
+                if (!last) throw new IOException("Corrupt record at byte " + good + " of " + segment);
+                ch.truncate(good);
+                ch.force(true);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (failure == null) { channel.force(false); durable = written; }
+            channel.close();
+        }
+    }
+}
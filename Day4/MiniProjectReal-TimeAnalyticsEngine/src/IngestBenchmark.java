@@ -0,0 +1,86 @@
+import analytics.AnalyticsEngine;
+import analytics.Event;
+import analytics.OverflowPolicy;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+
+// Load generator for AnalyticsEngine: producer threads ingest as fast as they can for a fixed
+// window, and the run reports sustained throughput (events the shards applied per second), drops,
+// and the latency of the ingest() call itself (sampled 1 in 16), which is where backpressure shows.
+// Events come from a pregenerated pool (16 types, skewed keys) so generation cost stays out of it.
+// Run: java IngestBenchmark [seconds] [shards]
+public class IngestBenchmark {
+    private static final int POOL = 1 << 16, SAMPLE_MASK = 15;
+
+    public static void main(String[] args) throws InterruptedException {
+        int seconds = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int shardCount = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Event[] pool = events(new Random(42));
+        System.out.printf("shards=%d window=%ds cores=%d%n", shardCount, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%-6s %-9s %12s %12s %10s %10s %10s%n", "policy", "producers", "applied/s", "dropped/s", "p50 us", "p99 us", "max us");
+        for (OverflowPolicy policy : new OverflowPolicy[] {OverflowPolicy.BLOCK, OverflowPolicy.DROP}) {
+            for (int producers : new int[] {1, 2, 4}) run(pool, policy, producers, shardCount, seconds);
+        }
+    }
+
+    static void run(Event[] pool, OverflowPolicy policy, int producers, int shardCount, int seconds) throws InterruptedException {
+        try (AnalyticsEngine engine = new AnalyticsEngine(shardCount, 1 << 14, policy)) {
+            long[][] samples = new long[producers][];
+            int[] sampled = new int[producers];
+            long[] deadline = new long[1];
+            CountDownLatch start = new CountDownLatch(1);
+            Thread[] threads = new Thread[producers];
+            for (int p = 0; p < producers; p++) {
+                int id = p;
+                samples[p] = new long[1 << 22];
+                threads[p] = new Thread(() -> {
+                    try { start.await(); } catch (InterruptedException e) { return; }
+                    long[] mine = samples[id];
+                    int n = 0;
+                    for (long i = id * 7919L; System.nanoTime() < deadline[0]; i++) {
+                        Event e = pool[(int) i & (POOL - 1)];
+                        if ((i & SAMPLE_MASK) == 0 && n < mine.length) {
+                            long t0 = System.nanoTime();
+                            engine.ingest(e);
+                            mine[n++] = System.nanoTime() - t0;
+                        } else {
+                            engine.ingest(e);
+                        }
+                    }
+                    sampled[id] = n;
+                });
+                threads[p].start();
+            }
+            long t0 = System.nanoTime();
+            deadline[0] = t0 + seconds * 1_000_000_000L;
+            start.countDown();
+            for (Thread t : threads) t.join();
+            long applied = engine.processedEvents(), dropped = engine.droppedEvents();
+            double secs = (System.nanoTime() - t0) / 1e9;
+
+            int total = 0;
+            for (int n : sampled) total += n;
+            long[] all = new long[total];
+            for (int p = 0, at = 0; p < producers; at += sampled[p], p++) System.arraycopy(samples[p], 0, all, at, sampled[p]);
+            Arrays.sort(all);
+            System.out.printf("%-6s %-9d %11.2fM %11.2fM %10.2f %10.2f %10.1f%n", policy, producers, applied / secs / 1e6,
+                    dropped / secs / 1e6, pct(all, 0.50) / 1e3, pct(all, 0.99) / 1e3, all.length == 0 ? 0 : all[all.length - 1] / 1e3);
+        }
+    }
+
+    static Event[] events(Random rnd) {
+        Event[] pool = new Event[POOL];
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < POOL; i++) {
+            String type = "type" + rnd.nextInt(16);
+            String key = "/item/" + (int) (10_000 * Math.pow(rnd.nextDouble(), 3));
+            pool[i] = new Event(type, key, now, rnd.nextInt(100));
+        }
+        return pool;
+    }
+
+    private static long pct(long[] sorted, double q) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, Math.round(q * (sorted.length - 1)))];
+    }
+}
@@ -1,11 +1,14 @@
 import analytics.AnalyticsEngine;
 import analytics.Event;
+import detection.MadDetector;
 
 import java.util.Random;
 
 public class Main {
     public static void main(String[] args) throws InterruptedException {
         AnalyticsEngine engine = new AnalyticsEngine();
+        // purchase amounts are heavy-tailed: a robust baseline flags fewer false alarms there
+        engine.getAnomalyDetector().register("purchase", () -> new MadDetector(5.0));
         Random rand = new Random();
 
         String[] eventTypes = {"user_login", "page_view", "purchase", "comment"};
@@ -21,7 +24,8 @@ public class Main {
                 default -> 1;
             };
 
-            Event e = new Event(type, System.currentTimeMillis(), value);
+            String key = type.equals("page_view") ? "/products/" + rand.nextInt(5) : type;
+            Event e = new Event(type, key, System.currentTimeMillis(), value);
             engine.ingest(e);
 
 
@@ -31,10 +35,14 @@ public class Main {
         }
 
 
+        engine.flush(); // let the shard workers apply everything ingested
         System.out.println("\n=== 📊 Phân tích sau 5 giây ===");
         for (String type : eventTypes) {
             System.out.println("Top sự kiện " + type + ": " + engine.queryTopK(type, 3));
+            System.out.println("Thống kê 60s " + type + ": " + engine.queryWindowStats(type));
             System.out.println("Anomaly " + type + "? " + engine.detectAnomaly(type));
         }
+        System.out.println("Top keys (all types): " + engine.queryTopK(5));
+        engine.close();
     }
 }
@@ -0,0 +1,144 @@
+import metrics.SlidingWindowStats;
+import storage.RingBuffer;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
+
+/**
+ * RingBuffer keeps the newest pairs oldest first and never hands a reader a torn pair while several
+ * writers overwrite it; SlidingWindowStats agrees with a direct computation over the events whose
+ * bucket lies inside the window.
+ * Run with assertions enabled: java -ea SlidingWindowTest
+ */
+public class SlidingWindowTest {
+
+    private static List<long[]> contents(RingBuffer ring) {
+        List<long[]> pairs = new ArrayList<>();
+        ring.forEach((t, v) -> pairs.add(new long[]{t, (long) v}));
+        return pairs;
+    }
+
+    public void testRingKeepsNewest() {
+        RingBuffer ring = new RingBuffer(100, false);
+        assert ring.capacity() == 128 : "capacity " + ring.capacity();
+        assert ring.isEmpty() : "new ring not empty";
+        for (int i = 0; i < 1000; i++) ring.add(i, i * 2);
+        List<long[]> pairs = contents(ring);
+        assert ring.size() == 128 && pairs.size() == 128 : "size " + ring.size();
+        for (int i = 0; i < pairs.size(); i++) {
+            long t = 1000 - 128 + i;
+            assert pairs.get(i)[0] == t && pairs.get(i)[1] == t * 2 : "pair " + i + " is " + Arrays.toString(pairs.get(i));
+        }
+        ring.expireBefore(950);
+        pairs = contents(ring);
+        assert ring.size() == 50 && pairs.size() == 50 && pairs.get(0)[0] == 950 : "after expiry " + ring.size();
+        ring.add(1000, 2000);
+        assert ring.size() == 51 && contents(ring).get(50)[0] == 1000 : "add after expiry";
+        ring.expireBefore(Long.MAX_VALUE);
+        assert ring.isEmpty() && contents(ring).isEmpty() : "expire all";
+        System.out.println("✓ testRingKeepsNewest passed");
+    }
+
+    // Writers add (t, -t) with distinct t; a reader checks every pair it is handed belongs together.
+    public void testRingConcurrentWriters() throws Exception {
+        int writers = 4, perWriter = 200_000;
+        for (int capacity : new int[]{1 << 10, writers * perWriter}) {
+            RingBuffer ring = new RingBuffer(capacity, true);
+            ExecutorService pool = Executors.newFixedThreadPool(writers + 1);
+            AtomicBoolean done = new AtomicBoolean();
+            AtomicLong torn = new AtomicLong(), seen = new AtomicLong();
+            Future<?> reader = pool.submit(() -> {
+                while (!done.get()) {
+                    ring.forEach((t, v) -> {
+                        if (v != -t) torn.incrementAndGet();
+                        seen.incrementAndGet();
+                    });
+                }
+                return null;
+            });
+            List<Future<?>> futures = new ArrayList<>();
+            for (int w = 0; w < writers; w++) {
+                int id = w;
+                futures.add(pool.submit(() -> {
+                    for (long i = 0; i < perWriter; i++) {
+                        long t = i * writers + id;
+                        ring.add(t, -t);
+                    }
+                }));
+            }
+            for (Future<?> f : futures) f.get();
+            done.set(true);
+            reader.get();
+            pool.shutdown();
+            assert torn.get() == 0 : torn.get() + " torn pairs out of " + seen.get();
+            List<long[]> pairs = contents(ring);
+            int expected = Math.min(ring.capacity(), writers * perWriter);
+            assert ring.size() == expected && pairs.size() == expected : "capacity " + capacity + ": size " + ring.size();
+            Set<Long> distinct = new HashSet<>();
+            for (long[] p : pairs) {
+                assert p[1] == -p[0] : "torn pair " + Arrays.toString(p);
+                distinct.add(p[0]);
+            }
+            assert distinct.size() == expected : "capacity " + capacity + ": a pair was written twice or lost";
+        }
+        System.out.println("✓ testRingConcurrentWriters passed");
+    }
+
+    public void testWindowMatchesDirect() {
+        long window = 10_000, bucket = 500;
+        SlidingWindowStats stats = new SlidingWindowStats(window, bucket);
+        List<long[]> events = new ArrayList<>(); // timestamp, value
+        Random rnd = new Random(5);
+        long now = 1_000_000;
+        for (int i = 0; i < 20_000; i++) {
+            now += rnd.nextInt(5);
+            long t = now - rnd.nextInt(300); // a little out of order
+            long v = 1_000_000 + rnd.nextInt(1000) - 500; // a large offset tests for cancellation
+            stats.update(t, v);
+            events.add(new long[]{t, v});
+            if (i % 997 == 996) check(stats.snapshot(now), events, now, window, bucket);
+        }
+        check(stats.snapshot(now + window / 2), events, now + window / 2, window, bucket);
+        SlidingWindowStats.Snapshot empty = stats.snapshot(now + 2 * window);
+        assert empty.count == 0 && empty.mean == 0 && empty.variance == 0 : "window past the data: " + empty;
+        System.out.println("✓ testWindowMatchesDirect passed");
+    }
+
+    private static void check(SlidingWindowStats.Snapshot s, List<long[]> events, long now, long window, long bucket) {
+        long last = Math.floorDiv(now, bucket), first = last - window / bucket + 1;
+        long n = 0;
+        double sum = 0, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY;
+        for (long[] e : events) {
+            long id = Math.floorDiv(e[0], bucket);
+            if (id < first || id > last) continue;
+            n++;
+            sum += e[1];
+            min = Math.min(min, e[1]);
+            max = Math.max(max, e[1]);
+        }
+        double mean = sum / n, m2 = 0;
+        for (long[] e : events) {
+            long id = Math.floorDiv(e[0], bucket);
+            if (id >= first && id <= last) m2 += (e[1] - mean) * (e[1] - mean);
+        }
+        double variance = m2 / (n - 1);
+        assert s.count == n : "count " + s.count + ", expected " + n;
+        assert s.sum == sum && s.min == min && s.max == max : "sum/min/max " + s;
+        assert Math.abs(s.mean - mean) < 1e-6 : "mean " + s.mean + ", expected " + mean;
+        assert Math.abs(s.variance - variance) < 1e-6 * variance : "variance " + s.variance + ", expected " + variance;
+    }
+
+    public static void main(String[] args) {
+        SlidingWindowTest test = new SlidingWindowTest();
+        try {
+            test.testRingKeepsNewest();
+            test.testRingConcurrentWriters();
+            test.testWindowMatchesDirect();
+            System.out.println("\n✓ All SlidingWindowTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
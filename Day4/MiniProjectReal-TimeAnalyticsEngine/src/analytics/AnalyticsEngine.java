@@ -1,39 +1,242 @@
 package analytics;
 
 import metrics.MetricStore;
+import metrics.SlidingWindowStats;
+import metrics.TopKTracker;
 import detection.AnomalyDetector;
+import storage.MpscQueue;
 
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
 import java.util.*;
 
-public class AnalyticsEngine {
-    private final ConcurrentHashMap<String, MetricStore> metrics = new ConcurrentHashMap<>();
-    private final PriorityQueue<Event> eventQueue = new PriorityQueue<>(Comparator.comparingLong(Event::getTimestamp));
-    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(1);
+// Events are partitioned by type across shards. Each shard is one worker thread that owns the
+// MetricStores of its types and is fed by a bounded MPSC queue, drained in batches; every store thus
+// has a single writer. ingest() only enqueues, and a full queue is handled per the OverflowPolicy.
+// Queries read the stores directly: per-type queries go to the type's shard, cross-type queries
+// gather from every shard and merge.
+public class AnalyticsEngine implements AutoCloseable {
+    private static final int BATCH = 256;
+    private static final long EXPIRE_EVERY_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long ANOMALY_HOLD_MILLIS = 60_000; // a flagged type stays anomalous this long
+    private static final int SEALED = 1 << 30;
 
+    private final Shard[] shards;
+    private final OverflowPolicy policy;
     private final AnomalyDetector anomalyDetector = new AnomalyDetector();
+    private volatile boolean closed;
 
     public AnalyticsEngine() {
-        // Task dọn dữ liệu cũ định kỳ
-        scheduler.scheduleAtFixedRate(() -> {
-            for (MetricStore store : metrics.values()) {
-                store.expireOldData();
-            }
-        }, 1, 1, TimeUnit.SECONDS);
+        this(Runtime.getRuntime().availableProcessors(), 1 << 14, OverflowPolicy.BLOCK);
+    }
+
+    public AnalyticsEngine(int shardCount, int queueCapacity, OverflowPolicy policy) {
+        if (shardCount <= 0) throw new IllegalArgumentException("shardCount must be positive: " + shardCount);
+        this.policy = Objects.requireNonNull(policy, "policy");
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) shards[i] = new Shard(i, queueCapacity);
+    }
+
+    // Returns false if the event was dropped (DROP policy only); throws if the engine is closed.
+    // An event ingest accepts is always applied: close waits for ingests in progress before it lets
+    // the workers stop.
+    public boolean ingest(Event event) {
+        Shard shard = shardFor(event.getType());
+        if (!shard.enter()) throw new IllegalStateException("engine is closed");
+        try {
+            return offer(shard, event);
+        } finally {
+            shard.leave();
+        }
     }
 
-    public void ingest(Event event) {
-        metrics.computeIfAbsent(event.getType(), k -> new MetricStore()).addEvent(event);
-        eventQueue.offer(event);
+    private boolean offer(Shard shard, Event event) {
+        if (shard.queue.offer(event)) {
+            shard.accepted.increment();
+            return true;
+        }
+        switch (policy) {
+            case DROP:
+                shard.dropped.increment();
+                return false;
+            case FAIL:
+                throw new IllegalStateException("shard " + shard.index + " queue is full");
+            default:
+                for (int spins = 0; !shard.queue.offer(event); spins++) {
+                    if (closed) throw new IllegalStateException("engine is closed");
+                    if (spins < 16) Thread.yield();
+                    else LockSupport.parkNanos(10_000);
+                }
+                shard.accepted.increment();
+                return true;
+        }
     }
 
     public List<String> queryTopK(String type, int k) {
-        MetricStore store = metrics.get(type);
+        MetricStore store = store(type);
         return (store != null) ? store.getTopK().getTopK(k) : Collections.emptyList();
     }
 
+    // Top keys across all types: the per-type trackers merged.
+    public List<TopKTracker.HeavyHitter<String>> queryTopK(int k) {
+        TopKTracker<String> merged = new TopKTracker<>(Math.max(k, 1000));
+        for (Shard shard : shards) {
+            for (MetricStore store : shard.stores.values()) merged.merge(store.getTopK());
+        }
+        return merged.topK(k);
+    }
+
+    // Count/sum/mean/variance/min/max of the last minute.
+    public SlidingWindowStats.Snapshot queryWindowStats(String type) {
+        MetricStore store = store(type);
+        return (store != null) ? store.getStats().snapshot() : new SlidingWindowStats().snapshot();
+    }
+
+    // Register per-type detectors here before the type's first event.
+    public AnomalyDetector getAnomalyDetector() { return anomalyDetector; }
+
+    // Whether the type's detector flagged a value in the minute up to the type's newest event,
+    // measured in event time.
     public boolean detectAnomaly(String type) {
-        MetricStore store = metrics.get(type);
-        return (store != null) && anomalyDetector.isAnomalous(store.getStats());
+        MetricStore store = store(type);
+        return (store != null) && store.getDetector().isAnomalous(ANOMALY_HOLD_MILLIS);
+    }
+
+    // Every type currently anomalous, from all shards.
+    public List<String> detectAnomalies() {
+        List<String> types = new ArrayList<>();
+        for (Shard shard : shards) {
+            shard.stores.forEach((type, store) -> {
+                if (store.getDetector().isAnomalous(ANOMALY_HOLD_MILLIS)) types.add(type);
+            });
+        }
+        Collections.sort(types);
+        return types;
+    }
+
+    // Waits until every event accepted so far has been applied, so queries see it.
+    public void flush() {
+        for (Shard shard : shards) {
+            long target = shard.accepted.sum();
+            while (shard.processed < target) {
+                if (!shard.worker.isAlive()) throw new IllegalStateException("shard " + shard.index + " has stopped");
+                LockSupport.parkNanos(50_000);
+            }
+        }
+    }
+
+    public long processedEvents() {
+        long n = 0;
+        for (Shard shard : shards) n += shard.processed;
+        return n;
+    }
+
+    public long droppedEvents() {
+        long n = 0;
+        for (Shard shard : shards) n += shard.dropped.sum();
+        return n;
+    }
+
+    // Events waiting in shard queues.
+    public int queuedEvents() {
+        int n = 0;
+        for (Shard shard : shards) n += shard.queue.size();
+        return n;
+    }
+
+    // Applies what is already queued, then stops the workers.
+    @Override
+    public void close() {
+        closed = true;
+        for (Shard shard : shards) {
+            shard.seal();
+            LockSupport.unpark(shard.worker);
+        }
+        for (Shard shard : shards) {
+            try {
+                shard.worker.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private Shard shardFor(String type) {
+        int h = type.hashCode() * 0x9E3779B9;
+        return shards[Math.floorMod(h >>> 8, shards.length)];
+    }
+
+    private MetricStore store(String type) { return shardFor(type).stores.get(type); }
+
+    private final class Shard implements Runnable {
+        final int index;
+        final MpscQueue<Event> queue;
+        // written only by the worker; concurrent so queries can read it
+        final ConcurrentHashMap<String, MetricStore> stores = new ConcurrentHashMap<>();
+        final LongAdder accepted = new LongAdder(), dropped = new LongAdder();
+        volatile long processed;
+        final Thread worker;
+        // ingests in progress, plus SEALED once close has begun; the worker stops only once sealed
+        // with no ingest in progress and nothing queued, so no accepted event is left behind
+        private final AtomicInteger producers = new AtomicInteger();
+        private volatile boolean drained;
+
+        Shard(int index, int queueCapacity) {
+            this.index = index;
+            this.queue = new MpscQueue<>(queueCapacity);
+            this.worker = new Thread(this, "analytics-shard-" + index);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        @Override
+        public void run() {
+            long nextExpiry = System.nanoTime() + EXPIRE_EVERY_NANOS;
+            int idle = 0;
+            while (true) {
+                int n = queue.drain(this::apply, BATCH);
+                if (n > 0) {
+                    processed += n; // single writer
+                    idle = 0;
+                } else if (drained && queue.isEmpty()) {
+                    return;
+                } else if (++idle < 64) {
+                    Thread.onSpinWait();
+                } else if (idle < 128) {
+                    Thread.yield();
+                } else {
+                    LockSupport.parkNanos(100_000);
+                }
+                if (System.nanoTime() - nextExpiry >= 0) {
+                    for (MetricStore store : stores.values()) store.expireOldData();
+                    nextExpiry += EXPIRE_EVERY_NANOS;
+                }
+            }
+        }
+
+        boolean enter() {
+            if ((producers.getAndIncrement() & SEALED) == 0) return true;
+            producers.decrementAndGet();
+            return false;
+        }
+
+        void leave() { producers.decrementAndGet(); }
+
+        // Rejects further ingests, waits out the ones in progress, then lets the worker stop once
+        // the queue is empty.
+        void seal() {
+            producers.getAndUpdate(n -> n | SEALED);
+            while (producers.get() != SEALED) LockSupport.parkNanos(10_000);
+            drained = true;
+        }
+
+        private void apply(Event event) {
+            MetricStore store = stores.get(event.getType());
+            if (store == null) stores.put(event.getType(), store = new MetricStore(anomalyDetector.create(event.getType())));
+            store.addEvent(event);
+        }
     }
 }
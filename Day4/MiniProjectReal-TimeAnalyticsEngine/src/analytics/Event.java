@@ -2,16 +2,23 @@ package analytics;
 
 public class Event {
     private final String type;
+    private final String key; // what top-K ranks within the type (URL, user id, ...)
     private final long timestamp;
     private final double value;
 
     public Event(String type, long timestamp, double value) {
+        this(type, type, timestamp, value);
+    }
+
+    public Event(String type, String key, long timestamp, double value) {
         this.type = type;
+        this.key = key;
         this.timestamp = timestamp;
         this.value = value;
     }
 
     public String getType() { return type; }
+    public String getKey() { return key; }
     public long getTimestamp() { return timestamp; }
     public double getValue() { return value; }
 }
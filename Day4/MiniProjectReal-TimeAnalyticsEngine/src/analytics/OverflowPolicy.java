@@ -0,0 +1,8 @@
+package analytics;
+
+// What ingest does when the target shard's queue is full.
+public enum OverflowPolicy {
+    BLOCK,  // wait for room (backpressure on the producer)
+    DROP,   // discard the event, count it, and return false
+    FAIL    // throw IllegalStateException
+}
@@ -1,9 +1,25 @@
 package detection;
 
-import metrics.SlidingWindowStats;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
+// Which detector each metric type gets. Register a factory for a type before its first event;
+// types without one use the default (EWMA, 4 sigma).
 public class AnomalyDetector {
-    public boolean isAnomalous(SlidingWindowStats stats) {
-        return stats.getAverage() > 40; // ví dụ: ngưỡng bất thường
+    private final Map<String, Supplier<? extends Detector>> byType = new ConcurrentHashMap<>();
+    private volatile Supplier<? extends Detector> fallback = () -> new EwmaDetector(0.05, 4.0);
+
+    public void register(String type, Supplier<? extends Detector> factory) {
+        byType.put(Objects.requireNonNull(type, "type"), Objects.requireNonNull(factory, "factory"));
+    }
+
+    public void setDefault(Supplier<? extends Detector> factory) {
+        fallback = Objects.requireNonNull(factory, "factory");
+    }
+
+    public Detector create(String type) {
+        return byType.getOrDefault(type, fallback).get();
     }
 }
@@ -0,0 +1,61 @@
+package detection;
+
+// Online anomaly detector for one metric. Each value is scored against the baseline learned so far
+// (in units of the baseline's spread, like a z-score) and then folded into it, in O(1) time and
+// memory. A score above the threshold flags the value. Detectors are fed by a single thread;
+// isAnomalous and lastScore may be read from others.
+public abstract class Detector {
+    private final double threshold;
+    private final int warmup;
+    private long seen;
+    private volatile long lastAnomalyAt = Long.MIN_VALUE;
+    private volatile long latest = Long.MIN_VALUE; // newest timestamp observed
+    private volatile double lastScore;
+
+    // warmup: values learned before any is scored.
+    protected Detector(double threshold, int warmup) {
+        if (threshold <= 0) throw new IllegalArgumentException("threshold must be positive: " + threshold);
+        if (warmup < 0) throw new IllegalArgumentException("warmup must not be negative: " + warmup);
+        this.threshold = threshold;
+        this.warmup = warmup;
+    }
+
+    // Scores value, then learns from it; true if it is anomalous.
+    public final boolean observe(long timestamp, double value) {
+        double s = seen++ >= warmup ? score(timestamp, value) : 0;
+        learn(timestamp, value);
+        lastScore = s;
+        if (timestamp > latest) latest = timestamp;
+        if (s > threshold) {
+            lastAnomalyAt = timestamp;
+            return true;
+        }
+        return false;
+    }
+
+    // Whether a value within holdMillis before the newest observed one was flagged: the metric's own
+    // clock, so a replayed or delayed stream is judged by its timestamps rather than the wall clock.
+    public boolean isAnomalous(long holdMillis) { return isAnomalous(latest, holdMillis); }
+
+    // Whether a value within holdMillis before now was flagged.
+    public boolean isAnomalous(long now, long holdMillis) {
+        long at = lastAnomalyAt;
+        return at != Long.MIN_VALUE && now - at < holdMillis;
+    }
+
+    public double lastScore() { return lastScore; }
+
+    public double threshold() { return threshold; }
+
+    // How far value is from the baseline, >= 0; 0 while the baseline is not ready.
+    protected abstract double score(long timestamp, double value);
+
+    protected abstract void learn(long timestamp, double value);
+
+    // |value - center| / spread, treating a zero spread as "any deviation is infinite".
+    static double deviation(double value, double center, double spread) {
+        double d = Math.abs(value - center);
+        if (d == 0) return 0;
+        return spread > 0 ? d / spread : Double.POSITIVE_INFINITY;
+    }
+}
@@ -0,0 +1,34 @@
+package detection;
+
+// z-score against an exponentially weighted mean and variance: recent values count most, so the
+// baseline follows slow drift. alpha is the weight of each new value (about 2 / (span + 1)).
+public class EwmaDetector extends Detector {
+    private final double alpha;
+    private double mean, variance;
+    private boolean started;
+
+    public EwmaDetector(double alpha, double threshold) {
+        super(threshold, (int) Math.ceil(2 / alpha));
+        if (alpha <= 0 || alpha >= 1) throw new IllegalArgumentException("alpha must be in (0, 1): " + alpha);
+        this.alpha = alpha;
+    }
+
+    @Override
+    protected double score(long timestamp, double value) {
+        return deviation(value, mean, Math.sqrt(variance));
+    }
+
+    @Override
+    protected void learn(long timestamp, double value) {
+        if (!started) {
+            mean = value;
+            started = true;
+            return;
+        }
+        double diff = value - mean, step = alpha * diff;
+        mean += step;
+        variance = (1 - alpha) * (variance + diff * step);
+    }
+
+    @Override public String toString() { return "ewma(alpha=" + alpha + ")"; }
+}
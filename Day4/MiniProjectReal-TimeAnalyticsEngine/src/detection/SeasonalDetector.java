@@ -0,0 +1,49 @@
+package detection;
+
+import java.time.ZoneOffset;
+
+// z-score against an hour-of-day baseline: one exponentially weighted mean and variance per hour,
+// so the usual night-time dip or lunch-time peak is not flagged. An hour is only scored once it
+// has seen minSamples values.
+public class SeasonalDetector extends Detector {
+    private static final long HOUR = 3_600_000;
+
+    private final long offsetMillis;
+    private final double alpha;
+    private final int minSamples;
+    private final double[] mean = new double[24], variance = new double[24];
+    private final long[] count = new long[24];
+
+    public SeasonalDetector(ZoneOffset zone, double alpha, int minSamples, double threshold) {
+        super(threshold, 0);
+        if (alpha <= 0 || alpha >= 1) throw new IllegalArgumentException("alpha must be in (0, 1): " + alpha);
+        if (minSamples < 2) throw new IllegalArgumentException("minSamples must be at least 2: " + minSamples);
+        this.offsetMillis = zone.getTotalSeconds() * 1000L;
+        this.alpha = alpha;
+        this.minSamples = minSamples;
+    }
+
+    private int hour(long timestamp) { return (int) Math.floorMod(Math.floorDiv(timestamp + offsetMillis, HOUR), 24L); }
+
+    @Override
+    protected double score(long timestamp, double value) {
+        int h = hour(timestamp);
+        return count[h] < minSamples ? 0 : deviation(value, mean[h], Math.sqrt(variance[h]));
+    }
+
+    @Override
+    protected void learn(long timestamp, double value) {
+        int h = hour(timestamp);
+        if (count[h]++ == 0) {
+            mean[h] = value;
+            return;
+        }
+        // plain averaging until the hour has minSamples, then exponential weighting
+        double a = Math.max(alpha, 1.0 / count[h]);
+        double diff = value - mean[h], step = a * diff;
+        mean[h] += step;
+        variance[h] = (1 - a) * (variance[h] + diff * step);
+    }
+
+    @Override public String toString() { return "seasonal(alpha=" + alpha + ")"; }
+}
@@ -0,0 +1,52 @@
+package detection;
+
+// z-score against the mean and standard deviation of the last `window` values. The values sit in a
+// ring; Welford's update adds the newest and removes the oldest in O(1). Rounding drift is wiped
+// by recomputing from the ring once every many updates.
+public class WindowZScoreDetector extends Detector {
+    private static final int RESYNC_EVERY = 1 << 20;
+
+    private final double[] ring;
+    private int next, count, sinceResync;
+    private double mean, m2;
+
+    public WindowZScoreDetector(int window, double threshold) {
+        super(threshold, Math.min(window, 30));
+        if (window < 2) throw new IllegalArgumentException("window must be at least 2: " + window);
+        this.ring = new double[window];
+    }
+
+    @Override
+    protected double score(long timestamp, double value) {
+        return deviation(value, mean, count > 1 ? Math.sqrt(Math.max(m2, 0) / (count - 1)) : 0);
+    }
+
+    @Override
+    protected void learn(long timestamp, double value) {
+        if (count == ring.length) {
+            double old = ring[next];
+            double delta = old - mean;
+            mean -= delta / (count - 1);
+            m2 -= delta * (old - mean);
+            count--;
+        }
+        ring[next] = value;
+        next = next + 1 == ring.length ? 0 : next + 1;
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        if (++sinceResync == RESYNC_EVERY) resync();
+    }
+
+    private void resync() {
+        sinceResync = 0;
+        double sum = 0;
+        for (int i = 0; i < count; i++) sum += ring[i];
+        mean = sum / count;
+        m2 = 0;
+        for (int i = 0; i < count; i++) m2 += (ring[i] - mean) * (ring[i] - mean);
+    }
+
+    @Override public String toString() { return "zscore(window=" + ring.length + ")"; }
+}
@@ -0,0 +1,67 @@
+package metrics;
+
+// Count-min sketch: depth rows of width counters. estimate() never under-counts and, with
+// probability 1 - delta, over-counts by at most epsilon * total. Conservative update (only the
+// counters at the current minimum are raised) keeps the over-count lower still. Sketches built with
+// the same dimensions can be merged by adding counters.
+public class CountMinSketch {
+    private final int width, depth;
+    private final long[] table; // row-major
+    private final long[] seeds;
+    private long total;
+
+    public CountMinSketch(double epsilon, double delta) {
+        this((int) Math.ceil(Math.E / epsilon), (int) Math.ceil(Math.log(1 / delta)));
+        if (epsilon <= 0 || delta <= 0 || delta >= 1) throw new IllegalArgumentException("need epsilon > 0 and 0 < delta < 1");
+    }
+
+    public CountMinSketch(int width, int depth) {
+        if (width <= 0 || depth <= 0) throw new IllegalArgumentException("width and depth must be positive");
+        this.width = width;
+        this.depth = depth;
+        this.table = new long[width * depth];
+        this.seeds = new long[depth];
+        long s = 0x9E3779B97F4A7C15L;
+        for (int i = 0; i < depth; i++) seeds[i] = s = s * 0xBF58476D1CE4E5B9L + 0x94D049BB133111EBL;
+    }
+
+    // Adds count to item and returns its new estimate.
+    public long add(Object item, long count) {
+        int h = item.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) min = Math.min(min, table[index(h, row)]);
+        long target = min + count;
+        for (int row = 0; row < depth; row++) {
+            int i = index(h, row);
+            if (table[i] < target) table[i] = target;
+        }
+        total += count;
+        return target;
+    }
+
+    public long estimate(Object item) {
+        int h = item.hashCode();
+        long min = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) min = Math.min(min, table[index(h, row)]);
+        return min;
+    }
+
+    public long total() { return total; }
+
+    // Largest over-count estimate() makes with probability 1 - delta.
+    public double errorBound() { return Math.E / width * total; }
+
+    boolean sameDimensions(CountMinSketch other) { return other.width == width && other.depth == depth; }
+
+    public void merge(CountMinSketch other) {
+        if (!sameDimensions(other)) throw new IllegalArgumentException("sketch dimensions differ");
+        for (int i = 0; i < table.length; i++) table[i] += other.table[i];
+        total += other.total;
+    }
+
+    private int index(int hash, int row) {
+        long h = (hash ^ seeds[row]) * 0xD6E8FEB86659FD93L;
+        h ^= h >>> 32;
+        return row * width + (int) ((h & 0x7FFFFFFFL) % width);
+    }
+}
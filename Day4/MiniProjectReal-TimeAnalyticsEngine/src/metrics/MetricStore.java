@@ -1,27 +1,46 @@
 package metrics;
 
 import analytics.Event;
-import storage.CircularBuffer;
+import detection.Detector;
+import detection.EwmaDetector;
+import storage.RingBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
 
 public class MetricStore {
-    private final CircularBuffer<DataPoint> dataPoints = new CircularBuffer<>(1000);
-    private final SlidingWindowStats stats = new SlidingWindowStats();
-    private final TopKTracker<String> topK = new TopKTracker<>();
+    private static final long RETENTION_MILLIS = 60_000;
+
+    // Raw recent points; the engine's shard worker is the only writer
+    private final RingBuffer dataPoints = new RingBuffer(1 << 14, false);
+    private final SlidingWindowStats stats = new SlidingWindowStats(RETENTION_MILLIS, 1_000);
+    private final TopKTracker<String> topK = new TopKTracker<>(1000, new CountMinSketch(0.001, 0.01));
+    private final Detector detector;
+
+    public MetricStore() { this(new EwmaDetector(0.05, 4.0)); }
+
+    public MetricStore(Detector detector) { this.detector = detector; }
 
     public void addEvent(Event event) {
-        DataPoint dp = new DataPoint(event.getTimestamp(), event.getValue());
-        dataPoints.add(dp);
-        stats.update(dp);
-        topK.increment(event.getType());
+        dataPoints.add(event.getTimestamp(), event.getValue());
+        stats.update(event.getTimestamp(), event.getValue());
+        topK.increment(event.getKey());
+        detector.observe(event.getTimestamp(), event.getValue());
     }
 
+    // Window stats need no sweeping (old buckets are reused in place); this only trims the raw points.
     public void expireOldData() {
-        long now = System.currentTimeMillis();
-        while (!dataPoints.isEmpty() && (now - dataPoints.peek().timestamp > 60000)) {
-            dataPoints.poll();
-        }
+        dataPoints.expireBefore(System.currentTimeMillis() - RETENTION_MILLIS);
+    }
+
+    // Copies of the raw points still held, oldest first.
+    public List<DataPoint> getRecentPoints() {
+        List<DataPoint> points = new ArrayList<>(dataPoints.size());
+        dataPoints.forEach((t, v) -> points.add(new DataPoint(t, v)));
+        return points;
     }
 
     public SlidingWindowStats getStats() { return stats; }
     public TopKTracker<String> getTopK() { return topK; }
+    public Detector getDetector() { return detector; }
 }
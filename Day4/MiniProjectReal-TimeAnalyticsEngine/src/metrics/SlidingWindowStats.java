@@ -1,15 +1,94 @@
 package metrics;
 
+// Count/sum/min/max/mean/variance over the last windowMillis, kept as a ring of fixed-width time
+// buckets. An event lands in the bucket of its timestamp; a bucket whose slot comes round again is
+// reset in place, so expiry is O(1) and nothing is allocated per event. Queries merge the buckets
+// still inside the window (mean and variance with Chan's pairwise formula, so there is no
+// sum-of-squares cancellation). Events older than the window are ignored.
 public class SlidingWindowStats {
-    private double sum = 0;
-    private int count = 0;
+    private final long bucketMillis;
+    private final int buckets;
+    private final long[] bucketId;  // timestamp / bucketMillis of the data in each slot
+    private final long[] count;
+    private final double[] mean, m2, min, max, sum;
 
-    public void update(DataPoint dp) {
-        sum += dp.value;
-        count++;
+    public SlidingWindowStats() { this(60_000, 1_000); }
+
+    public SlidingWindowStats(long windowMillis, long bucketMillis) {
+        if (bucketMillis <= 0 || windowMillis < bucketMillis || windowMillis % bucketMillis != 0)
+            throw new IllegalArgumentException("window must be a positive multiple of the bucket width");
+        this.bucketMillis = bucketMillis;
+        this.buckets = (int) (windowMillis / bucketMillis);
+        this.bucketId = new long[buckets];
+        java.util.Arrays.fill(bucketId, Long.MIN_VALUE);
+        this.count = new long[buckets];
+        this.mean = new double[buckets];
+        this.m2 = new double[buckets];
+        this.min = new double[buckets];
+        this.max = new double[buckets];
+        this.sum = new double[buckets];
+    }
+
+    public void update(DataPoint dp) { update(dp.timestamp, dp.value); }
+
+    public synchronized void update(long timestamp, double value) {
+        long id = Math.floorDiv(timestamp, bucketMillis);
+        int slot = Math.floorMod(id, buckets);
+        if (bucketId[slot] != id) {
+            if (bucketId[slot] > id) return; // older than the window already held in this slot
+            bucketId[slot] = id;
+            count[slot] = 0;
+            mean[slot] = m2[slot] = sum[slot] = 0;
+            min[slot] = Double.POSITIVE_INFINITY;
+            max[slot] = Double.NEGATIVE_INFINITY;
+        }
+        // Welford within the bucket
+        long n = ++count[slot];
+        double delta = value - mean[slot];
+        mean[slot] += delta / n;
+        m2[slot] += delta * (value - mean[slot]);
+        sum[slot] += value;
+        if (value < min[slot]) min[slot] = value;
+        if (value > max[slot]) max[slot] = value;
+    }
+
+    // The window ending at now (the bucket holding now included).
+    public synchronized Snapshot snapshot(long now) {
+        long last = Math.floorDiv(now, bucketMillis), first = last - buckets + 1;
+        long n = 0;
+        double mu = 0, var = 0, total = 0, lo = Double.POSITIVE_INFINITY, hi = Double.NEGATIVE_INFINITY;
+        for (int slot = 0; slot < buckets; slot++) {
+            long id = bucketId[slot];
+            if (id < first || id > last || count[slot] == 0) continue;
+            long nb = count[slot], merged = n + nb;
+            double delta = mean[slot] - mu;
+            var += m2[slot] + delta * delta * n * nb / merged;
+            mu += delta * nb / merged;
+            n = merged;
+            total += sum[slot];
+            lo = Math.min(lo, min[slot]);
+            hi = Math.max(hi, max[slot]);
+        }
+        return new Snapshot(n, total, mu, n > 1 ? var / (n - 1) : 0, n == 0 ? 0 : lo, n == 0 ? 0 : hi);
     }
 
-    public double getAverage() {
-        return (count == 0) ? 0 : sum / count;
+    public Snapshot snapshot() { return snapshot(System.currentTimeMillis()); }
+
+    public double getAverage() { return snapshot().mean; }
+
+    public static final class Snapshot {
+        public final long count;
+        public final double sum, mean, variance, min, max; // sample variance; all 0 when count is 0
+
+        Snapshot(long count, double sum, double mean, double variance, double min, double max) {
+            this.count = count; this.sum = sum; this.mean = mean; this.variance = variance; this.min = min; this.max = max;
+        }
+
+        public double stdDev() { return Math.sqrt(variance); }
+
+        @Override
+        public String toString() {
+            return String.format("count=%d sum=%.2f mean=%.2f stdDev=%.2f min=%.2f max=%.2f", count, sum, mean, stdDev(), min, max);
+        }
     }
 }
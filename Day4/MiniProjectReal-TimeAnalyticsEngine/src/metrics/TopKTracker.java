@@ -2,18 +2,224 @@ package metrics;
 
 import java.util.*;
 
+// Heavy hitters in bounded memory (Space-Saving, Metwally et al.). At most `capacity` items are
+// counted; a new item takes over the counter with the lowest count and inherits that count as its
+// possible over-count (error). Every tracked item satisfies count - error <= true count <= count,
+// and any item seen more than total / capacity times is guaranteed to be tracked.
+//
+// Counters sit in a stream summary: a list of buckets in increasing count order, each holding the
+// counters with that count. increment moves a counter to the next bucket, so it is O(1), and a
+// top-k query reads k counters from the high end.
+//
+// With a count-min sketch attached, a newcomer starts from the sketch's estimate of its past count
+// instead of the evicted minimum; for one-off items that is far lower, so errors are bounded by the
+// sketch (epsilon * total) rather than by total / capacity. All methods are thread-safe.
 public class TopKTracker<T> {
-    private final Map<T, Integer> freq = new HashMap<>();
+    private final int capacity;
+    private final Map<T, Counter<T>> counters;
+    private final CountMinSketch sketch; // may be null
+    private Bucket<T> lowest, highest;
+    private long total;
 
-    public void increment(T item) {
-        freq.put(item, freq.getOrDefault(item, 0) + 1);
+    private static final class Bucket<T> {
+        final long count;
+        Bucket<T> prev, next;      // neighbours with lower and higher count
+        Counter<T> first;          // counters in this bucket, linked through Counter.next
+
+        Bucket(long count) { this.count = count; }
+    }
+
+    private static final class Counter<T> {
+        T item;
+        long error;
+        Bucket<T> bucket;
+        Counter<T> prev, next;
+    }
+
+    // A tracked item: its true count lies in [count - error, count].
+    public static final class HeavyHitter<T> {
+        public final T item;
+        public final long count, error;
+
+        HeavyHitter(T item, long count, long error) { this.item = item; this.count = count; this.error = error; }
+
+        public long lowerBound() { return count - error; }
+
+        @Override public String toString() { return item + "=" + count + (error > 0 ? "±" + error : ""); }
     }
 
+    public TopKTracker() { this(1000); }
+
+    public TopKTracker(int capacity) { this(capacity, null); }
+
+    public TopKTracker(int capacity, CountMinSketch sketch) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.counters = new HashMap<>(capacity * 2);
+        this.sketch = sketch;
+    }
+
+    public void increment(T item) { increment(item, 1); }
+
+    public synchronized void increment(T item, long count) {
+        if (count <= 0) throw new IllegalArgumentException("count must be positive: " + count);
+        total += count;
+        long estimate = sketch != null ? sketch.add(item, count) : Long.MAX_VALUE;
+        Counter<T> c = counters.get(item);
+        if (c != null) {
+            move(c, c.bucket.count + count);
+            return;
+        }
+        if (counters.size() < capacity) {
+            c = new Counter<>();
+            c.item = item;
+            counters.put(item, c);
+            place(c, count, null);
+            return;
+        }
+        // evict from the lowest bucket; the newcomer may have been seen up to `floor` times already
+        long floor = sketch != null ? estimate - count : lowest.count;
+        c = lowest.first;
+        counters.remove(c.item);
+        c.item = item;
+        counters.put(item, c);
+        c.error = floor;
+        move(c, floor + count);
+    }
+
+    // Up to k tracked items, highest count first.
     public List<T> getTopK(int k) {
-        return freq.entrySet().stream()
-                .sorted((a, b) -> b.getValue() - a.getValue())
-                .limit(k)
-                .map(Map.Entry::getKey)
-                .toList();
+        List<T> items = new ArrayList<>();
+        for (HeavyHitter<T> h : topK(k)) items.add(h.item);
+        return items;
+    }
+
+    public synchronized List<HeavyHitter<T>> topK(int k) {
+        List<HeavyHitter<T>> result = new ArrayList<>(Math.min(k, counters.size()));
+        for (Bucket<T> b = highest; b != null && result.size() < k; b = b.prev) {
+            for (Counter<T> c = b.first; c != null && result.size() < k; c = c.next) {
+                result.add(new HeavyHitter<>(c.item, b.count, c.error));
+            }
+        }
+        return result;
+    }
+
+    // Bounds on item's count, tracked or not.
+    public synchronized HeavyHitter<T> estimate(T item) {
+        Counter<T> c = counters.get(item);
+        if (c != null) return new HeavyHitter<>(item, c.bucket.count, c.error);
+        long upper = untracked(item);
+        return new HeavyHitter<>(item, upper, upper);
+    }
+
+    // Lowest tracked count (0 while there is room to track more items).
+    public synchronized long minCount() { return counters.size() < capacity || lowest == null ? 0 : lowest.count; }
+
+    // Most times an item that is not tracked can have occurred.
+    private long untracked(T item) { return sketch != null ? sketch.estimate(item) : minCount(); }
+
+    public synchronized long total() { return total; }
+
+    public int capacity() { return capacity; }
+
+    // Folds other's counts into this tracker (as if it had seen both streams), keeping the
+    // `capacity` largest. An item missing from one summary may have occurred there up to that
+    // summary's bound for untracked items, which is added as count and error alike. The sketches,
+    // if both have one, are merged too.
+    public void merge(TopKTracker<T> other) {
+        if (other == this) throw new IllegalArgumentException("cannot merge a tracker into itself");
+        // checked before anything changes, so a failed merge leaves this tracker as it was
+        if (sketch != null && other.sketch != null && !sketch.sameDimensions(other.sketch)) {
+            throw new IllegalArgumentException("sketch dimensions differ");
+        }
+        // lock both in a fixed order so two trackers merging into each other cannot deadlock
+        boolean thisFirst = System.identityHashCode(this) <= System.identityHashCode(other);
+        synchronized (thisFirst ? this : other) {
+            synchronized (thisFirst ? other : this) {
+                mergeLocked(other);
+            }
+        }
+    }
+
+    private void mergeLocked(TopKTracker<T> other) {
+        Map<T, long[]> theirs = other.snapshot(), merged = snapshot();
+        for (Map.Entry<T, long[]> e : merged.entrySet()) {
+            long[] t = theirs.remove(e.getKey());
+            long[] v = e.getValue();
+            long add = t != null ? t[0] : other.untracked(e.getKey()), err = t != null ? t[1] : add;
+            v[0] += add;
+            v[1] += err;
+        }
+        for (Map.Entry<T, long[]> e : theirs.entrySet()) {
+            long[] t = e.getValue();
+            long ours = untracked(e.getKey());
+            merged.put(e.getKey(), new long[] {t[0] + ours, t[1] + ours});
+        }
+        List<Map.Entry<T, long[]>> keep = new ArrayList<>(merged.entrySet());
+        keep.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        counters.clear();
+        lowest = highest = null;
+        for (int i = Math.min(keep.size(), capacity) - 1; i >= 0; i--) { // ascending, so each lands at the top
+            Map.Entry<T, long[]> e = keep.get(i);
+            Counter<T> c = new Counter<>();
+            c.item = e.getKey();
+            c.error = e.getValue()[1];
+            counters.put(c.item, c);
+            place(c, e.getValue()[0], highest);
+        }
+        total += other.total;
+        if (sketch != null && other.sketch != null) sketch.merge(other.sketch);
+    }
+
+    // item -> {count, error}
+    private Map<T, long[]> snapshot() {
+        Map<T, long[]> m = new HashMap<>(counters.size() * 2);
+        for (Counter<T> c : counters.values()) m.put(c.item, new long[] {c.bucket.count, c.error});
+        return m;
+    }
+
+    // Moves a counter to the bucket for count, searching upward from its current bucket (or, for a
+    // replaced counter whose new count may be lower, from the bottom).
+    private void move(Counter<T> c, long count) {
+        Bucket<T> from = c.bucket;
+        Bucket<T> hint = from.count <= count ? from : null;
+        detach(c);
+        if (from.first == null) {
+            if (hint == from) hint = from.prev;
+            unlink(from);
+        }
+        place(c, count, hint);
+    }
+
+    // Puts c into the bucket for count, searching up from `from` (null = the lowest bucket), whose
+    // count must not exceed it; creates the bucket if needed.
+    private void place(Counter<T> c, long count, Bucket<T> from) {
+        Bucket<T> b = from != null ? from.prev : null, next = from != null ? from : lowest;
+        while (next != null && next.count < count) { b = next; next = next.next; }
+        if (next == null || next.count != count) {
+            Bucket<T> created = new Bucket<>(count);
+            created.prev = b;
+            created.next = next;
+            if (b != null) b.next = created; else lowest = created;
+            if (next != null) next.prev = created; else highest = created;
+            next = created;
+        }
+        c.bucket = next;
+        c.prev = null;
+        c.next = next.first;
+        if (next.first != null) next.first.prev = c;
+        next.first = c;
+    }
+
+    private void detach(Counter<T> c) {
+        if (c.prev != null) c.prev.next = c.next; else c.bucket.first = c.next;
+        if (c.next != null) c.next.prev = c.prev;
+        c.prev = c.next = null;
+        c.bucket = null;
+    }
+
+    private void unlink(Bucket<T> b) {
+        if (b.prev != null) b.prev.next = b.next; else lowest = b.next;
+        if (b.next != null) b.next.prev = b.prev; else highest = b.prev;
     }
 }
@@ -0,0 +1,64 @@
+package storage;
+
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Consumer;
+
+// Bounded lock-free queue for many producers and one consumer. Producers claim a slot by CAS on
+// the tail and then publish the element into it; the consumer takes published elements in order
+// and frees their slots in batches. offer() fails instead of waiting when the queue is full, so
+// callers choose their own backpressure.
+public class MpscQueue<E> {
+    private final AtomicReferenceArray<E> slots;
+    private final int capacity, mask;
+    private final AtomicLong tail = new AtomicLong(); // next sequence to claim
+    private volatile long head;                       // next sequence to consume; consumer writes only
+
+    // capacity is rounded up to a power of two.
+    public MpscQueue(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = this.capacity - 1;
+        this.slots = new AtomicReferenceArray<>(this.capacity);
+    }
+
+    public boolean offer(E e) {
+        Objects.requireNonNull(e, "element");
+        long t;
+        do {
+            t = tail.get();
+            if (t - head >= capacity) return false;
+        } while (!tail.compareAndSet(t, t + 1));
+        slots.setRelease((int) t & mask, e);
+        return true;
+    }
+
+    // Consumer only: hands up to limit elements to action, oldest first; returns how many. Stops early
+    // at a slot that is claimed but not yet published.
+    public int drain(Consumer<? super E> action, int limit) {
+        long h = head;
+        int n = 0;
+        try {
+            while (n < limit) {
+                int i = (int) h & mask;
+                E e = slots.getAcquire(i);
+                if (e == null) break;
+                slots.lazySet(i, null); // published to producers by the head write below
+                h++;
+                n++;
+                action.accept(e);
+            }
+        } finally {
+            head = h;
+        }
+        return n;
+    }
+
+    // Claimed slots, including ones still being published.
+    public int size() { return (int) Math.min(capacity, tail.get() - head); }
+
+    public boolean isEmpty() { return tail.get() == head; }
+
+    public int capacity() { return capacity; }
+}
@@ -0,0 +1,88 @@
+package storage;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Fixed-capacity ring of (timestamp, value) pairs kept in primitive arrays: adding never allocates,
+// and once full each add overwrites the oldest pair.
+//
+// Writers claim a sequence number (a plain counter with one writer, getAndIncrement with several),
+// fill the slot, then publish the sequence in the slot's stamp. Readers never block writers: a
+// slot is only reported if its stamp equals the expected sequence before and after reading it, so
+// pairs being overwritten are skipped rather than returned torn.
+public class RingBuffer {
+    private static final VarHandle STAMP = MethodHandles.arrayElementVarHandle(long[].class);
+
+    public interface PointConsumer {
+        void accept(long timestamp, double value);
+    }
+
+    private final int mask;
+    private final long[] timestamps;
+    private final double[] values;
+    private final long[] stamps; // sequence published in each slot, -1 while written or never
+    private final boolean multiProducer;
+    private final AtomicLong claimed = new AtomicLong();
+    private long next;                   // claim counter when there is a single producer
+    private volatile long expiredBelow;  // sequences below this were dropped by expireBefore
+
+    // capacity is rounded up to a power of two.
+    public RingBuffer(int capacity, boolean multiProducer) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.mask = size - 1;
+        this.timestamps = new long[size];
+        this.values = new double[size];
+        this.stamps = new long[size];
+        java.util.Arrays.fill(stamps, -1);
+        this.multiProducer = multiProducer;
+    }
+
+    public void add(long timestamp, double value) {
+        long seq = multiProducer ? claimed.getAndIncrement() : next++;
+        int i = (int) seq & mask;
+        STAMP.setOpaque(stamps, i, -1L);
+        VarHandle.storeStoreFence(); // the unstamping must be visible before any of the new data
+        timestamps[i] = timestamp;
+        values[i] = value;
+        STAMP.setRelease(stamps, i, seq);
+        if (!multiProducer) claimed.lazySet(next);
+    }
+
+    public int capacity() { return mask + 1; }
+
+    // Pairs currently held (not yet overwritten or expired).
+    public int size() {
+        long end = claimed.get();
+        return (int) (end - Math.max(expiredBelow, end - capacity()));
+    }
+
+    public boolean isEmpty() { return size() == 0; }
+
+    // Calls action for each pair held, oldest first.
+    public void forEach(PointConsumer action) {
+        long end = claimed.get();
+        for (long seq = Math.max(expiredBelow, end - capacity()); seq < end; seq++) {
+            int i = (int) seq & mask;
+            if ((long) STAMP.getAcquire(stamps, i) != seq) continue; // still being written, or already lapped
+            long t = timestamps[i];
+            double v = values[i];
+            VarHandle.loadLoadFence();
+            if ((long) STAMP.getVolatile(stamps, i) != seq) continue;
+            action.accept(t, v);
+        }
+    }
+
+    // Drops the leading pairs older than cutoff. Timestamps are assumed to arrive roughly in order;
+    // the scan stops at the first pair that is not expired. Meant for one expiring thread.
+    public void expireBefore(long cutoff) {
+        long end = claimed.get();
+        long seq = Math.max(expiredBelow, end - capacity());
+        for (; seq < end; seq++) {
+            int i = (int) seq & mask;
+            if ((long) STAMP.getAcquire(stamps, i) != seq || timestamps[i] >= cutoff) break;
+        }
+        if (seq > expiredBelow) expiredBelow = seq;
+    }
+}
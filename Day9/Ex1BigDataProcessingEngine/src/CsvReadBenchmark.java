@@ -0,0 +1,124 @@
+import com.bigdata.io.MappedCsvReader;
+import com.bigdata.model.RawRecord;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+// Read throughput of the old Files.lines().parallel() + String.split source against
+// MappedCsvReader on a multi-GB CSV, in ForkJoinPools of 1, 2, 4 ... cores threads. The old source
+// is run as FileChunker had it (skip(1) for the header, which a parallel ordered stream can only
+// do by buffering what it reads, so it runs out of heap on big files) and with the header dropped
+// by a filter instead. Each record
+// gets the work the pipeline's validation rules do (category present, value parses as a double).
+// The file is generated once (timestamp,category,value lines, about 45 bytes each) and reused;
+// the first pass of each reader also warms the page cache.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java CsvReadBenchmark [file] [gigabytes]
+public class CsvReadBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        Path file = Paths.get(args.length > 0 ? args[0] : "bench_input.csv");
+        double gigabytes = args.length > 1 ? Double.parseDouble(args[1]) : 2;
+        long bytes = (long) (gigabytes * (1L << 30));
+        if (!Files.exists(file) || Files.size(file) < bytes) generate(file, bytes);
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("file=%s size=%.2f GB cores=%d%n", file, Files.size(file) / (double) (1L << 30), cores);
+        System.out.printf("%-8s %-24s %12s %10s %12s%n", "threads", "source", "records/s", "MB/s", "valid");
+
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            run(threads, "old streamFile (skip)", file, () -> linesSource(file, true));
+            run(threads, "Files.lines + split", file, () -> linesSource(file, false));
+            run(threads, "MappedCsvReader", file, () -> mappedSource(file));
+            if (threads == cores) break;
+        }
+    }
+
+    interface Source {
+        Stream<RawRecord> open() throws IOException;
+    }
+
+    static Stream<RawRecord> linesSource(Path file, boolean skip) throws IOException {
+        Stream<String> lines = skip ? Files.lines(file).skip(1) : Files.lines(file).filter(line -> !line.startsWith("timestamp,"));
+        return lines.map(line -> line.split(",")).filter(f -> f.length >= 3).map(f -> new RawRecord(0, f));
+    }
+
+    static Stream<RawRecord> mappedSource(Path file) throws IOException {
+        return MappedCsvReader.open(file, true).stream().filter(r -> r.getFieldCount() >= 3);
+    }
+
+    static void run(int threads, String name, Path file, Source source) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long best = Long.MAX_VALUE, valid = 0, records = 0;
+            for (int rep = 0; rep < 3; rep++) {
+                long t0 = System.nanoTime();
+                long[] counts;
+                try {
+                    counts = pool.submit(() -> {
+                        try (Stream<RawRecord> s = source.open()) {
+                            return s.parallel().map(r -> new long[] {1, isValid(r) ? 1 : 0})
+                                    .reduce(new long[2], (x, y) -> new long[] {x[0] + y[0], x[1] + y[1]});
+                        }
+                    }).get();
+                } catch (ExecutionException e) {
+                    if (!(e.getCause() instanceof OutOfMemoryError)) throw e;
+                    System.out.printf("%-8d %-24s %s%n", threads, name, "out of heap");
+                    return;
+                }
+                best = Math.min(best, System.nanoTime() - t0);
+                records = counts[0];
+                valid = counts[1];
+            }
+            double secs = best / 1e9;
+            System.out.printf("%-8d %-24s %12.0f %10.0f %12d%n", threads, name, records / secs, Files.size(file) / 1e6 / secs, valid);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static boolean isValid(RawRecord r) {
+        String category = r.getField(1);
+        if (category == null || category.isEmpty()) return false;
+        try {
+            Double.parseDouble(r.getField(2));
+            return true;
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    static void generate(Path file, long bytes) throws IOException {
+        Random rnd = new Random(42);
+        long written = 0, i = 0, base = 1_700_000_000L;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            byte[] header = "timestamp,category,value\n".getBytes(StandardCharsets.US_ASCII);
+            out.write(header);
+            written += header.length;
+            StringBuilder sb = new StringBuilder(64);
+            while (written < bytes) {
+                i++;
+                sb.setLength(0);
+                sb.append(LocalDateTime.ofEpochSecond(base + i, 0, ZoneOffset.UTC)).append(',');
+                if (i % 1000 != 0) sb.append("CAT-").append(i % 10);
+                sb.append(',');
+                if (i % 500 == 0) sb.append("invalid");
+                else sb.append(rnd.nextInt(100)).append('.').append(10 + rnd.nextInt(90));
+                sb.append('\n');
+                byte[] line = sb.toString().getBytes(StandardCharsets.US_ASCII);
+                out.write(line);
+                written += line.length;
+            }
+        }
+    }
+}
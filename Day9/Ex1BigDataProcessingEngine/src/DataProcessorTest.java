@@ -0,0 +1,113 @@
+import com.bigdata.core.DataProcessor;
+import com.bigdata.model.DataRecord;
+import com.bigdata.model.RawRecord;
+import com.bigdata.model.ValidatedRecord;
+import com.bigdata.processors.TransformationProcessor;
+import com.bigdata.processors.ValidationProcessor;
+import com.bigdata.util.MetricsSnapshot;
+import com.bigdata.util.PerformanceMetrics;
+import com.bigdata.util.ValidationRule;
+
+import java.util.*;
+import java.util.stream.*;
+
+/**
+ * A fused DataProcessor chain gives the same records in push mode as in stream mode, each stage's
+ * error handler and metrics see only that stage's exceptions, and the validation and transformation
+ * stages keep and drop the same records in both modes.
+ * Run with assertions enabled: java -ea DataProcessorTest
+ */
+public class DataProcessorTest {
+
+    private static <T, R> List<R> pushAll(DataProcessor<T, R> chain, Stream<T> input) {
+        return input.<R>mapMulti(chain::push).collect(Collectors.toList());
+    }
+
+    private static final DataProcessor<Integer, Integer> TWICE = in -> in.flatMap(x -> {
+        if (x % 7 == 0) throw new IllegalStateException("seven " + x);
+        return Stream.of(x, x);
+    });
+
+    private static final DataProcessor<Integer, String> NAME = in -> in.map(x -> {
+        if (x % 5 == 0) throw new IllegalArgumentException("five " + x);
+        return "v" + x;
+    });
+
+    public void testPushMatchesStream() {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.start();
+        List<String> errors = new ArrayList<>();
+        DataProcessor<Integer, String> chain = TWICE.instrumented(metrics.stage("twice")).withErrorHandling(e -> errors.add("twice"))
+                .andThen(NAME.instrumented(metrics.stage("name")).withErrorHandling(e -> errors.add("name")));
+        List<String> pushed = pushAll(chain, IntStream.rangeClosed(1, 35).boxed());
+        List<String> streamed = chain.process(IntStream.rangeClosed(1, 35).boxed()).collect(Collectors.toList());
+        assert pushed.equals(streamed) : "push mode " + pushed + ", stream mode " + streamed;
+
+        // 7, 14, 21, 28, 35 fail the first stage; 5, 10, 15, 20, 25, 30 fail the second, twice each
+        List<String> expected = new ArrayList<>();
+        for (int x = 1; x <= 35; x++) if (x % 7 != 0 && x % 5 != 0) { expected.add("v" + x); expected.add("v" + x); }
+        assert pushed.equals(expected) : "records " + pushed;
+        assert Collections.frequency(errors, "twice") == 10 : "first stage handled " + Collections.frequency(errors, "twice");
+        assert Collections.frequency(errors, "name") == 24 : "second stage handled " + Collections.frequency(errors, "name");
+
+        MetricsSnapshot.StageSnapshot twice = metrics.snapshot().getStages().get(0), name = metrics.snapshot().getStages().get(1);
+        // a record that fails is counted as an error rather than as a record in
+        assert twice.getIn() == 60 && twice.getErrors() == 10 && twice.getOut() == 120 : "first stage metrics " + twice;
+        assert name.getIn() == 96 && name.getErrors() == 24 && name.getOut() == 96 : "second stage metrics " + name;
+        System.out.println("✓ testPushMatchesStream passed");
+    }
+
+    public void testLaterFailureNotSwallowed() {
+        List<String> errors = new ArrayList<>();
+        DataProcessor<Integer, String> chain = TWICE.withErrorHandling(e -> errors.add("twice")).andThen(NAME);
+        boolean thrown = false;
+        try {
+            chain.push(5, x -> { });
+        } catch (IllegalArgumentException e) {
+            thrown = e.getMessage().equals("five 5");
+        }
+        assert thrown : "second stage's exception not passed on unchanged";
+        assert errors.isEmpty() : "first stage's handler saw a later stage's exception";
+        System.out.println("✓ testLaterFailureNotSwallowed passed");
+    }
+
+    public void testValidationAndTransformation() {
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        metrics.start();
+        ValidationRule<RawRecord> threeFields = r -> r.getFieldCount() == 3;
+        DataProcessor<RawRecord, DataRecord> chain = new ValidationProcessor(List.of(threeFields))
+                .andThen(new TransformationProcessor(metrics));
+        List<RawRecord> input = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String[] fields = i % 10 == 3 ? new String[]{"2024-01-01T00:00:00", "a"}
+                    : new String[]{i % 10 == 7 ? "not a time" : "2024-01-01T00:00:" + String.format("%02d", i % 60), "c" + i % 4, i % 10 == 9 ? "x" : i + ".5"};
+            input.add(new RawRecord(i, fields));
+        }
+        List<DataRecord> pushed = pushAll(chain, input.stream());
+        List<DataRecord> streamed = chain.process(input.stream()).collect(Collectors.toList());
+        assert pushed.size() == 70 && streamed.size() == 70 : "kept " + pushed.size() + " and " + streamed.size() + " records";
+        for (int i = 0; i < pushed.size(); i++) {
+            DataRecord a = pushed.get(i), b = streamed.get(i);
+            assert a.getCategory().equals(b.getCategory()) && a.getValue() == b.getValue()
+                    && a.getTimestamp().equals(b.getTimestamp()) : "record " + i + " differs between modes";
+        }
+        long failed = metrics.snapshot().getErrorsByCategory().get("TRANSFORMATION_ERROR").getCount();
+        assert failed == 40 : failed + " transformation errors, expected 20 per mode";
+        List<ValidatedRecord> valid = pushAll(new ValidationProcessor(List.of(threeFields)), input.stream());
+        assert valid.size() == 90 : "validation kept " + valid.size();
+        System.out.println("✓ testValidationAndTransformation passed");
+    }
+
+    public static void main(String[] args) {
+        DataProcessorTest test = new DataProcessorTest();
+        try {
+            test.testPushMatchesStream();
+            test.testLaterFailureNotSwallowed();
+            test.testValidationAndTransformation();
+            System.out.println("\n✓ All DataProcessorTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+import com.bigdata.core.DataProcessor;
+import com.bigdata.model.DataRecord;
+import com.bigdata.model.RawRecord;
+import com.bigdata.model.ValidatedRecord;
+import com.bigdata.processors.TransformationProcessor;
+import com.bigdata.processors.ValidationProcessor;
+import com.bigdata.util.PerformanceMetrics;
+import com.bigdata.util.ValidationRule;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+// Records/s (and per thread) of BigDataEngine's validation + transformation chain run the old way,
+// a stream per record inside flatMap, against the fused record-at-a-time mode (mapMulti + push),
+// bare and with the engine's per-stage instrumentation and error handling. Records are parsed
+// up front, so only the chain and the stream plumbing are measured; about 0.3% fail validation.
+// Allocated bytes per record are measured on a sequential run.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java FusedPipelineBenchmark [records]
+public class FusedPipelineBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int n = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        RawRecord[] records = generate(n);
+        int cores = Runtime.getRuntime().availableProcessors();
+        PerformanceMetrics metrics = new PerformanceMetrics();
+        List<ValidationRule<RawRecord>> rules = List.of(
+                r -> r.getField(1) != null && !r.getField(1).isEmpty(),
+                r -> { try { Double.parseDouble(r.getField(2)); return true; } catch (Exception e) { return false; }}
+        );
+        DataProcessor<RawRecord, DataRecord> plain = new ValidationProcessor(rules)
+                .andThen(new TransformationProcessor(metrics));
+        DataProcessor<RawRecord, ValidatedRecord> validation = new ValidationProcessor(rules)
+                .instrumented(metrics.stage("validation"))
+                .withErrorHandling((r, e) -> metrics.recordError("VALIDATION_EXCEPTION", r.getLineNum(), e));
+        DataProcessor<ValidatedRecord, DataRecord> transformation = new TransformationProcessor(metrics)
+                .instrumented(metrics.stage("transformation"))
+                .withErrorHandling((r, e) -> metrics.recordError("TRANSFORMATION_EXCEPTION", r.getRawRecord().getLineNum(), e));
+        DataProcessor<RawRecord, DataRecord> instrumented = validation.andThen(transformation);
+        metrics.start();
+
+        System.out.printf("records=%,d cores=%d%n", n, cores);
+        System.out.printf("%-8s %-34s %12s %14s %10s%n", "threads", "mode", "records/s", "per thread/s", "B/record");
+        for (int threads = 1; ; threads = Math.min(threads * 2, cores)) {
+            run(threads, "stream per record (flatMap)", records,
+                    s -> s.flatMap(r -> plain.process(Stream.of(r))));
+            run(threads, "fused (mapMulti + push)", records,
+                    s -> s.<DataRecord>mapMulti(plain::push));
+            run(threads, "fused + instrumented", records,
+                    s -> s.<DataRecord>mapMulti(instrumented::push));
+            if (threads == cores) break;
+        }
+    }
+
+    static void run(int threads, String name, RawRecord[] records,
+                    Function<Stream<RawRecord>, Stream<DataRecord>> pipeline) throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            long best = Long.MAX_VALUE;
+            double sink = 0;
+            for (int rep = 0; rep < 5; rep++) {
+                long t0 = System.nanoTime();
+                sink += pool.submit(() -> pipeline.apply(Arrays.stream(records).parallel())
+                        .mapToDouble(DataRecord::getValue).sum()).get();
+                best = Math.min(best, System.nanoTime() - t0);
+            }
+            com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long thread = Thread.currentThread().getId(), before = mx.getThreadAllocatedBytes(thread);
+            sink += pipeline.apply(Arrays.stream(records)).mapToDouble(DataRecord::getValue).sum();
+            double bytesPerRecord = (mx.getThreadAllocatedBytes(thread) - before) / (double) records.length;
+
+            double perSecond = records.length / (best / 1e9);
+            System.out.printf("%-8d %-34s %12.0f %14.0f %10.1f   (sink %.0f)%n",
+                    threads, name, perSecond, perSecond / threads, bytesPerRecord, sink);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    static RawRecord[] generate(int n) {
+        Random rnd = new Random(42);
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        RawRecord[] records = new RawRecord[n];
+        for (int i = 0; i < n; i++) {
+            String category = (i % 1000 == 0) ? "" : "CAT-" + (i % 10);
+            String value = (i % 500 == 0) ? "invalid" : rnd.nextInt(100) + "." + (10 + rnd.nextInt(90));
+            records[i] = new RawRecord(i + 2, new String[] {base.plusSeconds(i).toString(), category, value});
+        }
+        return records;
+    }
+}
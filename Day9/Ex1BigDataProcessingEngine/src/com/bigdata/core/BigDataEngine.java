@@ -6,11 +6,9 @@ import com.bigdata.io.*;
 import com.bigdata.util.*;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.List;
 import java.util.concurrent.ForkJoinPool;
-import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Stream;
 
 public class BigDataEngine {
@@ -22,8 +20,18 @@ public class BigDataEngine {
         this.parallelismLevel = parallelismLevel;
     }
 
+    // For callers that export snapshots while a pipeline runs (PerformanceMetrics.exportEvery)
+    public PerformanceMetrics getMetrics() { return metrics; }
+
     // Core method to run the ETL pipeline
     public void runPipeline(Path inputPath, Path outputPath, OutputFormatter<DataRecord> formatter) {
+        runPipeline(inputPath, outputPath, formatter, ParallelOutputWriter.Mode.ORDERED);
+    }
+
+    // outputMode: ORDERED keeps input order, UNORDERED skips the reordering, PARTITIONED writes
+    // outputPath as a directory of part files
+    public void runPipeline(Path inputPath, Path outputPath, OutputFormatter<DataRecord> formatter,
+                            ParallelOutputWriter.Mode outputMode) {
         metrics.start();
 
         // --- 1. Define Pipeline Stages ---
@@ -31,12 +39,16 @@ public class BigDataEngine {
                 r -> r.getField(1) != null && !r.getField(1).isEmpty(),
                 r -> { try { Double.parseDouble(r.getField(2)); return true; } catch (Exception e) { return false; }}
         );
-        DataProcessor<RawRecord, ValidatedRecord> validationStage = new ValidationProcessor(rules);
-        DataProcessor<ValidatedRecord, DataRecord> transformationStage = new TransformationProcessor(metrics);
+        // Exceptions are captured per stage: the record is dropped and counted under the stage's category
+        DataProcessor<RawRecord, ValidatedRecord> validationStage = new ValidationProcessor(rules)
+                .instrumented(metrics.stage("validation"))
+                .withErrorHandling((r, e) -> metrics.recordError("VALIDATION_EXCEPTION", r.getLineNum(), e));
+        DataProcessor<ValidatedRecord, DataRecord> transformationStage = new TransformationProcessor(metrics)
+                .instrumented(metrics.stage("transformation"))
+                .withErrorHandling((r, e) -> metrics.recordError("TRANSFORMATION_EXCEPTION", r.getRawRecord().getLineNum(), e));
 
-        DataProcessor<RawRecord, DataRecord> fullProcessor = validationStage
-                .andThen(transformationStage)
-                .withErrorHandling(e -> metrics.logError(e, "RUNTIME_EXCEPTION_IN_PIPELINE"));
+        // Fused: one nested call chain per record instead of a stream per record
+        DataProcessor<RawRecord, DataRecord> fullProcessor = validationStage.andThen(transformationStage);
 
         // Khai báo ForkJoinPool bên ngoài để có thể gọi shutdown trong finally
         ForkJoinPool customPool = null;
@@ -46,34 +58,20 @@ public class BigDataEngine {
             customPool = new ForkJoinPool(parallelismLevel);
 
             // --- 2. Process Large File in Parallel ---
-            Stream<DataRecord> resultStream = customPool.submit(() ->
-                    FileChunker.streamFile(inputPath)   // Source (Memory-efficient, lazy)
-                            .parallel()                     // Enable parallel processing
-                            .flatMap(rawRecord -> {
-                                // Track progress on the source records
-                                metrics.recordProcessed(1);
-                                return fullProcessor.process(Stream.of(rawRecord));
-                            })
-            ).get(); // .get() chờ kết quả từ tác vụ (Task)
+            Stream<DataRecord> resultStream = FileChunker.streamFile(inputPath)   // Source (Memory-efficient, lazy)
+                    .parallel()                     // Enable parallel processing
+                    .<DataRecord>mapMulti((rawRecord, out) -> {
+                        // Track progress on the source records
+                        metrics.recordProcessed(1);
+                        fullProcessor.push(rawRecord, out);
+                    });
 
             // --- 3. Terminal Operation: Output (Load) ---
-            AtomicLong outputCount = new AtomicLong(0);
-
-            try (var writer = Files.newBufferedWriter(outputPath, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
-
-                // Use forEachOrdered to preserve file order despite parallel processing
-                resultStream
-                        .forEachOrdered(record -> {
-                            try {
-                                writer.write(formatter.format(record) + "\n");
-                                outputCount.incrementAndGet();
-                            } catch (IOException e) {
-                                throw new UncheckedIOException(e); // Propagate IO failure
-                            }
-                        });
-            }
+            // Runs in customPool: its workers process, format and write chunks of the stream
+            ParallelOutputWriter<DataRecord> writer = new ParallelOutputWriter<>(formatter, outputMode);
+            long outputCount = customPool.submit(() -> writer.write(resultStream, outputPath)).get(); // .get() chờ kết quả từ tác vụ (Task)
 
-            System.out.printf("✅ Successfully wrote %d clean records to %s%n", outputCount.get(), outputPath);
+            System.out.printf("✅ Successfully wrote %d clean records to %s%n", outputCount, outputPath);
 
         } catch (Exception e) {
             metrics.logError(e, "FATAL_PIPELINE_ERROR");
@@ -99,5 +97,8 @@ public class BigDataEngine {
 
         // Run with CSV output
         engine.runPipeline(inputPath, Paths.get("processed_output.csv"), new CsvFormatter());
+
+        // Run with columnar output (read back with ColumnarReader)
+        engine.runPipeline(inputPath, Paths.get("processed_output.bdc"), new ColumnarFormatter());
     }
 }
\ No newline at end of file
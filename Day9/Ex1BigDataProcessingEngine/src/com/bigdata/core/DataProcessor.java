@@ -1,30 +1,101 @@
 package com.bigdata.core;
 
-import java.util.Objects;
+import com.bigdata.util.PerformanceMetrics;
+
+import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
 
+// A pipeline stage, usable in two modes:
+// - stream mode, process(): the stage transforms a whole stream;
+// - record-at-a-time mode, push(): the stage handles one record and hands each result straight to
+//   the next stage. andThen() fuses pushes into nested calls, so a chain runs as one function per
+//   record (e.g. from Stream.mapMulti) without building a stream per record.
+// In push mode a stage may pass on a reused mutable record; it is only valid until the downstream
+// call returns, so a stage that keeps records must copy them.
 public interface DataProcessor<T, R> {
 
     Stream<R> process(Stream<T> input);
 
-    // Composition: Chains this processor with the next one
+    // Record-at-a-time mode. The default runs process() on a one-element stream; processors
+    // override it with a direct implementation.
+    default void push(T item, Consumer<? super R> out) {
+        process(Stream.of(item)).forEach(out);
+    }
+
+    // Composition: Chains this processor with the next one, in both modes
     default <V> DataProcessor<T, V> andThen(DataProcessor<R, V> next) {
-        return input -> next.process(this.process(input));
+        DataProcessor<T, R> first = this;
+        return new DataProcessor<T, V>() {
+            @Override
+            public Stream<V> process(Stream<T> input) {
+                return next.process(first.process(input));
+            }
+
+            @Override
+            public void push(T item, Consumer<? super V> out) {
+                first.push(item, result -> next.push(result, out));
+            }
+        };
+    }
+
+    // Instrumentation: counts records in and out of this stage and times a sample of the records,
+    // excluding the time spent in later stages; exceptions thrown by this stage are counted and
+    // passed on.
+    // Runs the stage one record at a time, also in stream mode.
+    default DataProcessor<T, R> instrumented(PerformanceMetrics.Stage stage) {
+        DataProcessor<T, R> self = this;
+        return new DataProcessor<T, R>() {
+            @Override
+            public Stream<R> process(Stream<T> input) {
+                return input.mapMulti(this::push);
+            }
+
+            @Override
+            public void push(T item, Consumer<? super R> out) {
+                boolean timed = stage.sampleLatency();
+                long start = timed ? System.nanoTime() : 0;
+                Downstream<R> downstream = new Downstream<>(out, timed);
+                try {
+                    self.push(item, downstream);
+                } catch (Downstream.Failure f) {
+                    throw f.unwrap();
+                } catch (RuntimeException e) {
+                    stage.error();
+                    throw e;
+                }
+                if (timed) stage.record(System.nanoTime() - start - downstream.nanos, downstream.count);
+                else stage.count(downstream.count);
+            }
+        };
     }
 
-    // With error handling: Catches runtime exceptions in the stream
+    // With error handling: an exception thrown by this stage goes to errorHandler and drops the
+    // record; exceptions from later stages are not caught here. Runs the stage one record at a
+    // time, also in stream mode.
     default DataProcessor<T, R> withErrorHandling(Consumer<Exception> errorHandler) {
-        return input -> this.process(input)
-                .map(item -> {
-                    try {
-                        // Force the stream execution to happen within the try-catch block
-                        return item;
-                    } catch (Exception e) {
-                        errorHandler.accept(e);
-                        return null; // Return null to be filtered out
-                    }
-                })
-                .filter(Objects::nonNull);
+        return withErrorHandling((item, e) -> errorHandler.accept(e));
+    }
+
+    // Same, also handing errorHandler the record that failed (e.g. for its line number)
+    default DataProcessor<T, R> withErrorHandling(BiConsumer<? super T, Exception> errorHandler) {
+        DataProcessor<T, R> self = this;
+        return new DataProcessor<T, R>() {
+            @Override
+            public Stream<R> process(Stream<T> input) {
+                return input.mapMulti(this::push);
+            }
+
+            @Override
+            public void push(T item, Consumer<? super R> out) {
+                try {
+                    self.push(item, new Downstream<>(out, false));
+                } catch (Downstream.Failure f) {
+                    throw f.unwrap();
+                } catch (RuntimeException e) {
+                    errorHandler.accept(item, e);
+                }
+            }
+        };
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,40 @@
+package com.bigdata.core;
+
+import java.util.function.Consumer;
+
+// Forwards a stage's results to the next stage, marking exceptions thrown there so the stage's
+// wrapper can tell them from its own, and (if timed) measuring the time they took.
+final class Downstream<R> implements Consumer<R> {
+    private final Consumer<? super R> out;
+    private final boolean timed;
+    int count;
+    long nanos;
+
+    Downstream(Consumer<? super R> out, boolean timed) {
+        this.out = out;
+        this.timed = timed;
+    }
+
+    @Override
+    public void accept(R result) {
+        count++;
+        long start = timed ? System.nanoTime() : 0;
+        try {
+            out.accept(result);
+        } catch (RuntimeException e) {
+            throw new Failure(e);
+        } finally {
+            if (timed) nanos += System.nanoTime() - start;
+        }
+    }
+
+    static final class Failure extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Failure(RuntimeException cause) {
+            super(cause);
+        }
+
+        RuntimeException unwrap() { return (RuntimeException) getCause(); }
+    }
+}
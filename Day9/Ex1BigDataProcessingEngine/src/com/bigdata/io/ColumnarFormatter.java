@@ -0,0 +1,212 @@
+package com.bigdata.io;
+
+import com.bigdata.model.DataRecord;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+// Dependency-free columnar file format for DataRecords, read back by ColumnarReader. Each batch the
+// writer hands over becomes a row group holding three column chunks:
+// - timestamp: epoch nanos (UTC), the first as a zigzag varint and then zigzag varint deltas;
+// - category: a dictionary of the group's distinct values, then one varint index per row (0 = null);
+// - value: plain 8-byte doubles.
+// Chunks are optionally deflated. The footer lists every row group's position, row count, the
+// stored and raw size of each chunk, and min/max statistics per column, so readers can fetch only
+// the columns they need and skip groups a predicate rules out.
+//
+// File: MAGIC VERSION | row groups | footer | footer length (int) | MAGIC
+// Footer: group count (int), then per group: offset (long), length (long), summary length (int),
+//         summary: rows (int), codec (byte), 3 x (stored, raw length as ints),
+//         min/max timestamp (long), non-null categories (int) and, if any, min/max category
+//         (UTF), min/max value (double)
+public class ColumnarFormatter implements OutputFormatter<DataRecord> {
+    static final byte[] MAGIC = {'B', 'D', 'C', 'F'};
+    static final byte VERSION = 1;
+
+    public enum Codec { NONE, DEFLATE }
+
+    private final int rowGroupRows;
+    private final Codec codec;
+
+    public ColumnarFormatter() {
+        this(65_536, Codec.NONE);
+    }
+
+    public ColumnarFormatter(int rowGroupRows, Codec codec) {
+        if (rowGroupRows <= 0) throw new IllegalArgumentException("rowGroupRows must be positive: " + rowGroupRows);
+        this.rowGroupRows = rowGroupRows;
+        this.codec = codec;
+    }
+
+    // Row-oriented fallback, e.g. for logging a single record.
+    @Override
+    public String format(DataRecord record) {
+        return record.getTimestamp() + "," + record.getCategory() + "," + record.getValue();
+    }
+
+    @Override
+    public int batchSize() { return rowGroupRows; }
+
+    @Override
+    public byte[] header() {
+        byte[] header = new byte[MAGIC.length + 1];
+        System.arraycopy(MAGIC, 0, header, 0, MAGIC.length);
+        header[MAGIC.length] = VERSION;
+        return header;
+    }
+
+    @Override
+    public byte[] formatBatch(List<? extends DataRecord> records, OutputStream out) throws IOException {
+        int rows = records.size();
+        long minTs = Long.MAX_VALUE, maxTs = Long.MIN_VALUE;
+        double minValue = Double.POSITIVE_INFINITY, maxValue = Double.NEGATIVE_INFINITY;
+        String minCat = null, maxCat = null;
+        int categories = 0;
+
+        Sink ts = new Sink(rows * 3), cat = new Sink(rows), val = new Sink(rows * 8);
+        Map<String, Integer> dictionary = new HashMap<>();
+        Sink dict = new Sink(256), indices = new Sink(rows);
+        long previous = 0;
+        for (DataRecord r : records) {
+            long nanos = epochNanos(r.getTimestamp());
+            ts.writeVarLong(zigzag(nanos - previous));
+            previous = nanos;
+            minTs = Math.min(minTs, nanos);
+            maxTs = Math.max(maxTs, nanos);
+
+            String c = r.getCategory();
+            if (c == null) {
+                indices.writeVarLong(0);
+            } else {
+                Integer index = dictionary.get(c);
+                if (index == null) {
+                    dictionary.put(c, index = dictionary.size());
+                    byte[] utf8 = c.getBytes(StandardCharsets.UTF_8);
+                    dict.writeVarLong(utf8.length);
+                    dict.write(utf8, 0, utf8.length);
+                }
+                indices.writeVarLong(index + 1);
+                categories++;
+                if (minCat == null || c.compareTo(minCat) < 0) minCat = c;
+                if (maxCat == null || c.compareTo(maxCat) > 0) maxCat = c;
+            }
+
+            double v = r.getValue();
+            val.writeLong(Double.doubleToRawLongBits(v));
+            if (!Double.isNaN(v)) { // NaN matches no range, so it stays out of the statistics
+                minValue = Math.min(minValue, v);
+                maxValue = Math.max(maxValue, v);
+            }
+        }
+        cat.writeVarLong(dictionary.size());
+        dict.writeTo(cat);
+        indices.writeTo(cat);
+
+        ByteArrayOutputStream summaryBytes = new ByteArrayOutputStream(96);
+        DataOutputStream summary = new DataOutputStream(summaryBytes);
+        summary.writeInt(rows);
+        summary.writeByte(codec.ordinal());
+        for (Sink column : new Sink[] {ts, cat, val}) {
+            Sink stored = compress(column);
+            out.write(stored.buf, 0, stored.size);
+            summary.writeInt(stored.size);
+            summary.writeInt(column.size);
+        }
+        summary.writeLong(minTs);
+        summary.writeLong(maxTs);
+        summary.writeInt(categories);
+        if (categories > 0) {
+            summary.writeUTF(minCat);
+            summary.writeUTF(maxCat);
+        }
+        summary.writeDouble(minValue);
+        summary.writeDouble(maxValue);
+        return summaryBytes.toByteArray();
+    }
+
+    @Override
+    public byte[] footer(List<WrittenBatch> batches) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64 + batches.size() * 96);
+        DataOutputStream footer = new DataOutputStream(bytes);
+        footer.writeInt(batches.size());
+        for (WrittenBatch b : batches) {
+            footer.writeLong(b.getOffset());
+            footer.writeLong(b.getLength());
+            footer.writeInt(b.getSummary().length);
+            footer.write(b.getSummary());
+        }
+        int length = bytes.size();
+        footer.writeInt(length);
+        footer.write(MAGIC);
+        return bytes.toByteArray();
+    }
+
+    // The column's bytes as stored: the column itself when not compressed.
+    private Sink compress(Sink column) {
+        if (codec == Codec.NONE) return column;
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(column.buf, 0, column.size);
+            deflater.finish();
+            Sink out = new Sink(Math.max(64, column.size / 2));
+            byte[] block = new byte[1 << 14];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(block);
+                out.write(block, 0, n);
+            }
+            return out;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    static long epochNanos(LocalDateTime t) {
+        return t.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + t.getNano();
+    }
+
+    static long zigzag(long v) { return (v << 1) ^ (v >> 63); }
+
+    // Growable byte buffer with varint and big-endian long writes.
+    static final class Sink {
+        byte[] buf;
+        int size;
+
+        Sink(int capacity) { buf = new byte[Math.max(16, capacity)]; }
+
+        void write(byte[] b, int off, int len) {
+            ensure(len);
+            System.arraycopy(b, off, buf, size, len);
+            size += len;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            while ((v & ~0x7FL) != 0) {
+                buf[size++] = (byte) ((v & 0x7F) | 0x80);
+                v >>>= 7;
+            }
+            buf[size++] = (byte) v;
+        }
+
+        void writeLong(long v) {
+            ensure(8);
+            for (int shift = 56; shift >= 0; shift -= 8) buf[size++] = (byte) (v >>> shift);
+        }
+
+        void writeTo(Sink other) { other.write(buf, 0, size); }
+
+        private void ensure(int extra) {
+            if (size + extra > buf.length) buf = Arrays.copyOf(buf, Math.max(buf.length * 2, size + extra));
+        }
+    }
+}
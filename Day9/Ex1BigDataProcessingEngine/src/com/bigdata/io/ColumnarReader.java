@@ -0,0 +1,342 @@
+package com.bigdata.io;
+
+import com.bigdata.model.DataRecord;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+// Reads files written with ColumnarFormatter. open() reads only the footer; batches() then fetches
+// the row groups whose min/max statistics a Filter cannot rule out, and of those only the column
+// chunks that were asked for or that the filter tests. Row groups are read with positional reads,
+// so the returned streams may be made parallel.
+public final class ColumnarReader implements AutoCloseable {
+    public enum Column { TIMESTAMP, CATEGORY, VALUE }
+
+    private final FileChannel channel;
+    private final List<RowGroup> rowGroups;
+    private final long rowCount;
+
+    private ColumnarReader(FileChannel channel, List<RowGroup> rowGroups) {
+        this.channel = channel;
+        this.rowGroups = rowGroups;
+        this.rowCount = rowGroups.stream().mapToLong(RowGroup::getRows).sum();
+    }
+
+    public static ColumnarReader open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            long size = channel.size();
+            int magic = ColumnarFormatter.MAGIC.length;
+            if (size < 2L * magic + 1 + 8) throw new IOException("not a columnar file: " + path);
+            byte[] head = read(channel, 0, magic + 1);
+            ByteBuffer tail = ByteBuffer.wrap(read(channel, size - 4 - magic, 4 + magic));
+            int footerLength = tail.getInt();
+            if (!Arrays.equals(Arrays.copyOf(head, magic), ColumnarFormatter.MAGIC)
+                    || !Arrays.equals(Arrays.copyOfRange(tail.array(), 4, 4 + magic), ColumnarFormatter.MAGIC)
+                    || footerLength < 0 || footerLength > size - 2L * magic - 5) {
+                throw new IOException("not a columnar file: " + path);
+            }
+            if (head[magic] != ColumnarFormatter.VERSION) throw new IOException("unsupported version " + head[magic] + ": " + path);
+
+            DataInputStream footer = new DataInputStream(new ByteArrayInputStream(
+                    read(channel, size - 4 - magic - footerLength, footerLength)));
+            int groups = footer.readInt();
+            List<RowGroup> rowGroups = new ArrayList<>(groups);
+            for (int i = 0; i < groups; i++) {
+                long offset = footer.readLong();
+                footer.readLong(); // length: the sum of the stored chunk lengths
+                footer.readInt();  // summary length
+                rowGroups.add(new RowGroup(offset, footer));
+            }
+            return new ColumnarReader(channel, Collections.unmodifiableList(rowGroups));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public long rowCount() { return rowCount; }
+
+    public List<RowGroup> rowGroups() { return rowGroups; }
+
+    // Row groups whose statistics do not rule the filter out.
+    public List<RowGroup> rowGroups(Filter filter) {
+        List<RowGroup> matching = new ArrayList<>();
+        for (RowGroup g : rowGroups) if (filter.groups.test(g)) matching.add(g);
+        return matching;
+    }
+
+    // One batch per row group that may match, holding its matching rows (possibly none) and the
+    // requested columns only.
+    public Stream<Batch> batches(Set<Column> columns, Filter filter) {
+        EnumSet<Column> projected = columns.isEmpty() ? EnumSet.noneOf(Column.class) : EnumSet.copyOf(columns);
+        return rowGroups(filter).stream().map(g -> {
+            try {
+                return read(g, projected, filter);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    public Stream<DataRecord> records(Filter filter) {
+        return batches(EnumSet.allOf(Column.class), filter)
+                .flatMap(b -> IntStream.range(0, b.rows).mapToObj(i -> new DataRecord(b.categories[i], b.values[i], b.timestamp(i))));
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private Batch read(RowGroup g, EnumSet<Column> projected, Filter filter) throws IOException {
+        EnumSet<Column> needed = EnumSet.copyOf(filter.columns);
+        needed.addAll(projected);
+        Batch all = new Batch(g.rows);
+        long offset = g.offset;
+        for (Column c : Column.values()) {
+            int i = c.ordinal();
+            if (needed.contains(c)) {
+                Source in = new Source(inflate(g, read(channel, offset, g.stored[i]), g.raw[i]));
+                switch (c) {
+                    case TIMESTAMP: all.timestamps = decodeTimestamps(in, g.rows); break;
+                    case CATEGORY: all.categories = decodeCategories(in, g.rows); break;
+                    default: all.values = decodeValues(in, g.rows); break;
+                }
+            }
+            offset += g.stored[i];
+        }
+
+        int[] keep = new int[g.rows];
+        int n = 0;
+        for (int row = 0; row < g.rows; row++) if (filter.rows.test(all, row)) keep[n++] = row;
+        Batch out = new Batch(n);
+        if (projected.contains(Column.TIMESTAMP)) out.timestamps = n == g.rows ? all.timestamps : new long[n];
+        if (projected.contains(Column.CATEGORY)) out.categories = n == g.rows ? all.categories : new String[n];
+        if (projected.contains(Column.VALUE)) out.values = n == g.rows ? all.values : new double[n];
+        if (n < g.rows) {
+            for (int j = 0; j < n; j++) {
+                if (out.timestamps != null) out.timestamps[j] = all.timestamps[keep[j]];
+                if (out.categories != null) out.categories[j] = all.categories[keep[j]];
+                if (out.values != null) out.values[j] = all.values[keep[j]];
+            }
+        }
+        return out;
+    }
+
+    private static byte[] inflate(RowGroup g, byte[] stored, int rawLength) throws IOException {
+        if (g.codec == ColumnarFormatter.Codec.NONE) return stored;
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(stored);
+            byte[] raw = new byte[rawLength];
+            int n = 0;
+            while (n < rawLength && !inflater.finished()) {
+                int got = inflater.inflate(raw, n, rawLength - n);
+                if (got == 0 && (inflater.needsInput() || inflater.needsDictionary())) break;
+                n += got;
+            }
+            if (n != rawLength) throw new IOException("corrupt column chunk at offset " + g.offset);
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IOException("corrupt column chunk at offset " + g.offset, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long[] decodeTimestamps(Source in, int rows) {
+        long[] nanos = new long[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            long v = in.readVarLong();
+            previous += (v >>> 1) ^ -(v & 1);
+            nanos[i] = previous;
+        }
+        return nanos;
+    }
+
+    private static String[] decodeCategories(Source in, int rows) {
+        String[] dictionary = new String[(int) in.readVarLong()];
+        for (int i = 0; i < dictionary.length; i++) {
+            int length = (int) in.readVarLong();
+            dictionary[i] = new String(in.bytes, in.pos, length, StandardCharsets.UTF_8);
+            in.pos += length;
+        }
+        String[] categories = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            int index = (int) in.readVarLong();
+            categories[i] = index == 0 ? null : dictionary[index - 1];
+        }
+        return categories;
+    }
+
+    private static double[] decodeValues(Source in, int rows) {
+        double[] values = new double[rows];
+        for (int i = 0; i < rows; i++) values[i] = Double.longBitsToDouble(in.readLong());
+        return values;
+    }
+
+    private static byte[] read(FileChannel channel, long pos, int length) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(length);
+        while (buf.hasRemaining()) {
+            int n = channel.read(buf, pos + buf.position());
+            if (n < 0) throw new IOException("unexpected end of file at " + (pos + buf.position()));
+        }
+        return buf.array();
+    }
+
+    static LocalDateTime toDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    // A row group's place in the file and its footer statistics.
+    public static final class RowGroup {
+        private final long offset;
+        private final int rows;
+        private final ColumnarFormatter.Codec codec;
+        private final int[] stored = new int[3], raw = new int[3];
+        private final long minTimestamp, maxTimestamp;
+        private final int categoryCount;
+        private final String minCategory, maxCategory;
+        private final double minValue, maxValue;
+
+        RowGroup(long offset, DataInputStream summary) throws IOException {
+            this.offset = offset;
+            this.rows = summary.readInt();
+            int codec = summary.readByte();
+            if (codec < 0 || codec >= ColumnarFormatter.Codec.values().length) throw new IOException("unknown codec " + codec);
+            this.codec = ColumnarFormatter.Codec.values()[codec];
+            for (int i = 0; i < 3; i++) {
+                stored[i] = summary.readInt();
+                raw[i] = summary.readInt();
+            }
+            this.minTimestamp = summary.readLong();
+            this.maxTimestamp = summary.readLong();
+            this.categoryCount = summary.readInt();
+            this.minCategory = categoryCount > 0 ? summary.readUTF() : null;
+            this.maxCategory = categoryCount > 0 ? summary.readUTF() : null;
+            this.minValue = summary.readDouble();
+            this.maxValue = summary.readDouble();
+        }
+
+        public long getOffset() { return offset; }
+        public int getRows() { return rows; }
+        public LocalDateTime getMinTimestamp() { return toDateTime(minTimestamp); }
+        public LocalDateTime getMaxTimestamp() { return toDateTime(maxTimestamp); }
+        public int getCategoryCount() { return categoryCount; }
+        public String getMinCategory() { return minCategory; }
+        public String getMaxCategory() { return maxCategory; }
+        public double getMinValue() { return minValue; }
+        public double getMaxValue() { return maxValue; }
+
+        public long getStoredBytes(Column column) { return stored[column.ordinal()]; }
+    }
+
+    // Decoded rows of one row group; arrays of columns that were not requested are null.
+    public static final class Batch {
+        private final int rows;
+        private long[] timestamps;
+        private String[] categories;
+        private double[] values;
+
+        Batch(int rows) { this.rows = rows; }
+
+        public int getRows() { return rows; }
+        public long[] getTimestampNanos() { return timestamps; }
+        public String[] getCategories() { return categories; }
+        public double[] getValues() { return values; }
+
+        public LocalDateTime timestamp(int row) { return toDateTime(timestamps[row]); }
+    }
+
+    // Row predicate that also knows how to rule out a whole row group from its statistics.
+    // Bounds are inclusive.
+    public static final class Filter {
+        public static final Filter ALL = new Filter(EnumSet.noneOf(Column.class), g -> true, (b, row) -> true);
+
+        interface RowTest {
+            boolean test(Batch batch, int row);
+        }
+
+        private final EnumSet<Column> columns;
+        private final Predicate<RowGroup> groups;
+        private final RowTest rows;
+
+        private Filter(EnumSet<Column> columns, Predicate<RowGroup> groups, RowTest rows) {
+            this.columns = columns;
+            this.groups = groups;
+            this.rows = rows;
+        }
+
+        public static Filter timestampBetween(LocalDateTime from, LocalDateTime to) {
+            long lo = ColumnarFormatter.epochNanos(from), hi = ColumnarFormatter.epochNanos(to);
+            return new Filter(EnumSet.of(Column.TIMESTAMP),
+                    g -> g.maxTimestamp >= lo && g.minTimestamp <= hi,
+                    (b, row) -> b.timestamps[row] >= lo && b.timestamps[row] <= hi);
+        }
+
+        public static Filter valueBetween(double lo, double hi) {
+            return new Filter(EnumSet.of(Column.VALUE),
+                    g -> g.maxValue >= lo && g.minValue <= hi,
+                    (b, row) -> b.values[row] >= lo && b.values[row] <= hi);
+        }
+
+        public static Filter categoryEquals(String category) {
+            if (category == null) throw new IllegalArgumentException("category must not be null");
+            return new Filter(EnumSet.of(Column.CATEGORY),
+                    g -> g.categoryCount > 0 && g.minCategory.compareTo(category) <= 0 && g.maxCategory.compareTo(category) >= 0,
+                    (b, row) -> category.equals(b.categories[row]));
+        }
+
+        public Filter and(Filter other) {
+            EnumSet<Column> both = EnumSet.copyOf(columns);
+            both.addAll(other.columns);
+            return new Filter(both, groups.and(other.groups), (b, row) -> rows.test(b, row) && other.rows.test(b, row));
+        }
+    }
+
+    // Cursor over a decoded column chunk.
+    private static final class Source {
+        final byte[] bytes;
+        int pos;
+
+        Source(byte[] bytes) { this.bytes = bytes; }
+
+        long readVarLong() {
+            long v = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = bytes[pos++];
+                v |= (long) (b & 0x7F) << shift;
+                if (b >= 0) return v;
+            }
+        }
+
+        long readLong() {
+            long v = 0;
+            for (int i = 0; i < 8; i++) v = (v << 8) | (bytes[pos++] & 0xFF);
+            return v;
+        }
+    }
+}
@@ -3,15 +3,96 @@ package com.bigdata.io;
 import com.bigdata.model.DataRecord;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
 
+// timestamp,category,value with the value to two decimals, one record per line. Lines are appended
+// field by field into one builder per batch, which goes to the output every FLUSH_CHARS chars,
+// rather than built by String.format per record. The value always uses '.' as decimal separator.
 public class CsvFormatter implements OutputFormatter<DataRecord> {
+    private static final int FLUSH_CHARS = 1 << 13;
 
     @Override
     public String format(DataRecord record) throws IOException {
-        // Simple comma-separated format
-        return String.format("%s,%s,%.2f",
-                record.getTimestamp().toString(),
-                record.getCategory(),
-                record.getValue());
+        StringBuilder line = new StringBuilder(48);
+        append(line, record);
+        return line.toString();
     }
-}
\ No newline at end of file
+
+    @Override
+    public byte[] formatBatch(List<? extends DataRecord> records, OutputStream out) throws IOException {
+        StringBuilder lines = new StringBuilder(FLUSH_CHARS + 128);
+        for (DataRecord record : records) {
+            append(lines, record);
+            lines.append('\n');
+            if (lines.length() >= FLUSH_CHARS) {
+                out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+                lines.setLength(0);
+            }
+        }
+        if (lines.length() > 0) out.write(lines.toString().getBytes(StandardCharsets.UTF_8));
+        return NONE;
+    }
+
+    private static void append(StringBuilder sb, DataRecord record) {
+        appendTimestamp(sb, record.getTimestamp());
+        sb.append(',').append(record.getCategory()).append(',');
+        appendCents(sb, record.getValue());
+    }
+
+    // LocalDateTime.toString(): seconds only when not zero (or nanos are set), and nanos in groups
+    // of three digits. Years outside 0..9999 take toString() itself.
+    static void appendTimestamp(StringBuilder sb, LocalDateTime t) {
+        if (t == null || t.getYear() < 0 || t.getYear() > 9999) {
+            sb.append(t);
+            return;
+        }
+        pad(sb, t.getYear(), 4).append('-');
+        pad(sb, t.getMonthValue(), 2).append('-');
+        pad(sb, t.getDayOfMonth(), 2).append('T');
+        pad(sb, t.getHour(), 2).append(':');
+        pad(sb, t.getMinute(), 2);
+        int second = t.getSecond(), nano = t.getNano();
+        if (second == 0 && nano == 0) return;
+        pad(sb.append(':'), second, 2);
+        if (nano == 0) return;
+        sb.append('.');
+        if (nano % 1_000_000 == 0) pad(sb, nano / 1_000_000, 3);
+        else if (nano % 1000 == 0) pad(sb, nano / 1000, 6);
+        else pad(sb, nano, 9);
+    }
+
+    // What %.2f prints: Formatter rounds v's shortest decimal form (Double.toString) half up. Away
+    // from a tie v * 100 rounds to the same cents, since it is off by a few ulps at most; values
+    // within a few ulps of a tie, or too large for a long, round the shortest form itself.
+    static void appendCents(StringBuilder sb, double v) {
+        if (Double.isNaN(v) || Double.isInfinite(v)) {
+            sb.append(v);
+            return;
+        }
+        boolean negative = Double.doubleToRawLongBits(v) < 0; // "-0.00" for -0.0 and small negatives
+        double scaled = Math.abs(v) * 100;
+        double fraction = scaled - Math.floor(scaled);
+        if (scaled >= 1e15 || Math.abs(fraction - 0.5) <= 8 * Math.ulp(scaled)) {
+            BigDecimal rounded = BigDecimal.valueOf(v).setScale(2, RoundingMode.HALF_UP);
+            if (negative && rounded.signum() == 0) sb.append('-');
+            sb.append(rounded.toPlainString());
+            return;
+        }
+        long cents = (long) (scaled + 0.5);
+        if (negative) sb.append('-');
+        sb.append(cents / 100).append('.');
+        pad(sb, (int) (cents % 100), 2);
+    }
+
+    private static StringBuilder pad(StringBuilder sb, int n, int digits) {
+        for (int limit = 10; --digits > 0; limit *= 10) {
+            if (n < limit) sb.append('0');
+        }
+        return sb.append(n);
+    }
+}
@@ -0,0 +1,168 @@
+package com.bigdata.io;
+
+import com.bigdata.model.RawRecord;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Reads a CSV file (comma separated, no quoting) through memory maps. open() cuts the file into
+// byte ranges that end on a newline, maps each one, and counts its lines in parallel, so every
+// record knows its real line number and the spliterator knows exactly how many records each range
+// holds: it splits on range boundaries and reports SIZED | SUBSIZED, which lets parallel streams
+// divide the work evenly. Records are views over the mapped bytes (see RawRecord); a mapping
+// stays valid after the file is closed, until no record refers to it.
+public final class MappedCsvReader {
+    private static final int MIN_CHUNK = 1 << 20, MAX_CHUNK = 64 << 20;
+
+    private final MappedByteBuffer[] chunks;
+    private final long[] linesBefore; // lines in chunks [0, i); length chunks + 1
+    private final long firstLine;     // line number of the first line of chunk 0
+
+    private MappedCsvReader(MappedByteBuffer[] chunks, long[] linesBefore, long firstLine) {
+        this.chunks = chunks;
+        this.linesBefore = linesBefore;
+        this.firstLine = firstLine;
+    }
+
+    // Chunks sized for about 16 per core, between 1 and 64 MB.
+    public static MappedCsvReader open(Path path, boolean skipHeader) throws IOException {
+        return open(path, skipHeader, 0);
+    }
+
+    public static MappedCsvReader open(Path path, boolean skipHeader, int chunkBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (chunkBytes <= 0) {
+                long target = size / (16L * Runtime.getRuntime().availableProcessors());
+                chunkBytes = (int) Math.max(MIN_CHUNK, Math.min(MAX_CHUNK, target));
+            }
+            long start = skipHeader ? lineEnd(channel, 0, size) : 0;
+            long[] bounds = new long[16];
+            int count = 0;
+            while (start < size) {
+                long end = start + chunkBytes >= size ? size : lineEnd(channel, start + chunkBytes - 1, size);
+                if (count + 2 > bounds.length) bounds = Arrays.copyOf(bounds, bounds.length * 2);
+                bounds[count++] = start;
+                bounds[count++] = end;
+                start = end;
+            }
+            MappedByteBuffer[] chunks = new MappedByteBuffer[count / 2];
+            for (int i = 0; i < chunks.length; i++) {
+                chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY, bounds[2 * i], bounds[2 * i + 1] - bounds[2 * i]);
+            }
+            long[] lines = new long[chunks.length + 1];
+            IntStream.range(0, chunks.length).parallel().forEach(i -> lines[i + 1] = countLines(chunks[i]));
+            for (int i = 0; i < chunks.length; i++) lines[i + 1] += lines[i];
+            return new MappedCsvReader(chunks, lines, skipHeader ? 2 : 1);
+        }
+    }
+
+    // Data lines, including empty ones.
+    public long lineCount() { return linesBefore[chunks.length]; }
+
+    public int chunkCount() { return chunks.length; }
+
+    public Spliterator<RawRecord> spliterator() {
+        return new ChunkSpliterator(0, chunks.length, lineCount());
+    }
+
+    public Stream<RawRecord> stream() {
+        return StreamSupport.stream(spliterator(), false);
+    }
+
+    // Position just past the first newline at or after from (size if there is none).
+    private static long lineEnd(FileChannel channel, long from, long size) throws IOException {
+        ByteBuffer buf = ByteBuffer.allocate(1 << 16);
+        for (long pos = from; pos < size; ) {
+            buf.clear();
+            int n = channel.read(buf, pos);
+            if (n < 0) break;
+            for (int i = 0; i < n; i++) if (buf.get(i) == '\n') return pos + i + 1;
+            pos += n;
+        }
+        return size;
+    }
+
+    private static int countLines(ByteBuffer chunk) {
+        int n = 0, limit = chunk.limit();
+        for (int i = 0; i < limit; i++) if (chunk.get(i) == '\n') n++;
+        return (limit > 0 && chunk.get(limit - 1) != '\n') ? n + 1 : n; // unterminated last line
+    }
+
+    // Covers chunks [lo, hi), with the first one read from pos on. Splits only ever hand off whole
+    // chunks that have not been started, so both halves know their exact record count.
+    private final class ChunkSpliterator implements Spliterator<RawRecord> {
+        private int lo, pos;
+        private final int hi;
+        private long remaining;
+        private int[] scratch = new int[16];
+
+        ChunkSpliterator(int lo, int hi, long remaining) {
+            this.lo = lo;
+            this.hi = hi;
+            this.remaining = remaining;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super RawRecord> action) {
+            while (lo < hi) {
+                MappedByteBuffer chunk = chunks[lo];
+                int limit = chunk.limit();
+                if (pos >= limit) {
+                    lo++;
+                    pos = 0;
+                    continue;
+                }
+                // lines of this chunk still to read = remaining minus the whole chunks after it
+                long line = firstLine + linesBefore[lo + 1] - (remaining - (linesBefore[hi] - linesBefore[lo + 1]));
+                int end = pos, fields = 0;
+                scratch[0] = pos;
+                for (; end < limit; end++) {
+                    byte b = chunk.get(end);
+                    if (b == '\n') break;
+                    if (b == ',') {
+                        if (2 * fields + 3 > scratch.length) scratch = Arrays.copyOf(scratch, scratch.length * 2);
+                        scratch[2 * fields + 1] = end;
+                        scratch[2 * ++fields] = end + 1;
+                    }
+                }
+                int stop = (end > pos && chunk.get(end - 1) == '\r') ? end - 1 : end;
+                scratch[2 * fields + 1] = Math.max(stop, scratch[2 * fields]);
+                pos = end + 1;
+                remaining--;
+                action.accept(new RawRecord(line, chunk, Arrays.copyOf(scratch, 2 * fields + 2)));
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public Spliterator<RawRecord> trySplit() {
+            if (hi - lo < 2) return null;
+            int mid = (lo + hi + 1) >>> 1;
+            long suffix = linesBefore[hi] - linesBefore[mid];
+            ChunkSpliterator prefix = new ChunkSpliterator(lo, mid, remaining - suffix);
+            prefix.pos = pos;
+            lo = mid;
+            pos = 0;
+            remaining = suffix;
+            return prefix;
+        }
+
+        @Override
+        public long estimateSize() { return remaining; }
+
+        @Override
+        public int characteristics() { return ORDERED | SIZED | SUBSIZED | NONNULL | IMMUTABLE; }
+    }
+}
@@ -1,7 +1,33 @@
 package com.bigdata.io;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 
+// How records become output bytes. Line formats only implement format(); binary or self-describing
+// formats override the batch methods. A writer calls header() once, then formatBatch() for runs of
+// up to batchSize() records (possibly from several threads at once), and finally footer() with
+// where each batch ended up in the file, in file order.
 public interface OutputFormatter<T> {
+    byte[] NONE = new byte[0];
+
     String format(T record) throws IOException;
-}
\ No newline at end of file
+
+    // Preferred records per formatBatch call.
+    default int batchSize() { return 4096; }
+
+    // Appends the encoding of records to out and returns a summary of the batch that footer() gets
+    // back (empty if the format keeps none). The default writes format() of each record as a line.
+    default byte[] formatBatch(List<? extends T> records, OutputStream out) throws IOException {
+        for (T record : records) {
+            out.write(format(record).getBytes(StandardCharsets.UTF_8));
+            out.write('\n');
+        }
+        return NONE;
+    }
+
+    default byte[] header() throws IOException { return NONE; }
+
+    default byte[] footer(List<WrittenBatch> batches) throws IOException { return NONE; }
+}
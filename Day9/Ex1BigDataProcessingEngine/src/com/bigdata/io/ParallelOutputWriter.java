@@ -0,0 +1,332 @@
+package com.bigdata.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+// Writes a stream with every worker of the current ForkJoinPool formatting, instead of funnelling
+// it through forEachOrdered into one writer. The stream's spliterator is split up front into
+// ordered chunks; workers claim chunks in order, run the stream's stages over one, and format its
+// records batch by batch (OutputFormatter.formatBatch) into a byte buffer (buffers are recycled
+// between chunks). The formatter's header and footer frame each file, the footer learning where
+// every batch landed. Then, per mode:
+// - ORDERED: a sequencer holds finished chunks until all earlier ones are written, and writes each
+//   contiguous run with one gathering FileChannel write; the file matches forEachOrdered's;
+// - UNORDERED: each chunk is written as soon as it is done, at a reserved file position;
+// - PARTITIONED: output is a directory and chunk i goes to its own file part-0000i, so the parts
+//   in name order hold the records in stream order.
+// Chunks hold at most MAX_CHUNK_RECORDS records (more if one formatter batch is larger), and at
+// most IN_FLIGHT_PER_WORKER chunks per worker are claimed but not yet written, so a slow early
+// chunk in ORDERED mode stalls the workers instead of piling finished chunks up in memory.
+public final class ParallelOutputWriter<T> {
+    public enum Mode { ORDERED, UNORDERED, PARTITIONED }
+
+    private static final int CHUNKS_PER_WORKER = 8, MIN_CHUNK_RECORDS = 1024, MAX_CHUNK_RECORDS = 1 << 18;
+    private static final int IN_FLIGHT_PER_WORKER = 2;
+    private static final int MAX_BUFFER = Integer.MAX_VALUE - 8; // largest array the VM reliably allocates
+
+    private final OutputFormatter<T> formatter;
+    private final Mode mode;
+    private final ConcurrentLinkedQueue<byte[]> spare = new ConcurrentLinkedQueue<>();
+
+    public ParallelOutputWriter(OutputFormatter<T> formatter, Mode mode) {
+        this.formatter = formatter;
+        this.mode = mode;
+    }
+
+    // Writes every record of the stream to output (a directory for PARTITIONED,
+    // whose old part files are deleted first); returns how many records were written.
+    public long write(Stream<T> records, Path output) throws IOException {
+        ForkJoinPool pool = ForkJoinTask.inForkJoinPool() ? ForkJoinTask.getPool() : ForkJoinPool.commonPool();
+        List<Spliterator<T>> chunks = new ArrayList<>();
+        Spliterator<T> all = records.spliterator();
+        long batch = Math.max(1, formatter.batchSize());
+        long target = all.estimateSize() / ((long) pool.getParallelism() * CHUNKS_PER_WORKER);
+        target = Math.max(Math.max(MIN_CHUNK_RECORDS, batch), Math.min(target, Math.max(MAX_CHUNK_RECORDS, batch)));
+        split(all, target, chunks);
+
+        FileChannel channel = null;
+        if (mode == Mode.PARTITIONED) {
+            Files.createDirectories(output);
+            try (DirectoryStream<Path> old = Files.newDirectoryStream(output, "part-*")) {
+                for (Path p : old) Files.delete(p);
+            }
+        } else {
+            channel = FileChannel.open(output, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        }
+        try (FileChannel out = channel) {
+            int workers = Math.min(pool.getParallelism(), Math.max(1, chunks.size()));
+            Run run = new Run(chunks, out, output, formatter.header(), workers * IN_FLIGHT_PER_WORKER);
+            if (out != null) {
+                writeFully(out, ByteBuffer.wrap(run.header), 0);
+                out.position(run.header.length); // ORDERED appends at the channel position
+            }
+            List<Future<?>> futures = new ArrayList<>(workers);
+            for (int i = 0; i < workers; i++) futures.add(pool.submit(run::work));
+            for (Future<?> f : futures) {
+                try {
+                    f.get();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while writing " + output, e);
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    if (cause instanceof UncheckedIOException) throw ((UncheckedIOException) cause).getCause();
+                    if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                    if (cause instanceof Error) throw (Error) cause;
+                    throw new IOException(cause);
+                }
+            }
+            if (out != null) {
+                List<WrittenBatch> layout = run.layout;
+                if (mode == Mode.UNORDERED) layout.sort(Comparator.comparingLong(WrittenBatch::getOffset));
+                writeFully(out, ByteBuffer.wrap(formatter.footer(layout)), mode == Mode.ORDERED ? run.fileOffset : run.position.get());
+            }
+            return run.written.sum();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes, long pos) throws IOException {
+        while (bytes.hasRemaining()) pos += channel.write(bytes, pos);
+    }
+
+    // Splits until chunks hold about target records, keeping encounter order in the list.
+    private static <T> void split(Spliterator<T> s, long target, List<Spliterator<T>> out) {
+        if (s.estimateSize() > target) {
+            Spliterator<T> prefix = s.trySplit();
+            if (prefix != null) {
+                split(prefix, target, out);
+                split(s, target, out);
+                return;
+            }
+        }
+        out.add(s);
+    }
+
+    // A formatted chunk, its batches placed relative to its first byte.
+    private static final class Formatted {
+        final ByteBuffer bytes;
+        final List<WrittenBatch> batches;
+
+        Formatted(ByteBuffer bytes, List<WrittenBatch> batches) {
+            this.bytes = bytes;
+            this.batches = batches;
+        }
+    }
+
+    private final class Run {
+        final List<Spliterator<T>> chunks;
+        final FileChannel channel;
+        final Path output;
+        final byte[] header;
+        final AtomicInteger nextChunk = new AtomicInteger();
+        final AtomicLong position; // UNORDERED: next free file offset
+        final LongAdder written = new LongAdder();
+        final List<WrittenBatch> layout = new ArrayList<>(); // guarded by this
+        final Semaphore inFlight; // a permit per chunk claimed and not yet written
+        volatile boolean failed;
+
+        // ORDERED: finished chunks waiting for their turn, guarded by this
+        final Formatted[] done;
+        int nextToWrite;
+        long fileOffset;
+        boolean writing;
+
+        Run(List<Spliterator<T>> chunks, FileChannel channel, Path output, byte[] header, int maxInFlight) {
+            this.chunks = chunks;
+            this.channel = channel;
+            this.output = output;
+            this.header = header;
+            this.done = new Formatted[chunks.size()];
+            this.position = new AtomicLong(header.length);
+            this.fileOffset = header.length;
+            this.inFlight = new Semaphore(maxInFlight);
+        }
+
+        // A permit is taken before a chunk is claimed, so the earliest unwritten chunk always has a
+        // worker formatting it and the sequencer can always make progress.
+        void work() {
+            try {
+                while (!failed) {
+                    inFlight.acquire();
+                    int i = nextChunk.getAndIncrement();
+                    if (failed || i >= chunks.size()) {
+                        inFlight.release();
+                        return;
+                    }
+                    Formatted chunk = format(chunks.get(i));
+                    chunks.set(i, null);
+                    switch (mode) {
+                        case ORDERED: sequence(i, chunk); break; // releases the permits of what it writes
+                        case UNORDERED: writeAt(chunk); inFlight.release(); break;
+                        default: writePart(i, chunk); inFlight.release(); break;
+                    }
+                }
+            } catch (InterruptedException e) {
+                fail();
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("interrupted while writing " + output, e));
+            } catch (IOException e) {
+                fail();
+                throw new UncheckedIOException(e);
+            } catch (RuntimeException | Error e) {
+                fail();
+                throw e;
+            }
+        }
+
+        // Stops the run and wakes the workers waiting for a permit, so they see it and return.
+        void fail() {
+            failed = true;
+            inFlight.release(chunks.size() + 1);
+        }
+
+        Formatted format(Spliterator<T> chunk) throws IOException {
+            Buffer buf = new Buffer(takeSpare());
+            List<WrittenBatch> batches = new ArrayList<>();
+            int batchSize = Math.max(1, formatter.batchSize());
+            List<T> batch = new ArrayList<>(Math.min(batchSize, 4096));
+            chunk.forEachRemaining(record -> {
+                batch.add(record);
+                if (batch.size() == batchSize) flush(batch, buf, batches);
+            });
+            if (!batch.isEmpty()) flush(batch, buf, batches);
+            return new Formatted(ByteBuffer.wrap(buf.bytes, 0, buf.length), batches);
+        }
+
+        void flush(List<T> batch, Buffer buf, List<WrittenBatch> batches) {
+            long start = buf.length;
+            try {
+                byte[] summary = formatter.formatBatch(batch, buf);
+                batches.add(new WrittenBatch(start, buf.length - start, batch.size(), summary));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            written.add(batch.size());
+            batch.clear();
+        }
+
+        void sequence(int index, Formatted chunk) throws IOException {
+            synchronized (this) {
+                done[index] = chunk;
+                if (writing) return; // the current writer will pick it up
+                writing = true;
+            }
+            while (true) {
+                ByteBuffer[] batch;
+                synchronized (this) {
+                    int end = nextToWrite;
+                    while (end < done.length && done[end] != null) end++;
+                    if (end == nextToWrite) {
+                        writing = false;
+                        return;
+                    }
+                    batch = new ByteBuffer[end - nextToWrite];
+                    for (int i = nextToWrite; i < end; i++) {
+                        batch[i - nextToWrite] = done[i].bytes;
+                        for (WrittenBatch b : done[i].batches) layout.add(b.movedBy(fileOffset));
+                        fileOffset += done[i].bytes.remaining();
+                        done[i] = null;
+                    }
+                    nextToWrite = end;
+                }
+                try {
+                    long remaining = 0;
+                    for (ByteBuffer b : batch) remaining += b.remaining();
+                    while (remaining > 0) remaining -= channel.write(batch);
+                } catch (IOException | RuntimeException e) {
+                    synchronized (this) {
+                        writing = false;
+                    }
+                    throw e;
+                }
+                for (ByteBuffer b : batch) recycle(b);
+                inFlight.release(batch.length);
+            }
+        }
+
+        void writeAt(Formatted chunk) throws IOException {
+            long pos = position.getAndAdd(chunk.bytes.remaining());
+            synchronized (this) {
+                for (WrittenBatch b : chunk.batches) layout.add(b.movedBy(pos));
+            }
+            writeFully(channel, chunk.bytes, pos);
+            recycle(chunk.bytes);
+        }
+
+        // Each part is a complete file: header, the chunk, and a footer for the chunk alone.
+        void writePart(int index, Formatted chunk) throws IOException {
+            if (chunk.batches.isEmpty()) return;
+            Path part = output.resolve(String.format("part-%05d", index));
+            List<WrittenBatch> placed = new ArrayList<>(chunk.batches.size());
+            for (WrittenBatch b : chunk.batches) placed.add(b.movedBy(header.length));
+            ByteBuffer[] file = {ByteBuffer.wrap(header), chunk.bytes, ByteBuffer.wrap(formatter.footer(placed))};
+            try (FileChannel ch = FileChannel.open(part, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long remaining = 0;
+                for (ByteBuffer b : file) remaining += b.remaining();
+                while (remaining > 0) remaining -= ch.write(file);
+            }
+            recycle(chunk.bytes);
+        }
+    }
+
+    private byte[] takeSpare() {
+        byte[] b = spare.poll();
+        return (b != null) ? b : new byte[1 << 16];
+    }
+
+    private void recycle(ByteBuffer b) {
+        if (b.hasArray()) spare.offer(b.array());
+    }
+
+    // Growable byte array; the array it starts with is reused, not copied. It grows by half, up to
+    // MAX_BUFFER bytes; a chunk that needs more fails with an IOException rather than overflowing.
+    private static final class Buffer extends OutputStream {
+        byte[] bytes;
+        int length;
+
+        Buffer(byte[] bytes) { this.bytes = bytes; }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (length == bytes.length) grow(1);
+            bytes[length++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            if (len > bytes.length - length) grow(len);
+            System.arraycopy(b, off, bytes, length, len);
+            length += len;
+        }
+
+        private void grow(int extra) throws IOException {
+            long needed = (long) length + extra;
+            if (needed > MAX_BUFFER) throw new IOException("chunk needs " + needed + " bytes, more than one buffer holds (" + MAX_BUFFER + ")");
+            long wanted = Math.max(needed, bytes.length + (bytes.length >> 1));
+            byte[] grown = new byte[(int) Math.min(wanted, MAX_BUFFER)];
+            System.arraycopy(bytes, 0, grown, 0, length);
+            bytes = grown;
+        }
+    }
+}
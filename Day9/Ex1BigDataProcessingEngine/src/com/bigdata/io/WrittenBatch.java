@@ -0,0 +1,25 @@
+package com.bigdata.io;
+
+// Where a formatted batch landed in its output file, and the summary its formatter returned.
+public class WrittenBatch {
+    private final long offset;
+    private final long length;
+    private final int records;
+    private final byte[] summary;
+
+    public WrittenBatch(long offset, long length, int records, byte[] summary) {
+        this.offset = offset;
+        this.length = length;
+        this.records = records;
+        this.summary = summary;
+    }
+
+    public long getOffset() { return offset; }
+    public long getLength() { return length; }
+    public int getRecords() { return records; }
+    public byte[] getSummary() { return summary; }
+
+    public WrittenBatch movedBy(long delta) {
+        return new WrittenBatch(offset + delta, length, records, summary);
+    }
+}
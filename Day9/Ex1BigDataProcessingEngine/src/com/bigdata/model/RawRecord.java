@@ -1,22 +1,51 @@
 package com.bigdata.model;
 
-import java.time.LocalDateTime;
-import java.util.DoubleSummaryStatistics;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 
 // Giả định dữ liệu đầu vào từ CSV
+// Either holds ready-made fields, or is a view over one line of a (memory-mapped) buffer: field i
+// spans bytes [bounds[2i], bounds[2i+1]) and becomes a String only when first asked for.
 public class RawRecord {
-    private final int lineNum;
-    private final String[] fields;
+    private final long lineNum;
+    private String[] fields;
+    private final ByteBuffer source;
+    private final int[] bounds;
 
-    public RawRecord(int lineNum, String[] fields) {
+    public RawRecord(long lineNum, String[] fields) {
         this.lineNum = lineNum;
         this.fields = fields;
+        this.source = null;
+        this.bounds = null;
+    }
+
+    public RawRecord(long lineNum, ByteBuffer source, int[] bounds) {
+        this.lineNum = lineNum;
+        this.source = source;
+        this.bounds = bounds;
+    }
+
+    public long getLineNum() { return lineNum; }
+
+    public int getFieldCount() {
+        if (bounds != null) return bounds.length / 2;
+        return (fields != null) ? fields.length : 0;
     }
 
-    public int getLineNum() { return lineNum; }
     public String getField(int index) {
-        return (fields != null && index < fields.length) ? fields[index] : null;
+        if (index < 0 || index >= getFieldCount()) return null;
+        if (fields == null) fields = new String[bounds.length / 2];
+        String field = fields[index];
+        if (field == null) {
+            byte[] bytes = new byte[bounds[2 * index + 1] - bounds[2 * index]];
+            source.get(bounds[2 * index], bytes);
+            fields[index] = field = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return field;
     }
-    public String[] getFields() { return fields; }
-}
 
+    public String[] getFields() {
+        for (int i = 0; i < getFieldCount(); i++) getField(i);
+        return fields;
+    }
+}
@@ -1,5 +1,6 @@
 package com.bigdata.processors;
 
+import com.bigdata.io.MappedCsvReader;
 import com.bigdata.model.RawRecord;
 import java.io.IOException;
 import java.io.UncheckedIOException;
@@ -10,15 +11,12 @@ import java.util.stream.Stream;
 
 public class FileChunker {
 
-    // Creates a memory-efficient stream from a large file
+    // Creates a memory-efficient stream from a large file: memory-mapped, newline-aligned chunks that
+    // split evenly for parallel streams, with records parsed in place and real line numbers
     public static Stream<RawRecord> streamFile(Path path) {
         try {
-            // Files.lines provides the core memory-efficient, lazy source
-            return Files.lines(path)
-                    .skip(1) // Skip header line
-                    .map(line -> line.split(","))
-                    .filter(fields -> fields.length >= 3) // Basic integrity check
-                    .map(fields -> new RawRecord(0, fields)); // Note: Line number tracking simplified
+            return MappedCsvReader.open(path, true).stream() // Header skipped
+                    .filter(record -> record.getFieldCount() >= 3); // Basic integrity check
         } catch (IOException e) {
             throw new UncheckedIOException("Failed to stream file: " + path, e);
         }
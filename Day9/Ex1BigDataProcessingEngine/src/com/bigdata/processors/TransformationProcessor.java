@@ -9,6 +9,7 @@ import com.bigdata.util.PerformanceMetrics;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class TransformationProcessor implements DataProcessor<ValidatedRecord, DataRecord> {
@@ -27,7 +28,19 @@ public class TransformationProcessor implements DataProcessor<ValidatedRecord, D
                 .map(Optional::get);
     }
 
+    // Record-at-a-time mode: no Optional, no stream
+    @Override
+    public void push(ValidatedRecord record, Consumer<? super DataRecord> out) {
+        DataRecord transformed = transform(record);
+        if (transformed != null) out.accept(transformed);
+    }
+
     private Optional<DataRecord> transformToDataRecord(ValidatedRecord record) {
+        return Optional.ofNullable(transform(record));
+    }
+
+    // null if the record cannot be transformed (the error is logged)
+    private DataRecord transform(ValidatedRecord record) {
         RawRecord raw = record.getRawRecord();
         try {
             // Mapping fields (assuming CSV structure: 0=timestamp, 1=category, 2=value)
@@ -35,12 +48,12 @@ public class TransformationProcessor implements DataProcessor<ValidatedRecord, D
             String category = raw.getField(1);
             double value = Double.parseDouble(raw.getField(2));
 
-            return Optional.of(new DataRecord(category, value, timestamp));
+            return new DataRecord(category, value, timestamp);
 
         } catch (Exception e) {
             // Log transformation errors (e.g., unexpected data type or format)
-            metrics.logError(e, "TRANSFORMATION_ERROR_LINE_" + raw.getLineNum());
-            return Optional.empty();
+            metrics.recordError("TRANSFORMATION_ERROR", raw.getLineNum(), e);
+            return null;
         }
     }
 }
\ No newline at end of file
@@ -7,6 +7,7 @@ import com.bigdata.util.ValidationRule;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Stream;
 
 public class ValidationProcessor implements DataProcessor<RawRecord, ValidatedRecord> {
@@ -25,13 +26,21 @@ public class ValidationProcessor implements DataProcessor<RawRecord, ValidatedRe
                 .map(Optional::get);         // Extract the ValidatedRecord
     }
 
-    private Optional<ValidatedRecord> validateRecord(RawRecord record) {
+    // Record-at-a-time mode: no Optional, no stream
+    @Override
+    public void push(RawRecord record, Consumer<? super ValidatedRecord> out) {
+        if (isValid(record)) out.accept(new ValidatedRecord(record));
+    }
+
+    private boolean isValid(RawRecord record) {
         for (ValidationRule<RawRecord> rule : rules) {
-            if (!rule.test(record)) {
-                // Failed validation, return empty Optional
-                return Optional.empty();
-            }
+            if (!rule.test(record)) return false;
         }
-        return Optional.of(new ValidatedRecord(record));
+        return true;
+    }
+
+    private Optional<ValidatedRecord> validateRecord(RawRecord record) {
+        // Failed validation gives an empty Optional
+        return isValid(record) ? Optional.of(new ValidatedRecord(record)) : Optional.empty();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,67 @@
+package com.bigdata.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Error count of one category plus a uniform sample of at most `capacity` of its errors (reservoir
+// sampling, Algorithm R). Only errors that make it into the sample are turned into a Sample, so a
+// high error rate costs a counter increment and a random draw per error, not a formatted string.
+public class ErrorReservoir {
+    private final int capacity;
+    private final Sample[] samples;
+    private final AtomicLong seen = new AtomicLong();
+
+    public ErrorReservoir(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        this.capacity = capacity;
+        this.samples = new Sample[capacity];
+    }
+
+    // lineNum < 0 when the error is not tied to an input line.
+    public void record(long lineNum, Throwable error) {
+        long n = seen.getAndIncrement();
+        long slot = n < capacity ? n : ThreadLocalRandom.current().nextLong(n + 1);
+        if (slot >= capacity) return;
+        Sample sample = new Sample(lineNum, error.getClass().getSimpleName(), error.getMessage());
+        synchronized (this) {
+            samples[(int) slot] = sample;
+        }
+    }
+
+    public long getCount() { return seen.get(); }
+
+    public synchronized List<Sample> getSamples() {
+        List<Sample> out = new ArrayList<>(capacity);
+        for (Sample s : samples) if (s != null) out.add(s);
+        return out;
+    }
+
+    public synchronized void reset() {
+        seen.set(0);
+        Arrays.fill(samples, null);
+    }
+
+    public static class Sample {
+        private final long lineNum;
+        private final String type;
+        private final String message;
+
+        Sample(long lineNum, String type, String message) {
+            this.lineNum = lineNum;
+            this.type = type;
+            this.message = message;
+        }
+
+        public long getLineNum() { return lineNum; }
+        public String getType() { return type; }
+        public String getMessage() { return message; }
+
+        @Override
+        public String toString() {
+            return (lineNum >= 0 ? "line " + lineNum + ": " : "") + type + ": " + message;
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.bigdata.util;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Concurrent latency histogram in the style of HdrHistogram: values (nanoseconds) below 64 get a
+// bucket each, above that every power-of-two range is split into 32 linear sub-buckets, so any
+// recorded value is reported within about 3% of itself. Values above MAX_VALUE (about 18 minutes)
+// are clamped. Counts are striped by thread so pipeline workers rarely touch the same cache line;
+// a snapshot sums the stripes.
+public class LatencyHistogram {
+    public static final long MAX_VALUE = (1L << 40) - 1;
+
+    private static final int SUB_BITS = 5, SUB = 1 << SUB_BITS;
+    private static final int BUCKETS = index(MAX_VALUE) + 1;
+    private static final int SUM = BUCKETS, MAX = BUCKETS + 1, STRIDE = BUCKETS + 2;
+
+    private final AtomicLongArray counts;
+    private final int stripeMask;
+
+    public LatencyHistogram() {
+        int stripes = Integer.highestOneBit(Math.min(8, Runtime.getRuntime().availableProcessors()) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.counts = new AtomicLongArray(stripes * STRIDE);
+    }
+
+    public void record(long nanos) {
+        long value = Math.max(0, Math.min(MAX_VALUE, nanos));
+        int base = (int) (Thread.currentThread().getId() & stripeMask) * STRIDE;
+        counts.incrementAndGet(base + index(value));
+        counts.addAndGet(base + SUM, value);
+        long max;
+        while (value > (max = counts.get(base + MAX)) && !counts.compareAndSet(base + MAX, max, value)) { }
+    }
+
+    public void reset() {
+        for (int i = 0; i < counts.length(); i++) counts.set(i, 0);
+    }
+
+    public Snapshot snapshot() {
+        long[] merged = new long[BUCKETS];
+        long sum = 0, max = 0;
+        for (int base = 0; base < counts.length(); base += STRIDE) {
+            for (int i = 0; i < BUCKETS; i++) merged[i] += counts.get(base + i);
+            sum += counts.get(base + SUM);
+            max = Math.max(max, counts.get(base + MAX));
+        }
+        return new Snapshot(merged, sum, max);
+    }
+
+    static int index(long value) {
+        if (value < 2 * SUB) return (int) value;
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB + (int) (value >>> shift) - SUB;
+    }
+
+    // Largest value that falls into bucket i.
+    static long highestEquivalent(int i) {
+        if (i < 2 * SUB) return i;
+        int shift = i / SUB - 1;
+        long sub = i - shift * SUB;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    // Point-in-time copy of a histogram; counts recorded while it was taken may be partly included.
+    public static class Snapshot {
+        private final long[] buckets;
+        private final long count, sum, max;
+
+        Snapshot(long[] buckets, long sum, long max) {
+            long count = 0;
+            for (long c : buckets) count += c;
+            this.buckets = buckets;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long getCount() { return count; }
+        public long getMax() { return max; }
+        public double getMean() { return count == 0 ? 0 : (double) sum / count; }
+
+        // Value at the given percentile (0-100], as the upper end of its bucket, capped at max.
+        public long percentile(double percentile) {
+            if (count == 0) return 0;
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+            long seen = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                seen += buckets[i];
+                if (seen >= rank) return Math.min(max, highestEquivalent(i));
+            }
+            return max;
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.bigdata.util;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+
+// Immutable copy of PerformanceMetrics at one instant; counters are cumulative since start().
+public class MetricsSnapshot {
+    private final Instant takenAt;
+    private final Duration elapsed;
+    private final long recordsProcessed;
+    private final long errors;
+    private final List<StageSnapshot> stages;
+    private final Map<String, ErrorSnapshot> errorsByCategory;
+
+    MetricsSnapshot(Instant takenAt, Duration elapsed, long recordsProcessed, long errors,
+                    List<StageSnapshot> stages, Map<String, ErrorSnapshot> errorsByCategory) {
+        this.takenAt = takenAt;
+        this.elapsed = elapsed;
+        this.recordsProcessed = recordsProcessed;
+        this.errors = errors;
+        this.stages = stages;
+        this.errorsByCategory = errorsByCategory;
+    }
+
+    public Instant getTakenAt() { return takenAt; }
+    public Duration getElapsed() { return elapsed; }
+    public long getRecordsProcessed() { return recordsProcessed; }
+    public long getErrors() { return errors; }
+    public List<StageSnapshot> getStages() { return stages; }
+    public Map<String, ErrorSnapshot> getErrorsByCategory() { return errorsByCategory; }
+
+    public double getRecordsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos == 0 ? 0 : recordsProcessed * 1e9 / nanos;
+    }
+
+    // One line per stage and error category, for logs.
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("elapsed=%s records=%d (%.0f/s) errors=%d%n", elapsed, recordsProcessed, getRecordsPerSecond(), errors));
+        for (StageSnapshot s : stages) sb.append("  ").append(s).append(System.lineSeparator());
+        errorsByCategory.forEach((category, e) ->
+                sb.append(String.format("  error %s: %d%n", category, e.getCount())));
+        return sb.toString();
+    }
+
+    public static class StageSnapshot {
+        private final String name;
+        private final long in, out, errors;
+        private final LatencyHistogram.Snapshot latency;
+
+        StageSnapshot(String name, long in, long out, long errors, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.in = in;
+            this.out = out;
+            this.errors = errors;
+            this.latency = latency;
+        }
+
+        public String getName() { return name; }
+        public long getIn() { return in; }
+        public long getOut() { return out; }
+        public long getErrors() { return errors; }
+        public LatencyHistogram.Snapshot getLatency() { return latency; }
+
+        @Override
+        public String toString() {
+            return String.format("stage %s: in=%d out=%d errors=%d latency(ns) p50=%d p99=%d p99.9=%d max=%d mean=%.0f",
+                    name, in, out, errors, latency.percentile(50), latency.percentile(99),
+                    latency.percentile(99.9), latency.getMax(), latency.getMean());
+        }
+    }
+
+    public static class ErrorSnapshot {
+        private final long count;
+        private final List<ErrorReservoir.Sample> samples;
+
+        ErrorSnapshot(long count, List<ErrorReservoir.Sample> samples) {
+            this.count = count;
+            this.samples = samples;
+        }
+
+        public long getCount() { return count; }
+        public List<ErrorReservoir.Sample> getSamples() { return samples; }
+    }
+}
@@ -3,36 +3,154 @@ package com.bigdata.util;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
-// Utility for Performance Metrics
+// Utility for Performance Metrics. Safe to call from parallel stream workers: counters are
+// LongAdders, stage latencies go to striped LatencyHistograms, and errors are counted per category
+// with a bounded sample of examples (ErrorReservoir) instead of a message per error.
+// start() begins a new run and clears everything recorded before.
 public class PerformanceMetrics {
-    private Instant startTime;
-    private Instant endTime;
-    private final List<String> errorLogs = new ArrayList<>();
-    private long totalRecordsProcessed = 0;
-    private long totalErrors = 0;
+    private static final int SAMPLES_PER_CATEGORY = 10;
+
+    private volatile Instant startTime;
+    private volatile Instant endTime;
+    private final LongAdder totalRecordsProcessed = new LongAdder();
+    private final LongAdder totalErrors = new LongAdder();
+    private final Map<String, Stage> stages = new LinkedHashMap<>(); // guarded by this
+    private final ConcurrentHashMap<String, ErrorReservoir> errorsByCategory = new ConcurrentHashMap<>();
+
+    public synchronized void start() {
+        totalRecordsProcessed.reset();
+        totalErrors.reset();
+        stages.values().forEach(Stage::reset);
+        errorsByCategory.clear();
+        endTime = null;
+        startTime = Instant.now();
+    }
 
-    public void start() { startTime = Instant.now(); }
     public void stop() { endTime = Instant.now(); }
 
     public void logError(Exception e, String context) {
-        totalErrors++;
-        errorLogs.add(String.format("[%s] Error: %s", context, e.getMessage()));
+        recordError(context, -1, e);
     }
 
-    public void recordProcessed(long count) { totalRecordsProcessed += count; }
+    // lineNum < 0 when the error is not tied to an input line.
+    public void recordError(String category, long lineNum, Throwable e) {
+        totalErrors.increment();
+        ErrorReservoir reservoir = errorsByCategory.get(category);
+        if (reservoir == null) reservoir = errorsByCategory.computeIfAbsent(category, c -> new ErrorReservoir(SAMPLES_PER_CATEGORY));
+        reservoir.record(lineNum, e);
+    }
+
+    public void recordProcessed(long count) { totalRecordsProcessed.add(count); }
+
+    // The named stage's counters and latency histogram, created on first use.
+    public synchronized Stage stage(String name) {
+        return stages.computeIfAbsent(name, Stage::new);
+    }
 
     public Duration getDuration() {
-        return (startTime != null && endTime != null) ? Duration.between(startTime, endTime) : Duration.ZERO;
+        Instant start = startTime, end = endTime;
+        return (start != null && end != null) ? Duration.between(start, end) : Duration.ZERO;
+    }
+
+    public MetricsSnapshot snapshot() {
+        Instant now = Instant.now(), start = startTime, end = endTime;
+        Duration elapsed = start == null ? Duration.ZERO : Duration.between(start, end != null ? end : now);
+        List<MetricsSnapshot.StageSnapshot> stageSnapshots = new ArrayList<>();
+        synchronized (this) {
+            for (Stage s : stages.values()) stageSnapshots.add(s.snapshot());
+        }
+        Map<String, MetricsSnapshot.ErrorSnapshot> errors = new TreeMap<>();
+        errorsByCategory.forEach((category, r) -> errors.put(category, new MetricsSnapshot.ErrorSnapshot(r.getCount(), r.getSamples())));
+        return new MetricsSnapshot(now, elapsed, totalRecordsProcessed.sum(), totalErrors.sum(),
+                Collections.unmodifiableList(stageSnapshots), Collections.unmodifiableMap(errors));
+    }
+
+    // Hands a snapshot to sink every period from a daemon thread until the returned handle is
+    // closed; closing it exports one last snapshot.
+    public AutoCloseable exportEvery(Duration period, Consumer<MetricsSnapshot> sink) {
+        ScheduledExecutorService exporter = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "metrics-export");
+            t.setDaemon(true);
+            return t;
+        });
+        long nanos = period.toNanos();
+        exporter.scheduleAtFixedRate(() -> sink.accept(snapshot()), nanos, nanos, TimeUnit.NANOSECONDS);
+        return () -> {
+            exporter.shutdownNow();
+            exporter.awaitTermination(1, TimeUnit.SECONDS);
+            sink.accept(snapshot());
+        };
     }
 
     public void printMetrics() {
+        MetricsSnapshot snapshot = snapshot();
         System.out.println("--- Performance Metrics ---");
         System.out.printf("Total Duration: %s%n", getDuration());
-        System.out.printf("Records Processed: %d%n", totalRecordsProcessed);
-        System.out.printf("Total Errors: %d%n", totalErrors);
-        errorLogs.forEach(System.err::println);
+        System.out.printf("Records Processed: %d%n", snapshot.getRecordsProcessed());
+        System.out.printf("Total Errors: %d%n", snapshot.getErrors());
+        snapshot.getStages().forEach(System.out::println);
+        snapshot.getErrorsByCategory().forEach((category, e) -> {
+            System.err.printf("[%s] %d errors, e.g.:%n", category, e.getCount());
+            e.getSamples().forEach(sample -> System.err.println("  " + sample));
+        });
         System.out.println("---------------------------");
     }
+
+    // Counters of one pipeline stage: records in and out, errors, and per-record latency. Callers
+    // time only the records sampleLatency() picks (one in LATENCY_SAMPLE_RATE, at random), which
+    // keeps clock reads off most records; counts are exact.
+    public static class Stage {
+        public static final int LATENCY_SAMPLE_RATE = 16;
+
+        private final String name;
+        private final LongAdder in = new LongAdder(), out = new LongAdder(), errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        Stage(String name) { this.name = name; }
+
+        public String getName() { return name; }
+
+        // One input record that took nanos and produced outputs records.
+        public void record(long nanos, int outputs) {
+            in.increment();
+            if (outputs != 0) out.add(outputs);
+            latency.record(nanos);
+        }
+
+        // One input record that was not timed.
+        public void count(int outputs) {
+            in.increment();
+            if (outputs != 0) out.add(outputs);
+        }
+
+        public boolean sampleLatency() {
+            return ThreadLocalRandom.current().nextInt(LATENCY_SAMPLE_RATE) == 0;
+        }
+
+        public void error() { errors.increment(); }
+
+        void reset() {
+            in.reset();
+            out.reset();
+            errors.reset();
+            latency.reset();
+        }
+
+        MetricsSnapshot.StageSnapshot snapshot() {
+            return new MetricsSnapshot.StageSnapshot(name, in.sum(), out.sum(), errors.sum(), latency.snapshot());
+        }
+    }
 }
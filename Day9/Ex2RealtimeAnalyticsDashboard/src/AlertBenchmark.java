@@ -0,0 +1,104 @@
+import com.realtime.analytics.AlertingEngine;
+import com.realtime.model.AlertConfig;
+import com.realtime.store.MetricStore;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+// AlertingEngine with 10k rules (exact, prefix and pattern) over 100k metrics, against the scan it
+// replaced (every metric against every rule with String.contains, reproduced below). The scan is
+// timed on a sample of the metrics and scaled up; the engine on all of them:
+// - first update of each metric (rule lookup in the index, then evaluation);
+// - later updates (the lookup is cached per metric);
+// - the scheduled tick, which only visits the pending and firing alerts.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java -Xmx3g AlertBenchmark [rules] [metrics]
+public class AlertBenchmark {
+    private static final String[] KINDS = {"latency_p99", "error_rate", "cpu", "mem"};
+    private static final int SAMPLE = 2_000;
+
+    public static void main(String[] args) {
+        int ruleCount = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int metricCount = args.length > 1 ? Integer.parseInt(args[1]) : 100_000;
+        Random random = new Random(42);
+
+        String[] metrics = new String[metricCount];
+        int hosts = metricCount / KINDS.length / 100;
+        for (int i = 0; i < metricCount; i++) {
+            int svc = i / KINDS.length / hosts, host = i / KINDS.length % hosts;
+            metrics[i] = String.format("svc%03d.host%03d.%s", svc, host, KINDS[i % KINDS.length]);
+        }
+        List<AlertConfig> rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            String metric = metrics[random.nextInt(metricCount)];
+            double threshold = 90 + random.nextInt(10);
+            if (i % 10 < 7) {
+                rules.add(AlertConfig.exact(metric).above(threshold).clearAt(threshold - 5).forDuration(Duration.ofSeconds(30)).build());
+            } else if (i % 10 < 9) {
+                rules.add(AlertConfig.prefix(metric.substring(0, metric.lastIndexOf('.') + 1)).above(threshold).build());
+            } else {
+                rules.add(AlertConfig.pattern(metric.substring(0, 7) + "*." + KINDS[random.nextInt(KINDS.length)]).above(threshold).build());
+            }
+        }
+        double[] values = new double[metricCount];
+        for (int i = 0; i < metricCount; i++) values[i] = random.nextDouble() * 100;
+        System.out.printf("%,d rules, %,d metrics%n%-40s %12s %14s%n", ruleCount, metricCount, "", "ms", "ns/metric");
+
+        // The old scan, on a sample
+        List<LegacyRule> legacy = new ArrayList<>();
+        for (AlertConfig rule : rules) legacy.add(new LegacyRule(rule.getMetricName().replace("*", ""), rule.getThreshold()));
+        long hits = 0;
+        for (int rep = 0; rep < 2; rep++) {
+            long t0 = System.nanoTime();
+            for (int i = 0; i < SAMPLE; i++) hits += legacyCheck(legacy, metrics[i], values[i]);
+            long nanos = System.nanoTime() - t0;
+            report("contains scan (scaled from " + SAMPLE + ")", nanos * (metricCount / SAMPLE), metricCount);
+        }
+
+        for (int rep = 0; rep < 3; rep++) {
+            long t0 = System.nanoTime();
+            AlertingEngine engine = new AlertingEngine(new MetricStore(), rules);
+            long t1 = System.nanoTime();
+            int[] notifications = new int[1];
+            engine.setNotifier(n -> notifications[0]++);
+            for (int i = 0; i < metricCount; i++) engine.onMetric(metrics[i], values[i]);
+            long t2 = System.nanoTime();
+            for (int i = 0; i < metricCount; i++) engine.onMetric(metrics[i], 100 - values[i]);
+            long t3 = System.nanoTime();
+            engine.checkAlerts();
+            long t4 = System.nanoTime();
+            report("index build", t1 - t0, metricCount);
+            report("first update (lookup + evaluate)", t2 - t1, metricCount);
+            report("next update (evaluate)", t3 - t2, metricCount);
+            report("tick", t4 - t3, metricCount);
+            System.out.printf("  (%,d evaluations, %,d notifications)%n", engine.getEvaluationCount(), notifications[0]);
+        }
+        System.out.println("(legacy hits " + hits + ")");
+    }
+
+    static int legacyCheck(List<LegacyRule> rules, String name, double value) {
+        int hits = 0;
+        for (LegacyRule rule : rules) {
+            if (name.contains(rule.metricName) && rule.threshold.test(value)) hits++;
+        }
+        return hits;
+    }
+
+    static void report(String name, long nanos, int metrics) {
+        System.out.printf("%-40s %12.2f %14.1f%n", name, nanos / 1e6, (double) nanos / metrics);
+    }
+
+    // AlertConfig as the old AlertingEngine.checkAlerts matched it
+    static final class LegacyRule {
+        final String metricName;
+        final Predicate<Double> threshold;
+
+        LegacyRule(String metricName, Predicate<Double> threshold) {
+            this.metricName = metricName;
+            this.threshold = threshold;
+        }
+    }
+}
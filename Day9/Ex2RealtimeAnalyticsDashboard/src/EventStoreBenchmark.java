@@ -0,0 +1,114 @@
+import com.realtime.model.Event;
+import com.realtime.store.EventStore;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// EventStore against the store it replaced (a CopyOnWriteArrayList of events plus a JSON string per
+// event as history, reproduced below):
+// - ingest throughput as the store grows; the old store copies its whole array per event;
+// - latency of a 5-minute window (count, and average value per type) over `minutes` of events
+//   arriving at `rate` per second, and of expiring the oldest minute (EventStore only: the old
+//   cleanup's removeAll checks every event against a list of the expired ones).
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java -Xmx3g EventStoreBenchmark [rate] [minutes]
+public class EventStoreBenchmark {
+    private static final String[] TYPES = {"PAGE_VIEW", "TRANSACTION", "ERROR"};
+
+    public static void main(String[] args) {
+        int rate = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int minutes = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+        System.out.printf("%-34s %12s %14s%n", "ingest", "events", "events/s");
+        for (int n = 10_000; n <= 80_000; n *= 2) {
+            Event[] events = events(base, rate, n);
+            LegacyEventStore legacy = new LegacyEventStore();
+            long t0 = System.nanoTime();
+            for (Event e : events) legacy.ingestEvent(e);
+            report("CopyOnWriteArrayList + strings", n, System.nanoTime() - t0);
+        }
+        Event[] events = events(base, rate, rate * 60 * minutes);
+        for (int rep = 0; rep < 3; rep++) {
+            EventStore store = new EventStore();
+            long t0 = System.nanoTime();
+            for (Event e : events) store.ingestEvent(e);
+            report("EventStore", events.length, System.nanoTime() - t0);
+        }
+
+        LegacyEventStore legacy = new LegacyEventStore(events);
+        EventStore store = new EventStore();
+        for (Event e : events) store.ingestEvent(e);
+        LocalDateTime end = events[events.length - 1].getTimestamp(), start = end.minusMinutes(5);
+        System.out.printf("%nwindow: 5 of %d minutes at %,d events/s (%,d events)%n", minutes, rate, events.length);
+        System.out.printf("%-34s %12s%n", "query", "ms");
+        for (int rep = 0; rep < 3; rep++) {
+            long t0 = System.nanoTime();
+            long count = legacy.getEventsInWindow(start, end).count();
+            long t1 = System.nanoTime();
+            Map<String, Double> avg = legacy.getEventsInWindow(start, end).filter(e -> e.getValue() != null)
+                    .collect(Collectors.groupingBy(Event::getType, Collectors.averagingDouble(Event::getValue)));
+            long t2 = System.nanoTime();
+            System.out.printf("%-34s %12.2f   (%d)%n", "old count", (t1 - t0) / 1e6, count);
+            System.out.printf("%-34s %12.2f   (TRANSACTION %.3f)%n", "old average by type", (t2 - t1) / 1e6, avg.get("TRANSACTION"));
+
+            t0 = System.nanoTime();
+            count = store.countInWindow(start, end);
+            t1 = System.nanoTime();
+            double[] sums = new double[TYPES.length];
+            long[] counts = new long[TYPES.length];
+            store.forEachInWindow(start, end, (time, type, value, hasValue) -> {
+                if (hasValue) {
+                    sums[type] += value;
+                    counts[type]++;
+                }
+            });
+            t2 = System.nanoTime();
+            int tx = store.typeId("TRANSACTION");
+            System.out.printf("%-34s %12.2f   (%d)%n", "EventStore count", (t1 - t0) / 1e6, count);
+            System.out.printf("%-34s %12.3f   (TRANSACTION %.3f)%n", "EventStore average by type", (t2 - t1) / 1e6, sums[tx] / counts[tx]);
+        }
+        long t0 = System.nanoTime();
+        store.cleanupOldEvents(events[0].getTimestamp().plusMinutes(1));
+        System.out.printf("%-34s %12.2f   (history %,d bytes)%n", "EventStore expire 1 minute",
+                (System.nanoTime() - t0) / 1e6, store.historyBytes());
+    }
+
+    static Event[] events(LocalDateTime base, int rate, int n) {
+        Event[] events = new Event[n];
+        long step = 1_000_000_000L / rate;
+        for (int i = 0; i < n; i++) {
+            String type = TYPES[i % 10 == 9 ? 2 : i % 2];
+            events[i] = new Event(base.plusNanos(i * step), type, type.equals("PAGE_VIEW") ? 0.0 : (i % 97) / 7.0);
+        }
+        return events;
+    }
+
+    static void report(String name, int events, long nanos) {
+        System.out.printf("%-34s %12d %14.0f%n", name, events, events / (nanos / 1e9));
+    }
+
+    // The EventStore this benchmark compares against
+    static class LegacyEventStore {
+        private final CopyOnWriteArrayList<Event> recentEvents;
+        private final CopyOnWriteArrayList<String> history = new CopyOnWriteArrayList<>();
+
+        LegacyEventStore() { recentEvents = new CopyOnWriteArrayList<>(); }
+
+        // Preloaded in one copy, for the query measurements
+        LegacyEventStore(Event[] events) { recentEvents = new CopyOnWriteArrayList<>(events); }
+
+        void ingestEvent(Event event) {
+            recentEvents.add(event);
+            history.add(event.toSimpleString());
+        }
+
+        Stream<Event> getEventsInWindow(LocalDateTime start, LocalDateTime end) {
+            return recentEvents.stream()
+                    .filter(event -> event.getTimestamp().isAfter(start) && event.getTimestamp().isBefore(end));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+import com.realtime.analytics.WindowEngine;
+import com.realtime.analytics.WindowResult;
+import com.realtime.analytics.WindowSpec;
+import com.realtime.model.Event;
+import com.realtime.store.EventStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+// Cost of one WindowCalculator tick (the 5-minute average per type, and the event count) as the
+// event rate grows: the old tick rescans the window in the EventStore, the WindowEngine merges the
+// 60 panes of the window whatever the rate. Also reports the per-event cost of feeding the panes.
+// Plain main-method harness (the module has no build file to pull in JMH).
+// Run: java -Xmx3g WindowBenchmark
+public class WindowBenchmark {
+    private static final int TICKS = 60;
+    static double sink; // keeps the results alive
+
+    public static void main(String[] args) {
+        LocalDateTime base = LocalDateTime.of(2024, 1, 1, 0, 0);
+        WindowSpec spec = WindowSpec.hopping(Duration.ofMinutes(5), Duration.ofSeconds(5));
+        System.out.printf("%-10s %14s %16s %16s %18s%n", "events/s", "events", "rescan ms/tick", "panes ms/tick", "panes ns/event");
+        for (int rate = 100; rate <= 10_000; rate *= 10) {
+            Event[] events = EventStoreBenchmark.events(base, rate, rate * 60 * 6);
+            EventStore store = new EventStore();
+            for (Event e : events) store.ingestEvent(e);
+
+            WindowEngine engine = new WindowEngine(Duration.ofSeconds(10));
+            engine.register(spec);
+            long t0 = System.nanoTime();
+            for (Event e : events) engine.add(e.getType(), e.getTimestamp(), e.getValue());
+            double perEvent = (double) (System.nanoTime() - t0) / events.length;
+
+            LocalDateTime end = events[events.length - 1].getTimestamp();
+            double rescan = 0, panes = 0;
+            for (int rep = 0; rep < 2; rep++) { // the first round warms up
+                rescan = panes = 0;
+                for (int tick = 0; tick < TICKS; tick++) {
+                    LocalDateTime now = end.minusSeconds(tick), start = now.minusMinutes(5);
+                    t0 = System.nanoTime();
+                    Map<String, Double> avg = store.getEventsInWindow(start, now).filter(e -> e.getValue() != null)
+                            .collect(Collectors.groupingBy(Event::getType, Collectors.averagingDouble(Event::getValue)));
+                    long count = store.getEventsInWindow(start, now).count();
+                    long t1 = System.nanoTime();
+                    for (String type : engine.keys(spec)) {
+                        WindowResult result = engine.current(spec, type, now);
+                        if (result != null) sink += result.getAggregate().getAverage() + result.getAggregate().getCount();
+                    }
+                    long t2 = System.nanoTime();
+                    rescan += t1 - t0;
+                    panes += t2 - t1;
+                    sink += avg.size() + count;
+                }
+            }
+            System.out.printf("%-10d %14d %16.3f %16.3f %18.1f%n", rate, events.length,
+                    rescan / TICKS / 1e6, panes / TICKS / 1e6, perEvent);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+import com.realtime.analytics.WindowEngine;
+import com.realtime.analytics.WindowResult;
+import com.realtime.analytics.WindowSpec;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An out-of-order event is late only when every window it belongs to has closed.
+ * Run with assertions enabled: java -ea WindowEngineTest
+ */
+public class WindowEngineTest {
+
+    private static final LocalDateTime T0 = LocalDateTime.of(2024, 5, 1, 0, 0);
+    private static final WindowSpec SESSION = WindowSpec.session(Duration.ofSeconds(10));
+
+    private WindowEngine engine;
+    private List<WindowResult> closed;
+
+    public void setUp() {
+        engine = new WindowEngine(Duration.ZERO);
+        engine.register(SESSION);
+        closed = new ArrayList<>();
+        engine.setListener(closed::add);
+    }
+
+    private void add(int second) {
+        engine.add("k", T0.plusSeconds(second), 1.0);
+    }
+
+    public void testEventInsideOpenSession() {
+        for (int s = 0; s <= 100; s += 5) add(s);
+        add(50); // behind the watermark, but the session it falls in is still open
+
+        WindowResult session = engine.current(SESSION, "k", T0.plusSeconds(100));
+        assert engine.getLateEvents(SESSION) == 0 : "late: " + engine.getLateEvents(SESSION);
+        assert session.getAggregate().getCount() == 22 : "count: " + session.getAggregate().getCount();
+        assert closed.isEmpty();
+        System.out.println("✓ testEventInsideOpenSession passed");
+    }
+
+    public void testEventJoiningNextOpenSession() {
+        add(100);
+        add(92); // its own session would have closed, but it reaches the open one at 100
+
+        WindowResult session = engine.current(SESSION, "k", T0.plusSeconds(100));
+        assert engine.getLateEvents(SESSION) == 0 : "late: " + engine.getLateEvents(SESSION);
+        assert session.getAggregate().getCount() == 2 : "count: " + session.getAggregate().getCount();
+        assert session.getStart().equals(T0.plusSeconds(92)) : "start: " + session.getStart();
+        System.out.println("✓ testEventJoiningNextOpenSession passed");
+    }
+
+    public void testEventInClosedSession() {
+        add(0);
+        add(100); // closes the session at 0
+        add(5);   // belongs to that closed session
+        add(50);  // would be a session of its own, closed already
+
+        assert engine.getLateEvents(SESSION) == 2 : "late: " + engine.getLateEvents(SESSION);
+        assert closed.size() == 1 && closed.get(0).getAggregate().getCount() == 1 : "closed: " + closed.size();
+        System.out.println("✓ testEventInClosedSession passed");
+    }
+
+    public static void main(String[] args) {
+        WindowEngineTest test = new WindowEngineTest();
+        try {
+            test.setUp();
+            test.testEventInsideOpenSession();
+            test.setUp();
+            test.testEventJoiningNextOpenSession();
+            test.setUp();
+            test.testEventInClosedSession();
+            System.out.println("\n✓ All WindowEngineTest tests passed!");
+        } catch (Exception e) {
+            System.err.println("✗ Test failed: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.realtime.analytics;
+
+// Running aggregate of one pane or window: event count, and sum, min, max and a quantile sketch of
+// the events that have a value. Panes are combined into windows with merge().
+public class Aggregate {
+    private long count;
+    private long valueCount;
+    private double sum;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+    private final QuantileSketch sketch = new QuantileSketch();
+
+    public void add(Double value) {
+        count++;
+        if (value == null) return;
+        valueCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+        sketch.add(value);
+    }
+
+    public void merge(Aggregate other) {
+        count += other.count;
+        valueCount += other.valueCount;
+        sum += other.sum;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        sketch.merge(other.sketch);
+    }
+
+    public void clear() {
+        count = valueCount = 0;
+        sum = 0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        sketch.clear();
+    }
+
+    public long getCount() { return count; }
+    public long getValueCount() { return valueCount; }
+    public double getSum() { return sum; }
+
+    // The value statistics are NaN while no event had a value
+    public double getMin() { return valueCount == 0 ? Double.NaN : min; }
+    public double getMax() { return valueCount == 0 ? Double.NaN : max; }
+    public double getAverage() { return valueCount == 0 ? Double.NaN : sum / valueCount; }
+    public double getPercentile(double percentile) { return sketch.quantile(percentile / 100); }
+}
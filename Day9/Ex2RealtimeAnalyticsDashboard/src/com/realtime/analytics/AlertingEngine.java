@@ -1,42 +1,215 @@
 package com.realtime.analytics;
 
 import com.realtime.model.AlertConfig;
-import com.realtime.model.Event;
 import com.realtime.store.MetricStore;
 
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
+// Evaluates alert rules when a window metric changes (MetricStore calls onMetric), against only the
+// rules the RuleIndex matches for that name; the match is looked up once per metric name.
+// Each (rule, metric) pair runs a state machine:
+// - INACTIVE -> PENDING when the rule fires;
+// - PENDING -> FIRING once it has held for the for-duration, or back to INACTIVE when it stops;
+// - FIRING -> INACTIVE when the value clears.
+// Only the transitions to FIRING and back notify (plus the rule's repeats), not every evaluation.
+// Notifications for silenced metrics are dropped and counted.
 public class AlertingEngine {
-    private final MetricStore metricStore;
-    private final List<AlertConfig> configs;
+    public enum State { INACTIVE, PENDING, FIRING }
+
+    private static final long BATCH_ERROR_LIMIT = 10;
+
+    private final RuleIndex index;
+    private final Clock clock;
+    private final Map<String, Watch> watches = new ConcurrentHashMap<>();
+    private final Set<Watch> active = ConcurrentHashMap.newKeySet(); // watches with a pending or firing rule
+    private final List<Silence> silences = new CopyOnWriteArrayList<>();
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder suppressed = new LongAdder();
+    private volatile Consumer<Notification> notifier = AlertingEngine::print;
 
     public AlertingEngine(MetricStore metricStore, List<AlertConfig> configs) {
-        this.metricStore = metricStore;
-        this.configs = configs;
+        this(metricStore, configs, Clock.systemDefaultZone());
+    }
+
+    public AlertingEngine(MetricStore metricStore, List<AlertConfig> configs, Clock clock) {
+        this.index = new RuleIndex(configs);
+        this.clock = clock;
+        metricStore.getWindowMetrics().forEach(this::onMetric);
+        metricStore.addWindowMetricListener(this::onMetric);
+    }
+
+    public void setNotifier(Consumer<Notification> notifier) {
+        this.notifier = notifier;
     }
 
+    public void onMetric(String metricName, double value) {
+        if (Double.isNaN(value)) return;
+        Watch watch = watches.get(metricName);
+        if (watch == null) watch = watches.computeIfAbsent(metricName, name -> new Watch(name, index.match(name)));
+        if (watch.rules.length > 0) watch.update(value, clock.millis());
+    }
+
+    // The scheduled part: moves pending alerts past their for-duration and repeats firing ones.
+    // Only the active (rule, metric) pairs are visited; values are checked as they change.
     public void checkAlerts() {
-        // Kiểm tra các alerts dựa trên Window Metrics
-        metricStore.getWindowMetrics().forEach((name, value) -> {
-            configs.stream()
-                    .filter(config -> name.contains(config.getMetricName())) // Match metric names
-                    .filter(config -> config.getThreshold().test(value))     // Check if value violates threshold
-                    .forEach(config -> {
-                        System.out.printf("🔴 ALERT TRIGGERED: %s | Current Value: %.2f%n",
-                                config.getMessage(), value);
-                    });
-        });
-    }
-
-    // Check based on immediate event batch characteristics
-    public void checkAlertsOnBatch(List<Event> batch) {
+        long now = clock.millis();
+        silences.removeIf(s -> s.until <= now);
+        for (Watch watch : active) watch.update(Double.NaN, now);
+    }
+
+    // Check based on immediate event batch characteristics, from the per-type counts of the batch
+    public void checkAlertsOnBatch(Map<String, Long> eventCounts) {
         // Example: Alert if there are too many 'ERROR' events in a single batch
-        long errorCount = batch.stream()
-                .filter(event -> "ERROR".equals(event.getType()))
-                .count();
+        long errorCount = eventCounts.getOrDefault("ERROR", 0L);
 
-        if (errorCount > 10) {
+        if (errorCount > BATCH_ERROR_LIMIT) {
             System.err.printf("🔴 IMMEDIATE ALERT: Found %d errors in the latest batch!%n", errorCount);
         }
     }
-}
\ No newline at end of file
+
+    // Drops the notifications of metrics starting with metricPrefix ("" for all) for a while;
+    // the alerts still change state meanwhile
+    public void silence(String metricPrefix, Duration duration) {
+        silences.add(new Silence(metricPrefix, clock.millis() + duration.toMillis()));
+    }
+
+    public State getState(AlertConfig rule, String metricName) {
+        Watch watch = watches.get(metricName);
+        if (watch == null) return State.INACTIVE;
+        synchronized (watch) {
+            for (int i = 0; i < watch.rules.length; i++) {
+                if (watch.rules[i] == rule) return watch.states[i];
+            }
+        }
+        return State.INACTIVE;
+    }
+
+    public int getRuleCount() { return index.size(); }
+    public long getEvaluationCount() { return evaluations.sum(); }
+    public long getSuppressedCount() { return suppressed.sum(); }
+
+    private boolean silenced(String metricName, long now) {
+        for (Silence s : silences) {
+            if (s.until > now && metricName.startsWith(s.metricPrefix)) return true;
+        }
+        return false;
+    }
+
+    private static void print(Notification n) {
+        if (n.isResolved()) {
+            System.out.printf("🟢 ALERT RESOLVED: %s [%s] | Current Value: %.2f%n", n.getRule().getMessage(), n.getMetricName(), n.getValue());
+        } else {
+            System.out.printf("🔴 ALERT TRIGGERED: %s [%s] | Current Value: %.2f%n", n.getRule().getMessage(), n.getMetricName(), n.getValue());
+        }
+    }
+
+    // The rules matching one metric and where each of them stands
+    private final class Watch {
+        final String metricName;
+        final AlertConfig[] rules;
+        final State[] states;
+        final long[] since;      // when the state was entered
+        final long[] notifiedAt;
+        double value = Double.NaN;
+
+        Watch(String metricName, AlertConfig[] rules) {
+            this.metricName = metricName;
+            this.rules = rules;
+            this.states = new State[rules.length];
+            this.since = new long[rules.length];
+            this.notifiedAt = new long[rules.length];
+            Arrays.fill(states, State.INACTIVE);
+        }
+
+        // A NaN value re-evaluates the last one as of now
+        synchronized void update(double newValue, long now) {
+            if (!Double.isNaN(newValue)) value = newValue;
+            if (Double.isNaN(value)) return;
+            boolean any = false;
+            for (int i = 0; i < rules.length; i++) {
+                step(i, now);
+                any |= states[i] != State.INACTIVE;
+            }
+            evaluations.add(rules.length);
+            if (any) active.add(this);
+            else active.remove(this);
+        }
+
+        private void step(int i, long now) {
+            AlertConfig rule = rules[i];
+            if (states[i] == State.INACTIVE && rule.fires(value)) {
+                states[i] = State.PENDING;
+                since[i] = now;
+            }
+            if (states[i] == State.PENDING) {
+                if (!rule.fires(value)) {
+                    states[i] = State.INACTIVE;
+                } else if (now - since[i] >= rule.getForDuration().toMillis()) {
+                    states[i] = State.FIRING;
+                    since[i] = now;
+                    notify(i, false, now);
+                }
+            } else if (states[i] == State.FIRING) {
+                if (rule.clears(value)) {
+                    states[i] = State.INACTIVE;
+                    notify(i, true, now);
+                } else {
+                    long repeat = rule.getRepeatInterval().toMillis();
+                    if (repeat > 0 && now - notifiedAt[i] >= repeat) notify(i, false, now);
+                }
+            }
+        }
+
+        private void notify(int i, boolean resolved, long now) {
+            notifiedAt[i] = now;
+            if (silenced(metricName, now)) {
+                suppressed.increment();
+                return;
+            }
+            notifier.accept(new Notification(rules[i], metricName, value, resolved, LocalDateTime.now(clock)));
+        }
+    }
+
+    private static final class Silence {
+        final String metricPrefix;
+        final long until;
+
+        Silence(String metricPrefix, long until) {
+            this.metricPrefix = metricPrefix;
+            this.until = until;
+        }
+    }
+
+    public static final class Notification {
+        private final AlertConfig rule;
+        private final String metricName;
+        private final double value;
+        private final boolean resolved;
+        private final LocalDateTime time;
+
+        Notification(AlertConfig rule, String metricName, double value, boolean resolved, LocalDateTime time) {
+            this.rule = rule;
+            this.metricName = metricName;
+            this.value = value;
+            this.resolved = resolved;
+            this.time = time;
+        }
+
+        public AlertConfig getRule() { return rule; }
+        public String getMetricName() { return metricName; }
+        public double getValue() { return value; }
+        // false when the alert fires (or repeats), true when it clears
+        public boolean isResolved() { return resolved; }
+        public LocalDateTime getTime() { return time; }
+    }
+}
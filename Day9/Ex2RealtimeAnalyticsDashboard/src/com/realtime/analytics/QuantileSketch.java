@@ -0,0 +1,100 @@
+package com.realtime.analytics;
+
+import java.util.Arrays;
+
+// Mergeable quantile sketch with relative accuracy (DDSketch-style): a value v > 0 is counted in
+// bucket ceil(log(v) / log(gamma)), gamma = (1 + a) / (1 - a), so every bucket's representative is
+// within a = 1% of the values in it; negative values use a mirrored set of buckets, values within
+// 1e-9 of zero a counter of their own. Buckets are dense arrays that grow to the indices used, so
+// adding is a log and an increment and merging two sketches adds their arrays.
+public class QuantileSketch {
+    public static final double RELATIVE_ACCURACY = 0.01;
+
+    private static final double GAMMA = (1 + RELATIVE_ACCURACY) / (1 - RELATIVE_ACCURACY);
+    private static final double LOG_GAMMA = Math.log(GAMMA);
+    private static final double MIN_MAGNITUDE = 1e-9;
+
+    private final Buckets positive = new Buckets(), negative = new Buckets();
+    private long zeroCount;
+    private long count;
+
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        if (value > MIN_MAGNITUDE) positive.add(index(value), 1);
+        else if (value < -MIN_MAGNITUDE) negative.add(index(-value), 1);
+        else zeroCount++;
+        count++;
+    }
+
+    public void merge(QuantileSketch other) {
+        positive.merge(other.positive);
+        negative.merge(other.negative);
+        zeroCount += other.zeroCount;
+        count += other.count;
+    }
+
+    public void clear() {
+        positive.clear();
+        negative.clear();
+        zeroCount = 0;
+        count = 0;
+    }
+
+    public long getCount() { return count; }
+
+    // Value at quantile q in [0, 1], within RELATIVE_ACCURACY of an actual value; NaN if empty.
+    public double quantile(double q) {
+        if (q < 0 || q > 1) throw new IllegalArgumentException("quantile must be in [0, 1]: " + q);
+        if (count == 0) return Double.NaN;
+        long rank = (long) Math.floor(q * (count - 1)), seen = 0;
+        for (int i = negative.counts.length - 1; i >= 0; i--) {
+            seen += negative.counts[i];
+            if (seen > rank) return -value(negative.offset + i);
+        }
+        seen += zeroCount;
+        if (seen > rank) return 0;
+        for (int i = 0; i < positive.counts.length; i++) {
+            seen += positive.counts[i];
+            if (seen > rank) return value(positive.offset + i);
+        }
+        return value(positive.offset + positive.counts.length - 1);
+    }
+
+    private static int index(double magnitude) {
+        return (int) Math.ceil(Math.log(magnitude) / LOG_GAMMA);
+    }
+
+    private static double value(int index) {
+        return 2 * Math.pow(GAMMA, index) / (GAMMA + 1);
+    }
+
+    // counts[i] is the count of bucket offset + i
+    private static final class Buckets {
+        long[] counts = new long[0];
+        int offset;
+
+        void add(int index, long n) {
+            if (counts.length == 0) {
+                counts = new long[16];
+                offset = index - 8;
+            } else if (index < offset || index >= offset + counts.length) {
+                int lo = Math.min(offset, index), hi = Math.max(offset + counts.length, index + 1);
+                int size = Math.max(hi - lo, counts.length * 2);
+                int newOffset = index < offset ? hi - size : lo;
+                long[] grown = new long[size];
+                System.arraycopy(counts, 0, grown, offset - newOffset, counts.length);
+                counts = grown;
+                offset = newOffset;
+            }
+            counts[index - offset] += n;
+        }
+
+        void merge(Buckets other) {
+            for (int i = 0; i < other.counts.length; i++) {
+                if (other.counts[i] != 0) add(other.offset + i, other.counts[i]);
+            }
+        }
+
+        void clear() { Arrays.fill(counts, 0); }
+    }
+}
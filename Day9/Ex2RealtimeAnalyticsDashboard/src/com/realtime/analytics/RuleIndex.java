@@ -0,0 +1,109 @@
+package com.realtime.analytics;
+
+import com.realtime.model.AlertConfig;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Finds the rules matching a metric name without looking at the others: exact rules in a hash map,
+// prefix rules in a character trie walked along the name. Pattern rules sit in the trie under their
+// literal part up to the first '*', so only the ones whose literal prefix matches get the full
+// pattern check.
+final class RuleIndex {
+    private static final AlertConfig[] NONE = new AlertConfig[0];
+
+    private final Map<String, List<AlertConfig>> exact = new HashMap<>();
+    private final Node root = new Node();
+    private final int size;
+
+    RuleIndex(List<AlertConfig> rules) {
+        for (AlertConfig rule : rules) {
+            String name = rule.getMetricName();
+            switch (rule.getMatch()) {
+                case EXACT:
+                    exact.computeIfAbsent(name, n -> new ArrayList<>(1)).add(rule);
+                    break;
+                case PREFIX:
+                    root.descend(name, name.length()).prefixRules.add(rule);
+                    break;
+                default:
+                    int star = name.indexOf('*');
+                    if (star < 0) exact.computeIfAbsent(name, n -> new ArrayList<>(1)).add(rule);
+                    else root.descend(name, star).patternRules.add(rule);
+            }
+        }
+        this.size = rules.size();
+    }
+
+    int size() { return size; }
+
+    AlertConfig[] match(String metricName) {
+        List<AlertConfig> found = new ArrayList<>(exact.getOrDefault(metricName, List.of()));
+        Node node = root;
+        for (int i = 0; node != null; i++) {
+            found.addAll(node.prefixRules);
+            for (AlertConfig rule : node.patternRules) {
+                if (glob(rule.getMetricName(), i, metricName, i)) found.add(rule);
+            }
+            node = i < metricName.length() ? node.child(metricName.charAt(i)) : null;
+        }
+        return found.isEmpty() ? NONE : found.toArray(NONE);
+    }
+
+    // '*' matches any run of characters; the parts before p and s are known to match
+    static boolean glob(String pattern, int p, String s, int i) {
+        int star = -1, resume = 0;
+        while (i < s.length()) {
+            if (p < pattern.length() && pattern.charAt(p) == '*') {
+                star = p++;
+                resume = i;
+            } else if (p < pattern.length() && pattern.charAt(p) == s.charAt(i)) {
+                p++;
+                i++;
+            } else if (star >= 0) { // let the last '*' take one more character
+                p = star + 1;
+                i = ++resume;
+            } else {
+                return false;
+            }
+        }
+        while (p < pattern.length() && pattern.charAt(p) == '*') p++;
+        return p == pattern.length();
+    }
+
+    private static final class Node {
+        char[] labels = new char[0];
+        Node[] children = new Node[0];
+        final List<AlertConfig> prefixRules = new ArrayList<>(0);
+        final List<AlertConfig> patternRules = new ArrayList<>(0);
+
+        Node child(char c) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        // The node for key[0, length), created as needed
+        Node descend(String key, int length) {
+            Node node = this;
+            for (int i = 0; i < length; i++) {
+                char c = key.charAt(i);
+                Node next = node.child(c);
+                if (next == null) {
+                    next = new Node();
+                    int n = node.labels.length;
+                    node.labels = Arrays.copyOf(node.labels, n + 1);
+                    node.children = Arrays.copyOf(node.children, n + 1);
+                    node.labels[n] = c;
+                    node.children[n] = next;
+                }
+                node = next;
+            }
+            return node;
+        }
+    }
+}
@@ -4,55 +4,81 @@ import com.realtime.model.Event;
 import com.realtime.store.EventStore;
 import com.realtime.store.MetricStore;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
-import java.time.temporal.ChronoUnit;
-import java.util.Map;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
+// Sliding-window metrics per event type, kept incrementally: every ingested event goes to
+// onEvent(), which updates one 5-second pane per window length; the calculations merge panes
+// instead of rescanning the store.
 public class WindowCalculator {
+    private static final Duration PANE = Duration.ofSeconds(5); // the calculation tick
+    private static final Duration ALLOWED_LATENESS = Duration.ofSeconds(10);
+
     private final EventStore eventStore;
     private final MetricStore metricStore;
+    private final WindowEngine engine = new WindowEngine(ALLOWED_LATENESS);
 
     public WindowCalculator(EventStore eventStore, MetricStore metricStore) {
+        this(eventStore, metricStore, 5);
+    }
+
+    // One sliding window per length; events already in the store are loaded into them. Other lengths
+    // are registered the same way when first calculated.
+    public WindowCalculator(EventStore eventStore, MetricStore metricStore, int... windowMinutes) {
         this.eventStore = eventStore;
         this.metricStore = metricStore;
+        for (int minutes : windowMinutes) window(minutes);
     }
 
-    // Last 5 minutes sliding window average calculation
-    public void calculateAvgWindow(int minutes) {
-        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
-        LocalDateTime start = now.minusMinutes(minutes);
+    public void onEvent(Event event) {
+        engine.add(event.getType(), event.getTimestamp(), event.getValue());
+    }
 
-        Stream<Event> recentEvents = eventStore.getEventsInWindow(start, now);
+    // For tumbling or session windows, percentiles etc. beyond the averages published here
+    public WindowEngine getEngine() { return engine; }
 
-        // Grouping and Averaging: Multi-metric calculation in one stream pass
-        Map<String, Double> avgValues = recentEvents
-                .filter(event -> event.getValue() != null)
-                .collect(Collectors.groupingBy(
-                        Event::getType,
-                        Collectors.averagingDouble(Event::getValue)
-                ));
+    // Last 5 minutes sliding window average calculation
+    public void calculateAvgWindow(int minutes) {
+        LocalDateTime now = LocalDateTime.now();
+        WindowSpec spec = window(minutes);
+        engine.tick(now);
 
         // Update metrics with window information
-        avgValues.forEach((type, avg) -> {
+        for (String type : engine.keys(spec)) {
+            WindowResult result = engine.current(spec, type, now);
+            if (result == null || result.getAggregate().getValueCount() == 0) continue;
+            double avg = result.getAggregate().getAverage();
             String metricName = String.format("AVG_%s_%dM", type, minutes);
             metricStore.updateWindowMetric(metricName, avg);
             System.out.printf("Window Metric [%s]: %.2f%n", metricName, avg);
-        });
+        }
     }
 
     // Anomaly detection: Volume drop check
     public void detectAnomaly(int minutes) {
-        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
-        LocalDateTime start = now.minusMinutes(minutes);
+        LocalDateTime now = LocalDateTime.now();
+        WindowSpec spec = window(minutes);
 
-        // Sử dụng Stream.count()
-        long totalEvents = eventStore.getEventsInWindow(start, now).count();
+        long totalEvents = 0;
+        for (String type : engine.keys(spec)) {
+            WindowResult result = engine.current(spec, type, now);
+            if (result != null) totalEvents += result.getAggregate().getCount();
+        }
 
         // Simple Anomaly: If total event count drops significantly
         if (totalEvents < 5) {
             System.err.println("🚨 ANOMALY ALERT: Total event volume dropped significantly in the last " + minutes + " minutes. Count: " + totalEvents);
         }
     }
-}
\ No newline at end of file
+
+    // The sliding window of that length, registered on first use and loaded from the store
+    private WindowSpec window(int minutes) {
+        WindowSpec spec = WindowSpec.hopping(Duration.ofMinutes(minutes), PANE);
+        if (engine.register(spec)) {
+            LocalDateTime now = LocalDateTime.now();
+            eventStore.forEachInWindow(now.minusMinutes(minutes).minus(PANE), now.plusYears(1), (time, type, value, hasValue) ->
+                    engine.add(spec, eventStore.typeName(type), time, hasValue ? value : null));
+        }
+        return spec;
+    }
+}
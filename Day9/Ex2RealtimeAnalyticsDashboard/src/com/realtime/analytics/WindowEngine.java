@@ -0,0 +1,292 @@
+package com.realtime.analytics;
+
+import com.realtime.store.EventStore;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+// Incremental windowed aggregation per key (e.g. event type) for any number of WindowSpecs. An
+// event updates one pane (or session) per spec, never a window: window results merge panes when
+// asked for, so the cost of a result depends on size / pane, not on how many events arrived.
+// Event time drives everything: the watermark trails the newest event time seen (or tick()'s clock)
+// by the allowed lateness. A window closes once the watermark passes its end; its result then goes
+// to the listener and its panes may be reused. An event is dropped and counted as late when every
+// window it belongs to has closed.
+public class WindowEngine {
+    private static final int MAX_PANES = 1 << 20; // per key and spec
+
+    private final long allowedLateness;
+    private final AtomicLong maxEventTime = new AtomicLong(Long.MIN_VALUE);
+    private final Map<WindowSpec, SpecState> specs = new ConcurrentHashMap<>();
+    private volatile Consumer<WindowResult> listener = result -> { };
+
+    public WindowEngine(Duration allowedLateness) {
+        if (allowedLateness.isNegative()) throw new IllegalArgumentException("allowed lateness must not be negative: " + allowedLateness);
+        this.allowedLateness = allowedLateness.toNanos();
+    }
+
+    // Returns false if the spec was registered already. Throws IllegalArgumentException if a key's
+    // panes (size plus allowed lateness, in panes) would not fit in MAX_PANES.
+    public boolean register(WindowSpec spec) {
+        if (spec.getKind() != WindowSpec.Kind.SESSION && ringLength(spec) > MAX_PANES) {
+            throw new IllegalArgumentException("window needs " + ringLength(spec) + " panes per key, more than " + MAX_PANES + ": " + spec);
+        }
+        return specs.putIfAbsent(spec, new SpecState(spec)) == null;
+    }
+
+    // Receives every closed window that had events
+    public void setListener(Consumer<WindowResult> listener) {
+        this.listener = listener;
+    }
+
+    public void add(String key, LocalDateTime time, Double value) {
+        long t = EventStore.epochNanos(time);
+        long watermark = advance(t);
+        for (SpecState s : specs.values()) s.add(key, t, value, watermark);
+    }
+
+    // Adds to one spec only, e.g. to backfill a spec registered late
+    void add(WindowSpec spec, String key, long epochNanos, Double value) {
+        state(spec).add(key, epochNanos, value, advance(epochNanos));
+    }
+
+    // Moves event time up to now (so windows close while no events arrive) and closes what is due
+    public void tick(LocalDateTime now) {
+        long watermark = advance(EventStore.epochNanos(now));
+        for (SpecState s : specs.values()) {
+            for (KeyState k : s.keys.values()) k.close(watermark);
+        }
+    }
+
+    public LocalDateTime getWatermark() {
+        return EventStore.toDateTime(watermark());
+    }
+
+    // The key's window at now: for tumbling windows the one containing now, for hopping windows the
+    // latest `size` of panes up to and including now's, for sessions the latest session. null if
+    // the key has no events in it.
+    public WindowResult current(WindowSpec spec, String key, LocalDateTime now) {
+        KeyState k = state(spec).keys.get(key);
+        return k == null ? null : k.current(EventStore.epochNanos(now));
+    }
+
+    public Set<String> keys(WindowSpec spec) {
+        return state(spec).keys.keySet();
+    }
+
+    public long getLateEvents(WindowSpec spec) {
+        return state(spec).late.sum();
+    }
+
+    private long advance(long eventTime) {
+        long max = maxEventTime.accumulateAndGet(eventTime, Math::max);
+        return max - allowedLateness;
+    }
+
+    private long watermark() {
+        long max = maxEventTime.get();
+        return max == Long.MIN_VALUE ? Long.MIN_VALUE : max - allowedLateness;
+    }
+
+    // Panes a key keeps for spec: its windows, the allowed lateness and the pane being filled
+    private long ringLength(WindowSpec spec) {
+        return (spec.getSizeNanos() + allowedLateness + spec.getAdvanceNanos()) / spec.paneNanos() + 2;
+    }
+
+    private SpecState state(WindowSpec spec) {
+        SpecState s = specs.get(spec);
+        if (s == null) throw new IllegalArgumentException("window not registered: " + spec);
+        return s;
+    }
+
+    private final class SpecState {
+        final WindowSpec spec;
+        final ConcurrentHashMap<String, KeyState> keys = new ConcurrentHashMap<>();
+        final LongAdder late = new LongAdder();
+
+        SpecState(WindowSpec spec) { this.spec = spec; }
+
+        void add(String key, long t, Double value, long watermark) {
+            KeyState k = keys.get(key);
+            if (k == null) {
+                k = keys.computeIfAbsent(key, name -> spec.getKind() == WindowSpec.Kind.SESSION
+                        ? new Sessions(spec, name) : new PaneRing(spec, name));
+            }
+            if (!k.add(t, value, watermark)) late.increment();
+        }
+    }
+
+    private abstract class KeyState {
+        final WindowSpec spec;
+        final String key;
+
+        KeyState(WindowSpec spec, String key) {
+            this.spec = spec;
+            this.key = key;
+        }
+
+        // false if the event is late
+        abstract boolean add(long t, Double value, long watermark);
+
+        abstract void close(long watermark);
+
+        abstract WindowResult current(long now);
+
+        void emit(long start, long end, Aggregate aggregate) {
+            if (aggregate.getCount() > 0) listener.accept(new WindowResult(spec, key, start, end, aggregate));
+        }
+    }
+
+    // Tumbling and hopping windows of one key: a ring of the panes that open windows (or events
+    // within the allowed lateness) can still need.
+    private final class PaneRing extends KeyState {
+        final long pane, size, advance;
+        final Aggregate[] panes;
+        final long[] paneIds;
+        long head = Long.MIN_VALUE;     // newest pane id
+        long closedUpTo = Long.MAX_VALUE; // windows ending at or before this have closed
+        boolean emitted;
+
+        PaneRing(WindowSpec spec, String key) {
+            super(spec, key);
+            this.pane = spec.paneNanos();
+            this.size = spec.getSizeNanos();
+            this.advance = spec.getAdvanceNanos();
+            int length = (int) ringLength(spec);
+            this.panes = new Aggregate[length];
+            this.paneIds = new long[length];
+            java.util.Arrays.fill(paneIds, Long.MIN_VALUE);
+        }
+
+        @Override
+        synchronized boolean add(long t, Double value, long watermark) {
+            close(watermark);
+            long lastEnd = Math.floorDiv(t, advance) * advance + size; // end of the last window holding t
+            if (lastEnd <= watermark || (emitted && lastEnd <= closedUpTo)) return false;
+            if (!emitted) closedUpTo = Math.min(closedUpTo, (Math.floorDiv(t - size, advance) + 1) * advance + size - advance);
+            long id = Math.floorDiv(t, pane);
+            if (head != Long.MIN_VALUE && id <= head - panes.length) return false; // older than the ring
+            int slot = (int) Math.floorMod(id, (long) panes.length);
+            if (paneIds[slot] != id) {
+                if (panes[slot] == null) panes[slot] = new Aggregate();
+                else panes[slot].clear();
+                paneIds[slot] = id;
+            }
+            panes[slot].add(value);
+            head = Math.max(head, id);
+            return true;
+        }
+
+        @Override
+        synchronized void close(long watermark) {
+            if (head == Long.MIN_VALUE) return;
+            while (closedUpTo + advance <= watermark) {
+                long end = closedUpTo + advance;
+                if (end - size >= (head + 1) * pane) { // nothing left in later windows
+                    closedUpTo = Math.floorDiv(watermark - size, advance) * advance + size; // window ends are start + size
+                    emitted = true;
+                    break;
+                }
+                emit(end - size, end, merge(end - size, end));
+                closedUpTo = end;
+                emitted = true;
+            }
+        }
+
+        @Override
+        synchronized WindowResult current(long now) {
+            long start, end;
+            if (spec.getKind() == WindowSpec.Kind.TUMBLING) {
+                start = Math.floorDiv(now, size) * size;
+                end = start + size;
+            } else {
+                end = (Math.floorDiv(now, pane) + 1) * pane;
+                start = end - size;
+            }
+            Aggregate a = merge(start, end);
+            return a.getCount() == 0 ? null : new WindowResult(spec, key, start, end, a);
+        }
+
+        // The panes of [start, end) that are in the ring
+        private Aggregate merge(long start, long end) {
+            Aggregate a = new Aggregate();
+            for (long id = Math.max(Math.floorDiv(start, pane), head - panes.length + 1), last = Math.min(Math.floorDiv(end, pane) - 1, head); id <= last; id++) {
+                int slot = (int) Math.floorMod(id, (long) panes.length);
+                if (paneIds[slot] == id) a.merge(panes[slot]);
+            }
+            return a;
+        }
+    }
+
+    // Session windows of one key, by start time.
+    private final class Sessions extends KeyState {
+        final long gap;
+        final TreeMap<Long, Session> sessions = new TreeMap<>();
+
+        Sessions(WindowSpec spec, String key) {
+            super(spec, key);
+            this.gap = spec.getGapNanos();
+        }
+
+        @Override
+        synchronized boolean add(long t, Double value, long watermark) {
+            close(watermark);
+            Map.Entry<Long, Session> before = sessions.floorEntry(t);
+            Session s = (before != null && t <= before.getValue().last + gap) ? before.getValue() : null;
+            if (s == null) {
+                // late only if it would open a session of its own that has already closed
+                Map.Entry<Long, Session> next = sessions.higherEntry(t);
+                if (t + gap <= watermark && (next == null || next.getKey() > t + gap)) return false;
+                s = new Session(t);
+                sessions.put(t, s);
+            }
+            s.aggregate.add(value);
+            s.last = Math.max(s.last, t);
+            // the event may bridge the gap to the next session
+            Map.Entry<Long, Session> after;
+            while ((after = sessions.higherEntry(s.start)) != null && after.getKey() <= s.last + gap) {
+                sessions.remove(after.getKey());
+                s.aggregate.merge(after.getValue().aggregate);
+                s.last = Math.max(s.last, after.getValue().last);
+            }
+            return true;
+        }
+
+        @Override
+        synchronized void close(long watermark) {
+            Map.Entry<Long, Session> first;
+            while ((first = sessions.firstEntry()) != null && first.getValue().last + gap <= watermark) {
+                Session s = sessions.pollFirstEntry().getValue();
+                emit(s.start, s.last + gap, s.aggregate);
+            }
+        }
+
+        @Override
+        synchronized WindowResult current(long now) {
+            Map.Entry<Long, Session> latest = sessions.floorEntry(now);
+            if (latest == null) return null;
+            Session s = latest.getValue();
+            Aggregate copy = new Aggregate();
+            copy.merge(s.aggregate);
+            return new WindowResult(spec, key, s.start, s.last + gap, copy);
+        }
+    }
+
+    private static final class Session {
+        final long start;
+        long last;
+        final Aggregate aggregate = new Aggregate();
+
+        Session(long start) {
+            this.start = start;
+            this.last = start;
+        }
+    }
+}
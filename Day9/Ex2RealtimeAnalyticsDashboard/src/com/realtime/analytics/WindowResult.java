@@ -0,0 +1,33 @@
+package com.realtime.analytics;
+
+import com.realtime.store.EventStore;
+
+import java.time.LocalDateTime;
+
+// Aggregate of one key over the window [start, end).
+public class WindowResult {
+    private final WindowSpec spec;
+    private final String key;
+    private final long start, end;
+    private final Aggregate aggregate;
+
+    WindowResult(WindowSpec spec, String key, long start, long end, Aggregate aggregate) {
+        this.spec = spec;
+        this.key = key;
+        this.start = start;
+        this.end = end;
+        this.aggregate = aggregate;
+    }
+
+    public WindowSpec getSpec() { return spec; }
+    public String getKey() { return key; }
+    public LocalDateTime getStart() { return EventStore.toDateTime(start); }
+    public LocalDateTime getEnd() { return EventStore.toDateTime(end); }
+    public Aggregate getAggregate() { return aggregate; }
+
+    @Override
+    public String toString() {
+        return String.format("%s %s [%s, %s) count=%d avg=%.2f", spec, key, getStart(), getEnd(),
+                aggregate.getCount(), aggregate.getAverage());
+    }
+}
@@ -0,0 +1,80 @@
+package com.realtime.analytics;
+
+import java.time.Duration;
+import java.util.Objects;
+
+// Shape of a window:
+// - TUMBLING: consecutive windows of `size`;
+// - HOPPING: windows of `size` starting every `advance` (a sliding window when advance is small);
+// - SESSION: per key, events at most `gap` apart, the window closing `gap` after the last one.
+// Tumbling and hopping windows are built from panes of gcd(size, advance): every event updates one
+// pane and a window is the merge of its size / pane panes.
+public class WindowSpec {
+    public enum Kind { TUMBLING, HOPPING, SESSION }
+
+    private final Kind kind;
+    private final long size, advance, gap; // nanos; size and advance are 0 for sessions, gap otherwise
+
+    private WindowSpec(Kind kind, long size, long advance, long gap) {
+        this.kind = kind;
+        this.size = size;
+        this.advance = advance;
+        this.gap = gap;
+    }
+
+    public static WindowSpec tumbling(Duration size) {
+        long s = positive(size, "size");
+        return new WindowSpec(Kind.TUMBLING, s, s, 0);
+    }
+
+    public static WindowSpec hopping(Duration size, Duration advance) {
+        long s = positive(size, "size"), a = positive(advance, "advance");
+        if (a > s) throw new IllegalArgumentException("advance " + advance + " is longer than size " + size);
+        return new WindowSpec(Kind.HOPPING, s, a, 0);
+    }
+
+    public static WindowSpec session(Duration gap) {
+        return new WindowSpec(Kind.SESSION, 0, 0, positive(gap, "gap"));
+    }
+
+    public Kind getKind() { return kind; }
+    public long getSizeNanos() { return size; }
+    public long getAdvanceNanos() { return advance; }
+    public long getGapNanos() { return gap; }
+
+    long paneNanos() {
+        long a = size, b = advance;
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return a;
+    }
+
+    private static long positive(Duration d, String what) {
+        if (d.isNegative() || d.isZero()) throw new IllegalArgumentException(what + " must be positive: " + d);
+        return d.toNanos();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof WindowSpec)) return false;
+        WindowSpec w = (WindowSpec) o;
+        return kind == w.kind && size == w.size && advance == w.advance && gap == w.gap;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(kind, size, advance, gap);
+    }
+
+    @Override
+    public String toString() {
+        switch (kind) {
+            case TUMBLING: return "tumbling(" + Duration.ofNanos(size) + ")";
+            case HOPPING: return "hopping(" + Duration.ofNanos(size) + ", " + Duration.ofNanos(advance) + ")";
+            default: return "session(" + Duration.ofNanos(gap) + ")";
+        }
+    }
+}
@@ -8,6 +8,7 @@ import com.realtime.store.EventStore;
 import com.realtime.store.MetricStore;
 import com.realtime.store.DashboardAPI;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
@@ -42,8 +43,8 @@ public class EventStreamProcessor {
         // 2. Window-based analytics (Every 5 seconds)
         scheduler.scheduleAtFixedRate(this::calculateWindows, 0, 5, TimeUnit.SECONDS);
 
-        // 3. Alerting (Every 5 seconds, sync with window calculation)
-        scheduler.scheduleAtFixedRate(alertingEngine::checkAlerts, 2, 5, TimeUnit.SECONDS);
+        // 3. Alerting: rules are checked as window metrics change; this only runs their timers (Every 1 second)
+        scheduler.scheduleAtFixedRate(alertingEngine::checkAlerts, 1, 1, TimeUnit.SECONDS);
 
         // 4. Cleanup old data (Every 1 minute)
         scheduler.scheduleAtFixedRate(this::cleanup, 0, 1, TimeUnit.MINUTES);
@@ -52,6 +53,7 @@ public class EventStreamProcessor {
     public void ingest(Event event) {
         eventQueue.offer(event);
         eventStore.ingestEvent(event); // Store for window/history tracking
+        windowCalculator.onEvent(event); // Incremental window panes
     }
 
     private void processBatch() {
@@ -68,7 +70,7 @@ public class EventStreamProcessor {
                 ));
 
         eventCounts.forEach(metricStore::updateRealTimeCount);
-        alertingEngine.checkAlertsOnBatch(batch);
+        alertingEngine.checkAlertsOnBatch(eventCounts);
 
         System.out.printf("Batch Processed: %d events. Counts: %s%n", batch.size(), eventCounts);
     }
@@ -94,8 +96,10 @@ public class EventStreamProcessor {
 
         // 2. Configure Alerts
         List<AlertConfig> alertConfigs = List.of(
-                new AlertConfig("AVG_TRANSACTION_5M", avg -> avg < 5.0, "Average transaction value dropped below $5.00"),
-                new AlertConfig("AVG_ERROR_5M", avg -> avg > 1.0, "Average error severity is too high")
+                AlertConfig.exact("AVG_TRANSACTION_5M").below(5.0).clearAt(5.5).forDuration(Duration.ofSeconds(10))
+                        .message("Average transaction value dropped below $5.00").build(),
+                AlertConfig.exact("AVG_ERROR_5M").above(1.0).clearAt(0.8).forDuration(Duration.ofSeconds(10))
+                        .message("Average error severity is too high").build()
         );
 
         // 3. Initialize Analytics Engine
@@ -1,19 +1,157 @@
 package com.realtime.model;
 
+import java.time.Duration;
 import java.util.function.Predicate;
 
+// An alert rule. It matches metric names in one of three ways:
+// - EXACT: the name itself;
+// - PREFIX: every name starting with it;
+// - PATTERN: '*' stands for any run of characters, e.g. "AVG_*_5M".
+// The rule fires when the value crosses the threshold and has stayed there for `forDuration`. It clears
+// only once the value is back past `clearAt`, so a value hovering at the threshold does not flap.
+// While it fires, it notifies again every `repeatEvery` (never if zero).
 public class AlertConfig {
+    public enum Match { EXACT, PREFIX, PATTERN }
+
+    private enum Direction { ABOVE, BELOW, PREDICATE }
+
+    private final Match match;
     private final String metricName;
-    private final Predicate<Double> threshold;
+    private final Direction direction;
+    private final double fireAt, clearAt;
+    private final Predicate<Double> predicate;
+    private final Duration forDuration, repeatEvery;
     private final String message;
 
+    // Matches the metric named metricName (the same as exact(metricName).when(threshold)); fires as
+    // soon as the threshold holds
     public AlertConfig(String metricName, Predicate<Double> threshold, String message) {
+        this(Match.EXACT, requireName(metricName), Direction.PREDICATE, Double.NaN, Double.NaN, threshold,
+                Duration.ZERO, Duration.ZERO, message);
+    }
+
+    private AlertConfig(Match match, String metricName, Direction direction, double fireAt, double clearAt,
+                        Predicate<Double> predicate, Duration forDuration, Duration repeatEvery, String message) {
+        this.match = match;
         this.metricName = metricName;
-        this.threshold = threshold;
+        this.direction = direction;
+        this.fireAt = fireAt;
+        this.clearAt = clearAt;
+        this.predicate = predicate;
+        this.forDuration = forDuration;
+        this.repeatEvery = repeatEvery;
         this.message = message;
     }
 
+    public static Builder exact(String metricName) { return new Builder(Match.EXACT, metricName); }
+    public static Builder prefix(String prefix) { return new Builder(Match.PREFIX, prefix); }
+    public static Builder pattern(String pattern) { return new Builder(Match.PATTERN, pattern); }
+
+    public Match getMatch() { return match; }
+    // The name, prefix or pattern, depending on getMatch()
     public String getMetricName() { return metricName; }
-    public Predicate<Double> getThreshold() { return threshold; }
+    public Predicate<Double> getThreshold() { return direction == Direction.PREDICATE ? predicate : this::fires; }
     public String getMessage() { return message; }
-}
\ No newline at end of file
+    public Duration getForDuration() { return forDuration; }
+    public Duration getRepeatInterval() { return repeatEvery; }
+
+    public boolean fires(double value) {
+        switch (direction) {
+            case ABOVE: return value > fireAt;
+            case BELOW: return value < fireAt;
+            default: return predicate.test(value);
+        }
+    }
+
+    // Whether a firing alert resolves at value
+    public boolean clears(double value) {
+        switch (direction) {
+            case ABOVE: return value <= clearAt;
+            case BELOW: return value >= clearAt;
+            default: return !predicate.test(value);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return describe(match, metricName, direction, fireAt);
+    }
+
+    private static String requireName(String metricName) {
+        if (metricName == null) throw new IllegalArgumentException("metric name is null");
+        return metricName;
+    }
+
+    private static String describe(Match match, String metricName, Direction direction, double fireAt) {
+        String condition = direction == Direction.ABOVE ? "> " + fireAt : direction == Direction.BELOW ? "< " + fireAt : "matches";
+        return match + " " + metricName + " " + condition;
+    }
+
+    public static final class Builder {
+        private final Match match;
+        private final String metricName;
+        private Direction direction;
+        private double fireAt = Double.NaN, clearAt = Double.NaN;
+        private Predicate<Double> predicate;
+        private Duration forDuration = Duration.ZERO, repeatEvery = Duration.ZERO;
+        private String message;
+
+        private Builder(Match match, String metricName) {
+            this.match = match;
+            this.metricName = requireName(metricName);
+        }
+
+        public Builder above(double threshold) { return condition(Direction.ABOVE, threshold, null); }
+        public Builder below(double threshold) { return condition(Direction.BELOW, threshold, null); }
+        // Any condition; it clears as soon as it no longer holds
+        public Builder when(Predicate<Double> threshold) { return condition(Direction.PREDICATE, Double.NaN, threshold); }
+
+        // Hysteresis: a firing alert clears only at this value (by default at the threshold)
+        public Builder clearAt(double value) {
+            this.clearAt = value;
+            return this;
+        }
+
+        public Builder forDuration(Duration duration) {
+            this.forDuration = nonNegative(duration, "for-duration");
+            return this;
+        }
+
+        public Builder repeatEvery(Duration interval) {
+            this.repeatEvery = nonNegative(interval, "repeat interval");
+            return this;
+        }
+
+        public Builder message(String message) {
+            this.message = message;
+            return this;
+        }
+
+        public AlertConfig build() {
+            if (direction == null) throw new IllegalStateException("no condition for " + metricName);
+            double clear = Double.isNaN(clearAt) ? fireAt : clearAt;
+            if (direction == Direction.PREDICATE && !Double.isNaN(clearAt)) {
+                throw new IllegalStateException("clearAt needs an above() or below() threshold: " + metricName);
+            }
+            if ((direction == Direction.ABOVE && clear > fireAt) || (direction == Direction.BELOW && clear < fireAt)) {
+                throw new IllegalStateException("clearAt " + clear + " is on the firing side of " + fireAt + ": " + metricName);
+            }
+            return new AlertConfig(match, metricName, direction, fireAt, clear, predicate, forDuration,
+                    repeatEvery, message != null ? message : describe(match, metricName, direction, fireAt));
+        }
+
+        private Builder condition(Direction direction, double threshold, Predicate<Double> predicate) {
+            if (direction != Direction.PREDICATE && Double.isNaN(threshold)) throw new IllegalArgumentException("threshold is NaN");
+            if (direction == Direction.PREDICATE && predicate == null) throw new IllegalArgumentException("threshold is null");
+            this.direction = direction;
+            this.fireAt = threshold;
+            this.predicate = predicate;
+            return this;
+        }
+
+        private static Duration nonNegative(Duration d, String what) {
+            if (d.isNegative()) throw new IllegalArgumentException(what + " must not be negative: " + d);
+            return d;
+        }
+    }
+}
@@ -23,6 +23,14 @@ public class Event {
         this.value = value;
     }
 
+    // Restores a stored event with its original id
+    public Event(String id, LocalDateTime timestamp, String type, Double value) {
+        this.id = id;
+        this.timestamp = timestamp;
+        this.type = type;
+        this.value = value;
+    }
+
     public String getId() { return id; }
     public LocalDateTime getTimestamp() { return timestamp; }
     public String getType() { return type; }
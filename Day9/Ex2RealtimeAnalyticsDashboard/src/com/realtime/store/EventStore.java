@@ -1,42 +1,203 @@
 package com.realtime.store;
 
 import com.realtime.model.Event;
-import com.realtime.model.HistoricalRecord;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
+// Time-partitioned event store. Events go into the segment of their time slice (1 second by
+// default), stored as primitive columns (see Segment); segments sit in a skip list keyed by slice
+// start, so a window query finds its segments in O(log n) and checks timestamps only in the two
+// slices at its edges. cleanupOldEvents() expires whole segments: they move into history packed as
+// HistoryBlocks, which are dropped after HISTORY_RETENTION.
+// Timestamps are LocalDateTimes, handled as epoch nanos in UTC. Windows exclude both ends.
 public class EventStore {
+    public static final Duration HISTORY_RETENTION = Duration.ofDays(30);
+    private static final int SEGMENT_CAPACITY = 256;
+
+    private final long segmentNanos;
     // Lưu trữ tạm thời cho các tính toán cửa sổ trượt
-    private final CopyOnWriteArrayList<Event> recentEvents = new CopyOnWriteArrayList<>();
-    // Lưu trữ lịch sử (dạng String đơn giản)
-    private final CopyOnWriteArrayList<HistoricalRecord> history = new CopyOnWriteArrayList<>();
+    private final ConcurrentSkipListMap<Long, Segment> segments = new ConcurrentSkipListMap<>();
+    // Lưu trữ lịch sử (dạng nhị phân gọn)
+    private final ConcurrentSkipListMap<Long, HistoryBlock> history = new ConcurrentSkipListMap<>();
+    // Event types as small ints
+    private final ConcurrentHashMap<String, Integer> typeIds = new ConcurrentHashMap<>();
+    private volatile String[] typeNames = new String[0];
+
+    // Called for each event of a window, without building Event objects
+    public interface EventVisitor {
+        void visit(long epochNanos, int typeId, double value, boolean hasValue);
+    }
+
+    public EventStore() {
+        this(Duration.ofSeconds(1));
+    }
+
+    public EventStore(Duration segmentLength) {
+        if (segmentLength.isNegative() || segmentLength.isZero()) {
+            throw new IllegalArgumentException("segment length must be positive: " + segmentLength);
+        }
+        this.segmentNanos = segmentLength.toNanos();
+    }
 
     public void ingestEvent(Event event) {
-        recentEvents.add(event);
-        // Store raw event as historical record (dùng toSimpleString())
-        history.add(new HistoricalRecord(event.getTimestamp(), "Event", event.toSimpleString()));
+        long time = epochNanos(event.getTimestamp());
+        String id = Objects.requireNonNull(event.getId(), "event id");
+        UUID uuid = isUuid(id) ? UUID.fromString(id) : null;
+        long high = uuid != null ? uuid.getMostSignificantBits() : 0, low = uuid != null ? uuid.getLeastSignificantBits() : 0;
+        String other = uuid != null ? null : id;
+        int type = typeId(event.getType());
+        long key = Math.floorDiv(time, segmentNanos) * segmentNanos;
+        while (true) {
+            Segment segment = segments.get(key);
+            if (segment == null) segment = segments.computeIfAbsent(key, k -> new Segment(k, SEGMENT_CAPACITY));
+            if (segment.add(time, high, low, other, type, event.getValue())) return;
+            segments.remove(key, segment); // sealed by a concurrent cleanup: start a new one
+        }
     }
 
     public Stream<Event> getEventsInWindow(LocalDateTime start, LocalDateTime end) {
-        // Stream filters on the concurrent list for sliding window calculation
-        return recentEvents.stream()
-                .filter(event -> event.getTimestamp().isAfter(start) && event.getTimestamp().isBefore(end));
+        long lo = epochNanos(start) + 1, hi = epochNanos(end);
+        return views(segments, lo, hi).stream().flatMap(v -> rows(v, lo, hi).mapToObj(i -> toEvent(v, i)));
+    }
+
+    public long countInWindow(LocalDateTime start, LocalDateTime end) {
+        long lo = epochNanos(start) + 1, hi = epochNanos(end);
+        long count = 0;
+        for (Segment s : window(segments, lo, hi).values()) {
+            if (covers(s.start, lo, hi)) count += s.size();
+            else count += rows(s.view(), lo, hi).count();
+        }
+        return count;
+    }
+
+    public void forEachInWindow(LocalDateTime start, LocalDateTime end, EventVisitor visitor) {
+        long lo = epochNanos(start) + 1, hi = epochNanos(end);
+        for (Segment.View v : views(segments, lo, hi)) {
+            boolean all = covers(v.start, lo, hi);
+            for (int i = 0; i < v.count; i++) {
+                if (all || (v.times[i] >= lo && v.times[i] < hi)) visitor.visit(v.times[i], v.types[i], v.values[i], v.hasValue(i));
+            }
+        }
+    }
+
+    // Expired and recent events in the window, oldest slices first
+    public Stream<Event> getHistory(LocalDateTime start, LocalDateTime end) {
+        long lo = epochNanos(start) + 1, hi = epochNanos(end);
+        List<Segment.View> views = new ArrayList<>();
+        for (HistoryBlock b : window(history, lo, hi).values()) if (b.maxTime >= lo && b.minTime < hi) views.add(b.decode());
+        views.addAll(views(segments, lo, hi));
+        return views.stream().flatMap(v -> rows(v, lo, hi).mapToObj(i -> toEvent(v, i)));
     }
 
     public void cleanupOldEvents(LocalDateTime cutoff) {
-        // Lọc và xóa các bản ghi cũ từ recentEvents
-        List<Event> toRemove = recentEvents.stream()
-                .filter(event -> event.getTimestamp().isBefore(cutoff))
-                .collect(Collectors.toList());
-        recentEvents.removeAll(toRemove);
+        long cut = epochNanos(cutoff);
+        // Segments whose whole slice is before the cutoff move to history
+        long moved = 0;
+        for (Map.Entry<Long, Segment> e : segments.headMap(Math.floorDiv(cut, segmentNanos) * segmentNanos).entrySet()) {
+            Segment.View v = e.getValue().seal();
+            segments.remove(e.getKey(), e.getValue());
+            if (v.count > 0) history.merge(e.getKey(), HistoryBlock.encode(v), HistoryBlock::concat);
+            moved += v.count;
+        }
 
-        System.out.printf("Cleaned up %d old events from recent storage.%n", toRemove.size());
+        System.out.printf("Cleaned up %d old events from recent storage.%n", moved);
 
         // Cleanup history (tương thích ngược)
-        history.removeIf(record -> record.getTimestamp().isBefore(cutoff.minusDays(30)));
+        long historyCut = epochNanos(cutoff.minusDays(HISTORY_RETENTION.toDays()));
+        history.headMap(Math.floorDiv(historyCut, segmentNanos) * segmentNanos).clear();
+    }
+
+    public long size() {
+        return segments.values().stream().mapToLong(Segment::size).sum();
+    }
+
+    public long historySize() {
+        return history.values().stream().mapToLong(b -> b.count).sum();
+    }
+
+    public long historyBytes() {
+        return history.values().stream().mapToLong(HistoryBlock::byteSize).sum();
+    }
+
+    // Dictionary id of an event type, assigned on first use
+    public int typeId(String type) {
+        Integer id = typeIds.get(type);
+        if (id != null) return id;
+        synchronized (typeIds) {
+            id = typeIds.get(type);
+            if (id == null) {
+                id = typeNames.length;
+                String[] names = Arrays.copyOf(typeNames, id + 1);
+                names[id] = type;
+                typeNames = names; // published before the id can be seen
+                typeIds.put(type, id);
+            }
+            return id;
+        }
+    }
+
+    public String typeName(int typeId) { return typeNames[typeId]; }
+
+    public static long epochNanos(LocalDateTime time) {
+        return time.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + time.getNano();
+    }
+
+    public static LocalDateTime toDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochNanos, 1_000_000_000L),
+                (int) Math.floorMod(epochNanos, 1_000_000_000L), ZoneOffset.UTC);
+    }
+
+    // Whether id is a UUID in the form UUID.toString() gives back, so it can be stored as two longs
+    // and still read back unchanged. Any other id (names, upper case, other lengths) is kept as is.
+    static boolean isUuid(String id) {
+        if (id.length() != 36) return false;
+        for (int i = 0; i < 36; i++) {
+            char c = id.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') return false;
+            } else if ((c < '0' || c > '9') && (c < 'a' || c > 'f')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Slices overlapping [lo, hi)
+    private <V> NavigableMap<Long, V> window(ConcurrentSkipListMap<Long, V> map, long lo, long hi) {
+        if (lo >= hi) return map.subMap(0L, true, 0L, false);
+        return map.subMap(Math.floorDiv(lo, segmentNanos) * segmentNanos, true, hi, false);
+    }
+
+    private List<Segment.View> views(ConcurrentSkipListMap<Long, Segment> map, long lo, long hi) {
+        List<Segment.View> views = new ArrayList<>();
+        for (Segment s : window(map, lo, hi).values()) views.add(s.view());
+        return views;
+    }
+
+    private boolean covers(long sliceStart, long lo, long hi) {
+        return sliceStart >= lo && sliceStart + segmentNanos <= hi;
+    }
+
+    private IntStream rows(Segment.View v, long lo, long hi) {
+        IntStream rows = IntStream.range(0, v.count);
+        return covers(v.start, lo, hi) ? rows : rows.filter(i -> v.times[i] >= lo && v.times[i] < hi);
+    }
+
+    private Event toEvent(Segment.View v, int row) {
+        return new Event(v.id(row), toDateTime(v.times[row]),
+                typeName(v.types[row]), v.hasValue(row) ? v.values[row] : null);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,126 @@
+package com.realtime.store;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+// An expired segment packed into one byte array, about 28 bytes per event instead of a formatted
+// JSON string: row count (varint), timestamps as zigzag varint deltas starting from the segment
+// start, type ids (varint), a null-value bitmap, the non-null values (8 bytes each), the ids
+// (16 bytes each) and then the ids that are not UUIDs: their count, and per id its row and its
+// UTF-8 bytes (varint length first). Decoded back into a Segment.View when history is read.
+final class HistoryBlock {
+    final long start;
+    final int count;
+    final long minTime, maxTime;
+    private final byte[] bytes;
+
+    private HistoryBlock(long start, int count, long minTime, long maxTime, byte[] bytes) {
+        this.start = start;
+        this.count = count;
+        this.minTime = minTime;
+        this.maxTime = maxTime;
+        this.bytes = bytes;
+    }
+
+    static HistoryBlock encode(Segment.View v) {
+        int n = v.count, others = 0;
+        byte[][] otherIds = new byte[n][];
+        int otherBytes = 0;
+        for (int i = 0; i < n; i++) {
+            String other = v.otherId(i);
+            if (other == null) continue;
+            otherIds[i] = other.getBytes(StandardCharsets.UTF_8);
+            otherBytes += 10 + otherIds[i].length;
+            others++;
+        }
+        ByteBuffer out = ByteBuffer.allocate(10 + n * (10 + 5 + 8 + 16) + (n + 7) / 8 + otherBytes);
+        putVarLong(out, n);
+        long previous = v.start, min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (int i = 0; i < n; i++) {
+            long t = v.times[i], delta = t - previous;
+            putVarLong(out, (delta << 1) ^ (delta >> 63));
+            previous = t;
+            min = Math.min(min, t);
+            max = Math.max(max, t);
+        }
+        for (int i = 0; i < n; i++) putVarLong(out, v.types[i]);
+        byte[] nullBits = new byte[(n + 7) / 8];
+        for (int i = 0; i < n; i++) if (!v.hasValue(i)) nullBits[i >>> 3] |= (byte) (1 << (i & 7));
+        out.put(nullBits);
+        for (int i = 0; i < n; i++) if (v.hasValue(i)) out.putDouble(v.values[i]);
+        for (int i = 0; i < n; i++) out.putLong(v.idHigh[i]).putLong(v.idLow[i]);
+        putVarLong(out, others);
+        for (int i = 0; i < n; i++) {
+            if (otherIds[i] == null) continue;
+            putVarLong(out, i);
+            putVarLong(out, otherIds[i].length);
+            out.put(otherIds[i]);
+        }
+        return new HistoryBlock(v.start, n, min, max, Arrays.copyOf(out.array(), out.position()));
+    }
+
+    Segment.View decode() {
+        ByteBuffer in = ByteBuffer.wrap(bytes);
+        int n = (int) getVarLong(in);
+        long[] times = new long[n], idHigh = new long[n], idLow = new long[n], nulls = new long[(n + 63) >>> 6];
+        int[] types = new int[n];
+        double[] values = new double[n];
+        long previous = start;
+        for (int i = 0; i < n; i++) {
+            long zigzag = getVarLong(in);
+            times[i] = previous += (zigzag >>> 1) ^ -(zigzag & 1);
+        }
+        for (int i = 0; i < n; i++) types[i] = (int) getVarLong(in);
+        byte[] nullBits = new byte[(n + 7) / 8];
+        in.get(nullBits);
+        for (int i = 0; i < n; i++) {
+            if ((nullBits[i >>> 3] & (1 << (i & 7))) != 0) nulls[i >>> 6] |= 1L << i;
+            else values[i] = in.getDouble();
+        }
+        for (int i = 0; i < n; i++) {
+            idHigh[i] = in.getLong();
+            idLow[i] = in.getLong();
+        }
+        int others = (int) getVarLong(in);
+        String[] otherIds = others == 0 ? null : new String[n];
+        for (int k = 0; k < others; k++) {
+            int row = (int) getVarLong(in);
+            byte[] utf8 = new byte[(int) getVarLong(in)];
+            in.get(utf8);
+            otherIds[row] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return new Segment.View(start, n, times, idHigh, idLow, otherIds, types, values, nulls);
+    }
+
+    int byteSize() { return bytes.length; }
+
+    // Two blocks of the same slice, e.g. when late events for an expired slice expire in turn.
+    static HistoryBlock concat(HistoryBlock a, HistoryBlock b) {
+        Segment.View x = a.decode(), y = b.decode();
+        Segment merged = new Segment(a.start, Math.max(1, x.count + y.count));
+        for (Segment.View v : new Segment.View[] {x, y}) {
+            for (int i = 0; i < v.count; i++) {
+                merged.add(v.times[i], v.idHigh[i], v.idLow[i], v.otherId(i), v.types[i], v.hasValue(i) ? v.values[i] : null);
+            }
+        }
+        return encode(merged.view());
+    }
+
+    private static void putVarLong(ByteBuffer out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.put((byte) v);
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) return v;
+        }
+    }
+}
@@ -6,6 +6,7 @@ import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.List;
+import java.util.function.ObjDoubleConsumer;
 
 public class MetricStore {
     // Current (real-time) metrics
@@ -14,6 +15,8 @@ public class MetricStore {
     private final ConcurrentHashMap<String, Double> windowMetrics = new ConcurrentHashMap<>();
     // Historical metric data points
     public final CopyOnWriteArrayList<Metric> metricHistory = new CopyOnWriteArrayList<>(); // public for DashboardAPI access
+    // Called with (name, value) when a window metric changes, e.g. by the AlertingEngine
+    private final List<ObjDoubleConsumer<String>> windowMetricListeners = new CopyOnWriteArrayList<>();
 
     public void updateRealTimeCount(String metricName, long count) {
         realTimeCounts.merge(metricName, count, Long::sum);
@@ -21,8 +24,15 @@ public class MetricStore {
     }
 
     public void updateWindowMetric(String metricName, double value) {
-        windowMetrics.put(metricName, value);
+        Double previous = windowMetrics.put(metricName, value);
         metricHistory.add(new Metric("AVG_" + metricName, value));
+        if (previous == null || Double.compare(previous, value) != 0) {
+            for (ObjDoubleConsumer<String> listener : windowMetricListeners) listener.accept(metricName, value);
+        }
+    }
+
+    public void addWindowMetricListener(ObjDoubleConsumer<String> listener) {
+        windowMetricListeners.add(listener);
     }
 
     // For Dashboard API
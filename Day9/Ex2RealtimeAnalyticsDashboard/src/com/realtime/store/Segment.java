@@ -0,0 +1,105 @@
+package com.realtime.store;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+// The events of one time slice [start, start + length), in arrival order, as primitive columns:
+// epoch nanos, the two halves of the UUID id, type id (EventStore's dictionary), value and a
+// null-value bitmap. An id that is not a UUID goes in a string column instead, allocated with the
+// first such id. Writers append under the lock; readers take a View (the arrays and the row
+// count) under the lock and read it without one: rows below the count are never written again, and
+// growing copies into new arrays.
+final class Segment {
+    final long start;
+    private long[] times, idHigh, idLow, nulls;
+    private String[] otherIds; // null while every id is a UUID
+    private int[] types;
+    private double[] values;
+    private int count;
+    private boolean sealed;
+
+    Segment(long start, int capacity) {
+        this.start = start;
+        times = new long[capacity];
+        idHigh = new long[capacity];
+        idLow = new long[capacity];
+        types = new int[capacity];
+        values = new double[capacity];
+        nulls = new long[(capacity + 63) >>> 6];
+    }
+
+    // false once the segment has been sealed for expiry; the caller then starts a new one
+    // otherId: the id if it is not a UUID (high and low are then ignored), else null
+    synchronized boolean add(long time, long high, long low, String otherId, int type, Double value) {
+        if (sealed) return false;
+        if (count == times.length) grow();
+        times[count] = time;
+        idHigh[count] = high;
+        idLow[count] = low;
+        if (otherId != null) {
+            if (otherIds == null) otherIds = new String[times.length];
+            otherIds[count] = otherId;
+        }
+        types[count] = type;
+        if (value == null) nulls[count >>> 6] |= 1L << count;
+        else values[count] = value;
+        count++;
+        return true;
+    }
+
+    // After this no row is added, so the returned view is the segment's final content
+    synchronized View seal() {
+        sealed = true;
+        return view();
+    }
+
+    synchronized View view() {
+        return new View(start, count, times, idHigh, idLow, otherIds, types, values, nulls);
+    }
+
+    synchronized int size() { return count; }
+
+    private void grow() {
+        int capacity = times.length * 2;
+        times = Arrays.copyOf(times, capacity);
+        idHigh = Arrays.copyOf(idHigh, capacity);
+        idLow = Arrays.copyOf(idLow, capacity);
+        if (otherIds != null) otherIds = Arrays.copyOf(otherIds, capacity);
+        types = Arrays.copyOf(types, capacity);
+        values = Arrays.copyOf(values, capacity);
+        nulls = Arrays.copyOf(nulls, (capacity + 63) >>> 6);
+    }
+
+    // Stable rows [0, count) of a segment (or of a decoded history block).
+    static final class View {
+        final long start;
+        final int count;
+        final long[] times, idHigh, idLow;
+        final String[] otherIds; // may be null
+        final int[] types;
+        final double[] values;
+        private final long[] nulls;
+
+        View(long start, int count, long[] times, long[] idHigh, long[] idLow, String[] otherIds, int[] types, double[] values, long[] nulls) {
+            this.start = start;
+            this.count = count;
+            this.times = times;
+            this.idHigh = idHigh;
+            this.idLow = idLow;
+            this.otherIds = otherIds;
+            this.types = types;
+            this.values = values;
+            this.nulls = nulls;
+        }
+
+        boolean hasValue(int row) { return (nulls[row >>> 6] & (1L << row)) == 0; }
+
+        // The id not held as a UUID, or null
+        String otherId(int row) { return otherIds == null ? null : otherIds[row]; }
+
+        String id(int row) {
+            String other = otherId(row);
+            return other != null ? other : new UUID(idHigh[row], idLow[row]).toString();
+        }
+    }
+}